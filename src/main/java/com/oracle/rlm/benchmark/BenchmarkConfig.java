@@ -0,0 +1,47 @@
+package com.oracle.rlm.benchmark;
+
+import com.oracle.rlm.config.ChatModelProviders;
+import com.oracle.rlm.core.RlmClient;
+import com.oracle.rlm.core.RlmEnvironmentStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.List;
+
+/**
+ * Profile "benchmark": runs the step-efficiency suite at startup with deterministic models and
+ * fails the run when steps, model calls or tokens regress past the baseline.
+ */
+@Slf4j
+@Configuration
+@Profile("benchmark")
+@EnableConfigurationProperties(BenchmarkProperties.class)
+public class BenchmarkConfig {
+
+    @Bean(ChatModelProviders.OFFLINE_MODEL)
+    public SwitchableChatModel benchmarkChatModel() {
+        return new SwitchableChatModel();
+    }
+
+    @Bean
+    public ApplicationRunner benchmarkRun(BenchmarkProperties properties, RlmClient rlmClient,
+                                          RlmEnvironmentStore environmentStore, SwitchableChatModel benchmarkChatModel) {
+        return args -> {
+            List<String> regressions = new BenchmarkRunner(properties, rlmClient, environmentStore,
+                    benchmarkChatModel).run();
+            if (regressions.isEmpty()) {
+                log.info("Benchmark passed");
+                return;
+            }
+            regressions.forEach(regression -> log.error("Benchmark regression: {}", regression));
+            if (properties.isFailOnRegression()) {
+                throw new IllegalStateException(regressions.size() + " step-efficiency regression(s): "
+                        + String.join("; ", regressions));
+            }
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package com.oracle.rlm.benchmark;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the "benchmark" profile.
+ */
+@ConfigurationProperties(prefix = "rlm.benchmark")
+@Data
+public class BenchmarkProperties {
+
+    /**
+     * Task definitions (JSON array of BenchmarkTask); relative context files are resolved against
+     * its directory. The suite's data lives outside the application classpath, in benchmark/
+     */
+    private String tasks = "benchmark/tasks.json";
+
+    /**
+     * Baseline to compare with, and to write with updateBaseline
+     */
+    private String baseline = "benchmark/baseline.json";
+
+    /**
+     * Write this run's figures to the baseline file instead of comparing
+     */
+    private boolean updateBaseline = false;
+
+    /**
+     * Allowed growth of steps, model calls, prompt tokens, depth and parse fallbacks
+     */
+    private double tolerancePercent = 5;
+
+    /**
+     * Allowed growth of wall time (less deterministic: processes, disk), plus wallTimeSlackMs
+     */
+    private double wallTimeTolerancePercent = 100;
+    private long wallTimeSlackMs = 1000;
+
+    /**
+     * Replay this recorded trace (see rlm.trace) for every task instead of the task scripts
+     */
+    private String replayTrace = "";
+
+    /**
+     * Where the per-task results are written (parent directories are created); empty for log only
+     */
+    private String reportFile = "target/benchmark-report.json";
+
+    /**
+     * Exit with status 1 when a figure regresses past its threshold
+     */
+    private boolean failOnRegression = true;
+}
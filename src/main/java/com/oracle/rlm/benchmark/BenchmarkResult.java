@@ -0,0 +1,39 @@
+package com.oracle.rlm.benchmark;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Step-efficiency figures of one task; the baseline file holds one per task.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BenchmarkResult {
+
+    /**
+     * Steps of the whole tree, children included
+     */
+    private long steps;
+
+    private long llmCalls;
+
+    /**
+     * Estimated as characters / 4 over system and user prompts
+     */
+    private long promptTokens;
+
+    private long recursionDepth;
+
+    /**
+     * Responses that were not valid step JSON and went through the heuristic fallback
+     */
+    private long parseFallbacks;
+
+    private long wallMs;
+
+    private boolean finished;
+}
@@ -0,0 +1,201 @@
+package com.oracle.rlm.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.oracle.rlm.core.RlmClient;
+import com.oracle.rlm.core.RlmCompletionRequest;
+import com.oracle.rlm.core.RlmCompletionResult;
+import com.oracle.rlm.core.RlmEnvironmentStore;
+import com.oracle.rlm.loadtest.LatencyDistribution;
+import com.oracle.rlm.loadtest.ScriptedChatModel;
+import com.oracle.rlm.trace.ReplayChatModel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Runs the step-efficiency suite: every task goes through {@link RlmClient} with a deterministic
+ * model (the task's script, or a recorded trace), and its steps, model calls, prompt tokens,
+ * depth, parse fallbacks and wall time are compared with the baseline.
+ */
+@Slf4j
+public class BenchmarkRunner {
+
+    private static final String CLASSPATH = "classpath:";
+
+    private final BenchmarkProperties properties;
+    private final RlmClient rlmClient;
+    private final RlmEnvironmentStore environmentStore;
+    private final SwitchableChatModel model;
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    public BenchmarkRunner(BenchmarkProperties properties, RlmClient rlmClient,
+                           RlmEnvironmentStore environmentStore, SwitchableChatModel model) {
+        this.properties = properties;
+        this.rlmClient = rlmClient;
+        this.environmentStore = environmentStore;
+        this.model = model;
+    }
+
+    /**
+     * Run all tasks and return the regressions against the baseline (empty when there are none,
+     * or when the baseline is being updated).
+     */
+    public List<String> run() throws IOException {
+        List<BenchmarkTask> tasks = objectMapper.readValue(read(properties.getTasks()), new TypeReference<>() {});
+        ReplayChatModel replay = properties.getReplayTrace().isBlank() ? null
+                : ReplayChatModel.load(Path.of(properties.getReplayTrace()), ReplayChatModel.Latency.ZERO,
+                        ReplayChatModel.Miss.SEQUENTIAL);
+
+        Map<String, BenchmarkResult> results = new LinkedHashMap<>();
+        for (BenchmarkTask task : tasks) {
+            results.put(task.getName(), runTask(task, replay));
+        }
+        if (properties.getReportFile() != null && !properties.getReportFile().isBlank()) {
+            Path report = Path.of(properties.getReportFile());
+            if (report.getParent() != null) {
+                Files.createDirectories(report.getParent());
+            }
+            objectMapper.writeValue(report.toFile(), results);
+        }
+
+        if (properties.isUpdateBaseline()) {
+            objectMapper.writeValue(Path.of(properties.getBaseline()).toFile(), results);
+            log.info("Benchmark baseline written to {}", properties.getBaseline());
+            return List.of();
+        }
+        Map<String, BenchmarkResult> baseline = loadBaseline();
+        if (baseline == null) {
+            log.warn("No benchmark baseline at {}; run with rlm.benchmark.update-baseline=true to create one",
+                    properties.getBaseline());
+            return List.of();
+        }
+        return compare(results, baseline);
+    }
+
+    private BenchmarkResult runTask(BenchmarkTask task, ReplayChatModel replay) throws IOException {
+        ChatModel taskModel;
+        if (replay != null) {
+            taskModel = replay;
+        } else if (!task.getScript().isEmpty()) {
+            taskModel = new ScriptedChatModel(task.getScript().stream().map(ScriptedChatModel.Action::parse).toList(),
+                    LatencyDistribution.parse("0"));
+        } else {
+            throw new IllegalArgumentException("Benchmark task " + task.getName()
+                    + " has no script and no replay trace is configured");
+        }
+        model.use(taskModel);
+
+        String context = task.getContextFile() != null ? read(contextLocation(task.getContextFile())) : task.getContext();
+        long start = System.nanoTime();
+        RlmCompletionResult completion = rlmClient.completion(RlmCompletionRequest.builder()
+                .query(task.getProblem())
+                .inlineContext(context)
+                .maxDepth(task.getMaxDepth())
+                .maxBranching(task.getMaxBranching())
+                .build());
+        long wallMs = (System.nanoTime() - start) / 1_000_000;
+
+        Map<String, Object> metadata = completion.getMetadata();
+        Object environmentId = metadata.get("environmentId");
+        if (environmentId != null) {
+            environmentStore.deleteEnvironment(environmentId.toString());
+        }
+        BenchmarkResult result = BenchmarkResult.builder()
+                .steps(completion.getTotalSteps())
+                .llmCalls(number(metadata.get("llmCalls")))
+                .promptTokens(number(metadata.get("promptTokens")))
+                .recursionDepth(completion.getMaxDepthReached())
+                .parseFallbacks(number(metadata.get("parseFallbacks")))
+                .wallMs(wallMs)
+                .finished(!Boolean.TRUE.equals(metadata.get("deadlineReached"))
+                        && completion.getFinalAnswer() != null
+                        && !completion.getFinalAnswer().startsWith("Maximum steps reached")
+                        && !completion.getFinalAnswer().startsWith("Stopped after repeating"))
+                .build();
+        log.info("Benchmark {}: steps={} llmCalls={} promptTokens={} depth={} parseFallbacks={} wallMs={}",
+                task.getName(), result.getSteps(), result.getLlmCalls(), result.getPromptTokens(),
+                result.getRecursionDepth(), result.getParseFallbacks(), result.getWallMs());
+        return result;
+    }
+
+    private List<String> compare(Map<String, BenchmarkResult> results, Map<String, BenchmarkResult> baseline) {
+        List<String> regressions = new ArrayList<>();
+        double tolerance = properties.getTolerancePercent();
+        results.forEach((name, result) -> {
+            BenchmarkResult base = baseline.get(name);
+            if (base == null) {
+                log.warn("Benchmark {} has no baseline entry", name);
+                return;
+            }
+            if (base.isFinished() && !result.isFinished()) {
+                regressions.add(name + ": no longer finishes");
+            }
+            check(regressions, name, "steps", result, base, BenchmarkResult::getSteps, tolerance, 0);
+            check(regressions, name, "llmCalls", result, base, BenchmarkResult::getLlmCalls, tolerance, 0);
+            check(regressions, name, "promptTokens", result, base, BenchmarkResult::getPromptTokens, tolerance, 0);
+            check(regressions, name, "recursionDepth", result, base, BenchmarkResult::getRecursionDepth, tolerance, 0);
+            check(regressions, name, "parseFallbacks", result, base, BenchmarkResult::getParseFallbacks, tolerance, 0);
+            check(regressions, name, "wallMs", result, base, BenchmarkResult::getWallMs,
+                    properties.getWallTimeTolerancePercent(), properties.getWallTimeSlackMs());
+        });
+        return regressions;
+    }
+
+    private static void check(List<String> regressions, String task, String metric, BenchmarkResult result,
+                              BenchmarkResult base, ToLongFunction<BenchmarkResult> figure,
+                              double tolerancePercent, long slack) {
+        long value = figure.applyAsLong(result);
+        long expected = figure.applyAsLong(base);
+        long limit = (long) Math.floor(expected * (1 + tolerancePercent / 100.0)) + slack;
+        if (value > limit) {
+            regressions.add(String.format("%s: %s %d > %d (baseline %d)", task, metric, value, limit, expected));
+        } else if (value < expected && slack == 0) {
+            log.info("Benchmark {}: {} improved {} -> {}; consider updating the baseline", task, metric, expected, value);
+        }
+    }
+
+    private Map<String, BenchmarkResult> loadBaseline() throws IOException {
+        String location = properties.getBaseline();
+        if (!Files.exists(Path.of(location))) {
+            return null;
+        }
+        log.info("Comparing with benchmark baseline {}", location);
+        return objectMapper.readValue(read(location), new TypeReference<>() {});
+    }
+
+    // Relative context files sit next to the tasks file
+    private String contextLocation(String contextFile) {
+        if (contextFile.startsWith(CLASSPATH) || properties.getTasks().startsWith(CLASSPATH)
+                || Path.of(contextFile).isAbsolute()) {
+            return contextFile;
+        }
+        Path tasksDir = Path.of(properties.getTasks()).getParent();
+        return tasksDir == null ? contextFile : tasksDir.resolve(contextFile).toString();
+    }
+
+    private static String read(String location) throws IOException {
+        if (location.startsWith(CLASSPATH)) {
+            try (InputStream in = new ClassPathResource(location.substring(CLASSPATH.length())).getInputStream()) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+        return Files.readString(Path.of(location));
+    }
+
+    private static long number(Object value) {
+        return value instanceof Number n ? n.longValue() : 0;
+    }
+}
@@ -0,0 +1,35 @@
+package com.oracle.rlm.benchmark;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One fixed task of the step-efficiency suite.
+ */
+@Data
+public class BenchmarkTask {
+
+    private String name;
+    private String problem;
+
+    /**
+     * Inline context; ignored when contextFile is set
+     */
+    private String context;
+
+    /**
+     * Context file: a path, relative to the tasks file unless absolute, or "classpath:..."
+     */
+    private String contextFile;
+
+    private int maxDepth = 2;
+    private int maxBranching = 2;
+
+    /**
+     * Steps answered by the scripted model (see ScriptedChatModel.Action); not used when the suite
+     * replays a recorded trace
+     */
+    private List<String> script = new ArrayList<>();
+}
@@ -0,0 +1,28 @@
+package com.oracle.rlm.benchmark;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Offline model of the benchmark profile: forwards to the model of the task being run.
+ */
+public class SwitchableChatModel implements ChatModel {
+
+    private final AtomicReference<ChatModel> delegate = new AtomicReference<>();
+
+    public void use(ChatModel model) {
+        delegate.set(model);
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        ChatModel model = delegate.get();
+        if (model == null) {
+            throw new IllegalStateException("No benchmark task is running");
+        }
+        return model.call(prompt);
+    }
+}
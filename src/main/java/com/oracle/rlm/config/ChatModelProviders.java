@@ -0,0 +1,109 @@
+package com.oracle.rlm.config;
+
+import com.oracle.rlm.trace.ChatTraceRecorder;
+import com.oracle.rlm.trace.RecordingChatModel;
+import jakarta.annotation.PostConstruct;
+import org.springframework.ai.anthropic.AnthropicChatModel;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.google.genai.GoogleGenAiChatModel;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Looks up the configured provider ChatModels by name ("openai", "anthropic", "google").
+ *
+ * <p>A ChatModel bean named {@value #OFFLINE_MODEL} (e.g. trace replay) stands in for every
+ * provider. With a {@link ChatTraceRecorder} bean, provider models are wrapped so their calls are
+ * recorded. Startup fails when no provider is configured at all.
+ */
+@Component
+public class ChatModelProviders {
+
+    public static final String OPENAI = "openai";
+    public static final String ANTHROPIC = "anthropic";
+    public static final String GOOGLE = "google";
+
+    /**
+     * Bean name of a model that replaces all providers.
+     */
+    public static final String OFFLINE_MODEL = "offlineChatModel";
+
+    private final ObjectProvider<OpenAiChatModel> openAiProvider;
+    private final ObjectProvider<AnthropicChatModel> anthropicProvider;
+    private final ObjectProvider<GoogleGenAiChatModel> googleProvider;
+    private final ObjectProvider<ChatModel> offlineProvider;
+    private final ObjectProvider<ChatTraceRecorder> recorderProvider;
+    private final Map<String, ChatModel> recording = new ConcurrentHashMap<>();
+
+    public ChatModelProviders(ObjectProvider<OpenAiChatModel> openAiProvider,
+                              ObjectProvider<AnthropicChatModel> anthropicProvider,
+                              ObjectProvider<GoogleGenAiChatModel> googleProvider,
+                              @Qualifier(OFFLINE_MODEL) ObjectProvider<ChatModel> offlineProvider,
+                              ObjectProvider<ChatTraceRecorder> recorderProvider) {
+        this.openAiProvider = openAiProvider;
+        this.anthropicProvider = anthropicProvider;
+        this.googleProvider = googleProvider;
+        this.offlineProvider = offlineProvider;
+        this.recorderProvider = recorderProvider;
+    }
+
+    // Fail fast on a missing API key instead of on the first request
+    @PostConstruct
+    void requireProvider() {
+        if (available().isEmpty()) {
+            throw new IllegalStateException(
+                "No ChatModel bean available. Ensure at least one provider is configured "
+                + "(e.g., set spring.ai.openai.api-key/OPENAI_API_KEY or the relevant provider settings)."
+            );
+        }
+    }
+
+    /**
+     * The ChatModel for the given provider name, if that provider is configured.
+     */
+    public Optional<ChatModel> find(String provider) {
+        if (provider == null || provider.isBlank()) {
+            return Optional.empty();
+        }
+        String name = provider.trim().toLowerCase(Locale.ROOT);
+        ChatModel offline = offlineProvider.getIfAvailable();
+        if (offline != null) {
+            return Optional.of(offline);
+        }
+        Optional<ChatModel> model = switch (name) {
+            case OPENAI -> Optional.ofNullable(openAiProvider.getIfAvailable());
+            case ANTHROPIC -> Optional.ofNullable(anthropicProvider.getIfAvailable());
+            case GOOGLE, "google-genai", "gemini" -> Optional.ofNullable(googleProvider.getIfAvailable());
+            default -> Optional.empty();
+        };
+        ChatTraceRecorder recorder = recorderProvider.getIfAvailable();
+        if (recorder == null) {
+            return model;
+        }
+        return model.map(m -> recording.computeIfAbsent(name, n -> new RecordingChatModel(m, n, recorder)));
+    }
+
+    /**
+     * All configured providers in preference order: OpenAI, then Anthropic, then Google.
+     */
+    public Map<String, ChatModel> available() {
+        Map<String, ChatModel> models = new LinkedHashMap<>();
+        ChatModel offline = offlineProvider.getIfAvailable();
+        if (offline != null) {
+            models.put(OFFLINE_MODEL, offline);
+            return models;
+        }
+        find(OPENAI).ifPresent(m -> models.put(OPENAI, m));
+        find(ANTHROPIC).ifPresent(m -> models.put(ANTHROPIC, m));
+        find(GOOGLE).ifPresent(m -> models.put(GOOGLE, m));
+        return models;
+    }
+}
@@ -1,45 +1,35 @@
 package com.oracle.rlm.config;
 
-import org.springframework.ai.anthropic.AnthropicChatModel;
-import org.springframework.ai.chat.client.ChatClient;
+import com.oracle.rlm.trace.ChatTraceRecorder;
+import com.oracle.rlm.trace.ReplayChatModel;
 import org.springframework.ai.chat.model.ChatModel;
-import org.springframework.ai.google.genai.GoogleGenAiChatModel;
-import org.springframework.ai.openai.OpenAiChatModel;
-import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+import java.io.IOException;
+import java.nio.file.Path;
 
 @Configuration
 public class OpenAIConfig {
 
     /**
-     * Provide a single ChatClient.Builder bean by selecting the first available ChatModel.
-     * Prefer OpenAI, then Anthropic, then Google. If none are available, fail fast
-     * with a clear message (e.g., missing API key configuration).
+     * Profile "record": every provider call is also written to rlm.trace.file.
      */
     @Bean
-    @Primary
-    public ChatClient.Builder chatClientBuilder(
-            ObjectProvider<OpenAiChatModel> openAiProvider,
-            ObjectProvider<AnthropicChatModel> anthropicProvider,
-            ObjectProvider<GoogleGenAiChatModel> googleProvider) {
-
-        ChatModel model = openAiProvider.getIfAvailable();
-        if (model == null) {
-            model = anthropicProvider.getIfAvailable();
-        }
-        if (model == null) {
-            model = googleProvider.getIfAvailable();
-        }
-
-        if (model == null) {
-            throw new IllegalStateException(
-                "No ChatModel bean available. Ensure at least one provider is configured "
-                + "(e.g., set spring.ai.openai.api-key/OPENAI_API_KEY or the relevant provider settings)."
-            );
-        }
+    @Profile("record")
+    public ChatTraceRecorder chatTraceRecorder(RlmConfig rlmConfig) throws IOException {
+        return new ChatTraceRecorder(Path.of(rlmConfig.getTrace().getFile()), rlmConfig.getTrace().isRecordPrompts());
+    }
 
-        return ChatClient.builder(model);
+    /**
+     * Profile "replay": all providers are replaced by the responses recorded in rlm.trace.file,
+     * so runs need no network access or API keys.
+     */
+    @Bean(ChatModelProviders.OFFLINE_MODEL)
+    @Profile("replay")
+    public ChatModel replayChatModel(RlmConfig rlmConfig) throws IOException {
+        RlmConfig.Trace trace = rlmConfig.getTrace();
+        return ReplayChatModel.load(Path.of(trace.getFile()), trace.getReplayLatency(), trace.getOnMiss());
     }
 }
@@ -1,11 +1,22 @@
 package com.oracle.rlm.config;
 
+import com.oracle.rlm.routing.CallType;
+import com.oracle.rlm.trace.ReplayChatModel;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 @ConfigurationProperties(prefix = "rlm")
+@Validated
 @Data
 public class RlmConfig {
     
@@ -20,14 +31,47 @@ public class RlmConfig {
     private int maxBranching = 3;
     
     /**
-     * Timeout for each recursive call in seconds
+     * Default time limit for a whole completion (root loop plus all recursive calls) in seconds,
+     * used when the request carries no timeout of its own
      */
     private int timeoutSeconds = 30;
-    
+
+    /**
+     * When a loop has less than this many seconds left, the model is asked to answer immediately
+     */
+    private int answerNowSeconds = 20;
+
+    /**
+     * Fraction of a loop's remaining time kept back for itself when starting a recursive call
+     */
+    private double childTimeReserveFraction = 0.2;
+
+    /**
+     * Ask providers that support it (JSON schema response formats) to return step responses in the
+     * step schema; other models keep the prompt-only format and the parser's fallbacks
+     */
+    private boolean structuredOutput = true;
+
+    /**
+     * Most actions a model may batch into one step; further ones are dropped
+     */
+    private int maxActionsPerStep = 5;
+
     /**
-     * Enable caching of intermediate results
+     * Enable caching of intermediate results (model answers and context tool results) across
+     * requests; off by default
      */
-    private boolean enableCaching = true;
+    private boolean enableCaching = false;
+
+    /**
+     * Coalesce identical concurrent /solve requests into a single run
+     */
+    private boolean coalesceRequests = true;
+
+    /**
+     * How long a completed coalesced response stays servable to identical requests, in seconds
+     */
+    private int coalescingTtlSeconds = 10;
     
     /**
      * Temperature for decomposition steps
@@ -43,4 +87,370 @@ public class RlmConfig {
      * Temperature for aggregation steps
      */
     private double aggregationTemperature = 0.6;
+
+    /**
+     * Threads used to scan large contexts (context_grep, context_count, search); 0 = all cores
+     */
+    private int scanParallelism = 0;
+
+    /**
+     * Tool process execution
+     */
+    @Valid
+    private Execution execution = new Execution();
+
+    /**
+     * Content-addressed storage of environment contexts
+     */
+    private BlobStore blobStore = new BlobStore();
+
+    /**
+     * Model call traces for the "record" and "replay" profiles
+     */
+    private Trace trace = new Trace();
+
+    /**
+     * Stall detection and the adaptive step budget of each loop
+     */
+    private LoopGuard loopGuard = new LoopGuard();
+
+    @Data
+    public static class LoopGuard {
+
+        /**
+         * Off: every loop gets maxDepth * 10 steps and no interventions
+         */
+        private boolean enabled = true;
+
+        /**
+         * Steps a loop starts with
+         */
+        private int initialSteps = 12;
+
+        /**
+         * Upper bound of the budget however much progress a loop makes
+         */
+        private int maxSteps = 40;
+
+        /**
+         * After a productive step (success with new output or new files) at least this many steps
+         * remain, while the recent success rate is at least minSuccessRate
+         */
+        private int extensionSteps = 4;
+        private double minSuccessRate = 0.5;
+
+        /**
+         * Recent steps compared for repeated actions and errors
+         */
+        private int window = 6;
+
+        /**
+         * Repeats (identical action with identical result, identical error, or consecutive
+         * non-JSON responses) before a corrective hint is added to the prompt
+         */
+        private int hintAfter = 2;
+
+        /**
+         * Repeats before the model is told to finish; a tool call instead ends the loop
+         */
+        private int finishAfter = 3;
+    }
+
+    /**
+     * Per-step checkpoints of running completions, for resume after a timeout or restart
+     */
+    private Checkpoint checkpoint = new Checkpoint();
+
+    @Data
+    public static class Checkpoint {
+
+        private boolean enabled = true;
+
+        private String directory = "rlm_checkpoints";
+
+        /**
+         * On shutdown, wait this long for running completions to finish before stopping them at
+         * their next step (they stay resumable)
+         */
+        private int drainSeconds = 20;
+
+        /**
+         * Checkpoints of completed runs are kept this long, so a retry returns the stored answer;
+         * unfinished runs are kept until resumed
+         */
+        private int retainCompletedHours = 24;
+    }
+
+    @Data
+    public static class Trace {
+
+        /**
+         * Trace file; gzip-compressed when it ends in ".gz"
+         */
+        private String file = "rlm-trace.jsonl.gz";
+
+        /**
+         * Also keep prompt texts in the trace (larger; replay only needs their fingerprints)
+         */
+        private boolean recordPrompts = false;
+
+        /**
+         * Replay with the recorded latencies (ORIGINAL) or at once (ZERO)
+         */
+        private ReplayChatModel.Latency replayLatency = ReplayChatModel.Latency.ORIGINAL;
+
+        /**
+         * What replay does for a prompt not in the trace: FAIL the call, or serve the next
+         * recorded response in order (SEQUENTIAL)
+         */
+        private ReplayChatModel.Miss onMiss = ReplayChatModel.Miss.FAIL;
+    }
+
+    /**
+     * Structural outline of large contexts included in step prompts
+     */
+    private Outline outline = new Outline();
+
+    @Data
+    public static class Outline {
+
+        private boolean enabled = true;
+
+        /**
+         * Budget of the outline in the prompt (about 4 characters per token)
+         */
+        private int maxTokens = 600;
+
+        /**
+         * Contexts smaller than this get no outline
+         */
+        private long minContextBytes = 16384;
+
+        /**
+         * Stop outlining (with a partial outline) after this long
+         */
+        private int maxScanSeconds = 10;
+    }
+
+    @Data
+    public static class BlobStore {
+
+        /**
+         * Store each distinct context once and hard-link it into environments
+         */
+        private boolean enabled = true;
+
+        /**
+         * Directory of the store; must be on the same file system as the environment directories
+         * for hard links (otherwise contexts are copied from it)
+         */
+        private String directory = "rlm_blobs";
+
+        /**
+         * Contexts no environment uses are kept for reuse up to this size, oldest evicted first
+         */
+        private long maxUnreferencedMb = 1024;
+    }
+
+    @Data
+    public static class Execution {
+
+        /**
+         * Timeout for python steps in seconds; 0 uses rlm.security.max-execution-time-seconds
+         */
+        private int pythonTimeoutSeconds = 0;
+
+        /**
+         * Timeout for bash steps in seconds; 0 uses rlm.security.max-execution-time-seconds
+         */
+        private int bashTimeoutSeconds = 0;
+
+        /**
+         * Bytes of stdout and of stderr kept per execution (first and last half); the middle is
+         * dropped. At least 2
+         */
+        @Min(2)
+        private int maxCaptureBytes = 1024 * 1024;
+
+        /**
+         * Python/bash processes running at once on this node, shared fairly by all requests;
+         * 0 = number of cores
+         */
+        private int maxConcurrentProcesses = 0;
+
+        /**
+         * Tool output longer than this many characters is saved to obs_<step>.txt and only a preview
+         * is kept in the history; 0 disables spilling
+         */
+        private int spillThresholdChars = 16 * 1024;
+
+        /**
+         * Characters of a spilled output kept as preview (half head, half tail)
+         */
+        private int spillPreviewChars = 2000;
+
+        /**
+         * Observations older than this many steps have their output compressed in memory; 0 disables
+         */
+        private int historyCompressAfter = 0;
+
+        /**
+         * Observation payloads shorter than this many characters are never compressed
+         */
+        private int historyCompressMinChars = 1024;
+    }
+
+    /**
+     * Hedged step calls: duplicate a slow LLM call and keep whichever answers first
+     */
+    private Hedging hedging = new Hedging();
+
+    @Data
+    public static class Hedging {
+
+        /**
+         * Enable hedging of step calls
+         */
+        private boolean enabled = false;
+
+        /**
+         * Observed step-latency percentile after which a hedge is sent
+         */
+        private double percentile = 95;
+
+        /**
+         * Hedge delay used until enough latency samples have been collected
+         */
+        private long initialDelayMs = 5000;
+
+        /**
+         * Lower bound for the hedge delay
+         */
+        private long minDelayMs = 250;
+
+        /**
+         * Samples required before the percentile-based delay is used
+         */
+        private int minSamples = 20;
+
+        /**
+         * Number of recent step latencies kept for the percentile
+         */
+        private int windowSize = 500;
+
+        /**
+         * Hedges allowed per request, as a percentage of the step calls made so far
+         */
+        private double budgetPercent = 5;
+
+        /**
+         * Hedges allowed per request on top of the percentage budget
+         */
+        private int budgetBurst = 1;
+
+        /**
+         * Provider that receives the hedge ("openai", "anthropic", "google"); blank uses the primary
+         */
+        private String secondaryProvider = "";
+    }
+
+    /**
+     * Named models and the rules choosing one per call
+     */
+    private Routing routing = new Routing();
+
+    /**
+     * Admission limits per provider name ("openai", "anthropic", "google"); missing providers use the defaults
+     */
+    private Map<String, ProviderLimits> providerLimits = new LinkedHashMap<>();
+
+    @Data
+    public static class ProviderLimits {
+
+        /**
+         * Requests per minute; 0 means unlimited
+         */
+        private long requestsPerMinute = 0;
+
+        /**
+         * Prompt plus completion tokens per minute; 0 means unlimited
+         */
+        private long tokensPerMinute = 0;
+
+        /**
+         * Completion tokens assumed per call when reserving token budget
+         */
+        private int expectedCompletionTokens = 512;
+
+        /**
+         * Adaptive concurrency limit: start, floor and ceiling
+         */
+        private int initialConcurrency = 16;
+        private int minConcurrency = 1;
+        private int maxConcurrency = 128;
+
+        /**
+         * Latency above this multiple of the recent 10th percentile shrinks the concurrency limit
+         */
+        private double latencyTolerance = 2.5;
+    }
+
+    @Data
+    public static class Routing {
+
+        /**
+         * Model used when no rule matches; blank uses the first configured provider
+         */
+        private String defaultModel = "";
+
+        /**
+         * Named models, in addition to one per configured provider ("openai", "anthropic", "google")
+         */
+        private Map<String, ModelSpec> models = new LinkedHashMap<>();
+
+        /**
+         * Routing rules, evaluated in order; the first match wins
+         */
+        private List<Rule> rules = new ArrayList<>();
+    }
+
+    @Data
+    public static class ModelSpec {
+
+        /**
+         * Provider name: "openai", "anthropic" or "google"
+         */
+        private String provider;
+
+        /**
+         * Provider model id; blank uses the provider's configured default
+         */
+        private String model;
+
+        /**
+         * Prices used for cost estimates in route statistics
+         */
+        private double inputCostPer1kTokens = 0;
+        private double outputCostPer1kTokens = 0;
+    }
+
+    @Data
+    public static class Rule {
+
+        /**
+         * Call types this rule applies to; empty matches all
+         */
+        private List<CallType> callTypes = new ArrayList<>();
+
+        /**
+         * Inclusive recursion depth bounds; null is unbounded
+         */
+        private Integer minDepth;
+        private Integer maxDepth;
+
+        /**
+         * Name of the model to use
+         */
+        private String model;
+    }
 }
\ No newline at end of file
@@ -13,6 +13,60 @@ public class RlmSecurityConfig {
     private boolean allowNetwork = false;
     private boolean allowFileSystem = true;
     private int maxFileSizeMb = 10;
-    private List<String> allowedCommands = List.of("python3", "bash");
+
+    /**
+     * Commands a sandboxed step may run: the interpreter (python3, bash) and the first word of every
+     * command in a bash script. Shell builtins need no entry; null disables the check
+     */
+    private List<String> allowedCommands = List.of("python3", "bash", "sh", "cat", "head", "tail", "grep",
+            "egrep", "fgrep", "sed", "awk", "wc", "sort", "uniq", "cut", "tr", "ls", "find", "xargs", "diff",
+            "file", "stat", "du", "basename", "dirname", "date", "seq", "tee", "mkdir", "touch", "cp", "mv", "rm");
     private int maxExecutionTimeSeconds = 30;
+
+    /**
+     * Run python/bash steps under resource limits (and network isolation when allowNetwork is false)
+     */
+    private boolean sandboxEnabled = true;
+
+    /**
+     * CPU seconds per execution (RLIMIT_CPU); 0 uses the execution timeout
+     */
+    private int maxCpuSeconds = 0;
+
+    /**
+     * Address space per process in MB (RLIMIT_AS); 0 = unlimited
+     */
+    private int maxMemoryMb = 2048;
+
+    /**
+     * RLIMIT_NPROC; note it counts every process and thread of the user running the service, so
+     * it is off by default. Prefer cgroupMaxPids.
+     */
+    private int maxProcesses = 0;
+
+    /**
+     * Refuse to run steps when allowNetwork is false but no network namespace can be created
+     */
+    private boolean requireNetworkIsolation = false;
+
+    /**
+     * Delegated cgroup v2 directory (e.g. /sys/fs/cgroup/rlm) in which one child group per
+     * execution is created; empty disables cgroup limits
+     */
+    private String cgroupRoot = "";
+
+    /**
+     * CPU share of each execution's cgroup, in percent of one core
+     */
+    private int cgroupCpuPercent = 100;
+
+    /**
+     * Memory limit of each execution's cgroup in MB; 0 uses maxMemoryMb
+     */
+    private int cgroupMemoryMb = 0;
+
+    /**
+     * Maximum number of processes/threads in each execution's cgroup; 0 = unlimited
+     */
+    private int cgroupMaxPids = 256;
 }
\ No newline at end of file
@@ -1,12 +1,25 @@
 package com.oracle.rlm.controller;
 
+import com.oracle.rlm.core.RlmEnvironmentStore;
+import com.oracle.rlm.core.RunNotResumableException;
+import com.oracle.rlm.core.impl.CheckpointStore;
+import com.oracle.rlm.core.impl.ContextBlobStore;
+import com.oracle.rlm.core.impl.ExecutionScheduler;
+import com.oracle.rlm.core.impl.RunCheckpoint;
+import com.oracle.rlm.core.impl.SandboxLauncher;
 import com.oracle.rlm.model.RlmRequest;
 import com.oracle.rlm.model.RlmResponse;
+import com.oracle.rlm.routing.ModelRouter;
 import com.oracle.rlm.service.RlmService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.nio.charset.StandardCharsets;
 
@@ -23,6 +36,12 @@ import org.springframework.web.multipart.MultipartFile;
 public class RlmController {
     
     private final RlmService rlmService;
+    private final ModelRouter modelRouter;
+    private final SandboxLauncher sandboxLauncher;
+    private final ExecutionScheduler executionScheduler;
+    private final ContextBlobStore contextBlobStore;
+    private final RlmEnvironmentStore environmentStore;
+    private final CheckpointStore checkpointStore;
     
     @PostMapping("/solve")
     public ResponseEntity<RlmResponse> solveProblem(@Valid @RequestBody RlmRequest request) {
@@ -85,6 +104,51 @@ public class RlmController {
         }
     }
     
+    /**
+     * Continue an interrupted run from its last checkpointed step.
+     */
+    @PostMapping("/runs/{runId}/resume")
+    public ResponseEntity<RlmResponse> resumeRun(@PathVariable String runId) {
+        log.info("Received RLM resume request for run {}", runId);
+        try {
+            return ResponseEntity.ok(rlmService.resume(runId));
+        } catch (RunNotResumableException e) {
+            return ResponseEntity.status(HttpStatus.GONE)
+                .body(RlmResponse.builder()
+                    .runId(runId)
+                    .finalAnswer("Error: " + e.getMessage())
+                    .resumable(false)
+                    .build());
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            HttpStatus status = e instanceof IllegalArgumentException ? HttpStatus.NOT_FOUND : HttpStatus.CONFLICT;
+            return ResponseEntity.status(status)
+                .body(RlmResponse.builder()
+                    .runId(runId)
+                    .finalAnswer("Error: " + e.getMessage())
+                    .build());
+        } catch (Exception e) {
+            log.error("Error resuming run {}: {}", runId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(RlmResponse.builder()
+                    .runId(runId)
+                    .finalAnswer("Error: " + e.getMessage())
+                    .resumable(isResumable(runId))
+                    .build());
+        }
+    }
+
+    // A failed resume leaves the checkpoint INTERRUPTED when it can be tried again.
+    private boolean isResumable(String runId) {
+        return checkpointStore.load(runId)
+            .map(run -> run.getStatus() == RunCheckpoint.Status.INTERRUPTED)
+            .orElse(false);
+    }
+
+    @GetMapping("/runs")
+    public ResponseEntity<List<Map<String, Object>>> runs() {
+        return ResponseEntity.ok(checkpointStore.list());
+    }
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, String>> health() {
         return ResponseEntity.ok(Map.of(
@@ -93,6 +157,51 @@ public class RlmController {
         ));
     }
     
+    @GetMapping("/routes")
+    public ResponseEntity<Map<String, Map<String, Object>>> routes() {
+        return ResponseEntity.ok(modelRouter.stats());
+    }
+
+    @GetMapping("/sandbox")
+    public ResponseEntity<Map<String, Object>> sandbox() {
+        return ResponseEntity.ok(sandboxLauncher.stats());
+    }
+
+    @GetMapping("/scheduler")
+    public ResponseEntity<Map<String, Object>> scheduler() {
+        return ResponseEntity.ok(executionScheduler.stats());
+    }
+
+    @GetMapping("/blobs")
+    public ResponseEntity<Map<String, Object>> blobs() {
+        return ResponseEntity.ok(contextBlobStore.stats());
+    }
+
+    /**
+     * Point-in-time figures for load testing: environments, sandbox processes, heap, threads and GC.
+     */
+    @GetMapping("/runtime")
+    public ResponseEntity<Map<String, Object>> runtime() {
+        Map<String, Object> runtime = new LinkedHashMap<>(environmentStore.stats());
+        Map<String, Object> scheduler = executionScheduler.stats();
+        runtime.put("runningProcesses", scheduler.get("running"));
+        runtime.put("waitingProcesses", scheduler.get("waiting"));
+        runtime.put("processesStarted", sandboxLauncher.stats().get("executions"));
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        runtime.put("heapUsedBytes", heap.getUsed());
+        runtime.put("heapMaxBytes", heap.getMax());
+        runtime.put("threads", ManagementFactory.getThreadMXBean().getThreadCount());
+        long gcCount = 0;
+        long gcTimeMs = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += Math.max(0, gc.getCollectionCount());
+            gcTimeMs += Math.max(0, gc.getCollectionTime());
+        }
+        runtime.put("gcCount", gcCount);
+        runtime.put("gcTimeMs", gcTimeMs);
+        return ResponseEntity.ok(runtime);
+    }
+    
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleException(Exception e) {
         log.error("Unhandled exception: {}", e.getMessage(), e);
@@ -6,11 +6,12 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class ActionObservation {
     private int step;
+    private int actionIndex;      // position within the step's batch of actions; 0 for the first
     private String thought;
     private ToolCall action;
     private ToolResult observation;
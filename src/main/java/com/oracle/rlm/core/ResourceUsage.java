@@ -0,0 +1,25 @@
+package com.oracle.rlm.core;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resources consumed by one tool process, as measured by the sandbox.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResourceUsage {
+    private long wallTimeMs;
+    private long queueWaitMs;        // time spent waiting for a node-wide execution slot
+    private long cpuUserMs;          // -1 when not measured (e.g. the process was killed)
+    private long cpuSystemMs;        // -1 when not measured
+    private long peakMemoryBytes;    // -1 unless a cgroup was used
+    private String limitExceeded;    // cpu, memory, file-size, timeout; null when within limits
+    private boolean sandboxed;
+    private boolean networkIsolated;
+    private boolean cgroup;
+}
@@ -9,4 +9,15 @@ public interface RlmClient {
      * @return         a structured RLM result with final answer and optional reasoning tree.
      */
     RlmCompletionResult completion(RlmCompletionRequest request);
+
+    /**
+     * Continue a run from its last checkpointed step (after a timeout, an error or a restart),
+     * including unfinished child runs. A completed run returns its stored result.
+     *
+     * @param runId  the id reported in the result metadata ("runId")
+     * @throws IllegalArgumentException  if there is no checkpoint for the run
+     * @throws IllegalStateException     if the run is still in progress
+     * @throws RunNotResumableException  if the run can never continue (its environment is gone)
+     */
+    RlmCompletionResult resume(String runId);
 }
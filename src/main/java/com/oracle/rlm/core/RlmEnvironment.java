@@ -1,6 +1,13 @@
 package com.oracle.rlm.core;
 
+import com.oracle.rlm.util.Hashes;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * Represents a logical environment in which an RLM call runs.
@@ -43,6 +50,21 @@ public interface RlmEnvironment {
      */
     long getContextSize();
 
+    /**
+     * File holding the full context, for tools that stream it instead of loading it; null if none.
+     */
+    default Path getContextFile() {
+        Path file = Path.of(getCurrentWorkingDirectory(), "context.txt");
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    /**
+     * SHA-256 of the full context (of the empty string when there is none), for dedup and cache keys.
+     */
+    default String getContextHash() {
+        return Hashes.sha256(getFullContext());
+    }
+
     /**
      * Optional search API – lets the model “ask” to search the environment.
      * In real RLM, this would be invoked via tool-calls / code in a REPL.
@@ -55,6 +77,26 @@ public interface RlmEnvironment {
     // NEW: Tool execution capabilities
     ToolResult executePython(String code);
     ToolResult executeBash(String command);
+
+    /**
+     * Execute with a caller-supplied time limit (e.g. the remaining request deadline).
+     * The environment may still apply its own, shorter cap.
+     */
+    default ToolResult executePython(String code, Duration timeout) {
+        return executePython(code);
+    }
+
+    default ToolResult executeBash(String command, Duration timeout) {
+        return executeBash(command);
+    }
+
+    /**
+     * Tag this environment's python/bash executions for the node-wide scheduler: the root request
+     * they belong to and the recursion depth of the loop using the environment.
+     */
+    default void setSchedulingGroup(String group, int depth) {
+    }
+
     ToolResult writeFile(String filename, String content);
     ToolResult readFile(String filename);
     String search(String query);
@@ -62,9 +104,65 @@ public interface RlmEnvironment {
     // NEW: Observation history for the model
     List<ActionObservation> getHistory();
     void addObservation(ActionObservation observation);
+
+    /**
+     * Observations recorded from step index {@code fromIndex} (0-based) onwards, for callers
+     * that have already consumed the earlier ones.
+     */
+    default List<ActionObservation> getHistorySince(int fromIndex) {
+        List<ActionObservation> history = getHistory();
+        return history.subList(Math.max(0, Math.min(fromIndex, history.size())), history.size());
+    }
+
+    default int getHistorySize() {
+        return getHistory().size();
+    }
+
+    /**
+     * The history as prompt text, one segment per observation. Implementations may keep each
+     * segment once rendered, so every call must pass a renderer producing the same text.
+     */
+    default List<? extends CharSequence> getRenderedHistory(Function<ActionObservation, String> renderer) {
+        return getHistory().stream().map(renderer).toList();
+    }
     
     // NEW: Environment state
     String getCurrentWorkingDirectory();
     List<String> listFiles();
+
+    /**
+     * Give this environment the same full context as {@code source} (used when creating a child).
+     */
+    default void shareContextFrom(RlmEnvironment source) {
+        String context = source.getFullContext();
+        if (context != null) {
+            setFullContext(context);
+        }
+    }
+
+    /**
+     * Called when the environment is removed from its store, to give back shared resources such
+     * as stored contexts. The work directory is left in place.
+     */
+    default void release() {
+    }
+
+    /**
+     * Copy the working files of {@code source} into this environment (used when creating a child).
+     */
+    default void copyWorkspaceFrom(RlmEnvironment source) {
+        Path sourceDir = Path.of(source.getCurrentWorkingDirectory());
+        Path targetDir = Path.of(getCurrentWorkingDirectory());
+        for (String filename : source.listFiles()) {
+            Path file = sourceDir.resolve(filename);
+            try {
+                if (Files.isRegularFile(file)) {
+                    Files.copy(file, targetDir.resolve(filename), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (Exception e) {
+                // skip files that cannot be copied; the child works with what it has
+            }
+        }
+    }
     String getEnvironmentInfo();
 }
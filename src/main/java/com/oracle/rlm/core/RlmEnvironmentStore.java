@@ -1,5 +1,6 @@
 package com.oracle.rlm.core;
 
+import java.util.Map;
 import java.util.Optional;
 
 public interface RlmEnvironmentStore {
@@ -14,8 +15,23 @@ public interface RlmEnvironmentStore {
      */
     Optional<RlmEnvironment> getEnvironment(String id);
 
+    /**
+     * The environment with this id, reopening its work directory when it is no longer in memory
+     * (e.g. after a restart); empty when neither exists. Its history is not restored.
+     */
+    default Optional<RlmEnvironment> reopenEnvironment(String id, String label) {
+        return getEnvironment(id);
+    }
+
     /**
      * Remove when no longer needed (optional).
      */
     void deleteEnvironment(String id);
+
+    /**
+     * Counters for monitoring (e.g. live and created environments).
+     */
+    default Map<String, Object> stats() {
+        return Map.of();
+    }
 }
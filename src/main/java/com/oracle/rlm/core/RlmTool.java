@@ -0,0 +1,46 @@
+package com.oracle.rlm.core;
+
+import java.time.Duration;
+
+/**
+ * A tool the model can call by name. Register an implementation as a Spring bean (ordered with
+ * {@code @Order}) and it is dispatched by the client and listed in the system prompt.
+ */
+public interface RlmTool {
+
+    /**
+     * Name the model puts in the "tool" field.
+     */
+    String getName();
+
+    /**
+     * One-line description shown in the system prompt's tool list.
+     */
+    String getDescription();
+
+    /**
+     * How to write the "code" field for this tool, shown under the prompt's input formats;
+     * null when the field is free-form (code, a command, a query).
+     */
+    default String getInputFormat() {
+        return null;
+    }
+
+    /**
+     * True when the tool only reads the environment, so it may run concurrently with other
+     * read-only tools.
+     */
+    default boolean isReadOnly() {
+        return false;
+    }
+
+    /**
+     * True when the result depends only on the input and the full context, so it may be cached
+     * under the context hash.
+     */
+    default boolean isCacheable() {
+        return false;
+    }
+
+    ToolResult execute(RlmEnvironment env, String input, Duration timeout);
+}
@@ -0,0 +1,12 @@
+package com.oracle.rlm.core;
+
+/**
+ * Thrown by {@link RlmClient#resume} when a run has a checkpoint but can never continue, for
+ * example because its environment was deleted. Retrying does not help.
+ */
+public class RunNotResumableException extends RuntimeException {
+
+    public RunNotResumableException(String message) {
+        super(message);
+    }
+}
@@ -6,7 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class ToolResult {
@@ -14,4 +14,7 @@ public class ToolResult {
     private String output;        // stdout/result
     private String error;         // stderr/error message
     private long executionTimeMs;
+    private long truncatedBytes;  // process output dropped from the middle of stdout/stderr
+    private String spillFile;     // workspace file holding the full output when it was too large to keep inline
+    private ResourceUsage resourceUsage; // process resources, for python/bash steps
 }
\ No newline at end of file
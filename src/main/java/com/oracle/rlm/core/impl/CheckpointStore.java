@@ -0,0 +1,349 @@
+package com.oracle.rlm.core.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oracle.rlm.config.RlmConfig;
+import com.oracle.rlm.core.ActionObservation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Per-step checkpoints of root completions, so a run that timed out, failed or was cut short by
+ * a restart can be resumed by id without repeating completed model calls or child runs.
+ *
+ * <p>Layout: {@code <directory>/<runId>/run.json} holds the request and outcome; every loop of the
+ * tree has {@code <loopKey>.json} (counters, pending action) and an append-only
+ * {@code <loopKey>.history.jsonl} of its observations. State files are replaced atomically, so a
+ * crash leaves the last completed step.
+ *
+ * <p>On shutdown the store first waits {@code drainSeconds} for running completions, then asks the
+ * rest to stop at their next step boundary; they end up checkpointed as interrupted.
+ */
+@Component
+@Slf4j
+public class CheckpointStore implements SmartLifecycle {
+
+    private static final Pattern SAFE_NAME = Pattern.compile("[A-Za-z0-9._@-]+");
+    private static final String RUN_FILE = "run.json";
+    private static final String HISTORY_SUFFIX = ".history.jsonl";
+    private static final Duration STOP_GRACE = Duration.ofSeconds(10);
+    // Purging reads every run.json, so it runs at most this often rather than on every run
+    private static final Duration PURGE_INTERVAL = Duration.ofMinutes(10);
+
+    private final Path root;
+    private final boolean enabled;
+    private final Duration drain;
+    private final Duration retainCompleted;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Set<String> active = ConcurrentHashMap.newKeySet();
+    private final AtomicLong nextPurgeAt = new AtomicLong();
+    private volatile boolean running;
+    private volatile boolean draining;
+    private volatile boolean stopping;
+
+    public CheckpointStore(RlmConfig rlmConfig) {
+        RlmConfig.Checkpoint config = rlmConfig.getCheckpoint();
+        this.root = Paths.get(config.getDirectory()).toAbsolutePath().normalize();
+        this.enabled = config.isEnabled();
+        this.drain = Duration.ofSeconds(Math.max(0, config.getDrainSeconds()));
+        this.retainCompleted = Duration.ofHours(Math.max(0, config.getRetainCompletedHours()));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Register a run that is starting (or resuming) in this process and write its checkpoint.
+     */
+    public void begin(RunCheckpoint run) {
+        if (draining) {
+            throw new IllegalStateException("Shutting down; not starting run " + run.getRunId());
+        }
+        if (!active.add(run.getRunId())) {
+            throw new IllegalStateException("Run " + run.getRunId() + " is already in progress");
+        }
+        if (enabled) {
+            purgeCompletedIfDue();
+            save(run);
+        }
+    }
+
+    /**
+     * Write the final state of a run and unregister it.
+     */
+    public void end(RunCheckpoint run) {
+        try {
+            if (enabled) {
+                save(run);
+            }
+        } finally {
+            active.remove(run.getRunId());
+        }
+    }
+
+    public boolean isActive(String runId) {
+        return active.contains(runId);
+    }
+
+    /**
+     * True once shutdown has waited long enough: loops stop at their next step.
+     */
+    public boolean isStopping() {
+        return stopping;
+    }
+
+    public Optional<RunCheckpoint> load(String runId) {
+        if (!enabled || !SAFE_NAME.matcher(runId).matches()) {
+            return Optional.empty();
+        }
+        Path file = root.resolve(runId).resolve(RUN_FILE);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(file.toFile(), RunCheckpoint.class));
+        } catch (IOException e) {
+            log.warn("Unreadable checkpoint {}: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Checkpointed runs, most recently updated first, without their loops.
+     */
+    public List<Map<String, Object>> list() {
+        List<RunCheckpoint> runs = new ArrayList<>();
+        forEachRun(runs::add);
+        runs.sort(Comparator.comparingLong(RunCheckpoint::getUpdatedAt).reversed());
+        List<Map<String, Object>> summaries = new ArrayList<>();
+        for (RunCheckpoint run : runs) {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("runId", run.getRunId());
+            summary.put("status", isActive(run.getRunId()) ? RunCheckpoint.Status.RUNNING : run.getStatus());
+            summary.put("query", run.getQuery());
+            summary.put("totalSteps", run.getTotalSteps());
+            summary.put("resumes", run.getResumes());
+            summary.put("interruption", run.getInterruption());
+            summary.put("updatedAt", run.getUpdatedAt());
+            summaries.add(summary);
+        }
+        return summaries;
+    }
+
+    /**
+     * Checkpoint of one loop of a run.
+     */
+    public Journal journal(String runId, String loopKey) {
+        return new Journal(root.resolve(runId), loopKey);
+    }
+
+    private void save(RunCheckpoint run) {
+        run.setUpdatedAt(System.currentTimeMillis());
+        try {
+            Path dir = Files.createDirectories(root.resolve(run.getRunId()));
+            writeAtomically(dir.resolve(RUN_FILE), objectMapper.writeValueAsBytes(run));
+        } catch (IOException e) {
+            log.warn("Failed to checkpoint run {}: {}", run.getRunId(), e.getMessage());
+        }
+    }
+
+    private void purgeCompletedIfDue() {
+        long now = System.currentTimeMillis();
+        long due = nextPurgeAt.get();
+        if (now >= due && nextPurgeAt.compareAndSet(due, now + PURGE_INTERVAL.toMillis())) {
+            purgeCompleted();
+        }
+    }
+
+    private void purgeCompleted() {
+        long cutoff = System.currentTimeMillis() - retainCompleted.toMillis();
+        forEachRun(run -> {
+            if (run.getStatus() == RunCheckpoint.Status.COMPLETED && run.getUpdatedAt() < cutoff
+                    && !isActive(run.getRunId())) {
+                deleteRun(run.getRunId());
+            }
+        });
+    }
+
+    private void deleteRun(String runId) {
+        try (Stream<Path> files = Files.list(root.resolve(runId))) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(root.resolve(runId));
+        } catch (IOException e) {
+            log.debug("Failed to delete checkpoint {}: {}", runId, e.getMessage());
+        }
+    }
+
+    private void forEachRun(Consumer<RunCheckpoint> action) {
+        if (!enabled || !Files.isDirectory(root)) {
+            return;
+        }
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(root)) {
+            for (Path dir : dirs) {
+                load(dir.getFileName().toString()).ifPresent(action);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to list checkpoints in {}: {}", root, e.getMessage());
+        }
+    }
+
+    private static void writeAtomically(Path target, byte[] content) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.write(tmp, content);
+        try {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        draining = true;
+        try {
+            if (!awaitIdle(drain)) {
+                log.info("Stopping {} running completion(s) at their next step; they can be resumed", active.size());
+                stopping = true;
+                if (!awaitIdle(STOP_GRACE)) {
+                    log.warn("{} completion(s) still running at shutdown: {}", active.size(), active);
+                }
+            }
+        } finally {
+            running = false;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private boolean awaitIdle(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!active.isEmpty() && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return active.isEmpty();
+            }
+        }
+        return active.isEmpty();
+    }
+
+    /**
+     * State file and observation journal of one loop; no-ops when checkpoints are disabled.
+     */
+    public final class Journal {
+
+        private final Path dir;
+        private final Path stateFile;
+        private final Path historyFile;
+
+        private Journal(Path dir, String loopKey) {
+            if (!SAFE_NAME.matcher(loopKey).matches()) {
+                throw new IllegalArgumentException("Invalid loop key: " + loopKey);
+            }
+            this.dir = dir;
+            this.stateFile = dir.resolve(loopKey + ".json");
+            this.historyFile = dir.resolve(loopKey + HISTORY_SUFFIX);
+        }
+
+        public Optional<RunCheckpoint.Loop> load() {
+            if (!enabled || !Files.isRegularFile(stateFile)) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.of(objectMapper.readValue(stateFile.toFile(), RunCheckpoint.Loop.class));
+            } catch (IOException e) {
+                log.warn("Unreadable loop checkpoint {}: {}", stateFile, e.getMessage());
+                return Optional.empty();
+            }
+        }
+
+        /**
+         * The first {@code size} journaled observations (fewer if the journal is damaged). Entries
+         * past them were appended by a step that never completed and are dropped from the file.
+         */
+        public List<ActionObservation> restore(int size) {
+            List<ActionObservation> history = new ArrayList<>();
+            if (!enabled || !Files.isRegularFile(historyFile)) {
+                return history;
+            }
+            try {
+                List<String> lines = Files.readAllLines(historyFile, StandardCharsets.UTF_8);
+                for (String line : lines.subList(0, Math.min(size, lines.size()))) {
+                    try {
+                        history.add(objectMapper.readValue(line, ActionObservation.class));
+                    } catch (IOException e) {
+                        log.warn("Loop journal {} is damaged after {} observations: {}", historyFile,
+                                history.size(), e.getMessage());
+                        break;
+                    }
+                }
+                if (lines.size() > history.size()) {
+                    Files.write(historyFile, lines.subList(0, history.size()), StandardCharsets.UTF_8);
+                }
+            } catch (IOException e) {
+                log.warn("Failed to read loop journal {}: {}", historyFile, e.getMessage());
+            }
+            return history;
+        }
+
+        public void append(ActionObservation observation) {
+            if (!enabled) {
+                return;
+            }
+            try {
+                Files.createDirectories(dir);
+                byte[] line = (objectMapper.writeValueAsString(observation) + "\n").getBytes(StandardCharsets.UTF_8);
+                Files.write(historyFile, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                log.warn("Failed to journal observation to {}: {}", historyFile, e.getMessage());
+            }
+        }
+
+        public void save(RunCheckpoint.Loop state) {
+            if (!enabled) {
+                return;
+            }
+            try {
+                Files.createDirectories(dir);
+                writeAtomically(stateFile, objectMapper.writeValueAsBytes(state));
+            } catch (IOException e) {
+                log.warn("Failed to checkpoint loop {}: {}", stateFile, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.oracle.rlm.core.impl;
+
+import com.oracle.rlm.config.RlmConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store for environment contexts, shared by all environments on the node.
+ *
+ * <p>A context is written once as {@code <root>/<hash[0..2]>/<sha256>} (read-only) and hard-linked
+ * into every environment that uses it, so a corpus uploaded by hundreds of requests, and copied to
+ * every child, occupies the disk once. Hard links are only safe while steps cannot write them
+ * (read-only mounts, see {@link SandboxLauncher#protectsReadOnlyPaths()}); otherwise environments
+ * get a private copy of the blob. Blobs are reference counted per environment; unreferenced
+ * blobs stay around for reuse until they exceed {@code maxUnreferencedBytes}, oldest first.
+ *
+ * <p>Artifacts derived from a context (line indexes and the like) are kept next to its blob under
+ * {@code <sha256>.d/} and go away with it, so a repeated upload finds them already built.
+ */
+@Component
+@Slf4j
+public class ContextBlobStore {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final String ARTIFACTS_SUFFIX = ".d";
+
+    private final Path root;
+    private final boolean enabled;
+    private final long maxUnreferencedBytes;
+    private final Map<String, Blob> blobs = new HashMap<>();
+    private volatile boolean loaded;
+
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong reuses = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong copies = new AtomicLong();
+
+    @Autowired
+    public ContextBlobStore(RlmConfig rlmConfig) {
+        this(Paths.get(rlmConfig.getBlobStore().getDirectory()), rlmConfig.getBlobStore().isEnabled(),
+                rlmConfig.getBlobStore().getMaxUnreferencedMb() * 1024L * 1024L);
+    }
+
+    public ContextBlobStore(Path root, boolean enabled, long maxUnreferencedBytes) {
+        this.root = root.toAbsolutePath().normalize();
+        this.enabled = enabled;
+        this.maxUnreferencedBytes = maxUnreferencedBytes;
+    }
+
+    /**
+     * A store that keeps nothing: environments write their own context files.
+     */
+    public static ContextBlobStore disabled() {
+        return new ContextBlobStore(Paths.get("rlm_blobs"), false, 0);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Take a reference to the blob of {@code content}, writing it first if the store does not have
+     * it yet. {@code hash} is the SHA-256 of the content.
+     */
+    public void acquire(String hash, String content) throws IOException {
+        Blob blob;
+        synchronized (this) {
+            loadIfNeeded();
+            blob = blobs.computeIfAbsent(hash, h -> new Blob(blobPath(h)));
+            blob.refs++;
+            blob.lastUsed = System.currentTimeMillis();
+        }
+        try {
+            blob.ensureWritten(content);
+        } catch (IOException e) {
+            release(hash);
+            throw e;
+        }
+    }
+
+    /**
+     * Take another reference to a blob that is already stored; false if it is not (anymore).
+     */
+    public synchronized boolean retain(String hash) {
+        loadIfNeeded();
+        Blob blob = blobs.get(hash);
+        if (blob == null || !blob.written) {
+            return false;
+        }
+        blob.refs++;
+        blob.lastUsed = System.currentTimeMillis();
+        reuses.incrementAndGet();
+        bytesSaved.addAndGet(blob.size);
+        return true;
+    }
+
+    public synchronized void release(String hash) {
+        Blob blob = blobs.get(hash);
+        if (blob == null || blob.refs == 0) {
+            return;
+        }
+        blob.refs--;
+        blob.lastUsed = System.currentTimeMillis();
+        if (blob.refs == 0) {
+            evictUnreferenced();
+        }
+    }
+
+    /**
+     * Make {@code target} refer to the stored blob: a hard link when {@code share} (the caller keeps
+     * it unwritable for steps), otherwise, or when the work directory is on another file system, a
+     * copy.
+     */
+    public void link(String hash, Path target, boolean share) throws IOException {
+        Path blob = blobPath(hash);
+        Files.deleteIfExists(target);
+        if (!share) {
+            Files.copy(blob, target);
+            copies.incrementAndGet();
+            return;
+        }
+        try {
+            Files.createLink(target, blob);
+        } catch (IOException | UnsupportedOperationException e) {
+            log.debug("Hard link {} -> {} failed ({}); copying", target, blob, e.getMessage());
+            Files.copy(blob, target);
+        }
+    }
+
+    /**
+     * Whether {@code file} is a link to the stored blob (so writing it would change the blob).
+     */
+    public boolean isLinked(String hash, Path file) {
+        try {
+            Path blob = blobPath(hash);
+            return Files.exists(blob) && Files.exists(file) && Files.isSameFile(blob, file);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Drop a blob whose content no longer matches its hash (written through a link). Environments
+     * still linked to it keep their file, but it is never handed out again.
+     */
+    public synchronized void invalidate(String hash) {
+        Blob blob = blobs.remove(hash);
+        if (blob != null) {
+            invalidations.incrementAndGet();
+            delete(hash, blob);
+        }
+    }
+
+    /**
+     * A derived artifact stored for the context {@code hash}, if it has been built.
+     */
+    public Optional<Path> artifact(String hash, String name) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Path file = artifactDir(hash).resolve(name);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    /**
+     * Store a derived artifact for the context {@code hash}. Only contexts held by the store get
+     * artifacts (they are deleted with the blob); returns false otherwise.
+     */
+    public boolean putArtifact(String hash, String name, byte[] data) throws IOException {
+        synchronized (this) {
+            Blob blob = blobs.get(hash);
+            if (!enabled || blob == null || !blob.written) {
+                return false;
+            }
+        }
+        Path dir = artifactDir(hash);
+        Files.createDirectories(dir);
+        Path temp = dir.resolve(name + "." + UUID.randomUUID() + ".tmp");
+        Files.write(temp, data);
+        move(temp, dir.resolve(name));
+        return true;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("root", root.toString());
+        synchronized (this) {
+            long bytes = 0;
+            long referenced = 0;
+            for (Blob blob : blobs.values()) {
+                bytes += blob.size;
+                if (blob.refs > 0) {
+                    referenced++;
+                }
+            }
+            stats.put("blobs", blobs.size());
+            stats.put("referencedBlobs", referenced);
+            stats.put("bytes", bytes);
+        }
+        stats.put("writes", writes.get());
+        stats.put("reuses", reuses.get());
+        stats.put("bytesSaved", bytesSaved.get());
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("copies", copies.get());
+        return stats;
+    }
+
+    private Path blobPath(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private Path artifactDir(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash + ARTIFACTS_SUFFIX);
+    }
+
+    // Adopt blobs left by a previous run, unreferenced, so a restart does not re-upload them.
+    private void loadIfNeeded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path shard : shards) {
+                try (Stream<Path> files = Files.list(shard)) {
+                    files.filter(f -> HASH.matcher(f.getFileName().toString()).matches())
+                         .forEach(f -> {
+                             Blob blob = new Blob(f);
+                             blob.written = true;
+                             try {
+                                 blob.size = Files.size(f);
+                                 blob.lastUsed = Files.getLastModifiedTime(f).toMillis();
+                             } catch (IOException e) {
+                                 return;
+                             }
+                             blobs.put(f.getFileName().toString(), blob);
+                         });
+                }
+            }
+            log.info("Context blob store {}: {} existing blobs", root, blobs.size());
+        } catch (IOException e) {
+            log.warn("Could not list context blob store {}: {}", root, e.getMessage());
+        }
+    }
+
+    private void evictUnreferenced() {
+        List<Map.Entry<String, Blob>> idle = blobs.entrySet().stream()
+                .filter(e -> e.getValue().refs == 0)
+                .sorted(Comparator.comparingLong(e -> e.getValue().lastUsed))
+                .toList();
+        long idleBytes = idle.stream().mapToLong(e -> e.getValue().size).sum();
+        for (Map.Entry<String, Blob> entry : idle) {
+            if (idleBytes <= maxUnreferencedBytes) {
+                break;
+            }
+            blobs.remove(entry.getKey());
+            delete(entry.getKey(), entry.getValue());
+            idleBytes -= entry.getValue().size;
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void delete(String hash, Blob blob) {
+        try {
+            Files.deleteIfExists(blob.path);
+            Path artifacts = artifactDir(hash);
+            if (Files.isDirectory(artifacts)) {
+                try (Stream<Path> files = Files.list(artifacts)) {
+                    for (Path file : files.toList()) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+                Files.deleteIfExists(artifacts);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to delete context blob {}: {}", hash, e.getMessage());
+        }
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private final class Blob {
+        final Path path;
+        int refs;
+        long lastUsed;
+        volatile long size;
+        volatile boolean written;
+
+        Blob(Path path) {
+            this.path = path;
+        }
+
+        // Concurrent uploads of the same content wait for the first writer instead of writing again.
+        synchronized void ensureWritten(String content) throws IOException {
+            if (written && Files.exists(path)) {
+                reuses.incrementAndGet();
+                bytesSaved.addAndGet(size);
+                return;
+            }
+            Files.createDirectories(path.getParent());
+            Path temp = path.resolveSibling(path.getFileName() + "." + UUID.randomUUID() + ".tmp");
+            Files.writeString(temp, content, StandardCharsets.UTF_8);
+            try {
+                Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("r--r--r--"));
+            } catch (UnsupportedOperationException e) {
+                temp.toFile().setReadOnly();
+            }
+            try {
+                move(temp, path);
+            } catch (FileAlreadyExistsException e) {
+                Files.deleteIfExists(temp);
+            }
+            size = Files.size(path);
+            written = true;
+            writes.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.oracle.rlm.core.impl;
+
+import java.time.Duration;
+
+/**
+ * Absolute time limit for one loop of the request tree. Children receive a share of the
+ * parent's remaining time and never outlive it.
+ */
+final class Deadline {
+
+    private final long expiresAtNanos;
+    private final long budgetNanos;
+
+    private Deadline(long expiresAtNanos, long budgetNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+        this.budgetNanos = budgetNanos;
+    }
+
+    static Deadline after(Duration budget) {
+        long nanos = Math.max(0, budget.toNanos());
+        return new Deadline(System.nanoTime() + nanos, nanos);
+    }
+
+    Duration remaining() {
+        return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+    }
+
+    boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * True when less than {@code threshold} (or a quarter of this loop's budget, if smaller) is left.
+     */
+    boolean isNearlyExpired(Duration threshold) {
+        long limit = Math.min(threshold.toNanos(), budgetNanos / 4);
+        return expiresAtNanos - System.nanoTime() < limit;
+    }
+
+    /**
+     * Deadline for a child loop: after keeping {@code reserveFraction} of the remaining time for
+     * this loop to wrap up, the rest is split evenly over the {@code remainingChildren} children
+     * this loop may still start.
+     */
+    Deadline share(int remainingChildren, double reserveFraction) {
+        long remaining = Math.max(0, expiresAtNanos - System.nanoTime());
+        long childBudget = (long) (remaining * (1.0 - reserveFraction)) / Math.max(1, remainingChildren);
+        return new Deadline(Math.min(expiresAtNanos, System.nanoTime() + childBudget), childBudget);
+    }
+}
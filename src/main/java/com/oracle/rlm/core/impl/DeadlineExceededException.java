@@ -0,0 +1,11 @@
+package com.oracle.rlm.core.impl;
+
+/**
+ * Thrown when a model call cannot complete before the loop's deadline.
+ */
+class DeadlineExceededException extends RuntimeException {
+
+    DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -4,29 +4,47 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.oracle.rlm.config.RlmConfig;
 import com.oracle.rlm.core.*;
+import com.oracle.rlm.routing.CallType;
+import com.oracle.rlm.routing.ModelRoute;
+import com.oracle.rlm.routing.ModelRouter;
+import com.oracle.rlm.scan.ContextOutliner;
 import com.oracle.rlm.service.RlmPromptService;
+import com.oracle.rlm.tools.ToolRegistry;
+import com.oracle.rlm.util.SingleFlight;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.stereotype.Component;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class DefaultRlmClient implements RlmClient {
 
-    private final ChatClient.Builder chatClientBuilder;
-    private volatile ChatClient chatClient;
+    private static final String ROOT_LOOP = "root";
+    private static final String FALLBACK_THOUGHT = "Model response was not valid JSON. Applying heuristic fallback.";
+    // Pseudo-tool recorded for a response with neither JSON nor runnable code; nothing is executed
+    private static final String INVALID_RESPONSE = "invalid_response";
+    private static final String FORMAT_ERROR =
+            "Formatting error: Respond ONLY with JSON per the schema (no prose, no code fences).";
+
+    private final ModelRouter modelRouter;
+    private volatile String systemPrompt;
+    private volatile String stepSchema;
     private final RlmPromptService promptService;
     private final RlmEnvironmentStore environmentStore;
     private final RlmConfig rlmConfig;
+    private final HedgedCaller hedgedCaller;
+    private final ToolRegistry toolRegistry;
+    private final ContextOutliner contextOutliner;
+    private final CheckpointStore checkpointStore;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Override
@@ -36,25 +54,120 @@ public class DefaultRlmClient implements RlmClient {
         int maxBranching = request.getMaxBranching() != null
                 ? request.getMaxBranching()
                 : rlmConfig.getMaxBranching();
-        
-        if (this.chatClient == null) {
-            synchronized (this) {
-                if (this.chatClient == null) {
-                    this.chatClient = chatClientBuilder
-                            .defaultSystem(promptService.createSystemPrompt())
-                            .build();
-                }
-            }
-        }
+        Duration timeout = request.getTimeout() != null
+                ? request.getTimeout()
+                : Duration.ofSeconds(rlmConfig.getTimeoutSeconds());
 
         // Get or create environment
         RlmEnvironment env = getOrCreateEnvironment(request);
         seedEnvironmentContext(env, request.getInlineContext());
 
+        RunCheckpoint run = new RunCheckpoint();
+        run.setRunId(UUID.randomUUID().toString());
+        run.setEnvironmentId(env.getId());
+        run.setQuery(request.getQuery());
+        run.setMaxDepth(maxDepth);
+        run.setMaxBranching(maxBranching);
+        run.setStrategy(request.getStrategy());
+        run.setVerbose(request.isVerbose());
+        run.setTimeoutMs(timeout.toMillis());
+        run.setBackendHints(request.getBackendHints());
+        run.setStartedAt(start.toEpochMilli());
+        return execute(run, request, env, start, maxDepth, maxBranching, timeout);
+    }
+
+    @Override
+    public RlmCompletionResult resume(String runId) {
+        RunCheckpoint run = checkpointStore.load(runId)
+                .orElseThrow(() -> new IllegalArgumentException("No checkpoint for run " + runId));
+        if (checkpointStore.isActive(runId)) {
+            throw new IllegalStateException("Run " + runId + " is still in progress");
+        }
+        if (run.getStatus() == RunCheckpoint.Status.COMPLETED) {
+            log.info("Run {} already completed; returning its stored result", runId);
+            Map<String, Object> metadata = new LinkedHashMap<>();
+            metadata.put("runId", runId);
+            metadata.put("environmentId", run.getEnvironmentId());
+            metadata.put("resumes", run.getResumes());
+            metadata.put("fromCheckpoint", true);
+            return RlmCompletionResult.builder()
+                    .finalAnswer(run.getFinalAnswer())
+                    .totalSteps(run.getTotalSteps())
+                    .maxDepthReached(run.getMaxDepthReached())
+                    .processingTime(Duration.ofMillis(run.getUpdatedAt() - run.getStartedAt()))
+                    .startedAt(Instant.ofEpochMilli(run.getStartedAt()))
+                    .strategy("rlm-recursive-repl")
+                    .metadata(metadata)
+                    .build();
+        }
+        RlmEnvironment env = environmentStore.reopenEnvironment(run.getEnvironmentId(), "resumed-" + runId)
+                .orElseThrow(() -> new RunNotResumableException("Environment " + run.getEnvironmentId()
+                        + " of run " + runId + " no longer exists"));
+        RlmCompletionRequest request = RlmCompletionRequest.builder()
+                .query(run.getQuery())
+                .environmentId(env.getId())
+                .maxDepth(run.getMaxDepth())
+                .maxBranching(run.getMaxBranching())
+                .strategy(run.getStrategy())
+                .verbose(run.isVerbose())
+                .timeout(Duration.ofMillis(run.getTimeoutMs()))
+                .backendHints(run.getBackendHints())
+                .build();
+        run.setResumes(run.getResumes() + 1);
+        run.setInterruption(null);
+        log.info("Resuming run {} ({} previous resumes)", runId, run.getResumes() - 1);
+        return execute(run, request, env, Instant.now(), run.getMaxDepth(), run.getMaxBranching(),
+                request.getTimeout());
+    }
+
+    private RlmCompletionResult execute(RunCheckpoint run, RlmCompletionRequest request, RlmEnvironment env,
+                                        Instant start, int maxDepth, int maxBranching, Duration timeout) {
+        if (this.systemPrompt == null) {
+            synchronized (this) {
+                if (this.systemPrompt == null) {
+                    this.stepSchema = promptService.createStepSchema();
+                    this.systemPrompt = promptService.createSystemPrompt();
+                }
+            }
+        }
+
+        run.setStatus(RunCheckpoint.Status.RUNNING);
+        checkpointStore.begin(run);
         try {
-            ExecutionResult execution = runCompletion(request, env, 0, maxDepth, maxBranching);
+            RunScope scope = RunScope.root(run.getRunId(), hedgedCaller.newBudget(), Deadline.after(timeout));
+            env.setSchedulingGroup(scope.runId(), 0);
+            ExecutionResult execution = runCompletion(request, env, scope, ROOT_LOOP, 0, maxDepth, maxBranching);
             Duration processingTime = Duration.between(start, Instant.now());
 
+            Map<String, Object> metadata = new LinkedHashMap<>();
+            metadata.put("runId", run.getRunId());
+            metadata.put("environmentId", env.getId());
+            metadata.put("totalObservations", env.getHistorySize());
+            metadata.put("workingDir", env.getCurrentWorkingDirectory());
+            metadata.put("subQueriesExecuted", scope.subQueries().getExecuted());
+            metadata.put("subQueriesCoalescedInFlight", scope.subQueries().getJoinedInFlight());
+            metadata.put("subQueriesServedFromCache", scope.subQueries().getServedCompleted());
+            metadata.put("hedgedCalls", scope.hedgeBudget().getHedges());
+            metadata.put("hedgedCallsWon", scope.hedgeBudget().getHedgesWon());
+            metadata.put("deadlineReached", execution.deadlineReached);
+            metadata.put("interrupted", execution.interrupted);
+            metadata.put("resumes", run.getResumes());
+            metadata.put("llmCalls", scope.stats().getLlmCalls());
+            metadata.put("promptTokens", scope.stats().getPromptTokens());
+            metadata.put("completionTokens", scope.stats().getCompletionTokens());
+            metadata.put("actions", scope.stats().getActions());
+            metadata.put("jsonRecoveries", scope.stats().getJsonRecoveries());
+            metadata.put("parseFallbacks", scope.stats().getParseFallbacks());
+            metadata.put("loopHints", scope.stats().getHints());
+            metadata.put("forcedFinishes", scope.stats().getForcedFinishes());
+            metadata.put("stalledLoops", scope.stats().getStalls());
+
+            run.setStatus(execution.isResumable() ? RunCheckpoint.Status.INTERRUPTED : RunCheckpoint.Status.COMPLETED);
+            run.setInterruption(execution.interrupted ? "shutdown" : execution.deadlineReached ? "deadline" : null);
+            run.setFinalAnswer(execution.finalAnswer);
+            run.setTotalSteps(execution.totalSteps);
+            run.setMaxDepthReached(execution.maxDepthReached);
+
             return RlmCompletionResult.builder()
                     .finalAnswer(execution.finalAnswer)
                     .totalSteps(execution.totalSteps)
@@ -64,19 +177,26 @@ public class DefaultRlmClient implements RlmClient {
                     .strategy("rlm-recursive-repl")
                     .thoughtProcesses(request.isVerbose()
                         ? convertToThoughtProcesses(env.getHistory()) : null)
-                    .metadata(Map.of(
-                            "environmentId", env.getId(),
-                            "totalObservations", env.getHistory().size(),
-                            "workingDir", env.getCurrentWorkingDirectory()
-                    ))
+                    .metadata(metadata)
                     .build();
 
         } catch (Exception e) {
             log.error("RLM execution failed", e);
-            throw new RuntimeException("RLM execution failed: " + e.getMessage(), e);
+            run.setStatus(RunCheckpoint.Status.INTERRUPTED);
+            run.setInterruption("error: " + e.getMessage());
+            String resumable = checkpointStore.isEnabled() ? " (resume with run id " + run.getRunId() + ")" : "";
+            throw new RuntimeException("RLM execution failed" + resumable + ": " + e.getMessage(), e);
+        } finally {
+            checkpointStore.end(run);
         }
     }
 
+    // Route that receives hedged step calls: the configured secondary model, else the same route.
+    private ModelRoute hedgeRoute(ModelRoute primary) {
+        ModelRoute secondary = modelRouter.resolve(rlmConfig.getHedging().getSecondaryProvider());
+        return secondary != null ? secondary : primary;
+    }
+
     private RlmEnvironment getOrCreateEnvironment(RlmCompletionRequest request) {
         if (request.getEnvironmentId() != null) {
             return environmentStore.getEnvironment(request.getEnvironmentId())
@@ -85,52 +205,65 @@ public class DefaultRlmClient implements RlmClient {
         return environmentStore.createEnvironment("request-" + UUID.randomUUID());
     }
 
+    // Models with native structured output return exactly the step JSON, which maps directly onto
+    // StepReply. Anything else goes through the extraction heuristics, and a response without any
+    // JSON through the non-JSON fallback.
     private StepResponse parseStepResponse(String response) {
-        try {
-            JsonNode node = tryExtractJsonNode(response);
-
-            StepResponse sr = new StepResponse();
-            sr.thought = node.has("thought") ? node.get("thought").asText() : "";
-
-            // If the model signals finish via tool, infer finished = true even if missing
-            boolean finishedFlag = node.has("finished") && node.get("finished").asBoolean();
-            if (!finishedFlag && node.has("tool") && "finish".equalsIgnoreCase(node.get("tool").asText())) {
-                finishedFlag = true;
+        StepReply reply = readReply(response);
+        boolean recovered = false;
+        if (reply == null) {
+            try {
+                reply = objectMapper.treeToValue(tryExtractJsonNode(response), StepReply.class);
+                recovered = true;
+            } catch (Exception e) {
+                reply = null;
             }
-            sr.finished = finishedFlag;
+        }
+        if (reply != null) {
+            StepResponse sr = StepResponse.from(reply, Math.max(1, rlmConfig.getMaxActionsPerStep()));
+            sr.recovered = recovered;
+            return sr;
+        }
 
-            if (sr.finished) {
-                sr.answer = node.has("answer") ? node.get("answer").asText() : node.toString();
-            } else {
-                sr.tool = node.has("tool") ? node.get("tool").asText() : "python";
-                sr.code = node.has("code") ? node.get("code").asText() : "";
-                if (sr.code == null) sr.code = "";
-            }
+        // Non-JSON model output is common; handle quietly without stacktrace spam.
+        log.warn("Invalid step response (non-JSON). Applying fallback. Snippet: {}",
+                abbreviate(response, 400));
 
-            return sr;
+        // Heuristics fallback:
+        // 1) If there's a python/bash fenced block, execute it as the chosen tool.
+        // 2) Otherwise record a formatting error for the model to correct, without running anything.
+        Optional<Map.Entry<String, String>> fenced = extractCodeFromFence(response);
+        StepResponse sr = fenced.isPresent()
+                ? StepResponse.single(FALLBACK_THOUGHT, fenced.get().getKey(), fenced.get().getValue())
+                : StepResponse.single(FALLBACK_THOUGHT, INVALID_RESPONSE,
+                        abbreviate(response == null ? "" : response.strip(), 200));
+        sr.fallback = true;
+        return sr;
+    }
+
+    // Whether the response holds a step as JSON, bare or recoverable; a hedged step call prefers
+    // such a response over an earlier one that would go through the non-JSON fallback.
+    private boolean isStepReply(String response) {
+        if (readReply(response) != null) {
+            return true;
+        }
+        try {
+            return objectMapper.treeToValue(tryExtractJsonNode(response), StepReply.class) != null;
         } catch (Exception e) {
-            // Non-JSON model output is common; handle quietly without stacktrace spam.
-            log.warn("Invalid step response (non-JSON). Applying fallback. Snippet: {}",
-                    abbreviate(response, 400));
+            return false;
+        }
+    }
 
-            // Heuristics fallback:
-            // 1) If there's a python/bash fenced block, execute it as the chosen tool.
-            // 2) Otherwise, nudge the model by executing a harmless echo via bash and continue.
-            StepResponse sr = new StepResponse();
-            sr.thought = "Model response was not valid JSON. Applying heuristic fallback.";
-
-            Optional<Map.Entry<String, String>> fenced = extractCodeFromFence(response);
-            if (fenced.isPresent()) {
-                Map.Entry<String, String> entry = fenced.get();
-                sr.tool = entry.getKey();
-                sr.code = entry.getValue();
-                sr.finished = false;
-            } else {
-                sr.tool = "bash";
-                sr.code = "echo 'Formatting error: Respond ONLY with JSON per the schema (no prose, no code fences).'";
-                sr.finished = false;
-            }
-            return sr;
+    // The response as a bare JSON object, or null when it is anything else
+    private StepReply readReply(String response) {
+        String trimmed = response == null ? "" : response.trim();
+        if (trimmed.isEmpty() || trimmed.charAt(0) != '{') {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(trimmed, StepReply.class);
+        } catch (Exception e) {
+            return null;
         }
     }
 
@@ -226,99 +359,8 @@ public class DefaultRlmClient implements RlmClient {
         return s.length() <= maxLen ? s : (s.substring(0, maxLen - 3) + "...");
     }
 
-    // Normalize read_file("...") or '...' forms and plain filenames
-    private String normalizeReadFileCode(String code) {
-        if (code == null) return "";
-        String s = code.trim();
-        java.util.regex.Matcher m = java.util.regex.Pattern
-                .compile("^\\s*read_file\\s*\\(\\s*['\\\"](.+?)['\\\"]\\s*\\)\\s*;?\\s*$")
-                .matcher(s);
-        if (m.matches()) {
-            return m.group(1);
-        }
-        if ((s.startsWith("\"") && s.endsWith("\"")) || (s.startsWith("'") && s.endsWith("'"))) {
-            return s.substring(1, s.length() - 1);
-        }
-        return s;
-    }
-
-    // Parse write_file(...) robustly; prefer "filename\ncontent" format, but also support write_file('filename', <content>)
-    private java.util.Map.Entry<String, String> parseWriteFileCode(String code) {
-        String s = code == null ? "" : code;
-        String t = s.trim();
-
-        // 1) Prefer explicit write_file(...) if present to avoid splitting on newlines inside content
-        if (t.toLowerCase(Locale.ROOT).startsWith("write_file")) {
-            int open = t.indexOf('(');
-            int close = t.lastIndexOf(')');
-            if (open != -1 && close > open) {
-                String args = t.substring(open + 1, close);
-                // Extract first quoted argument as filename, honoring escapes
-                int i = 0;
-                while (i < args.length() && Character.isWhitespace(args.charAt(i))) i++;
-                if (i < args.length() && (args.charAt(i) == '\'' || args.charAt(i) == '"')) {
-                    char q = args.charAt(i++);
-                    StringBuilder fname = new StringBuilder();
-                    boolean escaped = false;
-                    while (i < args.length()) {
-                        char c = args.charAt(i++);
-                        if (escaped) { fname.append(c); escaped = false; continue; }
-                        if (c == '\\') { escaped = true; continue; }
-                        if (c == q) break;
-                        fname.append(c);
-                    }
-                    // advance to first comma separating args
-                    while (i < args.length() && args.charAt(i) != ',') i++;
-                    if (i < args.length() && args.charAt(i) == ',') i++;
-                    while (i < args.length() && Character.isWhitespace(args.charAt(i))) i++;
-                    String contentArg = args.substring(i).trim();
-                    // If surrounded by matching quotes, strip outermost quotes
-                    if (contentArg.length() >= 2) {
-                        char c0 = contentArg.charAt(0);
-                        char c1 = contentArg.charAt(contentArg.length() - 1);
-                        if ((c0 == '\'' && c1 == '\'') || (c0 == '"' && c1 == '"')) {
-                            contentArg = contentArg.substring(1, contentArg.length() - 1);
-                        }
-                    }
-                    // Unescape common sequences that may appear inside the explicit string literal
-                    contentArg = contentArg.replace("\\n", "\n")
-                                           .replace("\\t", "\t")
-                                           .replace("\\r", "\r");
-                    return java.util.Map.entry(fname.toString(), contentArg);
-                }
-            }
-        }
-
-        // 2) Fallback format: "filename\ncontent"
-        int nl = s.indexOf('\n');
-        if (nl >= 0) {
-            String filename = s.substring(0, nl).trim();
-            String content = s.substring(nl + 1);
-            return java.util.Map.entry(filename, content);
-        }
-
-        // 3) Fallback: treat the whole string as filename, empty content
-        return java.util.Map.entry(t, "");
-    }
-
-    private ToolResult executeTool(RlmEnvironment env, ToolCall toolCall) {
-        return switch (toolCall.getToolName().toLowerCase()) {
-            case "python" -> env.executePython(toolCall.getCode());
-            case "bash" -> env.executeBash(toolCall.getCode());
-            case "write_file" -> {
-                java.util.Map.Entry<String, String> args = parseWriteFileCode(toolCall.getCode());
-                yield env.writeFile(args.getKey(), args.getValue());
-            }
-            case "read_file" -> env.readFile(normalizeReadFileCode(toolCall.getCode()));
-            case "search" -> ToolResult.builder()
-                    .success(true)
-                    .output(env.search(toolCall.getCode()))
-                    .build();
-            default -> ToolResult.builder()
-                    .success(false)
-                    .error("Unknown tool: " + toolCall.getToolName())
-                    .build();
-        };
+    private ToolResult executeTool(RlmEnvironment env, ToolCall toolCall, Deadline deadline) {
+        return toolRegistry.execute(env, toolCall.getToolName(), toolCall.getCode(), deadline.remaining());
     }
 
     private String summarizeHistory(List<ActionObservation> history, int last) {
@@ -333,127 +375,484 @@ public class DefaultRlmClient implements RlmClient {
 
     private List<com.oracle.rlm.model.ThoughtProcess> convertToThoughtProcesses(
             List<ActionObservation> history) {
-        // Convert observations to ThoughtProcess for compatibility
-        return history.stream()
-                .map(obs -> com.oracle.rlm.model.ThoughtProcess.builder()
-                        .level(obs.getStep())
-                        .description(obs.getThought())
-                        .synthesis(obs.getObservation().getOutput())
-                        .build())
-                .toList();
+        // Convert observations to ThoughtProcess for compatibility: one per step, with the actions
+        // of a batched step and their outputs as sub-problems and solutions
+        List<com.oracle.rlm.model.ThoughtProcess> processes = new ArrayList<>();
+        List<ActionObservation> group = new ArrayList<>();
+        for (ActionObservation obs : history) {
+            if (obs.getActionIndex() == 0 && !group.isEmpty()) {
+                processes.add(toThoughtProcess(group));
+                group.clear();
+            }
+            group.add(obs);
+        }
+        if (!group.isEmpty()) {
+            processes.add(toThoughtProcess(group));
+        }
+        return processes;
+    }
+
+    private com.oracle.rlm.model.ThoughtProcess toThoughtProcess(List<ActionObservation> group) {
+        ActionObservation first = group.get(0);
+        ActionObservation last = group.get(group.size() - 1);
+        com.oracle.rlm.model.ThoughtProcess.ThoughtProcessBuilder process = com.oracle.rlm.model.ThoughtProcess.builder()
+                .level(first.getStep())
+                .description(first.getThought())
+                .synthesis(last.getObservation().getOutput());
+        if (group.size() > 1) {
+            process.subProblems(group.stream()
+                            .map(obs -> obs.getAction().getToolName() + ": " + abbreviate(obs.getAction().getCode(), 200))
+                            .collect(Collectors.toList()))
+                    .solutions(group.stream()
+                            .map(obs -> obs.getObservation().isSuccess()
+                                    ? String.valueOf(obs.getObservation().getOutput())
+                                    : "ERROR: " + obs.getObservation().getError())
+                            .collect(Collectors.toList()));
+        }
+        return process.build();
     }
 
     private static class StepResponse {
         String thought;
-        String tool;
-        String code;
+        List<ToolCall> actions = List.of();
         boolean finished;
+        // Final answer: at once when finished, otherwise once all actions succeeded (a batch
+        // ending with finish)
         String answer;
+        boolean fallback;
+        boolean recovered;
+
+        // A single-action reply that names the finish tool is finished even without the flag; one
+        // without a tool runs python. In a batch, a finish action ends the batch and actions past
+        // maxActions are dropped.
+        static StepResponse from(StepReply reply, int maxActions) {
+            StepResponse sr = new StepResponse();
+            sr.thought = reply.getThought() != null ? reply.getThought() : "";
+            if (reply.getActions() != null && !reply.getActions().isEmpty()) {
+                List<ToolCall> actions = new ArrayList<>();
+                for (StepReply.Action action : reply.getActions()) {
+                    String tool = action.getTool() != null ? action.getTool() : "python";
+                    if ("finish".equalsIgnoreCase(tool)) {
+                        sr.answer = firstNonBlank(action.getCode(), reply.getAnswer(), sr.thought);
+                        break;
+                    }
+                    if (actions.size() >= maxActions) {
+                        log.warn("Step batches {} actions; running the first {}", reply.getActions().size(), maxActions);
+                        break;
+                    }
+                    actions.add(action(tool, action.getCode(), sr.thought));
+                }
+                if (sr.answer == null && Boolean.TRUE.equals(reply.getFinished())) {
+                    sr.answer = firstNonBlank(reply.getAnswer(), sr.thought);
+                }
+                sr.actions = List.copyOf(actions);
+                sr.finished = actions.isEmpty();
+                return sr;
+            }
+            sr.finished = Boolean.TRUE.equals(reply.getFinished()) || "finish".equalsIgnoreCase(reply.getTool());
+            if (sr.finished) {
+                // the strict schema requires an answer field, so an unfinished one arrives as ""
+                sr.answer = firstNonBlank(reply.getAnswer(), sr.thought);
+            } else if (isBlank(reply.getTool()) && isBlank(reply.getCode())) {
+                // e.g. "actions": [] with "finished": false; nothing to run
+                sr.actions = List.of(action(INVALID_RESPONSE, "no action and not finished", sr.thought));
+            } else {
+                sr.actions = List.of(action(reply.getTool() != null ? reply.getTool() : "python",
+                        reply.getCode(), sr.thought));
+            }
+            return sr;
+        }
+
+        static StepResponse single(String thought, String tool, String code) {
+            StepResponse sr = new StepResponse();
+            sr.thought = thought;
+            sr.actions = List.of(action(tool, code, thought));
+            return sr;
+        }
+
+        String describe() {
+            return actions.size() == 1 ? actions.get(0).getToolName() : actions.size() + " actions";
+        }
+
+        RunCheckpoint.Pending toPending() {
+            RunCheckpoint.Pending pending = new RunCheckpoint.Pending();
+            pending.setThought(thought);
+            if (actions.size() == 1) {
+                pending.setTool(actions.get(0).getToolName());
+                pending.setCode(actions.get(0).getCode());
+            } else {
+                pending.setActions(actions);
+            }
+            pending.setAnswer(answer);
+            return pending;
+        }
+
+        static StepResponse from(RunCheckpoint.Pending pending) {
+            if (pending == null) {
+                return null;
+            }
+            StepResponse sr = pending.getActions() != null
+                    ? new StepResponse()
+                    : single(pending.getThought(), pending.getTool(), pending.getCode());
+            sr.thought = pending.getThought();
+            if (pending.getActions() != null) {
+                sr.actions = List.copyOf(pending.getActions());
+            }
+            sr.answer = pending.getAnswer();
+            return sr;
+        }
+
+        private static ToolCall action(String tool, String code, String thought) {
+            return ToolCall.builder()
+                    .toolName(tool)
+                    .code(code != null ? code : "")
+                    .reasoning(thought)
+                    .build();
+        }
+
+        private static String firstNonBlank(String... values) {
+            for (String value : values) {
+                if (value != null && !value.isBlank()) {
+                    return value;
+                }
+            }
+            return "";
+        }
+
+        private static boolean isBlank(String value) {
+            return value == null || value.isBlank();
+        }
+    }
+
+    // One executed action: the call as recorded (a python step that requested a sub-query is
+    // recorded as that rlm_call) and its result.
+    private static class ActionOutcome {
+        final ToolCall call;
+        final ToolResult result;
+        final RecursiveCallResult recursiveCall;
+
+        ActionOutcome(ToolCall call, ToolResult result, RecursiveCallResult recursiveCall) {
+            this.call = call;
+            this.result = result;
+            this.recursiveCall = recursiveCall;
+        }
     }
 
-    private ExecutionResult runCompletion(RlmCompletionRequest request, RlmEnvironment env,
-                                          int currentDepth, int maxDepth, int maxBranching) {
-        int maxSteps = Math.max(1, maxDepth * 10);
+    private ExecutionResult runCompletion(RlmCompletionRequest request, RlmEnvironment env, RunScope scope,
+                                          String loopKey, int currentDepth, int maxDepth, int maxBranching) {
+        TrajectoryMonitor monitor = new TrajectoryMonitor(rlmConfig.getLoopGuard(), Math.max(1, maxDepth * 10));
         int step = 0;
         int totalSteps = 0;
         int maxDepthReached = currentDepth;
         int branchCalls = 0;
         boolean finished = false;
+        boolean deadlineReached = false;
+        boolean interrupted = false;
+        boolean stalled = false;
         String finalAnswer = null;
+        StepResponse pending = null;
+        Deadline deadline = scope.deadline();
+        Duration answerNowThreshold = Duration.ofSeconds(rlmConfig.getAnswerNowSeconds());
 
-        while (!finished && step < maxSteps) {
-            step++;
-            totalSteps++;
-            log.info("RLM Step {}/{} at depth {}", step, maxSteps, currentDepth);
-
-            String userPrompt = promptService.createUserPrompt(
-                    request.getQuery(),
-                    env.getHistory(),
-                    env.getEnvironmentInfo(),
-                    currentDepth,
-                    maxDepth,
-                    maxBranching,
-                    branchCalls
-            );
-
-            String response = chatClient.prompt()
-                    .user(userPrompt)
-                    .call()
-                    .content();
-
-            StepResponse stepResponse = parseStepResponse(response);
-
-            if (stepResponse.finished) {
-                finished = true;
-                finalAnswer = stepResponse.answer;
-                log.info("RLM finished at step {} depth {}", step, currentDepth);
+        // Continue from this loop's checkpoint, if the run is being resumed
+        CheckpointStore.Journal journal = checkpointStore.journal(scope.runId(), loopKey);
+        RunCheckpoint.Loop state = journal.load().orElse(null);
+        if (state != null && state.isFinished()) {
+            log.info("Loop {} at depth {} already completed in an earlier attempt", loopKey, currentDepth);
+            return new ExecutionResult(state.getFinalAnswer(), state.getTotalSteps(), state.getMaxDepthReached(),
+                    false, false);
+        }
+        if (state != null) {
+            step = state.getStep();
+            totalSteps = state.getTotalSteps();
+            maxDepthReached = state.getMaxDepthReached();
+            branchCalls = state.getBranchCalls();
+            pending = StepResponse.from(state.getPending());
+            List<ActionObservation> saved = journal.restore(state.getHistorySize());
+            for (ActionObservation observation : saved.subList(Math.min(env.getHistorySize(), saved.size()),
+                    saved.size())) {
+                env.addObservation(observation);
+            }
+            for (ActionObservation observation : env.getHistory()) {
+                monitor.observe(observation, FALLBACK_THOUGHT.equals(observation.getThought()), null);
+            }
+            log.info("Resuming loop {} at step {} depth {}{}", loopKey, step, currentDepth,
+                    pending != null ? " (pending " + pending.describe() + ")" : "");
+        } else {
+            state = new RunCheckpoint.Loop();
+            state.setDepth(currentDepth);
+        }
+
+        // Reused by every step of this loop; only its contents change between prompts
+        StringBuilder promptBuffer = new StringBuilder();
+        while (!finished && (pending != null || step < monitor.budget())) {
+            if (deadline.isExpired()) {
+                deadlineReached = true;
+                break;
+            }
+            if (checkpointStore.isStopping()) {
+                interrupted = true;
                 break;
             }
+            boolean answerNow = deadline.isNearlyExpired(answerNowThreshold);
+            StepResponse stepResponse;
+            int next = 0;
+            if (pending != null) {
+                // The model already chose these actions before the run stopped; do not ask again,
+                // and skip those of a batch that already ran
+                stepResponse = pending;
+                pending = null;
+                next = completedActions(env.getHistory(), step);
+                log.info("RLM Step {}/{} at depth {} (resumed {})", step, monitor.budget(), currentDepth,
+                        stepResponse.describe());
+            } else {
+                step++;
+                totalSteps++;
+                boolean forceFinish = monitor.level() == TrajectoryMonitor.Level.FINISH;
+                log.info("RLM Step {}/{} at depth {}{}", step, monitor.budget(), currentDepth,
+                        answerNow ? " (answer now)" : forceFinish ? " (stalled, asking to finish)" : "");
+                if (forceFinish) {
+                    scope.stats().recordForcedFinish();
+                } else if (monitor.level() == TrajectoryMonitor.Level.HINT) {
+                    scope.stats().recordHint();
+                }
 
-            ToolCall toolCall = ToolCall.builder()
-                    .toolName(stepResponse.tool)
-                    .code(stepResponse.code)
-                    .reasoning(stepResponse.thought)
-                    .build();
+                String userPrompt = promptService.assembleUserPrompt(
+                        promptBuffer,
+                        request.getQuery(),
+                        env.getRenderedHistory(promptService::renderObservation),
+                        env.getEnvironmentInfo(),
+                        contextOutliner.outline(env),
+                        currentDepth,
+                        maxDepth,
+                        maxBranching,
+                        branchCalls,
+                        answerNow || forceFinish,
+                        monitor.note()
+                );
 
-            ToolResult result;
-            if ("rlm_call".equalsIgnoreCase(stepResponse.tool)) {
-                RecursiveCallResult recursiveCall = executeRecursiveCall(request, env, stepResponse.code,
-                        currentDepth, maxDepth, maxBranching, branchCalls);
-                result = recursiveCall.toolResult;
-                if (result.isSuccess()) {
-                    branchCalls++;
+                ModelRoute route = modelRouter.select(currentDepth == 0 ? CallType.ROOT_STEP : CallType.CHILD_STEP,
+                        currentDepth, request.getBackendHints());
+                ModelRoute hedge = hedgeRoute(route);
+                String response;
+                try {
+                    response = hedgedCaller.call(
+                            () -> route.call(systemPrompt, userPrompt, null, currentDepth, stepSchema),
+                            () -> hedge.call(systemPrompt, userPrompt, null, currentDepth, stepSchema),
+                            this::isStepReply,
+                            scope.hedgeBudget(),
+                            deadline);
+                } catch (DeadlineExceededException e) {
+                    log.warn("Model call at step {} depth {} hit the deadline", step, currentDepth);
+                    step--;
+                    totalSteps--;
+                    deadlineReached = true;
+                    break;
                 }
-                if (recursiveCall.execution != null) {
-                    totalSteps += recursiveCall.execution.totalSteps;
-                    maxDepthReached = Math.max(maxDepthReached, recursiveCall.execution.maxDepthReached);
+
+                scope.stats().recordCall(systemPrompt, userPrompt, response);
+                stepResponse = parseStepResponse(response);
+                if (stepResponse.fallback) {
+                    scope.stats().recordParseFallback();
+                } else if (stepResponse.recovered) {
+                    scope.stats().recordJsonRecovery();
                 }
-            } else {
-                result = executeTool(env, toolCall);
-                if ("python".equalsIgnoreCase(stepResponse.tool)) {
-                    Optional<String> pyReq = consumePythonRlmCallRequest(env);
-                    if (pyReq.isPresent()) {
-                        RecursiveCallResult recursiveCall = executeRecursiveCall(request, env, pyReq.get(),
-                                currentDepth, maxDepth, maxBranching, branchCalls);
-                        result = recursiveCall.toolResult;
-                        if (result.isSuccess()) {
+
+                if (stepResponse.finished) {
+                    finished = true;
+                    finalAnswer = stepResponse.answer;
+                    log.info("RLM finished at step {} depth {}", step, currentDepth);
+                    break;
+                }
+                if (answerNow) {
+                    // The model was told to finish but asked for another tool; there is no time to
+                    // run it now, but a resume will.
+                    deadlineReached = true;
+                    pending = stepResponse;
+                    break;
+                }
+                if (forceFinish) {
+                    // Told to finish after repeating itself and still asking for a tool: stop here
+                    // rather than spend the rest of the budget on the same loop.
+                    log.warn("RLM stalled at step {} depth {}; ending the loop", step, currentDepth);
+                    scope.stats().recordStall();
+                    stalled = true;
+                    break;
+                }
+                checkpointLoop(journal, state, env, step, totalSteps, maxDepthReached, branchCalls, stepResponse);
+            }
+
+            // Run the actions in order, a run of consecutive read-only tools at once, and stop at the
+            // first failure. Every action is recorded under this step.
+            List<ToolCall> actions = stepResponse.actions;
+            boolean failed = false;
+            while (next < actions.size() && !failed) {
+                if (next > 0 && (deadline.isExpired() || checkpointStore.isStopping())) {
+                    deadlineReached = deadline.isExpired();
+                    interrupted = !deadlineReached;
+                    pending = stepResponse;
+                    break;
+                }
+                int end = next + 1;
+                while (end < actions.size() && toolRegistry.isReadOnly(actions.get(next).getToolName())
+                        && toolRegistry.isReadOnly(actions.get(end).getToolName())) {
+                    end++;
+                }
+                List<ActionOutcome> outcomes = new ArrayList<>();
+                if (end - next > 1) {
+                    List<ToolCall> group = actions.subList(next, end);
+                    List<ToolResult> results = toolRegistry.executeConcurrently(env, group, deadline.remaining());
+                    for (int i = 0; i < group.size(); i++) {
+                        outcomes.add(new ActionOutcome(group.get(i), results.get(i), null));
+                    }
+                } else {
+                    outcomes.add(runAction(request, env, scope, actions.get(next), currentDepth, maxDepth,
+                            maxBranching, branchCalls));
+                }
+
+                for (int i = 0; i < outcomes.size(); i++) {
+                    ActionOutcome outcome = outcomes.get(i);
+                    if (outcome.recursiveCall != null) {
+                        ExecutionResult child = outcome.recursiveCall.execution;
+                        if (child != null && child.isResumable()
+                                && (deadline.isExpired() || checkpointStore.isStopping())) {
+                            // The whole run is stopping and the child did not finish: keep this step
+                            // pending, so a resume continues the child instead of taking its partial answer.
+                            deadlineReached = child.deadlineReached || deadline.isExpired();
+                            interrupted = child.interrupted;
+                            pending = stepResponse;
+                            break;
+                        }
+                        if (outcome.result.isSuccess()) {
                             branchCalls++;
                         }
-                        if (recursiveCall.execution != null) {
-                            totalSteps += recursiveCall.execution.totalSteps;
-                            maxDepthReached = Math.max(maxDepthReached, recursiveCall.execution.maxDepthReached);
+                        if (child != null) {
+                            totalSteps += child.totalSteps;
+                            maxDepthReached = Math.max(maxDepthReached, child.maxDepthReached);
                         }
-                        toolCall = ToolCall.builder()
-                                .toolName("rlm_call")
-                                .code(pyReq.get())
-                                .reasoning(stepResponse.thought)
-                                .build();
                     }
-                }
-            }
 
-            ActionObservation observation = ActionObservation.builder()
-                    .step(step)
-                    .thought(stepResponse.thought)
-                    .action(toolCall)
-                    .observation(result)
-                    .timestamp(System.currentTimeMillis())
-                    .build();
+                    ActionObservation observation = ActionObservation.builder()
+                            .step(step)
+                            .actionIndex(next + i)
+                            .thought(stepResponse.thought)
+                            .action(outcome.call)
+                            .observation(outcome.result)
+                            .timestamp(System.currentTimeMillis())
+                            .build();
 
-            env.addObservation(observation);
+                    env.addObservation(observation);
+                    scope.stats().recordAction();
+                    monitor.observe(observation, stepResponse.fallback, env.listFiles());
+                    journal.append(env.getHistorySince(env.getHistorySize() - 1).get(0));
+                    boolean more = next + i + 1 < actions.size() || stepResponse.answer != null;
+                    checkpointLoop(journal, state, env, step, totalSteps, maxDepthReached, branchCalls,
+                            more ? stepResponse : null);
 
-            if (!result.isSuccess()) {
-                log.warn("Tool execution failed at step {} depth {}: {}", step, currentDepth, result.getError());
+                    if (!outcome.result.isSuccess()) {
+                        log.warn("Tool execution failed at step {} depth {}: {}", step, currentDepth,
+                                outcome.result.getError());
+                        failed = true;
+                    }
+                }
+                if (pending != null) {
+                    break;
+                }
+                next = end;
+            }
+            if (pending != null) {
+                break;
+            }
+            if (!failed && stepResponse.answer != null) {
+                finished = true;
+                finalAnswer = stepResponse.answer;
+                log.info("RLM finished after the actions of step {} depth {}", step, currentDepth);
             }
         }
 
-        if (!finished) {
-            log.warn("RLM reached max steps ({}) without finishing at depth {}", maxSteps, currentDepth);
+        if (!finished && (deadlineReached || interrupted)) {
+            log.warn("RLM {} at step {} depth {}; returning best partial answer",
+                    interrupted ? "stopped for shutdown" : "deadline reached", step, currentDepth);
+            finalAnswer = bestPartialAnswer("Time limit reached before a complete solution.", env.getHistory());
+        } else if (stalled) {
+            finalAnswer = bestPartialAnswer("Stopped after repeating actions without progress.", env.getHistory());
+        } else if (!finished) {
+            log.warn("RLM reached its step budget ({}) without finishing at depth {}", monitor.budget(), currentDepth);
             finalAnswer = "Maximum steps reached without complete solution. " +
                          "Last observations: " + summarizeHistory(env.getHistory(), 3);
         }
 
-        return new ExecutionResult(finalAnswer, totalSteps, maxDepthReached);
+        ExecutionResult execution = new ExecutionResult(finalAnswer, totalSteps, maxDepthReached,
+                deadlineReached, interrupted);
+        state.setFinished(!execution.isResumable());
+        state.setDeadlineReached(deadlineReached);
+        state.setFinalAnswer(finalAnswer);
+        checkpointLoop(journal, state, env, step, totalSteps, maxDepthReached, branchCalls, pending);
+        return execution;
+    }
+
+    private ActionOutcome runAction(RlmCompletionRequest request, RlmEnvironment env, RunScope scope,
+                                    ToolCall action, int currentDepth, int maxDepth, int maxBranching,
+                                    int branchCalls) {
+        if (INVALID_RESPONSE.equals(action.getToolName())) {
+            return new ActionOutcome(action, ToolResult.builder().success(false).error(FORMAT_ERROR).build(), null);
+        }
+        if ("rlm_call".equalsIgnoreCase(action.getToolName())) {
+            RecursiveCallResult recursiveCall = executeRecursiveCall(request, env, scope, action.getCode(),
+                    currentDepth, maxDepth, maxBranching, branchCalls);
+            return new ActionOutcome(action, recursiveCall.toolResult, recursiveCall);
+        }
+        ToolResult result = executeTool(env, action, scope.deadline());
+        if ("python".equalsIgnoreCase(action.getToolName())) {
+            Optional<String> pyReq = consumePythonRlmCallRequest(env);
+            if (pyReq.isPresent()) {
+                RecursiveCallResult recursiveCall = executeRecursiveCall(request, env, scope, pyReq.get(),
+                        currentDepth, maxDepth, maxBranching, branchCalls);
+                ToolCall rlmCall = ToolCall.builder()
+                        .toolName("rlm_call")
+                        .code(pyReq.get())
+                        .reasoning(action.getReasoning())
+                        .build();
+                return new ActionOutcome(rlmCall, recursiveCall.toolResult, recursiveCall);
+            }
+        }
+        return new ActionOutcome(action, result, null);
+    }
+
+    // Actions of the given step already in the history (a batch interrupted part way)
+    private static int completedActions(List<ActionObservation> history, int step) {
+        int count = 0;
+        for (int i = history.size() - 1; i >= 0 && history.get(i).getStep() == step; i--) {
+            count++;
+        }
+        return count;
+    }
+
+    // Record the loop's progress: after a completed step (no pending action), or after the model
+    // call of a step whose action is about to run.
+    private void checkpointLoop(CheckpointStore.Journal journal, RunCheckpoint.Loop state, RlmEnvironment env,
+                                int step, int totalSteps, int maxDepthReached, int branchCalls,
+                                StepResponse pending) {
+        state.setEnvironmentId(env.getId());
+        state.setStep(step);
+        state.setTotalSteps(totalSteps);
+        state.setMaxDepthReached(maxDepthReached);
+        state.setBranchCalls(branchCalls);
+        state.setHistorySize(env.getHistorySize());
+        state.setPending(pending != null ? pending.toPending() : null);
+        journal.save(state);
+    }
+
+    // Most recent successful, non-empty observation; the history summary if there is none.
+    private String bestPartialAnswer(String reason, List<ActionObservation> history) {
+        for (int i = history.size() - 1; i >= 0; i--) {
+            ActionObservation obs = history.get(i);
+            String output = obs.getObservation().getOutput();
+            if (obs.getObservation().isSuccess() && output != null && !output.isBlank()) {
+                return reason + " Best partial result (step " + obs.getStep() + "): " + output.trim();
+            }
+        }
+        return reason + " Last observations: " + summarizeHistory(history, 3);
     }
 
     private Optional<String> consumePythonRlmCallRequest(RlmEnvironment env) {
@@ -475,8 +874,8 @@ public class DefaultRlmClient implements RlmClient {
     }
 
     private RecursiveCallResult executeRecursiveCall(RlmCompletionRequest request, RlmEnvironment env,
-                                                     String subQuery, int currentDepth, int maxDepth,
-                                                     int maxBranching, int branchCalls) {
+                                                     RunScope scope, String subQuery, int currentDepth,
+                                                     int maxDepth, int maxBranching, int branchCalls) {
         if (currentDepth + 1 > maxDepth) {
             return new RecursiveCallResult(ToolResult.builder()
                     .success(false)
@@ -497,65 +896,106 @@ public class DefaultRlmClient implements RlmClient {
                     .build(), null);
         }
 
-        RlmEnvironment childEnv = createChildEnvironment(env, currentDepth + 1);
+        // Identical sub-queries over the same parent context are run once per request tree:
+        // a repeat waits for the in-flight run or reuses its answer. A repeat of an ancestor's
+        // own sub-query cannot wait on it, so it runs normally.
+        String key = RunScope.subQueryKey(trimmedQuery, env.getContextHash());
+        Deadline childDeadline = scope.deadline().share(maxBranching - branchCalls,
+                rlmConfig.getChildTimeReserveFraction());
+        RunScope childScope = scope.child(key, childDeadline);
+        long start = System.currentTimeMillis();
+        if (scope.isAncestor(key)) {
+            ExecutionResult childExecution = runChildCompletion(request, env, childScope, key + "@" + currentDepth,
+                    trimmedQuery, currentDepth, maxDepth, maxBranching);
+            return toRecursiveCallResult(childExecution, start, false);
+        }
+        SingleFlight.Flight<ExecutionResult> flight;
+        try {
+            flight = scope.subQueries().execute(key,
+                    () -> runChildCompletion(request, env, childScope, key, trimmedQuery,
+                            currentDepth, maxDepth, maxBranching),
+                    childDeadline.remaining());
+        } catch (SingleFlight.WaitTimeoutException e) {
+            return new RecursiveCallResult(ToolResult.builder()
+                    .success(false)
+                    .error("Timed out waiting for an identical in-flight rlm_call")
+                    .executionTimeMs(System.currentTimeMillis() - start)
+                    .build(), null);
+        }
+        if (flight.isShared()) {
+            log.info("Reusing result of identical rlm_call at depth {}: {}", currentDepth,
+                    abbreviate(trimmedQuery, 80));
+        }
+        return toRecursiveCallResult(flight.getValue(), start, flight.isShared());
+    }
+
+    private ExecutionResult runChildCompletion(RlmCompletionRequest request, RlmEnvironment env,
+                                               RunScope childScope, String loopKey, String query,
+                                               int currentDepth, int maxDepth, int maxBranching) {
+        // A child checkpointed by an earlier attempt of this run returns its answer if it finished,
+        // and otherwise continues in its own environment
+        Optional<RunCheckpoint.Loop> saved = checkpointStore.journal(childScope.runId(), loopKey).load();
+        if (saved.isPresent() && saved.get().isFinished()) {
+            RunCheckpoint.Loop done = saved.get();
+            return new ExecutionResult(done.getFinalAnswer(), done.getTotalSteps(), done.getMaxDepthReached(),
+                    false, false);
+        }
+        RlmEnvironment childEnv = saved
+                .flatMap(loop -> environmentStore.reopenEnvironment(loop.getEnvironmentId(),
+                        "child-depth-" + (currentDepth + 1)))
+                .orElse(null);
+        if (childEnv != null) {
+            childEnv.setSchedulingGroup(childScope.runId(), currentDepth + 1);
+        } else {
+            childEnv = createChildEnvironment(env, childScope, currentDepth + 1);
+        }
         try {
             RlmCompletionRequest childRequest = RlmCompletionRequest.builder()
-                    .query(trimmedQuery)
+                    .query(query)
                     .environmentId(childEnv.getId())
                     .maxDepth(maxDepth)
                     .maxBranching(maxBranching)
                     .verbose(false)
                     .backendHints(request.getBackendHints())
-                    .timeout(request.getTimeout())
+                    .timeout(childScope.deadline().remaining())
                     .strategy(request.getStrategy())
                     .build();
 
-            long start = System.currentTimeMillis();
-            ExecutionResult childExecution = runCompletion(childRequest, childEnv,
+            return runCompletion(childRequest, childEnv, childScope, loopKey,
                     currentDepth + 1, maxDepth, maxBranching);
-            long duration = System.currentTimeMillis() - start;
-
-            ToolResult toolResult = ToolResult.builder()
-                    .success(true)
-                    .output(childExecution.finalAnswer)
-                    .executionTimeMs(duration)
-                    .build();
-            return new RecursiveCallResult(toolResult, childExecution);
         } finally {
             environmentStore.deleteEnvironment(childEnv.getId());
         }
     }
 
-    private RlmEnvironment createChildEnvironment(RlmEnvironment parent, int depth) {
+    // A shared result carries no execution, so its steps are not counted twice. A child that
+    // stopped before finishing is reported as failed; its partial answer goes into the error.
+    private RecursiveCallResult toRecursiveCallResult(ExecutionResult childExecution, long start, boolean shared) {
+        ToolResult toolResult = ToolResult.builder()
+                .success(!childExecution.isResumable())
+                .output(childExecution.finalAnswer)
+                .error(childExecution.isResumable()
+                        ? "Sub-query stopped before finishing ("
+                                + (childExecution.interrupted ? "interrupted" : "deadline reached")
+                                + "). Partial answer: " + childExecution.finalAnswer
+                        : null)
+                .executionTimeMs(System.currentTimeMillis() - start)
+                .build();
+        return new RecursiveCallResult(toolResult, shared ? null : childExecution);
+    }
+
+    private RlmEnvironment createChildEnvironment(RlmEnvironment parent, RunScope childScope, int depth) {
         RlmEnvironment child = environmentStore.createEnvironment("child-depth-" + depth);
-        String fullContext = parent.getFullContext();
-        if (fullContext != null) {
-            child.setFullContext(fullContext);
-        }
+        child.setSchedulingGroup(childScope.runId(), depth);
+        child.shareContextFrom(parent);
         String initialContext = parent.getContextChunk("initial_context");
         if (initialContext != null) {
             child.putContextChunk("initial_context", initialContext);
         }
-        copyWorkingFiles(parent, child);
+        child.copyWorkspaceFrom(parent);
         return child;
     }
 
-    private void copyWorkingFiles(RlmEnvironment parent, RlmEnvironment child) {
-        Path parentDir = Path.of(parent.getCurrentWorkingDirectory());
-        Path childDir = Path.of(child.getCurrentWorkingDirectory());
-        for (String filename : parent.listFiles()) {
-            Path source = parentDir.resolve(filename);
-            Path target = childDir.resolve(filename);
-            try {
-                if (Files.isRegularFile(source)) {
-                    Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
-                }
-            } catch (Exception e) {
-                log.warn("Failed to copy file {} to child environment: {}", filename, e.getMessage());
-            }
-        }
-    }
-
     private void seedEnvironmentContext(RlmEnvironment env, String inlineContext) {
         if (inlineContext == null || inlineContext.isBlank()) {
             return;
@@ -567,15 +1007,27 @@ public class DefaultRlmClient implements RlmClient {
         }
     }
 
-    private static class ExecutionResult {
+    static class ExecutionResult {
         final String finalAnswer;
         final int totalSteps;
         final int maxDepthReached;
+        final boolean deadlineReached;
+        final boolean interrupted;
 
-        ExecutionResult(String finalAnswer, int totalSteps, int maxDepthReached) {
+        ExecutionResult(String finalAnswer, int totalSteps, int maxDepthReached, boolean deadlineReached,
+                        boolean interrupted) {
             this.finalAnswer = finalAnswer;
             this.totalSteps = totalSteps;
             this.maxDepthReached = maxDepthReached;
+            this.deadlineReached = deadlineReached;
+            this.interrupted = interrupted;
+        }
+
+        /**
+         * Stopped by the deadline or a shutdown rather than finished: a resume continues it.
+         */
+        boolean isResumable() {
+            return deadlineReached || interrupted;
         }
     }
 
@@ -0,0 +1,45 @@
+package com.oracle.rlm.core.impl;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * Tunables applied to each {@link ExecutableRlmEnvironment}, resolved from configuration by the store.
+ */
+@Value
+@Builder
+public class EnvironmentSettings {
+
+    @Builder.Default
+    Duration pythonTimeout = Duration.ofSeconds(30);
+
+    @Builder.Default
+    Duration bashTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Tool output longer than this (in characters) is written to a workspace file and replaced
+     * in the observation by a preview; 0 disables spilling.
+     */
+    @Builder.Default
+    int spillThresholdChars = 16 * 1024;
+
+    /**
+     * Characters of a spilled output kept in the observation (split between head and tail).
+     */
+    @Builder.Default
+    int spillPreviewChars = 2_000;
+
+    /**
+     * History entries older than this many steps keep their output deflated in memory; 0 disables.
+     */
+    @Builder.Default
+    int historyCompressAfter = 0;
+
+    /**
+     * Observation payloads shorter than this (in characters) are never compressed.
+     */
+    @Builder.Default
+    int historyCompressMinChars = 1024;
+}
@@ -1,33 +1,98 @@
 package com.oracle.rlm.core.impl;
 
 import com.oracle.rlm.core.*;
+import com.oracle.rlm.scan.ContextScanner;
+import com.oracle.rlm.scan.ScanRequest;
+import com.oracle.rlm.scan.ScanResult;
+import com.oracle.rlm.tools.ReadFileTool;
+import com.oracle.rlm.util.Hashes;
+import com.oracle.rlm.util.WorkspacePaths;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 @Slf4j
 public class ExecutableRlmEnvironment implements RlmEnvironment {
 
     private static final String CONTEXT_FILENAME = "context.txt";
+    private static final int DEFAULT_MAX_CAPTURE_BYTES = 1024 * 1024;
+    private static final int MAX_LISTED_FILES = 50;
+    private static final int SNIPPET_CHARS = 200;
     
     private final String id;
     private final String label;
     private final Path workDir;
+    private final SandboxLauncher launcher;
+    private final ExecutionScheduler scheduler;
+    private final ContextScanner scanner;
+    private final ContextBlobStore blobStore;
+    private final EnvironmentSettings settings;
+    private final Duration pythonTimeout;
+    private final Duration bashTimeout;
     private final Map<String, String> chunks = new ConcurrentHashMap<>();
-    private final List<ActionObservation> history = new ArrayList<>();
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final ObservationLog history;
+    private final RenderedHistory renderedHistory;
+    private final WorkspaceManifest manifest;
+    // Numbers script files: names must not vary between replays of the same trajectory
+    private final AtomicInteger scripts = new AtomicInteger();
     private Path contextPath;
     private long contextSize;
+    private volatile String contextBlob;
+    private volatile String schedulingGroup;
+    private volatile int schedulingDepth;
+    // Written only by addObservation; a batch of actions is one step
+    private volatile StepMark lastStep = StepMark.NONE;
     
     public ExecutableRlmEnvironment(String id, String label) {
+        this(id, label, SandboxLauncher.unsandboxed(new ProcessRunner(DEFAULT_MAX_CAPTURE_BYTES)),
+                new ExecutionScheduler(0), new ContextScanner(ForkJoinPool.commonPool()),
+                ContextBlobStore.disabled(), EnvironmentSettings.builder().build());
+    }
+
+    public ExecutableRlmEnvironment(String id, String label, SandboxLauncher launcher,
+                                    ExecutionScheduler scheduler, ContextScanner scanner,
+                                    ContextBlobStore blobStore, EnvironmentSettings settings) {
+        this(id, label, launcher, scheduler, scanner, blobStore, settings, false);
+    }
+
+    private ExecutableRlmEnvironment(String id, String label, SandboxLauncher launcher,
+                                     ExecutionScheduler scheduler, ContextScanner scanner,
+                                     ContextBlobStore blobStore, EnvironmentSettings settings, boolean reopen) {
         this.id = id;
         this.label = label;
+        this.launcher = launcher;
+        this.scheduler = scheduler;
+        this.scanner = scanner;
+        this.blobStore = blobStore;
+        this.schedulingGroup = id;
+        this.settings = settings;
+        this.pythonTimeout = settings.getPythonTimeout();
+        this.bashTimeout = settings.getBashTimeout();
+        this.history = new ObservationLog(settings.getHistoryCompressAfter(), settings.getHistoryCompressMinChars());
+        this.renderedHistory = new RenderedHistory(settings.getHistoryCompressAfter(),
+                settings.getHistoryCompressMinChars());
         try {
             // this.workDir = Files.createTempDirectory("rlm_env_" + id);
-            this.workDir = Files.createDirectory(Paths.get("rlm_env_" + id));
+            if (reopen) {
+                this.workDir = workDirectory(id);
+                this.manifest = new WorkspaceManifest(workDir);
+                this.contextPath = workDir.resolve(CONTEXT_FILENAME);
+                reopenContext();
+                log.info("Reopened work directory: {}", workDir);
+                return;
+            }
+            this.workDir = Files.createDirectory(workDirectory(id));
+            this.manifest = new WorkspaceManifest(workDir);
             log.info("Created work directory: {}", workDir);
             // Ensure context file exists so read_file('context.txt') doesn't fail
             this.contextPath = workDir.resolve(CONTEXT_FILENAME);
@@ -35,11 +100,62 @@ public class ExecutableRlmEnvironment implements RlmEnvironment {
                 Files.writeString(this.contextPath, "");
             }
             this.contextSize = Files.size(this.contextPath);
+            manifest.record(CONTEXT_FILENAME, Hashes.sha256(""), -1);
         } catch (IOException e) {
             throw new RuntimeException("Failed to create work directory", e);
         }
     }
-    
+
+    /**
+     * Reopen the work directory of an environment that is no longer in memory (e.g. after a
+     * restart), keeping its files and context; the caller restores its history.
+     */
+    public static ExecutableRlmEnvironment reopen(String id, String label, SandboxLauncher launcher,
+                                                  ExecutionScheduler scheduler, ContextScanner scanner,
+                                                  ContextBlobStore blobStore, EnvironmentSettings settings) {
+        if (!Files.isDirectory(workDirectory(id))) {
+            throw new IllegalStateException("No work directory for environment " + id);
+        }
+        return new ExecutableRlmEnvironment(id, label, launcher, scheduler, scanner, blobStore, settings, true);
+    }
+
+    static Path workDirectory(String id) {
+        return Paths.get("rlm_env_" + id);
+    }
+
+    // Existing files become the baseline of the manifest; the context takes its reference in the
+    // blob store again (re-storing it if it was evicted meanwhile).
+    private void reopenContext() throws IOException {
+        manifest.scan(-1);
+        WorkspaceManifest.Entry entry = manifest.get(CONTEXT_FILENAME);
+        if (entry == null || entry.isDeleted()) {
+            contextPath = null;
+            return;
+        }
+        contextSize = Files.size(contextPath);
+        if (!blobStore.isEnabled() || contextSize == 0) {
+            return;
+        }
+        String hash = entry.getHash();
+        if (blobStore.retain(hash)) {
+            boolean linked = blobStore.isLinked(hash, contextPath);
+            boolean share = shareContext();
+            if (linked || !share) {
+                if (linked && !share) {
+                    // steps can no longer be kept from writing the link
+                    blobStore.link(hash, contextPath, false);
+                }
+                contextBlob = hash;
+                return;
+            }
+            blobStore.release(hash);
+        }
+        String context = Files.readString(contextPath);
+        blobStore.acquire(hash, context);
+        contextBlob = hash;
+        blobStore.link(hash, contextPath, shareContext());
+    }
+
     @Override
     public String getId() {
         return id;
@@ -62,21 +178,119 @@ public class ExecutableRlmEnvironment implements RlmEnvironment {
 
     @Override
     public void setFullContext(String context) {
+        String previousBlob = contextBlob;
         try {
             if (context == null) {
                 contextSize = 0;
                 if (contextPath != null) {
                     Files.deleteIfExists(contextPath);
+                    manifest.remove(CONTEXT_FILENAME, generation());
                 }
                 contextPath = null;
+                contextBlob = null;
                 return;
             }
             contextPath = workDir.resolve(CONTEXT_FILENAME);
-            Files.writeString(contextPath, context);
+            String hash = Hashes.sha256(context);
+            if (blobStore.isEnabled()) {
+                blobStore.acquire(hash, context);
+                contextBlob = hash;
+                blobStore.link(hash, contextPath, shareContext());
+            } else {
+                Files.writeString(contextPath, context);
+            }
             contextSize = context.length();
+            manifest.record(CONTEXT_FILENAME, hash, generation());
         } catch (IOException e) {
             log.error("Failed to store full context", e);
             throw new RuntimeException("Failed to store full context", e);
+        } finally {
+            if (previousBlob != null) {
+                blobStore.release(previousBlob);
+            }
+        }
+    }
+
+    @Override
+    public void shareContextFrom(RlmEnvironment source) {
+        if (!(source instanceof ExecutableRlmEnvironment parent)) {
+            RlmEnvironment.super.shareContextFrom(source);
+            return;
+        }
+        String blob = parent.contextBlob;
+        WorkspaceManifest.Entry entry = parent.manifest.get(CONTEXT_FILENAME);
+        if (blob == null || entry == null || !blob.equals(entry.getHash()) || !blobStore.retain(blob)) {
+            RlmEnvironment.super.shareContextFrom(source);
+            return;
+        }
+        // Same content as the parent: link the stored blob instead of writing another copy
+        String previousBlob = contextBlob;
+        try {
+            contextPath = workDir.resolve(CONTEXT_FILENAME);
+            blobStore.link(blob, contextPath, shareContext());
+            contextBlob = blob;
+            contextSize = parent.contextSize;
+            manifest.adopt(entry);
+        } catch (IOException e) {
+            blobStore.release(blob);
+            log.warn("Failed to link parent context, copying it instead: {}", e.getMessage());
+            RlmEnvironment.super.shareContextFrom(source);
+            return;
+        }
+        if (previousBlob != null) {
+            blobStore.release(previousBlob);
+        }
+    }
+
+    @Override
+    public void release() {
+        String blob = contextBlob;
+        contextBlob = null;
+        if (blob != null) {
+            blobStore.release(blob);
+        }
+    }
+
+    // Hard links to a blob are only handed out when steps run with them read-only.
+    private boolean shareContext() {
+        return launcher.protectsReadOnlyPaths();
+    }
+
+    // With shared blobs on the node, a step must not write any hard link to them: not its own
+    // context.txt, not another environment's (through ../), and not the store itself.
+    private List<Path> readOnlyPaths() {
+        if (!blobStore.isEnabled() || !shareContext()) {
+            return List.of();
+        }
+        List<Path> paths = new ArrayList<>();
+        paths.add(workDir.toAbsolutePath().normalize().getParent());
+        if (Files.isDirectory(blobStore.getRoot())) {
+            paths.add(blobStore.getRoot());
+        }
+        if (contextBlob != null && contextPath != null && Files.exists(contextPath)) {
+            paths.add(contextPath.toAbsolutePath().normalize());
+        }
+        return paths;
+    }
+
+    // A step may have replaced or deleted context.txt. Shared blobs are read-only for steps, so an
+    // in-place rewrite of a linked blob means that protection failed: the blob no longer matches
+    // its hash and must not be reused.
+    private void checkContextBlob() {
+        String blob = contextBlob;
+        if (blob == null) {
+            return;
+        }
+        WorkspaceManifest.Entry entry = manifest.get(CONTEXT_FILENAME);
+        if (entry != null && !entry.isDeleted() && blob.equals(entry.getHash())) {
+            return;
+        }
+        contextBlob = null;
+        if (contextPath != null && blobStore.isLinked(blob, contextPath)) {
+            log.warn("Environment {} modified its shared context in place; dropping blob {}", id, blob);
+            blobStore.invalidate(blob);
+        } else {
+            blobStore.release(blob);
         }
     }
 
@@ -97,50 +311,34 @@ public class ExecutableRlmEnvironment implements RlmEnvironment {
     public long getContextSize() {
         return contextSize;
     }
+
+    @Override
+    public Path getContextFile() {
+        return contextPath;
+    }
+
+    @Override
+    public String getContextHash() {
+        WorkspaceManifest.Entry entry = contextPath == null ? null : manifest.get(CONTEXT_FILENAME);
+        return entry != null ? entry.getHash() : Hashes.sha256((String) null);
+    }
     
     @Override
     public ToolResult executePython(String code) {
+        return executePython(code, pythonTimeout);
+    }
+
+    @Override
+    public ToolResult executePython(String code, Duration timeout) {
         long start = System.currentTimeMillis();
         try {
             // Write code to temp file
-            Path scriptPath = workDir.resolve("script_" + System.nanoTime() + ".py");
+            Path scriptPath = workDir.resolve("script_" + scripts.incrementAndGet() + ".py");
             String wrappedCode = buildPythonPrelude() + "\n" + code;
             Files.writeString(scriptPath, wrappedCode);
-            
-            // Execute with timeout
-            ProcessBuilder pb = new ProcessBuilder("python3", scriptPath.toAbsolutePath().toString());
-            pb.directory(workDir.toFile());
-            pb.redirectErrorStream(false);
-            
-            Process process = pb.start();
-            
-            // Capture output with timeout
-            Future<String> outputFuture = executor.submit(() -> 
-                new String(process.getInputStream().readAllBytes()));
-            Future<String> errorFuture = executor.submit(() -> 
-                new String(process.getErrorStream().readAllBytes()));
-            
-            boolean finished = process.waitFor(30, TimeUnit.SECONDS);
-            
-            if (!finished) {
-                process.destroyForcibly();
-                return ToolResult.builder()
-                    .success(false)
-                    .error("Execution timeout (30s)")
-                    .executionTimeMs(System.currentTimeMillis() - start)
-                    .build();
-            }
-            
-            String output = outputFuture.get(1, TimeUnit.SECONDS);
-            String error = errorFuture.get(1, TimeUnit.SECONDS);
-            
-            return ToolResult.builder()
-                .success(process.exitValue() == 0)
-                .output(output)
-                .error(error)
-                .executionTimeMs(System.currentTimeMillis() - start)
-                .build();
-                
+
+            return runProcess(List.of("python3", scriptPath.toAbsolutePath().toString()),
+                    capTimeout(timeout, pythonTimeout), start);
         } catch (Exception e) {
             log.error("Python execution failed", e);
             return ToolResult.builder()
@@ -153,40 +351,69 @@ public class ExecutableRlmEnvironment implements RlmEnvironment {
     
     @Override
     public ToolResult executeBash(String command) {
+        return executeBash(command, bashTimeout);
+    }
+
+    @Override
+    public ToolResult executeBash(String command, Duration timeout) {
         long start = System.currentTimeMillis();
         try {
-            ProcessBuilder pb = new ProcessBuilder("bash", "-c", command);
-            pb.directory(workDir.toFile());
-            
-            Process process = pb.start();
-            boolean finished = process.waitFor(30, TimeUnit.SECONDS);
-            
-            if (!finished) {
-                process.destroyForcibly();
-                return ToolResult.builder()
-                    .success(false)
-                    .error("Execution timeout")
-                    .executionTimeMs(System.currentTimeMillis() - start)
-                    .build();
-            }
-            
-            String output = new String(process.getInputStream().readAllBytes());
-            String error = new String(process.getErrorStream().readAllBytes());
-            
+            return runProcess(List.of("bash", "-c", command), capTimeout(timeout, bashTimeout), start);
+        } catch (Exception e) {
             return ToolResult.builder()
-                .success(process.exitValue() == 0)
-                .output(output)
-                .error(error)
+                .success(false)
+                .error(e.getMessage())
                 .executionTimeMs(System.currentTimeMillis() - start)
                 .build();
-                
-        } catch (Exception e) {
+        }
+    }
+
+    @Override
+    public void setSchedulingGroup(String group, int depth) {
+        this.schedulingGroup = group;
+        this.schedulingDepth = depth;
+    }
+
+    // Time spent queueing for a slot counts against the step's limit.
+    private ToolResult runProcess(List<String> command, Duration limit, long start) throws IOException {
+        Instant deadline = Instant.now().plus(limit);
+        ExecutionScheduler.Slot slot;
+        try {
+            slot = scheduler.acquire(schedulingGroup, schedulingDepth, deadline, limit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for an execution slot", e);
+        }
+        if (slot == null) {
             return ToolResult.builder()
                 .success(false)
-                .error(e.getMessage())
+                .error("No execution slot became free within " + limit.toMillis() + "ms; the node is busy")
                 .executionTimeMs(System.currentTimeMillis() - start)
                 .build();
         }
+        SandboxLauncher.Execution execution;
+        try (slot) {
+            execution = launcher.launch(command, workDir, Duration.between(Instant.now(), deadline), readOnlyPaths());
+        }
+        manifest.scan(generation());
+        checkContextBlob();
+        ProcessRunner.Outcome outcome = execution.getOutcome();
+        ResourceUsage usage = execution.getUsage();
+        usage.setQueueWaitMs(slot.getQueueWaitMs());
+        String error = outcome.getStderr();
+        if (outcome.isTimedOut()) {
+            error = "Execution timeout (" + limit.toMillis() + "ms)" + (error.isBlank() ? "" : "\n" + error);
+        } else if (usage.getLimitExceeded() != null) {
+            error = "Resource limit exceeded: " + usage.getLimitExceeded() + (error.isBlank() ? "" : "\n" + error);
+        }
+        return ToolResult.builder()
+            .success(!outcome.isTimedOut() && outcome.getExitCode() == 0)
+            .output(outcome.getStdout())
+            .error(error)
+            .truncatedBytes(outcome.getDroppedBytes())
+            .resourceUsage(usage)
+            .executionTimeMs(System.currentTimeMillis() - start)
+            .build();
     }
     
     @Override
@@ -198,39 +425,65 @@ public class ExecutableRlmEnvironment implements RlmEnvironment {
                     .error("write_file requires a non-empty filename")
                     .build();
             }
-            Path filePath = workDir.resolve(filename);
+            Path root = workDir.toAbsolutePath().normalize();
+            Path filePath = WorkspacePaths.resolve(root, filename);
+            if (filePath == null) {
+                return ToolResult.builder()
+                    .success(false)
+                    .error("write_file target must be a file inside the workspace: " + filename)
+                    .build();
+            }
             Path parent = filePath.getParent();
             if (parent != null && !Files.exists(parent)) {
                 Files.createDirectories(parent);
             }
             String safeContent = content == null ? "" : content;
+            Path contextFile = root.resolve(CONTEXT_FILENAME);
+            String blob = contextBlob;
+            if (blob != null && (filePath.equals(contextFile) || blobStore.isLinked(blob, filePath))) {
+                // break the link to the shared blob before writing; the JVM is not held back by
+                // the blob's read-only mode
+                Files.deleteIfExists(filePath);
+                if (filePath.equals(contextFile)) {
+                    contextBlob = null;
+                    blobStore.release(blob);
+                }
+            }
             Files.writeString(filePath, safeContent);
-            if (CONTEXT_FILENAME.equals(filePath.getFileName().toString())) {
-                contextPath = filePath;
+            manifest.record(root.relativize(filePath).toString(), Hashes.sha256(safeContent), generation());
+            if (filePath.equals(contextFile)) {
+                contextPath = workDir.resolve(CONTEXT_FILENAME);
                 contextSize = safeContent.length();
             }
+            checkContextBlob();
             return ToolResult.builder()
                 .success(true)
                 .output("File written: " + filePath.getFileName())
                 .build();
-        } catch (IOException e) {
+        } catch (IOException | InvalidPathException e) {
             return ToolResult.builder()
                 .success(false)
                 .error(e.getMessage())
                 .build();
         }
     }
-    
+
     @Override
     public ToolResult readFile(String filename) {
         try {
-            Path filePath = workDir.resolve(filename);
+            Path filePath = WorkspacePaths.resolve(workDir, filename == null ? "" : filename);
+            if (filePath == null) {
+                return ToolResult.builder()
+                    .success(false)
+                    .error("read_file path must be a file inside the workspace: " + filename)
+                    .build();
+            }
             String content = Files.readString(filePath);
             return ToolResult.builder()
                 .success(true)
                 .output(content)
                 .build();
-        } catch (IOException e) {
+        } catch (IOException | InvalidPathException e) {
             return ToolResult.builder()
                 .success(false)
                 .error(e.getMessage())
@@ -268,12 +521,122 @@ public class ExecutableRlmEnvironment implements RlmEnvironment {
     
     @Override
     public List<ActionObservation> getHistory() {
-        return new ArrayList<>(history);
+        return history.snapshot();
+    }
+
+    @Override
+    public List<ActionObservation> getHistorySince(int fromIndex) {
+        return history.since(fromIndex);
+    }
+
+    @Override
+    public int getHistorySize() {
+        return history.size();
+    }
+
+    @Override
+    public List<? extends CharSequence> getRenderedHistory(Function<ActionObservation, String> renderer) {
+        return renderedHistory.render(history::since, renderer);
     }
     
     @Override
     public void addObservation(ActionObservation observation) {
-        history.add(observation);
+        int index = history.append(spillLargeOutput(observation));
+        StepMark mark = lastStep;
+        if (mark.count == 0 || observation.getStep() != mark.step) {
+            lastStep = new StepMark(mark.count + 1, observation.getStep(), index);
+        }
+    }
+
+    // Keep the history (and every prompt built from it) small: oversized tool output goes to a
+    // workspace file and the observation keeps a head/tail preview plus where to find the rest.
+    private ActionObservation spillLargeOutput(ActionObservation observation) {
+        ToolResult result = observation.getObservation();
+        int threshold = settings.getSpillThresholdChars();
+        if (result == null || threshold <= 0) {
+            return observation;
+        }
+        boolean largeOutput = result.getOutput() != null && result.getOutput().length() > threshold;
+        boolean largeError = result.getError() != null && result.getError().length() > threshold;
+        if (!largeOutput && !largeError) {
+            return observation;
+        }
+
+        ToolResult.ToolResultBuilder compact = result.toBuilder();
+        if (largeOutput) {
+            String sourceFile = readFileSource(observation);
+            if (sourceFile != null) {
+                // The content already lives in a workspace file; point at it instead of copying it.
+                compact.output(preview(result.getOutput(), sourceFile,
+                        result.getOutput().getBytes(StandardCharsets.UTF_8).length));
+                compact.spillFile(sourceFile);
+            } else {
+                String spillFile = spill(observation.getStep(), "", result.getOutput());
+                if (spillFile != null) {
+                    compact.output(preview(result.getOutput(), spillFile, sizeOf(spillFile)));
+                    compact.spillFile(spillFile);
+                }
+            }
+        }
+        if (largeError) {
+            String spillFile = spill(observation.getStep(), "_stderr", result.getError());
+            if (spillFile != null) {
+                compact.error(preview(result.getError(), spillFile, sizeOf(spillFile)));
+            }
+        }
+        return observation.toBuilder().observation(compact.build()).build();
+    }
+
+    // Only a whole-file read is the same content as its file; a line range is spilled like any output.
+    private String readFileSource(ActionObservation observation) {
+        if (observation.getAction() == null
+                || !"read_file".equalsIgnoreCase(observation.getAction().getToolName())
+                || ReadFileTool.hasLineRange(observation.getAction().getCode())) {
+            return null;
+        }
+        String filename = ReadFileTool.normalizeReadFileCode(observation.getAction().getCode());
+        try {
+            Path source = WorkspacePaths.resolve(workDir, filename);
+            return source != null && Files.isRegularFile(source) ? filename : null;
+        } catch (IOException | InvalidPathException e) {
+            return null;
+        }
+    }
+
+    private String spill(int step, String suffix, String content) {
+        try {
+            String filename = "obs_" + step + suffix + ".txt";
+            for (int n = 2; Files.exists(workDir.resolve(filename)); n++) {
+                filename = "obs_" + step + suffix + "_" + n + ".txt";
+            }
+            Files.writeString(workDir.resolve(filename), content);
+            manifest.record(filename, Hashes.sha256(content), generation());
+            return filename;
+        } catch (IOException e) {
+            log.warn("Failed to spill observation output for step {}: {}", step, e.getMessage());
+            return null;
+        }
+    }
+
+    private long sizeOf(String filename) {
+        try {
+            return Files.size(workDir.resolve(filename));
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    // Points at tools that page through the file: a whole-file read_file of it would only return
+    // this preview again, and search covers the context, not workspace files.
+    private String preview(String content, String filename, long bytes) {
+        int half = Math.min(content.length() / 2, Math.max(1, settings.getSpillPreviewChars() / 2));
+        long lines = content.chars().filter(c -> c == '\n').count() + 1;
+        return "[Output of " + bytes + " bytes (" + lines + " lines) saved to " + filename
+                + "; read part of it with read_file(\"" + filename + "\", FIRST_LINE, LAST_LINE), "
+                + "sed -n 'FIRST,LASTp' or python slicing. Preview:]\n"
+                + content.substring(0, half)
+                + "\n...\n"
+                + content.substring(content.length() - half);
     }
     
     @Override
@@ -283,27 +646,91 @@ public class ExecutableRlmEnvironment implements RlmEnvironment {
     
     @Override
     public List<String> listFiles() {
-        try {
-            return Files.list(workDir)
-                .map(Path::getFileName)
-                .map(Path::toString)
-                .toList();
-        } catch (IOException e) {
-            return Collections.emptyList();
+        return manifest.files().stream().map(WorkspaceManifest.Entry::getPath).toList();
+    }
+
+    @Override
+    public void copyWorkspaceFrom(RlmEnvironment source) {
+        if (!(source instanceof ExecutableRlmEnvironment parent)) {
+            RlmEnvironment.super.copyWorkspaceFrom(source);
+            return;
+        }
+        // The parent's manifest already knows every file and its hash: copy without listing the
+        // directory and skip files this workspace already holds with the same content.
+        for (WorkspaceManifest.Entry entry : parent.manifest.files()) {
+            WorkspaceManifest.Entry existing = manifest.get(entry.getPath());
+            if (existing != null && existing.getHash().equals(entry.getHash())) {
+                continue;
+            }
+            Path target = workDir.resolve(entry.getPath());
+            try {
+                Path dir = target.getParent();
+                if (dir != null && !Files.exists(dir)) {
+                    Files.createDirectories(dir);
+                }
+                Files.copy(parent.workDir.resolve(entry.getPath()), target,
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                manifest.adopt(entry);
+            } catch (IOException e) {
+                log.warn("Failed to copy file {} to child environment: {}", entry.getPath(), e.getMessage());
+            }
         }
     }
     
     @Override
     public String getEnvironmentInfo() {
+        StepMark mark = lastStep;
+        List<WorkspaceManifest.Entry> files = manifest.files();
+        String fileInfo = mark.count == 0
+                ? "Files: " + describeFiles(files)
+                : "Files: " + files.size() + " (" + manifest.totalBytes() + " bytes)\n"
+                  + "Files Changed Since Last Step: " + describeChanges(manifest.changedSince(mark.firstIndex));
         return String.format("""
             Environment ID: %s
             Working Directory: %s
-            Files: %s
+            %s
             Context Size: %d
             Context Chunks: %d
             History Steps: %d
-            """, 
-            id, workDir, listFiles(), contextSize, chunks.size(), history.size());
+            """,
+            id, workDir, fileInfo, contextSize, chunks.size(), mark.count);
+    }
+
+    // Changes are stamped with the history index of the action making them (the history size at
+    // the time), so the last step's changes are those from its first action's index on.
+    private int generation() {
+        return history.size();
+    }
+
+    private static String describeFiles(List<WorkspaceManifest.Entry> files) {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        files.stream().limit(MAX_LISTED_FILES).forEach(e -> joiner.add(e.getPath()));
+        String listed = joiner.toString();
+        return files.size() > MAX_LISTED_FILES
+                ? listed + " and " + (files.size() - MAX_LISTED_FILES) + " more"
+                : listed;
+    }
+
+    private static String describeChanges(List<WorkspaceManifest.Entry> changes) {
+        if (changes.isEmpty()) {
+            return "none";
+        }
+        StringJoiner joiner = new StringJoiner(", ");
+        changes.stream().limit(MAX_LISTED_FILES).forEach(e -> joiner.add(switch (e.getChange()) {
+            case ADDED -> "+" + e.getPath() + " (" + e.getSize() + " bytes)";
+            case MODIFIED -> "~" + e.getPath() + " (" + e.getSize() + " bytes)";
+            case DELETED -> "-" + e.getPath();
+        }));
+        return changes.size() > MAX_LISTED_FILES
+                ? joiner + " and " + (changes.size() - MAX_LISTED_FILES) + " more"
+                : joiner.toString();
+    }
+
+    private static Duration capTimeout(Duration timeout, Duration toolLimit) {
+        if (timeout == null || timeout.compareTo(toolLimit) > 0) {
+            return toolLimit;
+        }
+        return timeout.isNegative() ? Duration.ZERO : timeout;
     }
 
     private String buildPythonPrelude() {
@@ -330,18 +757,55 @@ public class ExecutableRlmEnvironment implements RlmEnvironment {
             return null;
         }
         try {
-            String context = Files.readString(contextPath);
-            String lowerContext = context.toLowerCase();
-            int index = lowerContext.indexOf(normalizedQuery);
-            if (index < 0) {
+            ScanResult result = scanner.scan(contextPath, ScanRequest.builder()
+                    .pattern(normalizedQuery)
+                    .literal(true)
+                    .ignoreCase(true)
+                    .limit(1)
+                    .countAll(false)
+                    .build());
+            if (result.getMatches().isEmpty()) {
                 return null;
             }
-            int start = Math.max(0, index - 200);
-            int end = Math.min(context.length(), index + 200);
-            return context.substring(start, end);
+            long offset = result.getMatches().get(0).getMatchOffset();
+            // Up to 4 UTF-8 bytes per char on either side of the match
+            int window = SNIPPET_CHARS * 4;
+            try (FileChannel channel = FileChannel.open(contextPath, StandardOpenOption.READ)) {
+                long from = Math.max(0, offset - window);
+                String before = read(channel, from, (int) (offset - from));
+                String after = read(channel, offset, window);
+                return before.substring(Math.max(0, before.length() - SNIPPET_CHARS))
+                        + after.substring(0, Math.min(after.length(), SNIPPET_CHARS));
+            }
         } catch (IOException e) {
             log.error("Failed to search full context", e);
             return null;
         }
     }
+
+    private static String read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) > 0) {
+            // keep reading until the window is full or EOF
+        }
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Number of distinct steps in the history, and the step number and first history index of the
+     * latest one.
+     */
+    private static final class StepMark {
+        static final StepMark NONE = new StepMark(0, 0, 0);
+
+        final int count;
+        final int step;
+        final int firstIndex;
+
+        StepMark(int count, int step, int firstIndex) {
+            this.count = count;
+            this.step = step;
+            this.firstIndex = firstIndex;
+        }
+    }
 }
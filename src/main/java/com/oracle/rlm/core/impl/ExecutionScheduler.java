@@ -0,0 +1,245 @@
+package com.oracle.rlm.core.impl;
+
+import com.oracle.rlm.config.RlmConfig;
+import com.oracle.rlm.util.LatencyWindow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Node-wide pool of tool-process slots shared by all environments.
+ *
+ * <p>Waiters are grouped by root request. When a slot frees up it goes to the group that holds the
+ * fewest slots (ties: the group served least recently), so one request with many parallel
+ * branches cannot starve the others. Within a group the earliest deadline goes first, then the
+ * deepest step, which is usually closest to handing a result back up the tree.
+ */
+@Component
+@Slf4j
+public class ExecutionScheduler {
+
+    private static final Comparator<Waiter> WITHIN_GROUP = Comparator
+            .comparing((Waiter w) -> w.deadline)
+            .thenComparing(w -> -w.depth)
+            .thenComparingLong(w -> w.sequence);
+
+    private final int slots;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Group> groups = new HashMap<>();
+    private int running;
+    private int waiting;
+    private long sequence;
+    private long served;
+
+    private final LatencyWindow queueWait = new LatencyWindow(1000);
+    private final AtomicLong granted = new AtomicLong();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    @Autowired
+    public ExecutionScheduler(RlmConfig rlmConfig) {
+        this(rlmConfig.getExecution().getMaxConcurrentProcesses());
+    }
+
+    /**
+     * @param slots concurrent tool processes allowed on this node; 0 uses the number of cores
+     */
+    public ExecutionScheduler(int slots) {
+        this.slots = slots > 0 ? slots : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Wait for a slot for at most {@code maxWait}.
+     *
+     * @param group    root request the execution belongs to
+     * @param depth    recursion depth of the requesting loop
+     * @param deadline when the requesting step must be done
+     * @return the slot, or null if none became free in time
+     */
+    public Slot acquire(String group, int depth, Instant deadline, Duration maxWait) throws InterruptedException {
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            Group g = groups.computeIfAbsent(group, Group::new);
+            if (running < slots && waiting == 0) {
+                return grant(g, start);
+            }
+            Waiter waiter = new Waiter(g, depth, deadline, ++sequence, lock.newCondition());
+            g.waiters.add(waiter);
+            waiting++;
+            queued.incrementAndGet();
+            long remaining = Math.max(0, maxWait.toNanos());
+            try {
+                while (!waiter.granted && remaining > 0) {
+                    remaining = waiter.signal.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                abandon(waiter);
+                throw e;
+            }
+            if (!waiter.granted) {
+                abandon(waiter);
+                timedOut.incrementAndGet();
+                return null;
+            }
+            return slot(g, start);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            stats.put("slots", slots);
+            stats.put("running", running);
+            stats.put("waiting", waiting);
+            stats.put("activeRequests", groups.size());
+        } finally {
+            lock.unlock();
+        }
+        stats.put("granted", granted.get());
+        stats.put("queued", queued.get());
+        stats.put("timedOut", timedOut.get());
+        stats.put("queueWaitP50Ms", queueWait.percentile(50));
+        stats.put("queueWaitP99Ms", queueWait.percentile(99));
+        return stats;
+    }
+
+    // Called with the lock held by a waiter that gives up: if a slot was handed to it meanwhile,
+    // pass the slot on; otherwise just leave the queue.
+    private void abandon(Waiter waiter) {
+        if (waiter.granted) {
+            release(waiter.group);
+            return;
+        }
+        waiter.group.waiters.remove(waiter);
+        waiting--;
+        dropIfIdle(waiter.group);
+    }
+
+    private Slot grant(Group group, long start) {
+        running++;
+        group.running++;
+        group.lastServed = ++served;
+        return slot(group, start);
+    }
+
+    private Slot slot(Group group, long start) {
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        queueWait.record(waitedMs);
+        granted.incrementAndGet();
+        return new Slot(group, waitedMs);
+    }
+
+    private void release(Group group) {
+        lock.lock();
+        try {
+            running--;
+            group.running--;
+            dropIfIdle(group);
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dispatch() {
+        while (running < slots && waiting > 0) {
+            Group next = null;
+            for (Group g : groups.values()) {
+                if (!g.waiters.isEmpty() && (next == null || g.running < next.running
+                        || g.running == next.running && g.lastServed < next.lastServed)) {
+                    next = g;
+                }
+            }
+            if (next == null) {
+                return;
+            }
+            Waiter waiter = next.waiters.poll();
+            waiting--;
+            running++;
+            next.running++;
+            next.lastServed = ++served;
+            waiter.granted = true;
+            waiter.signal.signal();
+        }
+    }
+
+    private void dropIfIdle(Group group) {
+        if (group.running == 0 && group.waiters.isEmpty()) {
+            groups.remove(group.name);
+        }
+    }
+
+    /**
+     * A held process slot; close it when the process has finished.
+     */
+    public final class Slot implements AutoCloseable {
+        private final Group group;
+        private final long queueWaitMs;
+        private boolean released;
+
+        private Slot(Group group, long queueWaitMs) {
+            this.group = group;
+            this.queueWaitMs = queueWaitMs;
+        }
+
+        public long getQueueWaitMs() {
+            return queueWaitMs;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!released) {
+                released = true;
+                release(group);
+            }
+        }
+    }
+
+    private static final class Group {
+        final String name;
+        final PriorityQueue<Waiter> waiters = new PriorityQueue<>(WITHIN_GROUP);
+        int running;
+        long lastServed;
+
+        Group(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final class Waiter {
+        final Group group;
+        final int depth;
+        final Instant deadline;
+        final long sequence;
+        final Condition signal;
+        boolean granted;
+
+        Waiter(Group group, int depth, Instant deadline, long sequence, Condition signal) {
+            this.group = group;
+            this.depth = depth;
+            this.deadline = deadline;
+            this.sequence = sequence;
+            this.signal = signal;
+        }
+    }
+}
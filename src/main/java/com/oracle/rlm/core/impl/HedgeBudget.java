@@ -0,0 +1,49 @@
+package com.oracle.rlm.core.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-request cap on hedged calls: at most {@code burst} plus {@code percent}% of the calls made so far.
+ */
+final class HedgeBudget {
+
+    private final double percent;
+    private final int burst;
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger hedges = new AtomicInteger();
+    private final AtomicInteger hedgesWon = new AtomicInteger();
+
+    HedgeBudget(double percent, int burst) {
+        this.percent = percent;
+        this.burst = burst;
+    }
+
+    void recordCall() {
+        calls.incrementAndGet();
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            int used = hedges.get();
+            int allowed = burst + (int) Math.floor(calls.get() * percent / 100.0);
+            if (used >= allowed) {
+                return false;
+            }
+            if (hedges.compareAndSet(used, used + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void recordHedgeWon() {
+        hedgesWon.incrementAndGet();
+    }
+
+    int getHedges() {
+        return hedges.get();
+    }
+
+    int getHedgesWon() {
+        return hedgesWon.get();
+    }
+}
@@ -0,0 +1,158 @@
+package com.oracle.rlm.core.impl;
+
+import com.oracle.rlm.config.RlmConfig;
+import com.oracle.rlm.util.LatencyWindow;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Runs LLM step calls with optional hedging: when the primary call has not answered within the
+ * configured latency percentile, a duplicate is sent and the first valid response (as judged by the
+ * caller) wins. The loser is cancelled.
+ */
+@Component
+@Slf4j
+public class HedgedCaller {
+
+    private final RlmConfig.Hedging config;
+    private final LatencyWindow latencies;
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "rlm-hedge");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public HedgedCaller(RlmConfig rlmConfig) {
+        this.config = rlmConfig.getHedging();
+        this.latencies = new LatencyWindow(config.getWindowSize());
+    }
+
+    /**
+     * Run a step call, hedging it if enabled and slow. A response failing {@code valid} only wins when
+     * no other call is outstanding. Waits no longer than the deadline allows; past it the outstanding
+     * calls are cancelled and {@link DeadlineExceededException} is thrown.
+     */
+    String call(Supplier<String> primary, Supplier<String> hedge, Predicate<String> valid, HedgeBudget budget,
+                Deadline deadline) {
+        budget.recordCall();
+        CompletableFuture<Reply> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        long start = System.currentTimeMillis();
+        Future<?> primaryTask = executor.submit(() -> attempt(primary, false, valid, result, pending, start));
+        Future<?> hedgeTask = null;
+        try {
+            if (!config.isEnabled()) {
+                return await(result, deadline).response;
+            }
+            try {
+                long delayMs = Math.min(hedgeDelayMs(), deadline.remaining().toMillis());
+                return result.get(delayMs, TimeUnit.MILLISECONDS).response;
+            } catch (TimeoutException slow) {
+                if (deadline.isExpired() || !budget.tryAcquire()) {
+                    return await(result, deadline).response;
+                }
+                log.info("Step call exceeded hedge delay; sending hedged request");
+                pending.incrementAndGet();
+                hedgeTask = executor.submit(() -> attempt(hedge, true, valid, result, pending, start));
+                Reply reply = await(result, deadline);
+                if (reply.hedgeWon) {
+                    budget.recordHedgeWon();
+                }
+                return reply.response;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for model response", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException("Model call failed: " + cause.getMessage(), cause);
+        } finally {
+            primaryTask.cancel(true);
+            if (hedgeTask != null) {
+                hedgeTask.cancel(true);
+            }
+        }
+    }
+
+    private Reply await(CompletableFuture<Reply> result, Deadline deadline)
+            throws InterruptedException, ExecutionException {
+        try {
+            return result.get(deadline.remaining().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("Model call did not answer before the deadline");
+        }
+    }
+
+    /**
+     * Latency is recorded once per call, for the response that wins, from the start of the
+     * primary: a hedge that wins stands in for the slow primary it replaced, so the tail that
+     * triggered hedging stays in the window.
+     */
+    private void attempt(Supplier<String> call, boolean hedge, Predicate<String> valid,
+                         CompletableFuture<Reply> result, AtomicInteger pending, long start) {
+        try {
+            String response = call.get();
+            if (response != null && !response.isBlank() && valid.test(response)) {
+                complete(result, new Reply(response, hedge), start);
+            } else if (pending.decrementAndGet() == 0) {
+                // No valid response: pass the last one through, as without hedging.
+                complete(result, new Reply(response, false), start);
+            }
+        } catch (Throwable t) {
+            if (pending.decrementAndGet() == 0) {
+                result.completeExceptionally(t);
+            }
+        }
+    }
+
+    private void complete(CompletableFuture<Reply> result, Reply reply, long start) {
+        if (result.complete(reply)) {
+            latencies.record(System.currentTimeMillis() - start);
+        }
+    }
+
+    private long hedgeDelayMs() {
+        if (latencies.count() < config.getMinSamples()) {
+            return Math.max(config.getMinDelayMs(), config.getInitialDelayMs());
+        }
+        return Math.max(config.getMinDelayMs(), latencies.percentile(config.getPercentile()));
+    }
+
+    HedgeBudget newBudget() {
+        return new HedgeBudget(config.getBudgetPercent(), config.getBudgetBurst());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * The winning response; {@code hedgeWon} is set when a valid hedge beat the primary, so the
+     * caller thread can count the win before returning.
+     */
+    private static final class Reply {
+        final String response;
+        final boolean hedgeWon;
+
+        Reply(String response, boolean hedgeWon) {
+            this.response = response;
+            this.hedgeWon = hedgeWon;
+        }
+    }
+}
@@ -1,27 +1,75 @@
 package com.oracle.rlm.core.impl;
 
+import com.oracle.rlm.config.RlmConfig;
+import com.oracle.rlm.config.RlmSecurityConfig;
 import com.oracle.rlm.core.RlmEnvironment;
 import com.oracle.rlm.core.RlmEnvironmentStore;
+import com.oracle.rlm.scan.ContextScanner;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
+@RequiredArgsConstructor
 public class InMemoryRlmEnvironmentStore implements RlmEnvironmentStore {
 
+    private final RlmSecurityConfig securityConfig;
+    private final RlmConfig rlmConfig;
+    private final SandboxLauncher sandboxLauncher;
+    private final ExecutionScheduler executionScheduler;
+    private final ContextScanner contextScanner;
+    private final ContextBlobStore contextBlobStore;
     private final Map<String, RlmEnvironment> envs = new ConcurrentHashMap<>();
+    private final AtomicLong created = new AtomicLong();
 
     @Override
     public RlmEnvironment createEnvironment(String label) {
         String id = UUID.randomUUID().toString();
-        RlmEnvironment env = new ExecutableRlmEnvironment(id, label);
+        RlmEnvironment env = new ExecutableRlmEnvironment(id, label, sandboxLauncher, executionScheduler,
+                contextScanner, contextBlobStore, settings());
         envs.put(id, env);
+        created.incrementAndGet();
         return env;
     }
 
+    @Override
+    public Optional<RlmEnvironment> reopenEnvironment(String id, String label) {
+        RlmEnvironment existing = envs.get(id);
+        if (existing != null) {
+            return Optional.of(existing);
+        }
+        if (!Files.isDirectory(ExecutableRlmEnvironment.workDirectory(id))) {
+            return Optional.empty();
+        }
+        RlmEnvironment env = envs.computeIfAbsent(id, key -> ExecutableRlmEnvironment.reopen(key, label,
+                sandboxLauncher, executionScheduler, contextScanner, contextBlobStore, settings()));
+        return Optional.of(env);
+    }
+
+    private EnvironmentSettings settings() {
+        RlmConfig.Execution execution = rlmConfig.getExecution();
+        return EnvironmentSettings.builder()
+                .pythonTimeout(toolTimeout(execution.getPythonTimeoutSeconds()))
+                .bashTimeout(toolTimeout(execution.getBashTimeoutSeconds()))
+                .spillThresholdChars(execution.getSpillThresholdChars())
+                .spillPreviewChars(execution.getSpillPreviewChars())
+                .historyCompressAfter(execution.getHistoryCompressAfter())
+                .historyCompressMinChars(execution.getHistoryCompressMinChars())
+                .build();
+    }
+
+    private Duration toolTimeout(int seconds) {
+        return Duration.ofSeconds(seconds > 0 ? seconds : securityConfig.getMaxExecutionTimeSeconds());
+    }
+
     @Override
     public Optional<RlmEnvironment> getEnvironment(String id) {
         return Optional.ofNullable(envs.get(id));
@@ -29,6 +77,17 @@ public class InMemoryRlmEnvironmentStore implements RlmEnvironmentStore {
 
     @Override
     public void deleteEnvironment(String id) {
-        envs.remove(id);
+        RlmEnvironment env = envs.remove(id);
+        if (env != null) {
+            env.release();
+        }
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("environments", envs.size());
+        stats.put("environmentsCreated", created.get());
+        return stats;
     }
-}
\ No newline at end of file
+}
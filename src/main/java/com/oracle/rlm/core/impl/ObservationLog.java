@@ -0,0 +1,234 @@
+package com.oracle.rlm.core.impl;
+
+import com.oracle.rlm.core.ActionObservation;
+import com.oracle.rlm.core.ToolResult;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Append-only observation history safe for concurrent writers and readers.
+ *
+ * <p>Entries live in chunks of doubling size that are never copied or moved, so appends do not
+ * reallocate and a snapshot is just a bounded read-only view over the entries published so far.
+ * Optionally, once an entry is {@code compressAfter} entries old its output and error payloads are
+ * deflated in place; reads inflate them transparently.
+ */
+final class ObservationLog {
+
+    private static final int BASE = 16;
+    private static final int MAX_CHUNKS = 26;
+
+    private final AtomicReferenceArray<AtomicReferenceArray<Object>> chunks =
+            new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final AtomicInteger reserved = new AtomicInteger();
+    private final AtomicInteger published = new AtomicInteger();
+    private final int compressAfter;
+    private final int compressMinChars;
+
+    /**
+     * @param compressAfter    entries older than this many appends get their payloads compressed; 0 disables
+     * @param compressMinChars payloads shorter than this are left as they are
+     */
+    ObservationLog(int compressAfter, int compressMinChars) {
+        this.compressAfter = compressAfter;
+        this.compressMinChars = compressMinChars;
+    }
+
+    /**
+     * Append an entry and return its index. Entries become visible to readers in index order.
+     */
+    int append(ActionObservation observation) {
+        int index = reserved.getAndIncrement();
+        chunkFor(index).set(offsetOf(index), observation);
+        publishThrough(index);
+        if (compressAfter > 0 && index >= compressAfter) {
+            compress(index - compressAfter);
+        }
+        return index;
+    }
+
+    // Advance the published count past every filled slot up to and including index. Any appender
+    // can move it forward, so a writer only waits while an earlier slot is still being written.
+    private void publishThrough(int index) {
+        int spins = 0;
+        int current;
+        while ((current = published.get()) <= index) {
+            if (chunkFor(current).get(offsetOf(current)) != null) {
+                published.compareAndSet(current, current + 1);
+            } else if (++spins < 64) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    int size() {
+        return published.get();
+    }
+
+    ActionObservation get(int index) {
+        Object entry = chunkFor(index).get(offsetOf(index));
+        return entry instanceof Compressed compressed ? compressed.inflate() : (ActionObservation) entry;
+    }
+
+    /**
+     * Immutable view of all entries published so far; later appends are not visible through it.
+     */
+    List<ActionObservation> snapshot() {
+        return new View(0, size());
+    }
+
+    /**
+     * Immutable view of the entries from {@code fromIndex} up to the current end.
+     */
+    List<ActionObservation> since(int fromIndex) {
+        int end = size();
+        return new View(Math.max(0, Math.min(fromIndex, end)), end);
+    }
+
+    private void compress(int index) {
+        AtomicReferenceArray<Object> chunk = chunkFor(index);
+        int offset = offsetOf(index);
+        Object entry = chunk.get(offset);
+        if (entry instanceof ActionObservation observation && payloadChars(observation) >= compressMinChars) {
+            chunk.compareAndSet(offset, entry, new Compressed(observation));
+        }
+    }
+
+    private static int payloadChars(ActionObservation observation) {
+        ToolResult result = observation.getObservation();
+        if (result == null) {
+            return 0;
+        }
+        return (result.getOutput() == null ? 0 : result.getOutput().length())
+                + (result.getError() == null ? 0 : result.getError().length());
+    }
+
+    private AtomicReferenceArray<Object> chunkFor(int index) {
+        int k = chunkIndex(index);
+        AtomicReferenceArray<Object> chunk = chunks.get(k);
+        if (chunk == null) {
+            chunks.compareAndSet(k, null, new AtomicReferenceArray<>(BASE << k));
+            chunk = chunks.get(k);
+        }
+        return chunk;
+    }
+
+    private static int chunkIndex(int index) {
+        return 31 - Integer.numberOfLeadingZeros(index / BASE + 1);
+    }
+
+    private static int offsetOf(int index) {
+        return index - BASE * ((1 << chunkIndex(index)) - 1);
+    }
+
+    private final class View extends AbstractList<ActionObservation> implements RandomAccess {
+        private final int from;
+        private final int to;
+
+        View(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public ActionObservation get(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + (to - from));
+            }
+            return ObservationLog.this.get(from + index);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        @Override
+        public List<ActionObservation> subList(int fromIndex, int toIndex) {
+            if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+                throw new IndexOutOfBoundsException("subList(" + fromIndex + ", " + toIndex + ")");
+            }
+            return new View(from + fromIndex, from + toIndex);
+        }
+    }
+
+    /**
+     * An observation with its output and error deflated.
+     */
+    private static final class Compressed {
+        private final ActionObservation stripped;
+        private final byte[] output;
+        private final byte[] error;
+
+        Compressed(ActionObservation observation) {
+            ToolResult result = observation.getObservation();
+            this.output = deflate(result.getOutput());
+            this.error = deflate(result.getError());
+            this.stripped = observation.toBuilder()
+                    .observation(result.toBuilder().output(null).error(null).build())
+                    .build();
+        }
+
+        ActionObservation inflate() {
+            ToolResult result = stripped.getObservation().toBuilder()
+                    .output(ObservationLog.inflate(output))
+                    .error(ObservationLog.inflate(error))
+                    .build();
+            return stripped.toBuilder().observation(result).build();
+        }
+    }
+
+    static byte[] deflate(String text) {
+        if (text == null) {
+            return null;
+        }
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(text.getBytes(StandardCharsets.UTF_8));
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, text.length() / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static String inflate(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed observation", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
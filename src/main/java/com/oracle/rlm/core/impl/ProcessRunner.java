@@ -0,0 +1,295 @@
+package com.oracle.rlm.core.impl;
+
+import com.oracle.rlm.config.RlmConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs tool processes with both output streams drained concurrently from the start, so a chatty
+ * process never blocks on a full pipe. Output is captured into bounded head/tail buffers and the
+ * whole process tree is killed on timeout.
+ */
+@Component
+@Slf4j
+public class ProcessRunner {
+
+    private static final long DRAIN_GRACE_MS = 2_000;
+
+    private final int maxCaptureBytes;
+    private final ExecutorService drainers = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "rlm-process-io");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Autowired
+    public ProcessRunner(RlmConfig rlmConfig) {
+        this(rlmConfig.getExecution().getMaxCaptureBytes());
+    }
+
+    public ProcessRunner(int maxCaptureBytes) {
+        if (maxCaptureBytes < 2) {
+            throw new IllegalArgumentException("rlm.execution.max-capture-bytes must be at least 2, was "
+                    + maxCaptureBytes);
+        }
+        this.maxCaptureBytes = maxCaptureBytes;
+    }
+
+    /**
+     * Run {@code command} in {@code workDir}, waiting at most {@code timeout}.
+     */
+    public Outcome run(List<String> command, Path workDir, Duration timeout) throws IOException {
+        long start = System.currentTimeMillis();
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.directory(workDir.toFile());
+        pb.redirectErrorStream(false);
+        Process process = pb.start();
+        process.getOutputStream().close();
+
+        BoundedCapture stdout = new BoundedCapture(maxCaptureBytes);
+        BoundedCapture stderr = new BoundedCapture(maxCaptureBytes);
+        Future<?> outDrain = drainers.submit(() -> stdout.drain(process.getInputStream()));
+        Future<?> errDrain = drainers.submit(() -> stderr.drain(process.getErrorStream()));
+
+        boolean timedOut = false;
+        try {
+            if (!process.waitFor(Math.max(0, timeout.toMillis()), TimeUnit.MILLISECONDS)) {
+                timedOut = true;
+                killTree(process);
+            }
+        } catch (InterruptedException e) {
+            killTree(process);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for process", e);
+        } finally {
+            // Background children may hold the pipes open after the main process exits.
+            finishDrain(outDrain, process.getInputStream());
+            finishDrain(errDrain, process.getErrorStream());
+            if (process.descendants().findAny().isPresent()) {
+                process.descendants().forEach(ProcessHandle::destroyForcibly);
+            }
+        }
+
+        return new Outcome(timedOut ? -1 : process.exitValue(), timedOut,
+                stdout.text(), stderr.text(), stdout.dropped(), stderr.dropped(),
+                System.currentTimeMillis() - start);
+    }
+
+    private void killTree(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+        try {
+            process.waitFor(DRAIN_GRACE_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void finishDrain(Future<?> drain, InputStream stream) {
+        try {
+            drain.get(DRAIN_GRACE_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            try {
+                stream.close();
+            } catch (IOException ignore) {
+                // closing unblocks the drainer; nothing else to do
+            }
+            drain.cancel(true);
+        } catch (Exception e) {
+            log.debug("Output drain ended with {}", e.toString());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        drainers.shutdownNow();
+    }
+
+    /**
+     * Exit status and captured output of one process run.
+     */
+    public static final class Outcome {
+        private final int exitCode;
+        private final boolean timedOut;
+        private final String stdout;
+        private final String stderr;
+        private final long stdoutDropped;
+        private final long stderrDropped;
+        private final long durationMs;
+
+        Outcome(int exitCode, boolean timedOut, String stdout, String stderr,
+                long stdoutDropped, long stderrDropped, long durationMs) {
+            this.exitCode = exitCode;
+            this.timedOut = timedOut;
+            this.stdout = stdout;
+            this.stderr = stderr;
+            this.stdoutDropped = stdoutDropped;
+            this.stderrDropped = stderrDropped;
+            this.durationMs = durationMs;
+        }
+
+        public int getExitCode() {
+            return exitCode;
+        }
+
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        public String getStdout() {
+            return stdout;
+        }
+
+        public String getStderr() {
+            return stderr;
+        }
+
+        public long getDroppedBytes() {
+            return stdoutDropped + stderrDropped;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+    }
+
+    /**
+     * Keeps the first and last {@code limit / 2} bytes of a stream and counts what falls in between.
+     * Both buffers grow with the output, so a short one costs a few hundred bytes, not the limit.
+     */
+    static final class BoundedCapture {
+        private static final int MIN_CAPACITY = 256;
+
+        private final int headLimit;
+        private final int tailLimit;
+        private byte[] head = new byte[0];
+        private byte[] tail = new byte[0];
+        private int headLength;
+        private long tailWritten;
+        private long total;
+
+        BoundedCapture(int limit) {
+            this.headLimit = limit / 2;
+            this.tailLimit = limit - limit / 2;
+        }
+
+        void drain(InputStream in) {
+            byte[] buffer = new byte[8192];
+            try (in) {
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    append(buffer, n);
+                }
+            } catch (IOException e) {
+                // stream closed after timeout or kill; keep what was captured
+            }
+        }
+
+        synchronized void append(byte[] buffer, int length) {
+            total += length;
+            int offset = 0;
+            if (headLength < headLimit) {
+                int toHead = Math.min(length, headLimit - headLength);
+                head = grow(head, headLength + toHead, headLimit);
+                System.arraycopy(buffer, 0, head, headLength, toHead);
+                headLength += toHead;
+                offset = toHead;
+            }
+            int remaining = length - offset;
+            if (remaining >= tailLimit) {
+                // only the last tailLimit bytes survive
+                tailWritten += remaining - tailLimit;
+                offset = length - tailLimit;
+                remaining = tailLimit;
+            }
+            if (remaining > 0) {
+                // the ring only wraps once it has reached its full size
+                tail = grow(tail, (int) Math.min(tailLimit, tailWritten + remaining), tailLimit);
+                int position = (int) (tailWritten % tailLimit);
+                int first = Math.min(remaining, tailLimit - position);
+                System.arraycopy(buffer, offset, tail, position, first);
+                System.arraycopy(buffer, offset + first, tail, 0, remaining - first);
+                tailWritten += remaining;
+            }
+        }
+
+        private static byte[] grow(byte[] buffer, int needed, int limit) {
+            if (buffer.length >= needed) {
+                return buffer;
+            }
+            long capacity = Math.max(Math.max(needed, MIN_CAPACITY), 2L * buffer.length);
+            return Arrays.copyOf(buffer, (int) Math.min(limit, capacity));
+        }
+
+        synchronized long dropped() {
+            return Math.max(0, tailWritten - tailLimit);
+        }
+
+        synchronized String text() {
+            if (tailWritten == 0) {
+                return decode(head, 0, headLength, false);
+            }
+            long dropped = dropped();
+            if (dropped == 0) {
+                // Nothing lost: the ring has not wrapped and head and tail are contiguous, decode them as one.
+                byte[] all = Arrays.copyOf(head, headLength + (int) tailWritten);
+                System.arraycopy(tail, 0, all, headLength, (int) tailWritten);
+                return decode(all, 0, all.length, false);
+            }
+            byte[] ordered = new byte[tailLimit];
+            int start = (int) (tailWritten % tailLimit);
+            System.arraycopy(tail, start, ordered, 0, tailLimit - start);
+            System.arraycopy(tail, 0, ordered, tailLimit - start, start);
+            return decode(head, 0, headLength, false)
+                    + "\n... [" + dropped + " bytes omitted of " + total + "] ...\n"
+                    + decode(ordered, 0, tailLimit, true);
+        }
+
+        // Decode UTF-8, trimming a multi-byte sequence cut at either edge instead of emitting garbage.
+        private static String decode(byte[] bytes, int from, int to, boolean cutAtStart) {
+            if (cutAtStart) {
+                while (from < to && (bytes[from] & 0xC0) == 0x80) {
+                    from++;
+                }
+            }
+            int end = to;
+            int back = end - 1;
+            while (back >= from && end - back <= 4 && (bytes[back] & 0xC0) == 0x80) {
+                back--;
+            }
+            if (back >= from) {
+                int lead = bytes[back] & 0xFF;
+                int expected = lead >= 0xF0 ? 4 : lead >= 0xE0 ? 3 : lead >= 0xC0 ? 2 : 1;
+                if (end - back < expected) {
+                    end = back;
+                }
+            }
+            try {
+                return StandardCharsets.UTF_8.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                        .decode(ByteBuffer.wrap(bytes, from, end - from))
+                        .toString();
+            } catch (Exception e) {
+                return new String(bytes, from, end - from, StandardCharsets.UTF_8);
+            }
+        }
+    }
+}
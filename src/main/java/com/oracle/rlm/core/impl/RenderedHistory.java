@@ -0,0 +1,103 @@
+package com.oracle.rlm.core.impl;
+
+import com.oracle.rlm.core.ActionObservation;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Function;
+
+/**
+ * Prompt text of an environment's observations, each rendered once when the first prompt after
+ * it is built. Like the observations themselves, segments older than {@code compressAfter}
+ * entries are deflated once they reach {@code compressMinChars}; a deflated segment knows its
+ * length, so a prompt can be sized without inflating it, and inflates once when appended.
+ */
+final class RenderedHistory {
+
+    private CharSequence[] segments = new CharSequence[16];
+    private int size;
+    private final int compressAfter;
+    private final int compressMinChars;
+
+    RenderedHistory(int compressAfter, int compressMinChars) {
+        this.compressAfter = compressAfter;
+        this.compressMinChars = compressMinChars;
+    }
+
+    /**
+     * Segments for the whole history, rendering only the observations added since the last call.
+     * {@code observationsSince} returns the observations from the given index on; the renderer
+     * must produce the same text on every call. The returned list is a view of the first
+     * segments: later calls only append after them or swap one for its deflated form.
+     */
+    synchronized List<CharSequence> render(Function<Integer, List<ActionObservation>> observationsSince,
+                                           Function<ActionObservation, String> renderer) {
+        int rendered = size;
+        for (ActionObservation observation : observationsSince.apply(rendered)) {
+            if (size == segments.length) {
+                segments = Arrays.copyOf(segments, size * 2);
+            }
+            segments[size++] = renderer.apply(observation);
+        }
+        if (compressAfter > 0) {
+            for (int i = Math.max(0, rendered - compressAfter); i < size - compressAfter; i++) {
+                if (segments[i] instanceof String text && text.length() >= compressMinChars) {
+                    segments[i] = new Deflated(text);
+                }
+            }
+        }
+        return new View(segments, size);
+    }
+
+    private static final class View extends AbstractList<CharSequence> implements RandomAccess {
+        private final CharSequence[] segments;
+        private final int size;
+
+        View(CharSequence[] segments, int size) {
+            this.segments = segments;
+            this.size = size;
+        }
+
+        @Override
+        public CharSequence get(int index) {
+            return segments[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private static final class Deflated implements CharSequence {
+        private final byte[] bytes;
+        private final int length;
+
+        Deflated(String text) {
+            this.bytes = ObservationLog.deflate(text);
+            this.length = text.length();
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return toString().charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return ObservationLog.inflate(bytes);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.oracle.rlm.core.impl;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.oracle.rlm.core.ToolCall;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What is needed to resume a root completion: the request and the outcome so far. The loops of
+ * the tree are checkpointed separately, one {@link Loop} per loop.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RunCheckpoint {
+
+    public enum Status { RUNNING, INTERRUPTED, COMPLETED }
+
+    private String runId;
+    private Status status;
+    private String environmentId;
+    private String query;
+    private int maxDepth;
+    private int maxBranching;
+    private String strategy;
+    private boolean verbose;
+    private long timeoutMs;
+    private Map<String, Object> backendHints;
+    private long startedAt;
+    private long updatedAt;
+    private int resumes;
+
+    /**
+     * Why the run stopped before completing (deadline, shutdown, error)
+     */
+    private String interruption;
+
+    private String finalAnswer;
+    private Integer totalSteps;
+    private Integer maxDepthReached;
+
+    /**
+     * State of one loop after its last completed step. The observations themselves are appended
+     * to a separate journal; only the first {@code historySize} of them belong to the checkpoint.
+     */
+    @Data
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Loop {
+        private String environmentId;
+        private int depth;
+        private int step;
+        private int totalSteps;
+        private int maxDepthReached;
+        private int branchCalls;
+        private int historySize;
+        private boolean finished;
+        private boolean deadlineReached;
+        private String finalAnswer;
+
+        /**
+         * Step whose model call completed but whose action has not: resumed without calling the
+         * model again
+         */
+        private Pending pending;
+    }
+
+    /**
+     * A single action as tool and code; a batch as actions, of which those already in the journal
+     * under this step are skipped on resume. An answer means the batch ends with finish.
+     */
+    @Data
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Pending {
+        private String thought;
+        private String tool;
+        private String code;
+        private List<ToolCall> actions;
+        private String answer;
+    }
+}
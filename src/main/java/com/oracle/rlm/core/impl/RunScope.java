@@ -0,0 +1,99 @@
+package com.oracle.rlm.core.impl;
+
+import com.oracle.rlm.util.Hashes;
+import com.oracle.rlm.util.SingleFlight;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * State shared by every loop of one root {@code completion} call (the request tree), plus the
+ * chain of sub-query keys leading to the current loop.
+ */
+final class RunScope {
+
+    private final String runId;
+    private final SingleFlight<DefaultRlmClient.ExecutionResult> subQueries;
+    private final HedgeBudget hedgeBudget;
+    private final RunStats stats;
+    private final Deadline deadline;
+    private final Set<String> lineage;
+
+    private RunScope(String runId, SingleFlight<DefaultRlmClient.ExecutionResult> subQueries,
+                     HedgeBudget hedgeBudget, RunStats stats, Deadline deadline, Set<String> lineage) {
+        this.runId = runId;
+        this.subQueries = subQueries;
+        this.hedgeBudget = hedgeBudget;
+        this.stats = stats;
+        this.deadline = deadline;
+        this.lineage = lineage;
+    }
+
+    /**
+     * Scope of a root request; {@code runId} is the id its checkpoint is stored and resumed under.
+     */
+    static RunScope root(String runId, HedgeBudget hedgeBudget, Deadline deadline) {
+        // A child stopped by its deadline share or a shutdown is only handed to the callers that
+        // waited for it; a later identical rlm_call runs again with its own share of the time
+        SingleFlight<DefaultRlmClient.ExecutionResult> subQueries =
+                new SingleFlight<>(null, Integer.MAX_VALUE, result -> !result.isResumable());
+        return new RunScope(runId, subQueries, hedgeBudget, new RunStats(), deadline, Set.of());
+    }
+
+    /**
+     * Scope for a child loop started for the sub-query with the given key.
+     */
+    RunScope child(String subQueryKey, Deadline childDeadline) {
+        Set<String> childLineage = new HashSet<>(lineage);
+        childLineage.add(subQueryKey);
+        return new RunScope(runId, subQueries, hedgeBudget, stats, childDeadline, Set.copyOf(childLineage));
+    }
+
+    /**
+     * Id of the root request, shared by the whole tree.
+     */
+    String runId() {
+        return runId;
+    }
+
+    /**
+     * Deadline of the loop running in this scope.
+     */
+    Deadline deadline() {
+        return deadline;
+    }
+
+    /**
+     * Per-request registry of rlm_call sub-queries, shared by the whole tree.
+     */
+    SingleFlight<DefaultRlmClient.ExecutionResult> subQueries() {
+        return subQueries;
+    }
+
+    /**
+     * Hedged-call budget, shared by the whole tree.
+     */
+    HedgeBudget hedgeBudget() {
+        return hedgeBudget;
+    }
+
+    /**
+     * Model call, token and parse-fallback counters, shared by the whole tree.
+     */
+    RunStats stats() {
+        return stats;
+    }
+
+    /**
+     * True when the key belongs to a loop above this one; waiting on it would deadlock.
+     */
+    boolean isAncestor(String subQueryKey) {
+        return lineage.contains(subQueryKey);
+    }
+
+    // Whitespace only: case matters to the grep and python steps that answer a sub-query.
+    static String subQueryKey(String subQuery, String parentContextHash) {
+        String normalized = subQuery.trim().replaceAll("\\s+", " ");
+        return Hashes.sha256Of(normalized, parentContextHash);
+    }
+}
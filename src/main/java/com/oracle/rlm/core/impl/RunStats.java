@@ -0,0 +1,94 @@
+package com.oracle.rlm.core.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-request step-efficiency counters, shared by the whole tree: model calls, actions run (a step
+ * may batch several), estimated prompt and completion tokens (characters / 4), responses whose
+ * JSON had to be extracted from surrounding text (jsonRecoveries), responses that needed the
+ * non-JSON fallback, and loop-guard interventions (hints, requests to finish, loops ended as
+ * stalled).
+ */
+final class RunStats {
+
+    private final AtomicInteger llmCalls = new AtomicInteger();
+    private final AtomicLong promptTokens = new AtomicLong();
+    private final AtomicLong completionTokens = new AtomicLong();
+    private final AtomicInteger actions = new AtomicInteger();
+    private final AtomicInteger jsonRecoveries = new AtomicInteger();
+    private final AtomicInteger parseFallbacks = new AtomicInteger();
+    private final AtomicInteger hints = new AtomicInteger();
+    private final AtomicInteger forcedFinishes = new AtomicInteger();
+    private final AtomicInteger stalls = new AtomicInteger();
+
+    void recordCall(String systemPrompt, String userPrompt, String response) {
+        llmCalls.incrementAndGet();
+        promptTokens.addAndGet((length(systemPrompt) + length(userPrompt)) / 4);
+        completionTokens.addAndGet(length(response) / 4);
+    }
+
+    void recordAction() {
+        actions.incrementAndGet();
+    }
+
+    void recordJsonRecovery() {
+        jsonRecoveries.incrementAndGet();
+    }
+
+    void recordParseFallback() {
+        parseFallbacks.incrementAndGet();
+    }
+
+    void recordHint() {
+        hints.incrementAndGet();
+    }
+
+    void recordForcedFinish() {
+        forcedFinishes.incrementAndGet();
+    }
+
+    void recordStall() {
+        stalls.incrementAndGet();
+    }
+
+    int getLlmCalls() {
+        return llmCalls.get();
+    }
+
+    long getPromptTokens() {
+        return promptTokens.get();
+    }
+
+    long getCompletionTokens() {
+        return completionTokens.get();
+    }
+
+    int getActions() {
+        return actions.get();
+    }
+
+    int getJsonRecoveries() {
+        return jsonRecoveries.get();
+    }
+
+    int getParseFallbacks() {
+        return parseFallbacks.get();
+    }
+
+    int getHints() {
+        return hints.get();
+    }
+
+    int getForcedFinishes() {
+        return forcedFinishes.get();
+    }
+
+    int getStalls() {
+        return stalls.get();
+    }
+
+    private static int length(String text) {
+        return text == null ? 0 : text.length();
+    }
+}
@@ -0,0 +1,479 @@
+package com.oracle.rlm.core.impl;
+
+import com.oracle.rlm.config.RlmSecurityConfig;
+import com.oracle.rlm.core.ResourceUsage;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Launches python/bash steps under the limits of {@link RlmSecurityConfig}: the interpreter, and
+ * every command a bash script starts (see {@link ShellCommands}), must be on the allow-list,
+ * rlimits (CPU seconds, address space, file size, processes) are set by a small bash wrapper, the
+ * process runs in its own network namespace when network access is not allowed, and, when a
+ * delegated cgroup v2 directory is configured, in a per-execution cgroup with CPU, memory and pid
+ * limits. Every execution reports the resources it used.
+ *
+ * <p>Paths passed as read-only are bind-mounted read-only in a private mount namespace; a nested
+ * user namespace then locks those mounts, so even root inside the sandbox can neither unmount nor
+ * remount them writable. The work directory itself stays writable when one of them contains it.
+ */
+@Component
+@Slf4j
+public class SandboxLauncher {
+
+    // $1 = usage file, $2 = cgroup.procs to join (or empty); the limits line is filled in per launch.
+    private static final String WRAPPER = """
+            usage="$1"; procs="$2"; shift 2
+            if [ -n "$procs" ]; then echo $$ > "$procs" || exit 125; fi
+            %s
+            "$@"
+            status=$?
+            times > "$usage"
+            exit $status
+            """;
+    // $1 = work directory, then the read-only paths up to "--", then the command. The cd re-enters
+    // the work directory through the new mounts; the inherited one bypasses them.
+    private static final String READ_ONLY_MOUNTS = """
+            w="$1"; shift
+            while [ "$1" != "--" ]; do
+              mount --rbind "$1" "$1" && mount -o remount,bind,ro "$1" || exit 125
+              case "$w/" in "$1"/*) mount --rbind "$w" "$w" && mount -o remount,bind,rw "$w" || exit 125;; esac
+              shift
+            done
+            shift
+            cd "$w" || exit 125
+            exec unshare -rm "$@"
+            """;
+    private static final String READ_ONLY_PROBE = """
+            mount --bind "$1" "$1" && mount -o remount,bind,ro "$1" && exec unshare -rm true
+            """;
+    private static final int SANDBOX_SETUP_FAILED = 125;
+    private static final int SIGKILL = 9;
+    private static final int SIGXCPU = 24;
+    private static final int SIGXFSZ = 25;
+    private static final Duration PROBE_TIMEOUT = Duration.ofSeconds(5);
+
+    private final ProcessRunner processRunner;
+    private final RlmSecurityConfig security;
+
+    private volatile Boolean networkIsolation;
+    private volatile Boolean readOnlyMounts;
+    private volatile Boolean cgroupsAvailable;
+
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final LongAdder cpuMs = new LongAdder();
+    private final LongAdder wallMs = new LongAdder();
+    private final AtomicLong maxPeakMemoryBytes = new AtomicLong(-1);
+    private final Map<String, LongAdder> limitsExceeded = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SandboxLauncher(ProcessRunner processRunner, RlmSecurityConfig security) {
+        this.processRunner = processRunner;
+        this.security = security;
+    }
+
+    /**
+     * A launcher that runs commands as they are, for environments created outside Spring.
+     */
+    public static SandboxLauncher unsandboxed(ProcessRunner processRunner) {
+        return new SandboxLauncher(processRunner, null);
+    }
+
+    /**
+     * Run {@code command} in {@code workDir} within the configured limits.
+     *
+     * @throws SecurityException if a command is not allowed, or network isolation is
+     *                           required but unavailable
+     */
+    public Execution launch(List<String> command, Path workDir, Duration timeout) throws IOException {
+        return launch(command, workDir, timeout, List.of());
+    }
+
+    /**
+     * Run {@code command} in {@code workDir} within the configured limits, with {@code readOnlyPaths}
+     * (absolute) unwritable for it. Only valid when {@link #protectsReadOnlyPaths()}.
+     *
+     * @throws SecurityException if a command is not allowed, network isolation is required
+     *                           but unavailable, or read-only paths cannot be enforced
+     */
+    public Execution launch(List<String> command, Path workDir, Duration timeout,
+                            List<Path> readOnlyPaths) throws IOException {
+        if (!readOnlyPaths.isEmpty() && !protectsReadOnlyPaths()) {
+            rejected.incrementAndGet();
+            throw new SecurityException("Read-only mounts are unavailable on this host");
+        }
+        if (security == null || !security.isSandboxEnabled()) {
+            ProcessRunner.Outcome outcome = processRunner.run(command, workDir, timeout);
+            return record(outcome, ResourceUsage.builder()
+                    .wallTimeMs(outcome.getDurationMs())
+                    .cpuUserMs(-1)
+                    .cpuSystemMs(-1)
+                    .peakMemoryBytes(-1)
+                    .limitExceeded(outcome.isTimedOut() ? "timeout" : null)
+                    .build());
+        }
+
+        checkAllowed(command);
+        List<String> inner = new ArrayList<>();
+        boolean isolated = false;
+        if (!security.isAllowNetwork()) {
+            if (networkIsolationAvailable()) {
+                isolated = true;
+            } else if (security.isRequireNetworkIsolation()) {
+                rejected.incrementAndGet();
+                throw new SecurityException("Network isolation is required but unavailable on this host");
+            }
+        }
+        if (!readOnlyPaths.isEmpty()) {
+            inner.addAll(List.of("unshare", isolated ? "-rnm" : "-rm", "bash", "-c", READ_ONLY_MOUNTS,
+                    "rlm-mounts", workDir.toAbsolutePath().normalize().toString()));
+            readOnlyPaths.forEach(path -> inner.add(path.toString()));
+            inner.add("--");
+        } else if (isolated) {
+            inner.add("unshare");
+            inner.add("-rn");
+        }
+        inner.addAll(command);
+
+        Path usageFile = Files.createTempFile("rlm-usage", ".txt");
+        Path cgroup = createCgroup();
+        try {
+            List<String> wrapped = new ArrayList<>(List.of("bash", "-c", WRAPPER.formatted(limitsLine(timeout)),
+                    "rlm-sandbox", usageFile.toString(), cgroup == null ? "" : cgroup.resolve("cgroup.procs").toString()));
+            wrapped.addAll(inner);
+            ProcessRunner.Outcome outcome = processRunner.run(wrapped, workDir, timeout);
+
+            long[] cpu = readTimes(usageFile);
+            long peakMemory = -1;
+            boolean oomKilled = false;
+            if (cgroup != null) {
+                long[] cgroupCpu = readCgroupCpu(cgroup);
+                if (cgroupCpu != null) {
+                    cpu = cgroupCpu;
+                }
+                peakMemory = readLong(cgroup.resolve("memory.peak"));
+                oomKilled = readKey(cgroup.resolve("memory.events"), "oom_kill") > 0;
+            }
+            if (outcome.getExitCode() == SANDBOX_SETUP_FAILED && outcome.getStderr().isBlank()) {
+                log.warn("Sandbox setup failed in {}", workDir);
+            }
+            return record(outcome, ResourceUsage.builder()
+                    .wallTimeMs(outcome.getDurationMs())
+                    .cpuUserMs(cpu == null ? -1 : cpu[0])
+                    .cpuSystemMs(cpu == null ? -1 : cpu[1])
+                    .peakMemoryBytes(peakMemory)
+                    .limitExceeded(limitExceeded(outcome, oomKilled, cpu, cpuLimitSeconds(timeout)))
+                    .sandboxed(true)
+                    .networkIsolated(isolated)
+                    .cgroup(cgroup != null)
+                    .build());
+        } finally {
+            Files.deleteIfExists(usageFile);
+            if (cgroup != null) {
+                removeCgroup(cgroup);
+            }
+        }
+    }
+
+    /**
+     * Whether {@link #launch(List, Path, Duration, List)} can keep paths unwritable for a step:
+     * only sandboxed steps in their own user and mount namespace.
+     */
+    public boolean protectsReadOnlyPaths() {
+        if (security == null || !security.isSandboxEnabled()) {
+            return false;
+        }
+        Boolean available = readOnlyMounts;
+        if (available == null) {
+            synchronized (this) {
+                available = readOnlyMounts;
+                if (available == null) {
+                    available = probe(List.of("unshare", "-rm", "bash", "-c", READ_ONLY_PROBE, "rlm-probe",
+                            System.getProperty("java.io.tmpdir")));
+                    if (!available) {
+                        log.warn("Mount namespaces are unavailable; environments get private copies of "
+                                + "shared contexts instead of hard links");
+                    }
+                    readOnlyMounts = available;
+                }
+            }
+        }
+        return available;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sandboxEnabled", security != null && security.isSandboxEnabled());
+        stats.put("networkIsolation", networkIsolation == null ? "not probed" : networkIsolation);
+        stats.put("readOnlyMounts", readOnlyMounts == null ? "not probed" : readOnlyMounts);
+        stats.put("cgroups", cgroupsAvailable == null ? "not probed" : cgroupsAvailable);
+        stats.put("executions", executions.get());
+        stats.put("rejected", rejected.get());
+        stats.put("cpuMs", cpuMs.sum());
+        stats.put("wallMs", wallMs.sum());
+        stats.put("maxPeakMemoryBytes", maxPeakMemoryBytes.get());
+        Map<String, Long> limits = new LinkedHashMap<>();
+        limitsExceeded.forEach((kind, count) -> limits.put(kind, count.sum()));
+        stats.put("limitsExceeded", limits);
+        return stats;
+    }
+
+    // The interpreter, and for "bash -c SCRIPT" every command the script starts.
+    private void checkAllowed(List<String> command) {
+        List<String> allowed = security.getAllowedCommands();
+        if (allowed == null) {
+            return;
+        }
+        List<String> executables = new ArrayList<>();
+        executables.add(command.get(0));
+        String interpreter = Paths.get(command.get(0)).getFileName().toString();
+        if ((interpreter.equals("bash") || interpreter.equals("sh")) && command.size() > 2
+                && command.get(1).equals("-c")) {
+            executables.addAll(ShellCommands.commandNames(command.get(2)));
+        }
+        for (String executable : executables) {
+            String name = executable.indexOf('/') >= 0 ? executable.substring(executable.lastIndexOf('/') + 1)
+                    : executable;
+            if (!allowed.contains(name) && !allowed.contains(executable)) {
+                rejected.incrementAndGet();
+                throw new SecurityException("Command '" + name + "' is not in rlm.security.allowed-commands "
+                        + allowed);
+            }
+        }
+    }
+
+    private String limitsLine(Duration timeout) {
+        // Soft CPU limit raises SIGXCPU; the hard limit one second later is the SIGKILL backstop.
+        long cpuSeconds = cpuLimitSeconds(timeout);
+        StringBuilder line = new StringBuilder("ulimit -S -t ").append(cpuSeconds)
+                .append(" && ulimit -H -t ").append(cpuSeconds + 1);
+        line.append(" && ulimit");
+        if (security.getMaxMemoryMb() > 0) {
+            line.append(" -v ").append(security.getMaxMemoryMb() * 1024L);
+        }
+        if (security.getMaxFileSizeMb() > 0) {
+            line.append(" -f ").append(security.getMaxFileSizeMb() * 1024L);
+        }
+        if (security.getMaxProcesses() > 0) {
+            line.append(" -u ").append(security.getMaxProcesses());
+        }
+        return line.append(" || exit ").append(SANDBOX_SETUP_FAILED).toString();
+    }
+
+    private long cpuLimitSeconds(Duration timeout) {
+        return security.getMaxCpuSeconds() > 0
+                ? security.getMaxCpuSeconds()
+                : Math.max(1, (timeout.toMillis() + 999) / 1000);
+    }
+
+    // Python turns RLIMIT_AS and RLIMIT_FSIZE hits into exceptions rather than signals.
+    private static String limitExceeded(ProcessRunner.Outcome outcome, boolean oomKilled,
+                                        long[] cpu, long cpuLimitSeconds) {
+        if (outcome.isTimedOut()) {
+            return "timeout";
+        }
+        int exit = outcome.getExitCode();
+        boolean cpuSpent = cpu != null && cpu[0] + cpu[1] >= cpuLimitSeconds * 1000 - 50;
+        if (exit == 128 + SIGXCPU || exit == 128 + SIGKILL && cpuSpent) {
+            return "cpu";
+        }
+        if (oomKilled || outcome.getStderr().contains("MemoryError")) {
+            return "memory";
+        }
+        if (exit == 128 + SIGXFSZ || outcome.getStderr().contains("File too large")) {
+            return "file-size";
+        }
+        return null;
+    }
+
+    private Execution record(ProcessRunner.Outcome outcome, ResourceUsage usage) {
+        executions.incrementAndGet();
+        wallMs.add(usage.getWallTimeMs());
+        if (usage.getCpuUserMs() >= 0) {
+            cpuMs.add(usage.getCpuUserMs() + Math.max(0, usage.getCpuSystemMs()));
+        }
+        if (usage.getPeakMemoryBytes() >= 0) {
+            maxPeakMemoryBytes.accumulateAndGet(usage.getPeakMemoryBytes(), Math::max);
+        }
+        if (usage.getLimitExceeded() != null) {
+            limitsExceeded.computeIfAbsent(usage.getLimitExceeded(), k -> new LongAdder()).increment();
+        }
+        log.debug("Execution used {}", usage);
+        return new Execution(outcome, usage);
+    }
+
+    private boolean networkIsolationAvailable() {
+        Boolean available = networkIsolation;
+        if (available == null) {
+            synchronized (this) {
+                available = networkIsolation;
+                if (available == null) {
+                    available = probe(List.of("unshare", "-rn", "true"));
+                    if (!available) {
+                        log.warn("Network namespaces are unavailable; tool steps will have network access "
+                                + "despite rlm.security.allow-network=false");
+                    }
+                    networkIsolation = available;
+                }
+            }
+        }
+        return available;
+    }
+
+    private boolean probe(List<String> command) {
+        try {
+            return processRunner.run(command, Paths.get(System.getProperty("java.io.tmpdir")), PROBE_TIMEOUT)
+                    .getExitCode() == 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // --- cgroup v2 -----------------------------------------------------------------------------
+
+    private Path createCgroup() {
+        String rootSetting = security.getCgroupRoot();
+        if (rootSetting == null || rootSetting.isBlank() || !cgroupsAvailable(Paths.get(rootSetting))) {
+            return null;
+        }
+        Path group = Paths.get(rootSetting).resolve("rlm-" + UUID.randomUUID());
+        try {
+            Files.createDirectory(group);
+            if (security.getCgroupCpuPercent() > 0) {
+                Files.writeString(group.resolve("cpu.max"), security.getCgroupCpuPercent() * 1000L + " 100000");
+            }
+            long memoryMb = security.getCgroupMemoryMb() > 0 ? security.getCgroupMemoryMb() : security.getMaxMemoryMb();
+            if (memoryMb > 0) {
+                Files.writeString(group.resolve("memory.max"), Long.toString(memoryMb * 1024 * 1024));
+                writeQuietly(group.resolve("memory.swap.max"), "0");
+            }
+            if (security.getCgroupMaxPids() > 0) {
+                Files.writeString(group.resolve("pids.max"), Integer.toString(security.getCgroupMaxPids()));
+            }
+            return group;
+        } catch (IOException e) {
+            log.debug("Could not set up cgroup {}: {}", group, e.getMessage());
+            removeCgroup(group);
+            return null;
+        }
+    }
+
+    private boolean cgroupsAvailable(Path root) {
+        Boolean available = cgroupsAvailable;
+        if (available == null) {
+            synchronized (this) {
+                available = cgroupsAvailable;
+                if (available == null) {
+                    available = Files.isRegularFile(root.resolve("cgroup.controllers")) && Files.isWritable(root);
+                    if (available) {
+                        writeQuietly(root.resolve("cgroup.subtree_control"), "+cpu +memory +pids");
+                    } else {
+                        log.warn("cgroup v2 directory {} is missing or not writable; using rlimits only", root);
+                    }
+                    cgroupsAvailable = available;
+                }
+            }
+        }
+        return available;
+    }
+
+    private static void removeCgroup(Path group) {
+        writeQuietly(group.resolve("cgroup.kill"), "1");
+        for (int attempt = 0; attempt < 10; attempt++) {
+            try {
+                Files.deleteIfExists(group);
+                return;
+            } catch (IOException e) {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        log.warn("Could not remove cgroup {}", group);
+    }
+
+    private static long[] readCgroupCpu(Path group) {
+        long user = readKey(group.resolve("cpu.stat"), "user_usec");
+        long system = readKey(group.resolve("cpu.stat"), "system_usec");
+        return user < 0 || system < 0 ? null : new long[]{user / 1000, system / 1000};
+    }
+
+    // `times` prints the shell's own times, then its children's: "0m0.019s 0m0.004s"
+    private static long[] readTimes(Path usageFile) {
+        try {
+            List<String> lines = Files.readAllLines(usageFile);
+            if (lines.size() < 2) {
+                return null;
+            }
+            String[] parts = lines.get(1).trim().split("\\s+");
+            return new long[]{parseTime(parts[0]), parseTime(parts[1])};
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static long parseTime(String value) {
+        int m = value.indexOf('m');
+        long minutes = Long.parseLong(value.substring(0, m));
+        double seconds = Double.parseDouble(value.substring(m + 1, value.length() - 1).replace(',', '.'));
+        return minutes * 60_000 + Math.round(seconds * 1000);
+    }
+
+    private static long readLong(Path file) {
+        try {
+            return Long.parseLong(Files.readString(file).trim());
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static long readKey(Path file, String key) {
+        try {
+            for (String line : Files.readAllLines(file)) {
+                if (line.startsWith(key + " ")) {
+                    return Long.parseLong(line.substring(key.length() + 1).trim());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // not available on this kernel
+        }
+        return -1;
+    }
+
+    private static void writeQuietly(Path file, String value) {
+        try {
+            Files.writeString(file, value);
+        } catch (IOException e) {
+            // optional controller or file
+        }
+    }
+
+    /**
+     * Process outcome plus the resources it used.
+     */
+    @Value
+    public static class Execution {
+        ProcessRunner.Outcome outcome;
+        ResourceUsage usage;
+    }
+}
@@ -0,0 +1,384 @@
+package com.oracle.rlm.core.impl;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Names of the commands a bash script runs, for the sandbox's allow-list: the first word of every
+ * simple command (after variable assignments and reserved words) in lists, pipelines, subshells and
+ * command substitutions, plus the command started by wrappers such as {@code xargs}, {@code env} or
+ * {@code find -exec}. Builtins that only act on the shell itself, and functions the script defines,
+ * are not reported. A command name that is itself an expansion ({@code $cmd}) is reported as written,
+ * so it never matches the list.
+ *
+ * <p>This keeps steps to the tools the operator expects; it is not a security boundary. An allowed
+ * interpreter ({@code python3 -c}, awk's {@code system()}) can still start anything, which is why the
+ * sandbox limits apply to the whole process tree.
+ */
+final class ShellCommands {
+
+    private static final Set<String> KEYWORDS = Set.of(
+            "if", "then", "else", "elif", "fi", "do", "done", "while", "until", "!", "{", "}", "esac");
+    private static final Set<String> BUILTINS = Set.of(
+            "cd", "echo", "printf", "pwd", "export", "unset", "set", "read", "test", "[", "[[", "true", "false",
+            ":", "local", "declare", "typeset", "let", "shift", "return", "exit", "break", "continue",
+            "wait", "readonly", "type", "hash", "umask", "getopts", "trap", "shopt", "times", "mapfile",
+            "readarray");
+    private static final Set<String> WRAPPERS = Set.of(
+            "command", "builtin", "exec", "env", "nohup", "nice", "timeout", "xargs", "time", "stdbuf",
+            "sudo", "doas");
+    private static final Set<String> FIND_EXEC = Set.of("-exec", "-execdir", "-ok", "-okdir");
+    private static final Pattern ASSIGNMENT = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(\\[[^]]*])?\\+?=.*",
+            Pattern.DOTALL);
+    private static final Pattern NUMBER = Pattern.compile("[0-9.]+[smhd]?");
+
+    private final String script;
+    private final List<String> names = new ArrayList<>();
+    private final Set<String> functions = new HashSet<>();
+    private final List<String> pendingHeredocs = new ArrayList<>();
+    private int pos;
+    private boolean expectPattern;
+
+    private ShellCommands(String script) {
+        this.script = script;
+    }
+
+    static List<String> commandNames(String script) {
+        ShellCommands parser = new ShellCommands(script == null ? "" : script);
+        parser.parseList((char) 0);
+        List<String> result = new ArrayList<>();
+        for (String name : parser.names) {
+            if (!parser.functions.contains(name)) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+
+    // Parses commands up to the unquoted terminator (')' of $(...), '`', or 0 for the end of the script).
+    private void parseList(char terminator) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = null;
+        boolean redirectTarget = false;
+        int parenDepth = 0;
+        while (pos < script.length()) {
+            char c = script.charAt(pos);
+            if (terminator != 0 && c == terminator && (terminator != ')' || (parenDepth == 0 && !expectPattern))) {
+                pos++;
+                addWord(words, word, redirectTarget);
+                endCommand(words, c);
+                return;
+            }
+            boolean separator = c == ';' || c == '&' || c == '|' || c == '\n' || c == '(' || c == ')';
+            if (Character.isWhitespace(c) && c != '\n') {
+                redirectTarget = addWord(words, word, redirectTarget);
+                word = null;
+                pos++;
+            } else if (c == '<' || c == '>' || (c == '&' && peek(1) == '>')) {
+                if (word != null && word.chars().allMatch(Character::isDigit)) {
+                    word = null;
+                }
+                redirectTarget = addWord(words, word, redirectTarget);
+                word = null;
+                readRedirection();
+                if (script.startsWith("(", pos)) {
+                    // process substitution <(...) runs a command list
+                    pos++;
+                    parseNested(')');
+                    redirectTarget = false;
+                } else {
+                    redirectTarget = true;
+                }
+            } else if (c == '(' && word != null && word.length() > 0 && word.charAt(word.length() - 1) == '=') {
+                // array assignment: name=(a b c)
+                pos = matching(pos + 1, '(', ')', 1);
+                word.append("(...)");
+            } else if (c == '(' && peek(1) == '(' && word == null
+                    && words.stream().allMatch(w -> KEYWORDS.contains(w) || w.equals("for"))) {
+                // arithmetic command: (( i++ )) or for (( ...; ...; ... ))
+                pos = matching(pos + 2, '(', ')', 2);
+            } else if (separator) {
+                redirectTarget = addWord(words, word, redirectTarget);
+                word = null;
+                pos++;
+                boolean doubleSemicolon = c == ';' && peek(0) == ';';
+                if (doubleSemicolon || ((c == '&' || c == '|') && (peek(0) == c || (c == '|' && peek(0) == '&')))) {
+                    pos++;
+                }
+                if (c == '(' && words.isEmpty() && !expectPattern) {
+                    parenDepth++;
+                    continue;
+                }
+                if (c == '(' && isFunctionDefinition(words)) {
+                    continue;
+                }
+                if (c == ')' && parenDepth > 0 && !expectPattern) {
+                    parenDepth--;
+                }
+                endCommand(words, c);
+                words = new ArrayList<>();
+                redirectTarget = false;
+                if (doubleSemicolon) {
+                    expectPattern = true;
+                }
+                if (c == '\n') {
+                    skipHeredocs();
+                }
+                continue;
+            } else if (c == '#' && word == null) {
+                while (pos < script.length() && script.charAt(pos) != '\n') {
+                    pos++;
+                }
+            } else {
+                if (word == null) {
+                    word = new StringBuilder();
+                }
+                readWordPart(word);
+                if (!redirectTarget && "[[".contentEquals(word) && atWordEnd() && words.stream().allMatch(KEYWORDS::contains)) {
+                    // [[ ... ]] is a builtin test; its && || < > are not separators
+                    int end = script.indexOf("]]", pos);
+                    pos = end < 0 ? script.length() : end + 2;
+                    word = null;
+                    words.add("[[");
+                }
+            }
+        }
+        addWord(words, word, redirectTarget);
+        endCommand(words, (char) 0);
+    }
+
+    private void parseNested(char terminator) {
+        boolean outerExpectPattern = expectPattern;
+        expectPattern = false;
+        parseList(terminator);
+        expectPattern = outerExpectPattern;
+    }
+
+    // One unquoted, quoted or expanded piece of a word; expansions stay in the word as written.
+    private void readWordPart(StringBuilder word) {
+        char c = script.charAt(pos);
+        if (c == '\\') {
+            if (pos + 1 < script.length() && script.charAt(pos + 1) != '\n') {
+                word.append(script.charAt(pos + 1));
+            }
+            pos += 2;
+        } else if (c == '\'') {
+            int end = script.indexOf('\'', pos + 1);
+            end = end < 0 ? script.length() : end;
+            word.append(script, pos + 1, end);
+            pos = end + 1;
+        } else if (c == '"') {
+            pos++;
+            while (pos < script.length() && script.charAt(pos) != '"') {
+                char q = script.charAt(pos);
+                if (q == '\\' && pos + 1 < script.length()) {
+                    word.append(script.charAt(pos + 1));
+                    pos += 2;
+                } else if (q == '$' || q == '`') {
+                    readExpansion(word);
+                } else {
+                    word.append(q);
+                    pos++;
+                }
+            }
+            pos++;
+        } else if (c == '$' || c == '`') {
+            readExpansion(word);
+        } else {
+            word.append(c);
+            pos++;
+        }
+    }
+
+    // $(...) and `...` run commands of their own; ${...}, $((...)) and $name are kept as written.
+    private void readExpansion(StringBuilder word) {
+        if (script.startsWith("$((", pos)) {
+            int start = pos;
+            pos = matching(pos + 3, '(', ')', 2);
+            word.append(script, start, Math.min(pos, script.length()));
+        } else if (script.startsWith("$(", pos)) {
+            pos += 2;
+            parseNested(')');
+            word.append("$(...)");
+        } else if (script.charAt(pos) == '`') {
+            pos++;
+            parseNested('`');
+            word.append("`...`");
+        } else if (script.startsWith("${", pos)) {
+            int start = pos;
+            pos = matching(pos + 2, '{', '}', 1);
+            word.append(script, start, Math.min(pos, script.length()));
+        } else {
+            word.append('$');
+            pos++;
+        }
+    }
+
+    // Index just past the {@code count} closing characters that balance the text from {@code from}.
+    private int matching(int from, char open, char close, int count) {
+        int depth = count;
+        int i = from;
+        while (i < script.length() && depth > 0) {
+            char c = script.charAt(i);
+            if (c == open) {
+                depth++;
+            } else if (c == close) {
+                depth--;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    // Consumes the operator (>, >>, >&, &>, <, <<, <<-, <<<, <>, >|) and notes here-document delimiters.
+    private void readRedirection() {
+        boolean heredoc = script.startsWith("<<", pos) && !script.startsWith("<<<", pos);
+        while (pos < script.length() && "<>&|".indexOf(script.charAt(pos)) >= 0
+                && !(script.charAt(pos) == '&' && pos + 1 < script.length() && script.charAt(pos + 1) == '&')
+                && !(script.charAt(pos) == '|' && script.charAt(pos - 1) != '>')) {
+            pos++;
+        }
+        if (!heredoc) {
+            return;
+        }
+        if (pos < script.length() && script.charAt(pos) == '-') {
+            pos++;
+        }
+        while (pos < script.length() && (script.charAt(pos) == ' ' || script.charAt(pos) == '\t')) {
+            pos++;
+        }
+        StringBuilder delimiter = new StringBuilder();
+        while (pos < script.length() && !Character.isWhitespace(script.charAt(pos))
+                && ";&|<>()".indexOf(script.charAt(pos)) < 0) {
+            char c = script.charAt(pos++);
+            if (c != '\'' && c != '"' && c != '\\') {
+                delimiter.append(c);
+            }
+        }
+        pendingHeredocs.add(delimiter.toString());
+    }
+
+    // Here-document bodies start on the line after their operator and are data, not commands.
+    private void skipHeredocs() {
+        for (String delimiter : pendingHeredocs) {
+            while (pos < script.length()) {
+                int end = script.indexOf('\n', pos);
+                end = end < 0 ? script.length() : end;
+                String line = script.substring(pos, end).replaceFirst("^\t+", "");
+                pos = Math.min(script.length(), end + 1);
+                if (line.equals(delimiter)) {
+                    break;
+                }
+            }
+        }
+        pendingHeredocs.clear();
+    }
+
+    private boolean atWordEnd() {
+        return pos >= script.length() || Character.isWhitespace(script.charAt(pos));
+    }
+
+    private char peek(int offset) {
+        return pos + offset < script.length() ? script.charAt(pos + offset) : 0;
+    }
+
+    // name() { ... }: the name becomes a function, the body is parsed like any other command list.
+    private boolean isFunctionDefinition(List<String> words) {
+        int close = pos;
+        while (close < script.length() && Character.isWhitespace(script.charAt(close))) {
+            close++;
+        }
+        if (words.isEmpty() || close >= script.length() || script.charAt(close) != ')') {
+            return false;
+        }
+        functions.add(words.get(words.size() - 1));
+        words.clear();
+        pos = close + 1;
+        return true;
+    }
+
+    // Returns whether the next word is still a redirection target (the word was null).
+    private static boolean addWord(List<String> words, StringBuilder word, boolean redirectTarget) {
+        if (word == null) {
+            return redirectTarget;
+        }
+        if (!redirectTarget) {
+            words.add(word.toString());
+        }
+        return false;
+    }
+
+    private void endCommand(List<String> words, char endedBy) {
+        int i = 0;
+        if (expectPattern && !words.isEmpty()) {
+            if (words.get(0).equals("esac")) {
+                expectPattern = false;
+            } else if (endedBy == '|') {
+                // a|b) alternatives of one pattern
+                return;
+            } else if (endedBy == ')') {
+                expectPattern = false;
+                return;
+            }
+        }
+        while (i < words.size() && (KEYWORDS.contains(words.get(i)) || ASSIGNMENT.matcher(words.get(i)).matches())) {
+            i++;
+        }
+        if (i >= words.size()) {
+            return;
+        }
+        String first = words.get(i);
+        switch (first) {
+            case "case" -> {
+                expectPattern = endedBy != ')';
+                return;
+            }
+            case "for", "select", "in" -> {
+                return;
+            }
+            case "function" -> {
+                if (i + 1 < words.size()) {
+                    functions.add(words.get(i + 1));
+                }
+                return;
+            }
+            default -> {
+            }
+        }
+        addCommand(words, i);
+    }
+
+    private void addCommand(List<String> words, int index) {
+        int i = index;
+        while (i < words.size()) {
+            String name = words.get(i);
+            if (name.isEmpty() || BUILTINS.contains(name)) {
+                return;
+            }
+            if (!WRAPPERS.contains(name)) {
+                names.add(name);
+                if (name.equals("find") || name.endsWith("/find")) {
+                    for (int j = i + 1; j + 1 < words.size(); j++) {
+                        if (FIND_EXEC.contains(words.get(j))) {
+                            addCommand(words, j + 1);
+                        }
+                    }
+                }
+                return;
+            }
+            if (!name.equals("time") && !name.equals("command") && !name.equals("builtin")
+                    && !name.equals("exec")) {
+                names.add(name);
+            }
+            // the wrapped command: the first word that is not an option, assignment or number
+            i++;
+            while (i < words.size() && (words.get(i).startsWith("-") || ASSIGNMENT.matcher(words.get(i)).matches()
+                    || NUMBER.matcher(words.get(i)).matches())) {
+                i++;
+            }
+        }
+    }
+}
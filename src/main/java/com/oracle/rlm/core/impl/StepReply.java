@@ -0,0 +1,61 @@
+package com.oracle.rlm.core.impl;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * A step response as the model writes it, mapped directly from its JSON (the step schema of
+ * {@link com.oracle.rlm.service.RlmPromptService#createStepSchema()}).
+ *
+ * <p>A step carries either one action (tool and code) or a batch (actions). Fields a model leaves
+ * out stay null. A code or answer given as JSON (e.g. arguments of the
+ * context tools) is kept as its JSON text.
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+class StepReply {
+
+    private String thought;
+    private String tool;
+    private String code;
+    private Boolean finished;
+    private String answer;
+
+    /**
+     * Several actions in one step, instead of tool and code
+     */
+    private List<Action> actions;
+
+    @JsonSetter("code")
+    void setCode(JsonNode code) {
+        this.code = text(code);
+    }
+
+    @JsonSetter("answer")
+    void setAnswer(JsonNode answer) {
+        this.answer = text(answer);
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class Action {
+        private String tool;
+        private String code;
+
+        @JsonSetter("code")
+        void setCode(JsonNode code) {
+            this.code = text(code);
+        }
+    }
+
+    private static String text(JsonNode node) {
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        return node.isValueNode() ? node.asText() : node.toString();
+    }
+}
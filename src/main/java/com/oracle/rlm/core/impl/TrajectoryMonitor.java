@@ -0,0 +1,168 @@
+package com.oracle.rlm.core.impl;
+
+import com.oracle.rlm.config.RlmConfig;
+import com.oracle.rlm.core.ActionObservation;
+import com.oracle.rlm.core.ToolResult;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Watches one completion loop for stalls and sizes its step budget.
+ *
+ * <p>A stall is the same action returning the same result, the same error coming back from
+ * different actions, or consecutive responses that were not valid JSON. The first repeats earn a
+ * corrective note in the prompt ({@link Level#HINT}); further repeats make the loop ask for a
+ * final answer ({@link Level#FINISH}).
+ *
+ * <p>The budget starts small and grows while the loop makes progress: a successful step that
+ * prints output not seen before or creates new files keeps at least {@code extensionSteps} steps
+ * ahead, as long as most recent steps succeed. It never exceeds {@code maxSteps}.
+ */
+final class TrajectoryMonitor {
+
+    enum Level { NONE, HINT, FINISH }
+
+    private static final int ERROR_SIGNATURE_LENGTH = 200;
+
+    private final RlmConfig.LoopGuard config;
+    private final Deque<Entry> recent = new ArrayDeque<>();
+    private final Set<Integer> outputs = new HashSet<>();
+    private final Set<String> files = new HashSet<>();
+    private int consecutiveFallbacks;
+    private int budget;
+    private Level level = Level.NONE;
+    private String note;
+
+    TrajectoryMonitor(RlmConfig.LoopGuard config, int legacyMaxSteps) {
+        this.config = config;
+        this.budget = config.isEnabled()
+                ? Math.max(1, Math.min(config.getInitialSteps(), config.getMaxSteps()))
+                : legacyMaxSteps;
+    }
+
+    /**
+     * Records a completed step. {@code workspaceFiles} may be null when replaying a restored
+     * history, where only the observations are known.
+     */
+    void observe(ActionObservation observation, boolean fallback, Collection<String> workspaceFiles) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        ToolResult result = observation.getObservation();
+        boolean success = result != null && result.isSuccess();
+        String output = result != null ? result.getOutput() : null;
+        String error = success ? null : errorSignature(result);
+
+        String action = observation.getAction().getToolName() + "\u0000"
+                + normalize(observation.getAction().getCode()) + "\u0000"
+                + (success ? normalize(output) : error);
+        recent.addLast(new Entry(action, error, success));
+        while (recent.size() > Math.max(1, config.getWindow())) {
+            recent.removeFirst();
+        }
+        consecutiveFallbacks = fallback ? consecutiveFallbacks + 1 : 0;
+
+        boolean newOutput = success && output != null && !output.isBlank() && outputs.add(output.trim().hashCode());
+        boolean newFiles = false;
+        if (workspaceFiles != null) {
+            for (String file : workspaceFiles) {
+                if (!isScratch(file) && files.add(file)) {
+                    newFiles = true;
+                }
+            }
+        }
+        if (success && (newOutput || newFiles) && successRate() >= config.getMinSuccessRate()) {
+            budget = Math.min(config.getMaxSteps(),
+                    Math.max(budget, observation.getStep() + config.getExtensionSteps()));
+        }
+
+        int actionRepeats = count(action, true);
+        int errorRepeats = error != null ? count(error, false) : 0;
+        int repeats = Math.max(actionRepeats, Math.max(errorRepeats, consecutiveFallbacks));
+        if (repeats >= config.getFinishAfter()) {
+            level = Level.FINISH;
+        } else if (repeats >= config.getHintAfter()) {
+            level = Level.HINT;
+        } else {
+            level = Level.NONE;
+        }
+        if (level == Level.NONE) {
+            note = null;
+        } else if (consecutiveFallbacks == repeats) {
+            note = "Your last " + repeats + " responses were not valid JSON. Respond with exactly one JSON "
+                    + "object with the fields thought, tool and code (or finished and answer).";
+        } else if (actionRepeats == repeats) {
+            note = "You ran the same " + observation.getAction().getToolName() + " action " + repeats
+                    + " times with the same result. Do not repeat it: try a different approach or finish.";
+        } else {
+            note = "The last " + repeats + " failed steps returned the same error. Change the approach "
+                    + "instead of retrying a variant of the same action.";
+        }
+        if (level == Level.FINISH) {
+            note += " The loop is not making progress: finish now with the best answer you have.";
+        }
+    }
+
+    int budget() {
+        return budget;
+    }
+
+    Level level() {
+        return level;
+    }
+
+    /**
+     * Corrective note for the next prompt, null when the loop looks healthy
+     */
+    String note() {
+        return note;
+    }
+
+    private int count(String signature, boolean byAction) {
+        int n = 0;
+        for (Entry entry : recent) {
+            if (signature.equals(byAction ? entry.action : entry.error)) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private double successRate() {
+        long succeeded = recent.stream().filter(e -> e.success).count();
+        return recent.isEmpty() ? 1.0 : (double) succeeded / recent.size();
+    }
+
+    // Timings, line numbers and ids differ between otherwise identical failures
+    private static String errorSignature(ToolResult result) {
+        String text = result == null ? "" : result.getError() != null ? result.getError() : result.getOutput();
+        String signature = normalize(text).replaceAll("\\d+", "#");
+        return signature.length() > ERROR_SIGNATURE_LENGTH ? signature.substring(0, ERROR_SIGNATURE_LENGTH) : signature;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.strip().replaceAll("\\s+", " ");
+    }
+
+    // Every python step writes its own script file; those are not progress
+    private static boolean isScratch(String file) {
+        String name = file.substring(file.lastIndexOf('/') + 1);
+        return name.startsWith("script_") && name.endsWith(".py");
+    }
+
+    private static final class Entry {
+        final String action;
+        final String error;
+        final boolean success;
+
+        Entry(String action, String error, boolean success) {
+            this.action = action;
+            this.error = error;
+            this.success = success;
+        }
+    }
+}
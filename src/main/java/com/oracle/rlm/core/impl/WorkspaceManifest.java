@@ -0,0 +1,207 @@
+package com.oracle.rlm.core.impl;
+
+import com.oracle.rlm.util.Hashes;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size, mtime and content hash of every file in an environment's work directory.
+ *
+ * <p>Writes made by the environment itself are recorded directly; changes made by python/bash
+ * steps are picked up by {@link #scan}, which only re-hashes files whose size or mtime moved.
+ * Every change is stamped with a generation (the history index of the action it happened in), so
+ * prompts can show what changed in the last step without listing the directory.
+ */
+@Slf4j
+final class WorkspaceManifest {
+
+    enum ChangeKind { ADDED, MODIFIED, DELETED }
+
+    @Value
+    static class Entry {
+        String path;
+        long size;
+        long mtimeNanos;
+        String hash;
+        int generation;
+        ChangeKind change;
+
+        boolean isDeleted() {
+            return change == ChangeKind.DELETED;
+        }
+    }
+
+    private final Path root;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    WorkspaceManifest(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * Record a file the environment has just written; {@code hash} is the SHA-256 of its content.
+     */
+    void record(String path, String hash, int generation) {
+        Path file = root.resolve(path);
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            put(relativize(file), attrs, hash, generation);
+        } catch (IOException e) {
+            log.debug("Could not stat {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Record a file copied from another workspace with known metadata; it does not count as a change.
+     */
+    void adopt(Entry source) {
+        Path file = root.resolve(source.getPath());
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            entries.put(source.getPath(), new Entry(source.getPath(), attrs.size(),
+                    attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS), source.getHash(), -1, ChangeKind.ADDED));
+        } catch (IOException e) {
+            log.debug("Could not stat {}: {}", file, e.getMessage());
+        }
+    }
+
+    void remove(String path, int generation) {
+        Entry previous = entries.get(path);
+        if (previous != null && !previous.isDeleted()) {
+            entries.put(path, new Entry(path, 0, 0, null, generation, ChangeKind.DELETED));
+        }
+    }
+
+    /**
+     * Reconcile with the directory after an external process ran: one stat per file, and a content
+     * hash only for files that are new or whose size or mtime changed.
+     */
+    void scan(int generation) {
+        Set<String> seen = new HashSet<>();
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (!attrs.isRegularFile()) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    String path = relativize(file);
+                    seen.add(path);
+                    Entry known = entries.get(path);
+                    long mtime = attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+                    if (known == null || known.isDeleted() || known.getSize() != attrs.size()
+                            || known.getMtimeNanos() != mtime) {
+                        String hash = hashFile(file);
+                        if (known == null || known.isDeleted() || !hash.equals(known.getHash())) {
+                            put(path, attrs, hash, generation);
+                        } else {
+                            // touched but identical: refresh the stat without reporting a change
+                            entries.put(path, new Entry(path, attrs.size(), mtime, hash,
+                                    known.getGeneration(), known.getChange()));
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Failed to scan workspace {}: {}", root, e.getMessage());
+            return;
+        }
+        for (Entry entry : entries.values()) {
+            if (!entry.isDeleted() && !seen.contains(entry.getPath())) {
+                remove(entry.getPath(), generation);
+            }
+        }
+    }
+
+    Entry get(String path) {
+        Entry entry = entries.get(path);
+        return entry == null || entry.isDeleted() ? null : entry;
+    }
+
+    /**
+     * Live files, sorted by path.
+     */
+    List<Entry> files() {
+        List<Entry> files = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (!entry.isDeleted()) {
+                files.add(entry);
+            }
+        }
+        files.sort(Comparator.comparing(Entry::getPath));
+        return files;
+    }
+
+    /**
+     * Files added, modified or deleted in generation {@code generation} or later, sorted by path.
+     */
+    List<Entry> changedSince(int generation) {
+        List<Entry> changed = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (entry.getGeneration() >= generation) {
+                changed.add(entry);
+            }
+        }
+        changed.sort(Comparator.comparing(Entry::getPath));
+        return changed;
+    }
+
+    long totalBytes() {
+        long total = 0;
+        for (Entry entry : entries.values()) {
+            total += entry.getSize();
+        }
+        return total;
+    }
+
+    private void put(String path, BasicFileAttributes attrs, String hash, int generation) {
+        Entry previous = entries.get(path);
+        // a file created and then rewritten within the same step is still reported as added
+        boolean added = previous == null || previous.isDeleted()
+                || previous.getGeneration() == generation && previous.getChange() == ChangeKind.ADDED;
+        ChangeKind change = added ? ChangeKind.ADDED : ChangeKind.MODIFIED;
+        entries.put(path, new Entry(path, attrs.size(), attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS),
+                hash, generation, change));
+    }
+
+    private String relativize(Path file) {
+        return root.relativize(file).toString().replace('\\', '/');
+    }
+
+    private static String hashFile(Path file) {
+        MessageDigest md = Hashes.digest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                md.update(buffer, 0, n);
+            }
+        } catch (IOException e) {
+            return "";
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+}
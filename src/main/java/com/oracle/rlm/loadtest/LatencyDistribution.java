@@ -0,0 +1,70 @@
+package com.oracle.rlm.loadtest;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Simulated model latency, parsed from a spec:
+ * <ul>
+ *   <li>{@code 0} or {@code fixed:MS}</li>
+ *   <li>{@code uniform:MIN_MS:MAX_MS}</li>
+ *   <li>{@code exponential:MEAN_MS}</li>
+ *   <li>{@code lognormal:MEDIAN_MS:SIGMA} (long right tail, like real providers)</li>
+ * </ul>
+ */
+public final class LatencyDistribution {
+
+    private enum Kind { FIXED, UNIFORM, EXPONENTIAL, LOGNORMAL }
+
+    private final Kind kind;
+    private final double a;
+    private final double b;
+    private final String spec;
+
+    private LatencyDistribution(Kind kind, double a, double b, String spec) {
+        this.kind = kind;
+        this.a = a;
+        this.b = b;
+        this.spec = spec;
+    }
+
+    public static LatencyDistribution parse(String spec) {
+        if (spec == null || spec.isBlank()) {
+            return new LatencyDistribution(Kind.FIXED, 0, 0, "0");
+        }
+        String[] parts = spec.trim().toLowerCase(Locale.ROOT).split(":");
+        try {
+            return switch (parts[0]) {
+                case "fixed" -> new LatencyDistribution(Kind.FIXED, Double.parseDouble(parts[1]), 0, spec);
+                case "uniform" -> new LatencyDistribution(Kind.UNIFORM, Double.parseDouble(parts[1]),
+                        Double.parseDouble(parts[2]), spec);
+                case "exponential" -> new LatencyDistribution(Kind.EXPONENTIAL, Double.parseDouble(parts[1]), 0, spec);
+                case "lognormal" -> new LatencyDistribution(Kind.LOGNORMAL, Double.parseDouble(parts[1]),
+                        Double.parseDouble(parts[2]), spec);
+                default -> new LatencyDistribution(Kind.FIXED, Double.parseDouble(parts[0]), 0, spec);
+            };
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid latency spec '" + spec
+                    + "'; use MS, fixed:MS, uniform:MIN:MAX, exponential:MEAN or lognormal:MEDIAN:SIGMA", e);
+        }
+    }
+
+    /**
+     * A latency in milliseconds.
+     */
+    public long sample() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double ms = switch (kind) {
+            case FIXED -> a;
+            case UNIFORM -> a + random.nextDouble() * Math.max(0, b - a);
+            case EXPONENTIAL -> -a * Math.log(1 - random.nextDouble());
+            case LOGNORMAL -> a * Math.exp(b * random.nextGaussian());
+        };
+        return Math.max(0, Math.round(ms));
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+}
@@ -0,0 +1,56 @@
+package com.oracle.rlm.loadtest;
+
+import com.oracle.rlm.config.ChatModelProviders;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Profile "loadtest": every provider is replaced by a {@link ScriptedChatModel}, and once the
+ * application is up a {@link LoadTestDriver} loads it over HTTP and reports the service's own
+ * limits (connector threads, environment creation, process spawns, GC) without provider cost.
+ */
+@Slf4j
+@Configuration
+@Profile("loadtest")
+@EnableConfigurationProperties(LoadTestProperties.class)
+public class LoadTestConfig {
+
+    @Bean(ChatModelProviders.OFFLINE_MODEL)
+    public ChatModel scriptedChatModel(LoadTestProperties properties) {
+        log.info("Load test stub model: script {}, latency {}", properties.getScript(), properties.getLatency());
+        return ScriptedChatModel.of(properties.getScript(), properties.getLatency());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void runLoadTest(ApplicationReadyEvent event) {
+        LoadTestProperties properties = event.getApplicationContext().getBean(LoadTestProperties.class);
+        if (!properties.isRunOnStartup()) {
+            return;
+        }
+        ApplicationContext context = event.getApplicationContext();
+        String target = properties.getTargetUrl() == null || properties.getTargetUrl().isBlank()
+                ? "http://localhost:" + context.getEnvironment().getProperty("local.server.port", "8080")
+                : properties.getTargetUrl().replaceAll("/+$", "");
+        Thread driver = new Thread(() -> {
+            try {
+                LoadTestDriver loadTest = new LoadTestDriver(properties);
+                LoadTestReport report = loadTest.run(target);
+                log.info("Load test report:\n{}", loadTest.write(report));
+            } catch (Exception e) {
+                log.error("Load test failed: {}", e.getMessage(), e);
+            }
+            if (properties.isExitWhenDone()) {
+                System.exit(SpringApplication.exit(context, () -> 0));
+            }
+        }, "load-test-driver");
+        driver.start();
+    }
+}
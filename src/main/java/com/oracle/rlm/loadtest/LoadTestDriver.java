@@ -0,0 +1,242 @@
+package com.oracle.rlm.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.oracle.rlm.model.RlmRequest;
+import com.oracle.rlm.util.LatencyWindow;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes POST /api/v1/rlm/solve at a fixed concurrency (closed loop) or request rate (open loop)
+ * and reports throughput, latency percentiles and the target's environment, process, heap and GC
+ * figures over the run.
+ */
+@Slf4j
+public class LoadTestDriver {
+
+    private static final String SOLVE = "/api/v1/rlm/solve";
+    private static final String RUNTIME = "/api/v1/rlm/runtime";
+
+    private final LoadTestProperties properties;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final LatencyWindow latencies = new LatencyWindow(200_000);
+    private final AtomicLong maxLatency = new AtomicLong();
+    // Errors (refused connections, 5xx, timeouts) are kept apart so they do not skew service latency
+    private final LatencyWindow failedLatencies = new LatencyWindow(10_000);
+    private final AtomicLong maxFailedLatency = new AtomicLong(-1);
+    private final List<JsonNode> samples = new ArrayList<>();
+
+    public LoadTestDriver(LoadTestProperties properties) {
+        this.properties = properties;
+    }
+
+    public LoadTestReport run(String baseUrl) throws InterruptedException {
+        String context = generateContext(properties.getContextBytes());
+        boolean openLoop = properties.getRps() > 0;
+        int concurrency = Math.max(1, properties.getConcurrency());
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(properties.getDurationSeconds());
+        log.info("Load test against {}: {} for {}s, model latency {}", baseUrl,
+                openLoop ? properties.getRps() + " req/s (max " + concurrency + " in flight)" : concurrency + " concurrent",
+                properties.getDurationSeconds(), properties.getLatency());
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> sample(baseUrl), 0, 1, TimeUnit.SECONDS);
+        ExecutorService workers = Executors.newCachedThreadPool();
+        try {
+            if (openLoop) {
+                Semaphore inFlight = new Semaphore(concurrency);
+                long intervalNanos = (long) (1e9 / properties.getRps());
+                for (long next = start; next < end && !limitReached(); next += intervalNanos) {
+                    long wait = next - System.nanoTime();
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                    if (!inFlight.tryAcquire()) {
+                        dropped.incrementAndGet();
+                        continue;
+                    }
+                    long n = sequence.incrementAndGet();
+                    workers.execute(() -> {
+                        try {
+                            send(baseUrl, context, n);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                }
+            } else {
+                for (int i = 0; i < concurrency; i++) {
+                    workers.execute(() -> {
+                        while (System.nanoTime() < end) {
+                            long n = sequence.incrementAndGet();
+                            if (properties.getMaxRequests() > 0 && n > properties.getMaxRequests()) {
+                                break;
+                            }
+                            send(baseUrl, context, n);
+                        }
+                    });
+                }
+            }
+            workers.shutdown();
+            workers.awaitTermination(properties.getDurationSeconds() + properties.getRequestTimeoutSeconds(),
+                    TimeUnit.SECONDS);
+        } finally {
+            workers.shutdownNow();
+            sampler.shutdownNow();
+        }
+        sample(baseUrl);
+        return report(baseUrl, openLoop, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Write the report as JSON (when a file is configured) and return it as text for the log.
+     */
+    public String write(LoadTestReport report) throws IOException {
+        String json = objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(report);
+        if (properties.getReportFile() != null && !properties.getReportFile().isBlank()) {
+            Path file = Path.of(properties.getReportFile());
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.writeString(file, json);
+        }
+        return json;
+    }
+
+    private boolean limitReached() {
+        return properties.getMaxRequests() > 0 && sequence.get() >= properties.getMaxRequests();
+    }
+
+    private void send(String baseUrl, String context, long n) {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            // A distinct problem per request, so identical requests are not coalesced into one run
+            RlmRequest body = RlmRequest.builder()
+                    .problem(properties.getProblem() + " (request " + n + ")")
+                    .context(context)
+                    .maxDepth(properties.getMaxDepth())
+                    .maxBranching(properties.getMaxBranching())
+                    .build();
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + SOLVE))
+                    .timeout(Duration.ofSeconds(properties.getRequestTimeoutSeconds()))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            ok = response.statusCode() == 200;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            log.debug("Request {} failed: {}", n, e.getMessage());
+        }
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        if (ok) {
+            succeeded.incrementAndGet();
+            latencies.record(ms);
+            maxLatency.accumulateAndGet(ms, Math::max);
+        } else {
+            failed.incrementAndGet();
+            failedLatencies.record(ms);
+            maxFailedLatency.accumulateAndGet(ms, Math::max);
+        }
+    }
+
+    private void sample(String baseUrl) {
+        try {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + RUNTIME))
+                    .timeout(Duration.ofSeconds(5)).GET().build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 200) {
+                JsonNode node = objectMapper.readTree(response.body());
+                synchronized (samples) {
+                    samples.add(node);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            log.debug("Runtime sample failed: {}", e.getMessage());
+        }
+    }
+
+    private LoadTestReport report(String baseUrl, boolean openLoop, double seconds) {
+        List<JsonNode> runtime;
+        synchronized (samples) {
+            runtime = List.copyOf(samples);
+        }
+        return LoadTestReport.builder()
+                .target(baseUrl)
+                .mode(openLoop ? "open-loop " + properties.getRps() + " req/s" : "closed-loop " + properties.getConcurrency())
+                .modelLatency(properties.getLatency())
+                .durationSeconds(Math.round(seconds * 10) / 10.0)
+                .requests(succeeded.get() + failed.get())
+                .succeeded(succeeded.get())
+                .failed(failed.get())
+                .dropped(dropped.get())
+                .throughputRps(Math.round(succeeded.get() / seconds * 100) / 100.0)
+                .latencyP50Ms(latencies.percentile(50))
+                .latencyP90Ms(latencies.percentile(90))
+                .latencyP99Ms(latencies.percentile(99))
+                .latencyMaxMs(maxLatency.get())
+                .failedLatencyP50Ms(failedLatencies.percentile(50))
+                .failedLatencyMaxMs(maxFailedLatency.get())
+                .environmentsCreated(delta(runtime, "environmentsCreated"))
+                .peakEnvironments(peak(runtime, "environments"))
+                .processesStarted(delta(runtime, "processesStarted"))
+                .peakRunningProcesses(peak(runtime, "runningProcesses"))
+                .peakHeapUsedBytes(peak(runtime, "heapUsedBytes"))
+                .heapMaxBytes(peak(runtime, "heapMaxBytes"))
+                .peakThreads(peak(runtime, "threads"))
+                .gcCount(delta(runtime, "gcCount"))
+                .gcTimeMs(delta(runtime, "gcTimeMs"))
+                .build();
+    }
+
+    private static long peak(List<JsonNode> runtime, String field) {
+        return runtime.stream().mapToLong(n -> n.path(field).asLong()).max().orElse(-1);
+    }
+
+    private static long delta(List<JsonNode> runtime, String field) {
+        if (runtime.size() < 2) {
+            return -1;
+        }
+        return runtime.get(runtime.size() - 1).path(field).asLong() - runtime.get(0).path(field).asLong();
+    }
+
+    private static String generateContext(int bytes) {
+        if (bytes <= 0) {
+            return null;
+        }
+        StringBuilder context = new StringBuilder(bytes + 100);
+        for (int line = 1; context.length() < bytes; line++) {
+            context.append("Record ").append(line).append(": status=").append(line % 7 == 0 ? "ERROR" : "OK")
+                   .append(" value=").append((line * 7919L) % 10007).append('\n');
+        }
+        return context.toString();
+    }
+}
@@ -0,0 +1,76 @@
+package com.oracle.rlm.loadtest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings of the "loadtest" profile: the scripted stub model and the load driver.
+ */
+@ConfigurationProperties(prefix = "rlm.loadtest")
+@Data
+public class LoadTestProperties {
+
+    /**
+     * Actions the stub model takes in every run, as "tool" or "tool:code"; a final finish is
+     * added when missing
+     */
+    private List<String> script = new ArrayList<>(List.of("python", "bash", "rlm_call", "finish"));
+
+    /**
+     * Simulated model latency: MS, fixed:MS, uniform:MIN:MAX, exponential:MEAN or lognormal:MEDIAN:SIGMA
+     */
+    private String latency = "lognormal:800:0.5";
+
+    /**
+     * Start the driver once the application is ready; otherwise only the stub model is installed
+     * (to load the service from an external tool)
+     */
+    private boolean runOnStartup = true;
+
+    /**
+     * Stop the application after the run
+     */
+    private boolean exitWhenDone = false;
+
+    /**
+     * Base URL to load; empty targets this application
+     */
+    private String targetUrl = "";
+
+    /**
+     * Concurrent requests (closed loop), or the in-flight cap when rps is set
+     */
+    private int concurrency = 8;
+
+    /**
+     * Target requests per second (open loop); 0 runs closed-loop at the given concurrency
+     */
+    private double rps = 0;
+
+    private int durationSeconds = 60;
+
+    /**
+     * Stop after this many requests; 0 = only the duration limits the run
+     */
+    private int maxRequests = 0;
+
+    private int requestTimeoutSeconds = 300;
+
+    private String problem = "Summarize the context";
+
+    /**
+     * Size of the generated context sent with every request; 0 sends none
+     */
+    private int contextBytes = 100_000;
+
+    private int maxDepth = 2;
+    private int maxBranching = 2;
+
+    /**
+     * Where the JSON report is written (parent directories are created); empty for log only
+     */
+    private String reportFile = "target/loadtest-report.json";
+}
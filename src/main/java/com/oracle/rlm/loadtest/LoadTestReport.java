@@ -0,0 +1,52 @@
+package com.oracle.rlm.loadtest;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Outcome of a load run. Environment, process, heap and GC figures come from the target's
+ * /api/v1/rlm/runtime endpoint, sampled every second.
+ */
+@Value
+@Builder
+public class LoadTestReport {
+    String target;
+    String mode;
+    String modelLatency;
+    double durationSeconds;
+
+    long requests;
+    long succeeded;
+    long failed;
+
+    /**
+     * Open loop only: requests not sent because the in-flight cap was reached
+     */
+    long dropped;
+
+    double throughputRps;
+
+    /**
+     * Latency of successful (HTTP 200) requests only
+     */
+    long latencyP50Ms;
+    long latencyP90Ms;
+    long latencyP99Ms;
+    long latencyMaxMs;
+
+    /**
+     * Latency of failed requests (error status, connection failure, timeout), -1 when none failed
+     */
+    long failedLatencyP50Ms;
+    long failedLatencyMaxMs;
+
+    long environmentsCreated;
+    long peakEnvironments;
+    long processesStarted;
+    long peakRunningProcesses;
+    long peakHeapUsedBytes;
+    long heapMaxBytes;
+    long peakThreads;
+    long gcCount;
+    long gcTimeMs;
+}
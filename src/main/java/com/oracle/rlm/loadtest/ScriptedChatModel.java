@@ -0,0 +1,170 @@
+package com.oracle.rlm.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.Value;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stub model that answers step prompts with valid step JSON from a fixed script, after a
+ * simulated latency, so the service can be exercised without a provider.
+ *
+ * <p>The step within a run is the number of previous steps in the prompt: step 1 gets the first
+ * script action, step 2 the second, and so on, with the last action repeating. An rlm_call that
+ * would exceed the prompt's maxDepth, and any step once the prompt says time is up, becomes a
+ * finish. The pseudo-tool "raw" sends its code verbatim instead of step JSON, to exercise the
+ * parser's fallbacks; "batch" sends several actions in one step, its code being their specs
+ * separated by lines of "---".
+ */
+public class ScriptedChatModel implements ChatModel {
+
+    private static final Pattern PREVIOUS_STEP = Pattern.compile("(?m)^\\s*Step \\d+:");
+    private static final Pattern CURRENT_DEPTH = Pattern.compile("currentDepth=(\\d+)");
+    private static final Pattern MAX_DEPTH = Pattern.compile("maxDepth=(\\d+)");
+    private static final String TIME_UP = "TIME IS NEARLY UP";
+    private static final Pattern BATCH_SEPARATOR = Pattern.compile("\\R---\\R");
+
+    /**
+     * One scripted step: a tool and its code (for finish, the answer).
+     */
+    @Value
+    public static class Action {
+        String tool;
+        String code;
+
+        /**
+         * "tool" with a default code, or "tool:code".
+         */
+        public static Action parse(String spec) {
+            String trimmed = spec.trim();
+            int colon = trimmed.indexOf(':');
+            String tool = (colon < 0 ? trimmed : trimmed.substring(0, colon)).trim().toLowerCase(Locale.ROOT);
+            String code = colon < 0 ? defaultCode(tool) : trimmed.substring(colon + 1).trim();
+            return new Action(tool, code);
+        }
+
+        private static String defaultCode(String tool) {
+            return switch (tool) {
+                case "python" -> "print(len(CONTEXT))";
+                case "bash" -> "wc -l context.txt";
+                case "rlm_call" -> "Summarize the first lines of the context";
+                case "finish" -> "Scripted answer";
+                default -> "";
+            };
+        }
+    }
+
+    private final List<Action> script;
+    private final LatencyDistribution latency;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong calls = new AtomicLong();
+
+    public ScriptedChatModel(List<Action> script, LatencyDistribution latency) {
+        if (script.isEmpty()) {
+            throw new IllegalArgumentException("A script needs at least one action");
+        }
+        List<Action> actions = new ArrayList<>(script);
+        if (!"finish".equals(actions.get(actions.size() - 1).getTool())) {
+            actions.add(Action.parse("finish"));
+        }
+        this.script = List.copyOf(actions);
+        this.latency = latency;
+    }
+
+    public static ScriptedChatModel of(List<String> script, String latency) {
+        return new ScriptedChatModel(script.stream().map(Action::parse).toList(), LatencyDistribution.parse(latency));
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        calls.incrementAndGet();
+        String user = prompt.getInstructions().stream()
+                .filter(m -> m.getMessageType() == MessageType.USER)
+                .map(Message::getText)
+                .reduce("", (a, b) -> b);
+        int previousSteps = count(PREVIOUS_STEP.matcher(user));
+        int depth = number(CURRENT_DEPTH.matcher(user), 0);
+        int maxDepth = number(MAX_DEPTH.matcher(user), Integer.MAX_VALUE);
+
+        Action action = script.get(Math.min(previousSteps, script.size() - 1));
+        if (user.contains(TIME_UP) || ("rlm_call".equals(action.getTool()) && depth + 1 >= maxDepth)) {
+            action = script.get(script.size() - 1);
+        }
+
+        long delay = latency.sample();
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while simulating model latency", e);
+            }
+        }
+
+        String text = render(action, previousSteps + 1, depth);
+        int promptChars = prompt.getInstructions().stream().mapToInt(m -> m.getText() == null ? 0 : m.getText().length()).sum();
+        ChatResponseMetadata metadata = ChatResponseMetadata.builder()
+                .model("scripted")
+                .usage(new DefaultUsage(promptChars / 4, text.length() / 4))
+                .build();
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))), metadata);
+    }
+
+    public long getCalls() {
+        return calls.get();
+    }
+
+    private String render(Action action, int step, int depth) {
+        if ("raw".equals(action.getTool())) {
+            return action.getCode();
+        }
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("thought", "Scripted step " + step + " at depth " + depth);
+        if ("batch".equals(action.getTool())) {
+            ArrayNode actions = node.putArray("actions");
+            for (String spec : BATCH_SEPARATOR.split(action.getCode())) {
+                Action batched = Action.parse(spec);
+                actions.addObject().put("tool", batched.getTool()).put("code", batched.getCode());
+            }
+            node.put("finished", false);
+            return node.toString();
+        }
+        node.put("tool", action.getTool());
+        if ("finish".equals(action.getTool())) {
+            node.put("answer", action.getCode());
+            node.put("finished", true);
+        } else {
+            node.put("code", action.getCode());
+            node.put("finished", false);
+        }
+        return node.toString();
+    }
+
+    private static int count(Matcher matcher) {
+        int count = 0;
+        while (matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+
+    private static int number(Matcher matcher, int fallback) {
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : fallback;
+    }
+}
@@ -32,4 +32,14 @@ public class RlmResponse {
     private LocalDateTime timestamp = LocalDateTime.now();
     
     private String strategy;
+
+    /**
+     * Id of the run, to resume it (POST /api/v1/rlm/runs/{runId}/resume) if it was interrupted
+     */
+    private String runId;
+
+    /**
+     * True when the run stopped early (deadline or shutdown) and can be resumed
+     */
+    private Boolean resumable;
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.oracle.rlm.routing;
+
+/**
+ * Kind of LLM call being routed.
+ */
+public enum CallType {
+    /** Step of the top-level REPL loop. */
+    ROOT_STEP,
+    /** Step of a loop started by rlm_call. */
+    CHILD_STEP,
+    /** RecursiveThinkingService decomposition. */
+    DECOMPOSE,
+    /** RecursiveThinkingService direct solve. */
+    SOLVE,
+    /** RecursiveThinkingService aggregation of sub-solutions. */
+    AGGREGATE
+}
@@ -0,0 +1,261 @@
+package com.oracle.rlm.routing;
+
+import com.oracle.rlm.util.LatencyWindow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.model.tool.StructuredOutputChatOptions;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * A named model (provider plus optional model id) with its ChatClient and usage statistics.
+ *
+ * <p>Calls with an output schema use the provider's native structured output (JSON schema
+ * response format) when its options support it. A provider that rejects the response format (a
+ * 4xx naming it) is called without one for {@link #SCHEMA_RETRY_AFTER}; the prompt still
+ * describes the format.
+ */
+@Slf4j
+public class ModelRoute {
+
+    static final Duration SCHEMA_RETRY_AFTER = Duration.ofMinutes(10);
+    private static final Pattern CLIENT_ERROR = Pattern.compile("^4\\d\\d - .*", Pattern.DOTALL);
+
+    private final String name;
+    private final String provider;
+    private final String model;
+    private final ChatClient chatClient;
+    private final double inputCostPer1kTokens;
+    private final double outputCostPer1kTokens;
+    private final ProviderLimiter limiter;
+    private final int expectedCompletionTokens;
+    private final ChatOptions defaultOptions;
+    private final boolean structuredOutput;
+    private volatile long structuredOutputSuspendedUntil;
+
+    private final LatencyWindow latencies = new LatencyWindow(1_000);
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder promptTokens = new LongAdder();
+    private final LongAdder completionTokens = new LongAdder();
+    private final LongAdder structuredCalls = new LongAdder();
+
+    public ModelRoute(String name, String provider, String model, ChatClient chatClient,
+                      double inputCostPer1kTokens, double outputCostPer1kTokens,
+                      ProviderLimiter limiter, int expectedCompletionTokens) {
+        this(name, provider, model, chatClient, inputCostPer1kTokens, outputCostPer1kTokens, limiter,
+                expectedCompletionTokens, null, false);
+    }
+
+    /**
+     * @param defaultOptions   the model's default options; native structured output needs them to
+     *                         implement {@link StructuredOutputChatOptions}
+     * @param structuredOutput whether calls with an output schema may use it natively
+     */
+    public ModelRoute(String name, String provider, String model, ChatClient chatClient,
+                      double inputCostPer1kTokens, double outputCostPer1kTokens,
+                      ProviderLimiter limiter, int expectedCompletionTokens,
+                      ChatOptions defaultOptions, boolean structuredOutput) {
+        this.name = name;
+        this.provider = provider;
+        this.model = model;
+        this.chatClient = chatClient;
+        this.inputCostPer1kTokens = inputCostPer1kTokens;
+        this.outputCostPer1kTokens = outputCostPer1kTokens;
+        this.limiter = limiter;
+        this.expectedCompletionTokens = expectedCompletionTokens;
+        this.defaultOptions = defaultOptions;
+        this.structuredOutput = structuredOutput && defaultOptions instanceof StructuredOutputChatOptions;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public boolean supportsStructuredOutput() {
+        return structuredOutput && System.currentTimeMillis() >= structuredOutputSuspendedUntil;
+    }
+
+    /**
+     * Send one prompt and return the response text, waiting for the provider limiter first.
+     *
+     * @param system      system prompt, or null/blank for none
+     * @param user        user prompt
+     * @param temperature sampling temperature, or null for the model default
+     * @param priority    limiter priority; lower is admitted first (recursion depth)
+     */
+    public String call(String system, String user, Double temperature, int priority) {
+        return call(system, user, temperature, priority, null);
+    }
+
+    /**
+     * Send one prompt whose response should follow a JSON schema.
+     *
+     * @param outputSchema JSON schema of the response, applied natively when the provider supports
+     *                     it; null for a free-text response
+     * @see #call(String, String, Double, int)
+     */
+    public String call(String system, String user, Double temperature, int priority, String outputSchema) {
+        boolean structured = outputSchema != null && supportsStructuredOutput();
+        ChatClient.ChatClientRequestSpec spec = chatClient.prompt();
+        if (system != null && !system.isBlank()) {
+            spec = spec.system(system);
+        }
+        spec = spec.user(user);
+        if (structured) {
+            spec = spec.options(structuredOptions(outputSchema, temperature));
+        } else if (model != null || temperature != null) {
+            spec = spec.options(ChatOptions.builder()
+                    .model(model)
+                    .temperature(temperature)
+                    .build());
+        }
+
+        int promptChars = (system == null ? 0 : system.length()) + user.length();
+        ProviderLimiter.Permit permit;
+        try {
+            permit = limiter.acquire(priority, promptChars / 4 + expectedCompletionTokens);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + provider + " capacity", e);
+        }
+
+        long start = System.currentTimeMillis();
+        calls.increment();
+        if (structured) {
+            structuredCalls.increment();
+        }
+        // The permit goes back in finally: an Error from the provider call must not leak the slot
+        long latency = -1;
+        boolean rateLimited = false;
+        Integer usage = null;
+        try {
+            ChatResponse response = spec.call().chatResponse();
+            latency = System.currentTimeMillis() - start;
+            latencies.record(latency);
+            usage = recordUsage(response);
+            if (response == null || response.getResult() == null) {
+                return null;
+            }
+            return response.getResult().getOutput().getText();
+        } catch (RuntimeException e) {
+            errors.increment();
+            rateLimited = isRateLimited(e);
+            if (!structured || rateLimited || !isSchemaRejected(e)) {
+                throw e;
+            }
+            structuredOutputSuspendedUntil = System.currentTimeMillis() + SCHEMA_RETRY_AFTER.toMillis();
+            log.warn("Model '{}' rejected the response format; using prompt-only formatting for {}: {}",
+                    name, SCHEMA_RETRY_AFTER, e.getMessage());
+        } finally {
+            permit.release(latency, rateLimited, usage);
+        }
+        // retried once the rejected call's permit is back
+        return call(system, user, temperature, priority, null);
+    }
+
+    // A copy of the provider's own options (the type that carries the schema) with this route's
+    // model and the call's temperature.
+    private ChatOptions structuredOptions(String outputSchema, Double temperature) {
+        ChatOptions options = defaultOptions.copy();
+        BeanWrapper properties = PropertyAccessorFactory.forBeanPropertyAccess(options);
+        if (model != null && properties.isWritableProperty("model")) {
+            properties.setPropertyValue("model", model);
+        }
+        if (temperature != null && properties.isWritableProperty("temperature")) {
+            properties.setPropertyValue("temperature", temperature);
+        }
+        ((StructuredOutputChatOptions) options).setOutputSchema(outputSchema);
+        return options;
+    }
+
+    // Only a client error about the response format itself: tool schemas, validation errors or
+    // 5xx bodies echoing the request say nothing about structured output support.
+    private static boolean isSchemaRejected(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            String body = null;
+            if (t instanceof RestClientResponseException response && response.getStatusCode().is4xxClientError()) {
+                body = response.getResponseBodyAsString();
+            } else if (t instanceof NonTransientAiException && t.getMessage() != null
+                    && CLIENT_ERROR.matcher(t.getMessage()).matches()) {
+                // Spring AI's error handler: "<status> - <body>"
+                body = t.getMessage();
+            }
+            if (body != null) {
+                String text = body.toLowerCase(Locale.ROOT);
+                if (text.contains("response_format") || text.contains("json_schema") || text.contains("output_format")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Records token usage and returns the total, or null when the provider reported none.
+    private Integer recordUsage(ChatResponse response) {
+        if (response == null || response.getMetadata() == null) {
+            return null;
+        }
+        Usage usage = response.getMetadata().getUsage();
+        if (usage == null) {
+            return null;
+        }
+        if (usage.getPromptTokens() != null) {
+            promptTokens.add(usage.getPromptTokens());
+        }
+        if (usage.getCompletionTokens() != null) {
+            completionTokens.add(usage.getCompletionTokens());
+        }
+        Integer total = usage.getTotalTokens();
+        return total != null && total > 0 ? total : null;
+    }
+
+    private static boolean isRateLimited(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            String message = t.getMessage() == null ? "" : t.getMessage().toLowerCase(Locale.ROOT);
+            if (t.getClass().getSimpleName().contains("TooManyRequests")
+                    || message.contains("429") || message.contains("rate limit") || message.contains("rate_limit")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Snapshot of latency, token and estimated cost figures for this route.
+     */
+    public Map<String, Object> stats() {
+        long in = promptTokens.sum();
+        long out = completionTokens.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("provider", provider);
+        stats.put("model", model);
+        stats.put("calls", calls.sum());
+        stats.put("errors", errors.sum());
+        stats.put("structuredOutput", supportsStructuredOutput());
+        stats.put("structuredCalls", structuredCalls.sum());
+        stats.put("p50Ms", latencies.percentile(50));
+        stats.put("p99Ms", latencies.percentile(99));
+        stats.put("promptTokens", in);
+        stats.put("completionTokens", out);
+        stats.put("estimatedCost", in / 1000.0 * inputCostPer1kTokens + out / 1000.0 * outputCostPer1kTokens);
+        stats.put("limiter", limiter.stats());
+        return stats;
+    }
+}
@@ -0,0 +1,157 @@
+package com.oracle.rlm.routing;
+
+import com.oracle.rlm.config.ChatModelProviders;
+import com.oracle.rlm.config.RlmConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of named models built from all configured providers, plus the policy that picks one
+ * per call from call type, recursion depth and request hints.
+ *
+ * <p>Resolution order: a {@code "model"} backend hint (a registered name or {@code provider:model}),
+ * then the first matching {@code rlm.routing.rules} entry, then {@code rlm.routing.default-model},
+ * then the first available provider.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ModelRouter {
+
+    public static final String MODEL_HINT = "model";
+
+    private final ChatModelProviders providers;
+    private final RlmConfig rlmConfig;
+    private final Map<String, ModelRoute> routes = new ConcurrentHashMap<>();
+    private final Map<String, ProviderLimiter> limiters = new ConcurrentHashMap<>();
+    private volatile boolean initialized;
+
+    public ModelRoute select(CallType callType, int depth, Map<String, Object> hints) {
+        init();
+        Object hint = hints != null ? hints.get(MODEL_HINT) : null;
+        if (hint != null && !hint.toString().isBlank()) {
+            ModelRoute hinted = resolve(hint.toString().trim());
+            if (hinted != null) {
+                return hinted;
+            }
+            log.warn("Ignoring unknown model hint '{}'", hint);
+        }
+        for (RlmConfig.Rule rule : rlmConfig.getRouting().getRules()) {
+            if (matches(rule, callType, depth)) {
+                ModelRoute route = rule.getModel() != null ? routes.get(rule.getModel()) : null;
+                if (route != null) {
+                    return route;
+                }
+                log.warn("Routing rule refers to unknown model '{}'", rule.getModel());
+            }
+        }
+        return defaultRoute();
+    }
+
+    /**
+     * A registered route by name (or {@code provider:model}), or null if it cannot be resolved.
+     */
+    public ModelRoute resolve(String name) {
+        init();
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        ModelRoute route = routes.get(name);
+        if (route != null) {
+            return route;
+        }
+        int colon = name.indexOf(':');
+        if (colon <= 0 || colon == name.length() - 1) {
+            return null;
+        }
+        String provider = name.substring(0, colon);
+        String model = name.substring(colon + 1);
+        return providers.find(provider)
+                .map(chatModel -> routes.computeIfAbsent(name,
+                        n -> newRoute(n, provider, chatModel, model, 0, 0)))
+                .orElse(null);
+    }
+
+    public ModelRoute defaultRoute() {
+        init();
+        String defaultModel = rlmConfig.getRouting().getDefaultModel();
+        ModelRoute route = defaultModel != null ? routes.get(defaultModel) : null;
+        if (route != null) {
+            return route;
+        }
+        return providers.available().keySet().stream()
+                .map(routes::get)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException(
+                        "No ChatModel bean available. Ensure at least one provider is configured."));
+    }
+
+    /**
+     * Latency, token and cost statistics per route.
+     */
+    public Map<String, Map<String, Object>> stats() {
+        init();
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        routes.forEach((name, route) -> stats.put(name, route.stats()));
+        return stats;
+    }
+
+    private boolean matches(RlmConfig.Rule rule, CallType callType, int depth) {
+        if (!rule.getCallTypes().isEmpty() && !rule.getCallTypes().contains(callType)) {
+            return false;
+        }
+        if (rule.getMinDepth() != null && depth < rule.getMinDepth()) {
+            return false;
+        }
+        return rule.getMaxDepth() == null || depth <= rule.getMaxDepth();
+    }
+
+    private void init() {
+        if (initialized) {
+            return;
+        }
+        synchronized (this) {
+            if (initialized) {
+                return;
+            }
+            providers.available().forEach((provider, chatModel) ->
+                    routes.put(provider, newRoute(provider, provider, chatModel, null, 0, 0)));
+            rlmConfig.getRouting().getModels().forEach((name, spec) -> {
+                ChatModel chatModel = providers.find(spec.getProvider()).orElse(null);
+                if (chatModel == null) {
+                    log.warn("Model '{}' refers to unavailable provider '{}'; skipping", name, spec.getProvider());
+                    return;
+                }
+                String model = spec.getModel() == null || spec.getModel().isBlank() ? null : spec.getModel();
+                routes.put(name, newRoute(name, spec.getProvider(), chatModel, model,
+                        spec.getInputCostPer1kTokens(), spec.getOutputCostPer1kTokens()));
+            });
+            log.info("Model routes: {}", routes.keySet());
+            initialized = true;
+        }
+    }
+
+    private ModelRoute newRoute(String name, String provider, ChatModel chatModel, String model,
+                                double inputCost, double outputCost) {
+        RlmConfig.ProviderLimits limits = limitsFor(provider);
+        // All routes on one provider share its limiter: the rate limits are per account, not per model.
+        ProviderLimiter limiter = limiters.computeIfAbsent(provider.toLowerCase(Locale.ROOT),
+                p -> new ProviderLimiter(p, limits));
+        return new ModelRoute(name, provider, model, ChatClient.builder(chatModel).build(), inputCost, outputCost,
+                limiter, limits.getExpectedCompletionTokens(), chatModel.getDefaultOptions(),
+                rlmConfig.isStructuredOutput());
+    }
+
+    private RlmConfig.ProviderLimits limitsFor(String provider) {
+        RlmConfig.ProviderLimits limits = rlmConfig.getProviderLimits().get(provider.toLowerCase(Locale.ROOT));
+        return limits != null ? limits : new RlmConfig.ProviderLimits();
+    }
+}
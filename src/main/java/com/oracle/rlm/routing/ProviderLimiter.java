@@ -0,0 +1,202 @@
+package com.oracle.rlm.routing;
+
+import com.oracle.rlm.config.RlmConfig;
+import com.oracle.rlm.util.LatencyWindow;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control for one provider: token buckets for requests/min and tokens/min, and an
+ * AIMD concurrency limit that backs off on 429s and latency growth and creeps up while calls are
+ * healthy. Waiters are admitted in priority order (lower value first, e.g. recursion depth), FIFO
+ * within a priority.
+ */
+public class ProviderLimiter {
+
+    private static final double LATENCY_BACKOFF = 0.9;
+    private static final double RATE_LIMIT_BACKOFF = 0.5;
+
+    private final String provider;
+    private final RlmConfig.ProviderLimits limits;
+    private final TokenBucket requests;
+    private final TokenBucket tokens;
+    private final LatencyWindow latencies = new LatencyWindow(200);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Waiter> queue = new PriorityQueue<>();
+    private long sequence;
+    private int inFlight;
+    private double limit;
+    private long rateLimited;
+
+    public ProviderLimiter(String provider, RlmConfig.ProviderLimits limits) {
+        this.provider = provider;
+        this.limits = limits;
+        this.requests = new TokenBucket(limits.getRequestsPerMinute());
+        this.tokens = new TokenBucket(limits.getTokensPerMinute());
+        this.limit = Math.max(limits.getMinConcurrency(), limits.getInitialConcurrency());
+    }
+
+    /**
+     * Block until this call may be sent.
+     *
+     * @param priority        lower is admitted first
+     * @param estimatedTokens expected prompt plus completion tokens
+     */
+    public Permit acquire(int priority, int estimatedTokens) throws InterruptedException {
+        int cost = tokens.isLimited() ? (int) Math.min(estimatedTokens, tokens.capacity) : 0;
+        lock.lock();
+        Waiter me = new Waiter(priority, sequence++);
+        queue.add(me);
+        try {
+            while (true) {
+                if (queue.peek() == me && inFlight < (int) limit) {
+                    long now = System.nanoTime();
+                    long waitNanos = Math.max(requests.nanosUntil(1, now), tokens.nanosUntil(cost, now));
+                    if (waitNanos <= 0) {
+                        requests.take(1);
+                        tokens.take(cost);
+                        queue.poll();
+                        inFlight++;
+                        changed.signalAll();
+                        return new Permit(cost);
+                    }
+                    changed.awaitNanos(waitNanos);
+                } else {
+                    changed.await();
+                }
+            }
+        } catch (InterruptedException e) {
+            queue.remove(me);
+            changed.signalAll();
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        lock.lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("provider", provider);
+            stats.put("concurrencyLimit", (int) limit);
+            stats.put("inFlight", inFlight);
+            stats.put("queued", queue.size());
+            stats.put("rateLimitedResponses", rateLimited);
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Permit permit, long latencyMs, boolean wasRateLimited, Integer actualTokens) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (actualTokens != null) {
+                // Settle the estimate against the usage the provider reported.
+                tokens.take(actualTokens - permit.reservedTokens);
+            }
+            if (wasRateLimited) {
+                rateLimited++;
+                limit = Math.max(limits.getMinConcurrency(), limit * RATE_LIMIT_BACKOFF);
+            } else if (latencyMs >= 0) {
+                long baseline = latencies.percentile(10);
+                latencies.record(latencyMs);
+                if (baseline > 0 && latencyMs > baseline * limits.getLatencyTolerance()) {
+                    limit = Math.max(limits.getMinConcurrency(), limit * LATENCY_BACKOFF);
+                } else if (inFlight + 1 >= (int) limit) {
+                    // Only grow while the limit is actually what holds callers back.
+                    limit = Math.min(limits.getMaxConcurrency(), limit + 1.0 / limit);
+                }
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Admission granted by {@link #acquire}; must be released exactly once.
+     */
+    public class Permit {
+        private final int reservedTokens;
+        private boolean released;
+
+        Permit(int reservedTokens) {
+            this.reservedTokens = reservedTokens;
+        }
+
+        /**
+         * @param latencyMs    call latency, or -1 if the call failed without a meaningful latency
+         * @param rateLimited  the provider answered 429 / rate limit exceeded
+         * @param actualTokens tokens the provider reported, or null if unknown
+         */
+        public void release(long latencyMs, boolean rateLimited, Integer actualTokens) {
+            if (released) {
+                return;
+            }
+            released = true;
+            ProviderLimiter.this.release(this, latencyMs, rateLimited, actualTokens);
+        }
+    }
+
+    private static final class Waiter implements Comparable<Waiter> {
+        final int priority;
+        final long sequence;
+
+        Waiter(int priority, long sequence) {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Waiter other) {
+            int byPriority = Integer.compare(priority, other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Per-minute budget refilled continuously; a non-positive rate means unlimited.
+     * Accessed under the limiter lock.
+     */
+    private static final class TokenBucket {
+        final double capacity;
+        final double perNano;
+        double available;
+        long refilledAt = System.nanoTime();
+
+        TokenBucket(long perMinute) {
+            this.capacity = perMinute;
+            this.perNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+            this.available = perMinute;
+        }
+
+        boolean isLimited() {
+            return capacity > 0;
+        }
+
+        long nanosUntil(double amount, long now) {
+            if (!isLimited() || amount <= 0) {
+                return 0;
+            }
+            available = Math.min(capacity, available + (now - refilledAt) * perNano);
+            refilledAt = now;
+            return available >= amount ? 0 : (long) Math.ceil((amount - available) / perNano);
+        }
+
+        void take(double amount) {
+            if (isLimited()) {
+                available = Math.min(capacity, available - amount);
+            }
+        }
+    }
+}
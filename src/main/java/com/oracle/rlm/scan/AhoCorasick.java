@@ -0,0 +1,108 @@
+package com.oracle.rlm.scan;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Multi-literal matcher over bytes, compiled to a dense DFA: scanning is one table lookup per
+ * input byte with no failure-link chasing and no branches other than the accept check.
+ * ASCII case folding is folded into the table itself.
+ */
+final class AhoCorasick {
+
+    private static final int ALPHABET = 256;
+
+    private final int[] delta;
+    private final int[] matchLength;
+
+    private AhoCorasick(int[] delta, int[] matchLength) {
+        this.delta = delta;
+        this.matchLength = matchLength;
+    }
+
+    /**
+     * @param patterns       non-empty byte patterns (UTF-8)
+     * @param asciiFoldCase  match ASCII letters case-insensitively
+     */
+    static AhoCorasick compile(List<byte[]> patterns, boolean asciiFoldCase) {
+        int maxStates = 1;
+        for (byte[] p : patterns) {
+            maxStates += p.length;
+        }
+        int[] go = new int[maxStates * ALPHABET];
+        Arrays.fill(go, -1);
+        int[] length = new int[maxStates];
+        int states = 1;
+        for (byte[] pattern : patterns) {
+            int state = 0;
+            for (byte b : pattern) {
+                int c = fold(b & 0xFF, asciiFoldCase);
+                int next = go[state * ALPHABET + c];
+                if (next < 0) {
+                    next = states++;
+                    go[state * ALPHABET + c] = next;
+                }
+                state = next;
+            }
+            length[state] = Math.max(length[state], pattern.length);
+        }
+
+        // Breadth-first: complete the goto function into a DFA using the failure links.
+        int[] fail = new int[states];
+        int[] delta = new int[states * ALPHABET];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            int next = go[c];
+            if (next > 0) {
+                fail[next] = 0;
+                delta[c] = next;
+                queue.add(next);
+            } else {
+                delta[c] = 0;
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            if (length[state] == 0) {
+                length[state] = length[fail[state]];
+            }
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = go[state * ALPHABET + c];
+                if (next > 0) {
+                    fail[next] = delta[fail[state] * ALPHABET + c];
+                    delta[state * ALPHABET + c] = next;
+                    queue.add(next);
+                } else {
+                    delta[state * ALPHABET + c] = delta[fail[state] * ALPHABET + c];
+                }
+            }
+        }
+        if (asciiFoldCase) {
+            for (int s = 0; s < states; s++) {
+                for (int c = 'A'; c <= 'Z'; c++) {
+                    delta[s * ALPHABET + c] = delta[s * ALPHABET + c + ('a' - 'A')];
+                }
+            }
+        }
+        return new AhoCorasick(delta, Arrays.copyOf(length, states));
+    }
+
+    /**
+     * Next state after reading {@code b} in {@code state}.
+     */
+    int step(int state, byte b) {
+        return delta[(state << 8) | (b & 0xFF)];
+    }
+
+    /**
+     * Length of the pattern that ends in {@code state}, or 0 if none does.
+     */
+    int matchLength(int state) {
+        return matchLength[state];
+    }
+
+    private static int fold(int c, boolean asciiFoldCase) {
+        return asciiFoldCase && c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+}
@@ -0,0 +1,138 @@
+package com.oracle.rlm.scan;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Structural summary of a context file: size, format, record counts, headings with their
+ * positions and a few sample lines. Built in one pass by {@link ContextOutliner} and rendered
+ * into prompts so the model can go straight to the relevant region.
+ */
+@Value
+@Builder
+public class ContextOutline {
+
+    private static final int MAX_TITLE_CHARS = 80;
+    private static final int MAX_SAMPLE_CHARS = 160;
+
+    long bytes;
+    long lines;
+    long longestLineChars;
+
+    /**
+     * text, markdown, jsonl, csv or tsv
+     */
+    String format;
+
+    /**
+     * Data records for jsonl/csv/tsv (CSV excluding the header), null otherwise
+     */
+    Long records;
+
+    /**
+     * CSV/TSV header columns, or JSONL keys with the share of sampled records that have them
+     */
+    @Singular
+    List<String> fields;
+
+    @Singular
+    List<Section> sections;
+
+    /**
+     * All headings found; {@code sections} holds at most the first few thousand
+     */
+    long totalSections;
+
+    @Singular
+    List<Sample> samples;
+
+    /**
+     * The scan stopped at its time limit; counts cover only the start of the file
+     */
+    boolean partial;
+
+    @Value
+    public static class Section {
+        long line;
+        long offset;
+        int level;
+        String title;
+    }
+
+    @Value
+    public static class Sample {
+        long line;
+        String text;
+    }
+
+    /**
+     * Render within {@code maxChars}: the summary first, then as many headings as fit (evenly
+     * spread when they do not all fit), then samples.
+     */
+    public String render(int maxChars) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%,d bytes, %,d lines (longest %,d chars), format: %s", bytes, lines,
+                longestLineChars, format));
+        if (records != null) {
+            out.append(String.format(", %,d records", records));
+        }
+        if (partial) {
+            out.append(" [outline covers only the start of the file]");
+        }
+        out.append('\n');
+        if (!fields.isEmpty()) {
+            out.append("jsonl".equals(format) ? "keys: " : "columns: ")
+               .append(clip(String.join(", ", fields), Math.max(MAX_TITLE_CHARS, maxChars / 4))).append('\n');
+        }
+
+        List<String> sampleLines = samples.stream()
+                .map(s -> "  L" + s.getLine() + ": " + clip(s.getText(), MAX_SAMPLE_CHARS) + "\n")
+                .toList();
+        int samplesChars = sampleLines.stream().mapToInt(String::length).sum() + 9;
+        int sectionBudget = maxChars - out.length() - Math.min(samplesChars, maxChars * 3 / 10);
+
+        if (!sections.isEmpty()) {
+            List<String> rendered = sections.stream()
+                    .map(s -> "  L" + s.getLine() + " @" + s.getOffset() + " " + "#".repeat(Math.max(1, s.getLevel()))
+                            + " " + clip(s.getTitle(), MAX_TITLE_CHARS) + "\n")
+                    .toList();
+            int average = Math.max(1, rendered.stream().mapToInt(String::length).sum() / rendered.size());
+            int fit = Math.max(0, Math.min(rendered.size(), (sectionBudget - 40) / average));
+            if (fit > 0) {
+                out.append("sections (line @byte offset)");
+                if (fit < totalSections) {
+                    out.append(String.format(", %,d found, %d shown", totalSections, fit));
+                }
+                out.append(":\n");
+                for (int i = 0; i < fit; i++) {
+                    String line = rendered.get((int) ((long) i * rendered.size() / fit));
+                    if (out.length() + line.length() > sectionBudget) {
+                        break;
+                    }
+                    out.append(line);
+                }
+            }
+        }
+
+        if (!sampleLines.isEmpty() && out.length() + 9 + sampleLines.get(0).length() <= maxChars) {
+            out.append("samples:\n");
+            for (String line : sampleLines) {
+                if (out.length() + line.length() > maxChars) {
+                    break;
+                }
+                out.append(line);
+            }
+        }
+        if (out.length() > maxChars) {
+            out.setLength(maxChars);
+        }
+        return out.toString().stripTrailing();
+    }
+
+    private static String clip(String text, int max) {
+        return text.length() <= max ? text : text.substring(0, max) + "…";
+    }
+}
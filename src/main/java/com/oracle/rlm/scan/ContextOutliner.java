@@ -0,0 +1,417 @@
+package com.oracle.rlm.scan;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oracle.rlm.config.RlmConfig;
+import com.oracle.rlm.core.RlmEnvironment;
+import com.oracle.rlm.core.impl.ContextBlobStore;
+import com.oracle.rlm.util.SingleFlight;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the {@link ContextOutline} of an environment's context once per distinct context.
+ *
+ * <p>The rendered outline is memoized by context hash and stored as a derived artifact of the
+ * context blob, so children and repeated uploads of the same corpus reuse it; concurrent first
+ * requests for the same context share one build. An outline cut short by the scan time limit is
+ * used for the request at hand only, and built again on the next one.
+ */
+@Component
+@Slf4j
+public class ContextOutliner {
+
+    /**
+     * Name of the rendered outline among a context's derived artifacts.
+     */
+    public static final String ARTIFACT = "outline.txt";
+
+    private static final int MAX_SECTIONS = 2000;
+    private static final int FORMAT_SAMPLE_LINES = 200;
+    private static final int KEY_SAMPLE_RECORDS = 50;
+    private static final int MAX_HEADING_BYTES = 160;
+    private static final int MAX_LINE_PREFIX = 64 * 1024;
+    private static final int HEAD_SAMPLES = 3;
+    private static final int MIDDLE_SAMPLES = 3;
+    private static final int TAIL_SAMPLES = 2;
+    private static final int MAX_MEMOIZED = 64;
+
+    private static final String HEADING_WORD_INITIALS = "CcPpSsAa";
+    private static final Pattern MARKDOWN_HEADING = Pattern.compile("^(#{1,6})\\s+(\\S.*)$");
+    private static final Pattern NAMED_HEADING = Pattern.compile(
+            "^(?:CHAPTER|Chapter|PART|Part|SECTION|Section|ARTICLE|Article|APPENDIX|Appendix)\\s+[\\dIVXLC]+[.:]?(?:\\s.*)?$");
+    private static final Pattern NUMBERED_HEADING = Pattern.compile("^(\\d{1,3}(?:\\.\\d{1,3}){0,3})\\.?\\s+\\p{Lu}.{0,78}$");
+
+    private final RlmConfig.Outline config;
+    private final ContextBlobStore blobStore;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SingleFlight<Outlined> builds = new SingleFlight<>(Duration.ZERO, 256);
+    private final Map<String, String> rendered = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > MAX_MEMOIZED;
+                }
+            });
+
+    public ContextOutliner(RlmConfig rlmConfig, ContextBlobStore blobStore) {
+        this.config = rlmConfig.getOutline();
+        this.blobStore = blobStore;
+    }
+
+    /**
+     * The rendered outline of the environment's context within the configured token budget, or
+     * null when outlines are disabled or the context is too small to need one.
+     */
+    public String outline(RlmEnvironment env) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        Path file = env.getContextFile();
+        try {
+            if (file == null || !Files.isRegularFile(file) || Files.size(file) < config.getMinContextBytes()) {
+                return null;
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        String hash = env.getContextHash();
+        String text = rendered.get(hash);
+        if (text == null) {
+            Outlined outlined = builds.execute(hash, () -> load(hash, file)).getValue();
+            text = outlined.text;
+            if (outlined.complete) {
+                rendered.put(hash, text);
+            }
+        }
+        return text.isEmpty() ? null : text;
+    }
+
+    // Only a complete outline is stored; a partial one, or a failed read, is retried next time.
+    private Outlined load(String hash, Path file) {
+        try {
+            Path stored = blobStore.artifact(hash, ARTIFACT).orElse(null);
+            if (stored != null) {
+                return new Outlined(Files.readString(stored), true);
+            }
+            long start = System.currentTimeMillis();
+            ContextOutline outline = build(file, Duration.ofSeconds(config.getMaxScanSeconds()));
+            String text = outline.render(config.getMaxTokens() * 4);
+            if (!outline.isPartial()) {
+                blobStore.putArtifact(hash, ARTIFACT, text.getBytes(StandardCharsets.UTF_8));
+            }
+            log.info("Outlined context {} ({} bytes, {} sections{}) in {}ms", hash.substring(0, 12),
+                    outline.getBytes(), outline.getTotalSections(), outline.isPartial() ? ", partial" : "",
+                    System.currentTimeMillis() - start);
+            return new Outlined(text, !outline.isPartial());
+        } catch (IOException e) {
+            log.warn("Could not outline context {}: {}", hash, e.getMessage());
+            return new Outlined("", false);
+        }
+    }
+
+    /**
+     * One pass over the file; stops (with a partial outline) after {@code timeLimit}. Only the
+     * first {@value #MAX_LINE_PREFIX} bytes of each line are kept, so a single-line context costs
+     * no more memory than a short one.
+     */
+    public ContextOutline build(Path file, Duration timeLimit) throws IOException {
+        Scan scan = new Scan(Files.size(file), System.nanoTime() + timeLimit.toNanos());
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[1 << 20];
+            byte[] line = new byte[4096];
+            int kept = 0;
+            long length = 0;
+            long lineOffset = 0;
+            long position = 0;
+            for (int n; (n = in.read(buffer)) > 0; position += n) {
+                if (System.nanoTime() > scan.deadline) {
+                    scan.partial = true;
+                    break;
+                }
+                for (int i = 0; i < n; i++) {
+                    byte b = buffer[i];
+                    if (b == '\n') {
+                        scan.line(line, kept, length, lineOffset);
+                        kept = 0;
+                        length = 0;
+                        lineOffset = position + i + 1;
+                    } else {
+                        length++;
+                        if (kept == line.length && kept < MAX_LINE_PREFIX) {
+                            line = Arrays.copyOf(line, Math.min(kept * 2, MAX_LINE_PREFIX));
+                        }
+                        if (kept < line.length) {
+                            line[kept++] = b;
+                        }
+                    }
+                }
+            }
+            if (length > 0 && !scan.partial) {
+                scan.line(line, kept, length, lineOffset);
+            }
+        }
+        return scan.finish();
+    }
+
+    /**
+     * State of one outline pass.
+     */
+    private final class Scan {
+        final long bytes;
+        final long deadline;
+        final Random random = new Random(42);
+        final ContextOutline.ContextOutlineBuilder outline = ContextOutline.builder();
+        final List<ContextOutline.Section> sections = new ArrayList<>();
+        final List<String> formatSample = new ArrayList<>();
+        final List<ContextOutline.Sample> head = new ArrayList<>();
+        final List<ContextOutline.Sample> middle = new ArrayList<>();
+        final Deque<ContextOutline.Sample> tail = new ArrayDeque<>();
+        final Map<String, Integer> keys = new LinkedHashMap<>();
+        long lines;
+        long nonEmpty;
+        long longest;
+        long totalSections;
+        long middleSeen;
+        int keyRecords;
+        boolean partial;
+        boolean markdown;
+        String previous;
+        long previousOffset;
+
+        Scan(long bytes, long deadline) {
+            this.bytes = bytes;
+            this.deadline = deadline;
+        }
+
+        /**
+         * One line of {@code length} bytes, of which the first {@code kept} are in {@code data}.
+         */
+        void line(byte[] data, int kept, long length, long offset) {
+            lines++;
+            longest = Math.max(longest, length);
+            boolean truncated = kept < length;
+            if (length == 0 || !truncated && isBlank(data, kept)) {
+                previous = null;
+                return;
+            }
+            nonEmpty++;
+            // Only short lines can be headings or get sampled: decode those, skip the rest cheaply
+            String text = length <= MAX_HEADING_BYTES || formatSample.size() < FORMAT_SAMPLE_LINES
+                    || keyRecords < KEY_SAMPLE_RECORDS || head.size() < HEAD_SAMPLES
+                    ? new String(data, 0, truncated ? boundary(data, kept) : kept, StandardCharsets.UTF_8) : null;
+            if (formatSample.size() < FORMAT_SAMPLE_LINES) {
+                formatSample.add(text);
+            }
+            if (keyRecords < KEY_SAMPLE_RECORDS && data[0] == '{' && !truncated) {
+                collectKeys(text);
+            }
+            if (length <= MAX_HEADING_BYTES) {
+                heading(text, offset);
+            } else {
+                previous = null;
+            }
+            sample(data, kept, text);
+        }
+
+        private void heading(String text, long offset) {
+            String trimmed = text.strip();
+            char first = trimmed.isEmpty() ? ' ' : trimmed.charAt(0);
+            if (first != '#' && first != '=' && first != '-' && !Character.isDigit(first)
+                    && HEADING_WORD_INITIALS.indexOf(first) < 0) {
+                // cannot start a heading: the common case, no regex needed
+                previous = trimmed;
+                previousOffset = offset;
+                return;
+            }
+            Matcher markdownHeading = MARKDOWN_HEADING.matcher(trimmed);
+            if (markdownHeading.matches()) {
+                markdown = true;
+                addSection(lines, offset, markdownHeading.group(1).length(), markdownHeading.group(2));
+            } else if (previous != null && trimmed.length() >= 3
+                    && (trimmed.chars().allMatch(c -> c == '=') || trimmed.chars().allMatch(c -> c == '-'))) {
+                // setext heading: the previous line underlined with === or ---
+                markdown = true;
+                addSection(lines - 1, previousOffset, trimmed.charAt(0) == '=' ? 1 : 2, previous);
+                previous = null;
+                return;
+            } else if (NAMED_HEADING.matcher(trimmed).matches()) {
+                addSection(lines, offset, 1, trimmed);
+            } else {
+                Matcher numbered = NUMBERED_HEADING.matcher(trimmed);
+                if (numbered.matches()) {
+                    addSection(lines, offset, numbered.group(1).split("\\.").length, trimmed);
+                }
+            }
+            previous = trimmed;
+            previousOffset = offset;
+        }
+
+        private void addSection(long line, long offset, int level, String title) {
+            totalSections++;
+            if (sections.size() < MAX_SECTIONS) {
+                sections.add(new ContextOutline.Section(line, offset, level, title.strip()));
+            }
+        }
+
+        private void collectKeys(String text) {
+            try {
+                JsonNode node = objectMapper.readTree(text);
+                if (node != null && node.isObject()) {
+                    keyRecords++;
+                    Iterator<String> names = node.fieldNames();
+                    while (names.hasNext()) {
+                        keys.merge(names.next(), 1, Integer::sum);
+                    }
+                }
+            } catch (IOException e) {
+                // not a JSON record
+            }
+        }
+
+        private void sample(byte[] data, int length, String text) {
+            if (head.size() < HEAD_SAMPLES) {
+                head.add(new ContextOutline.Sample(lines, text));
+                return;
+            }
+            // reservoir sample of the middle, plus a ring of the last lines
+            middleSeen++;
+            if (middle.size() < MIDDLE_SAMPLES) {
+                middle.add(new ContextOutline.Sample(lines, decode(data, length, text)));
+            } else {
+                long slot = (long) (random.nextDouble() * middleSeen);
+                if (slot < MIDDLE_SAMPLES) {
+                    middle.set((int) slot, new ContextOutline.Sample(lines, decode(data, length, text)));
+                }
+            }
+            tail.addLast(new ContextOutline.Sample(lines, decode(data, length, text)));
+            if (tail.size() > TAIL_SAMPLES) {
+                tail.removeFirst();
+            }
+        }
+
+        ContextOutline finish() {
+            String format = detectFormat();
+            outline.bytes(bytes).lines(lines).longestLineChars(longest).format(format).partial(partial)
+                   .sections(sections).totalSections(totalSections);
+            switch (format) {
+                case "jsonl" -> {
+                    outline.records(nonEmpty);
+                    keys.forEach((key, count) -> outline.field(count == keyRecords ? key
+                            : key + " (" + count + "/" + keyRecords + ")"));
+                }
+                case "csv", "tsv" -> {
+                    outline.records(Math.max(0, nonEmpty - 1));
+                    String delimiter = "csv".equals(format) ? "," : "\t";
+                    for (String column : formatSample.get(0).split(Pattern.quote(delimiter), -1)) {
+                        outline.field(column.strip());
+                    }
+                }
+                default -> {
+                }
+            }
+            List<ContextOutline.Sample> samples = new ArrayList<>(head);
+            middle.stream().filter(s -> tail.stream().noneMatch(t -> t.getLine() == s.getLine()))
+                  .sorted(Comparator.comparingLong(ContextOutline.Sample::getLine)).forEach(samples::add);
+            samples.addAll(tail);
+            outline.samples(samples);
+            return outline.build();
+        }
+
+        private String detectFormat() {
+            if (formatSample.isEmpty()) {
+                return "text";
+            }
+            long json = formatSample.stream().map(String::strip)
+                    .filter(s -> s.startsWith("{") && s.endsWith("}")).count();
+            if (json * 10 >= formatSample.size() * 9L) {
+                return "jsonl";
+            }
+            if (formatSample.size() >= 2) {
+                if (consistentDelimiter('\t')) {
+                    return "tsv";
+                }
+                if (consistentDelimiter(',')) {
+                    return "csv";
+                }
+            }
+            return markdown ? "markdown" : "text";
+        }
+
+        // The header has the delimiter and nearly every sampled row has as many of them as the header.
+        private boolean consistentDelimiter(char delimiter) {
+            long expected = count(formatSample.get(0), delimiter);
+            if (expected == 0) {
+                return false;
+            }
+            long same = formatSample.stream().filter(s -> count(s, delimiter) == expected).count();
+            return same * 10 >= formatSample.size() * 9L;
+        }
+    }
+
+    private static String decode(byte[] data, int length, String text) {
+        if (text != null) {
+            return text;
+        }
+        // long line: a prefix is enough for a sample
+        return new String(data, 0, boundary(data, Math.min(length, 512)), StandardCharsets.UTF_8);
+    }
+
+    // Moves end back so the prefix data[0, end) does not end inside a UTF-8 sequence.
+    private static int boundary(byte[] data, int end) {
+        int lead = end;
+        while (lead > 0 && end - lead < 3 && (data[lead - 1] & 0xC0) == 0x80) {
+            lead--;
+        }
+        if (lead == 0) {
+            return end;
+        }
+        int b = data[lead - 1] & 0xFF;
+        int needed = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+        return end - (lead - 1) < needed ? lead - 1 : end;
+    }
+
+    private static boolean isBlank(byte[] data, int length) {
+        for (int i = 0; i < length; i++) {
+            byte b = data[i];
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long count(String text, char c) {
+        return text.chars().filter(ch -> ch == c).count();
+    }
+
+    private static final class Outlined {
+        final String text;
+        final boolean complete;
+
+        Outlined(String text, boolean complete) {
+            this.text = text;
+            this.complete = complete;
+        }
+    }
+}
@@ -0,0 +1,468 @@
+package com.oracle.rlm.scan;
+
+import com.oracle.rlm.config.RlmConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Scans a context file for a regex or literal(s) on all cores.
+ *
+ * <p>The file is split into line-aligned segments which are memory-mapped and scanned in parallel
+ * on a ForkJoinPool; results are merged in offset order with global line numbers. Plain literals
+ * (and alternations of literals) run through an {@link AhoCorasick} DFA directly on the mapped
+ * bytes; anything else is matched line by line with {@link Pattern}. Unless exact totals are
+ * requested, a segment stops as soon as the segments before it already hold the first
+ * {@code limit} matches.
+ */
+@Component
+@Slf4j
+public class ContextScanner {
+
+    private static final long MIN_SEGMENT_BYTES = 1L << 20;
+    private static final long MAX_SEGMENT_BYTES = 16L << 20;
+    private static final int BOUNDARY_PROBE_BYTES = 64 * 1024;
+    private static final int EXCERPT_BEFORE = 1024;
+    private static final int EXCERPT_AFTER = 2048;
+    private static final String REGEX_META = "\\^$.?*+()[]{}";
+
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+
+    @Autowired
+    public ContextScanner(RlmConfig rlmConfig) {
+        this(new ForkJoinPool(rlmConfig.getScanParallelism() > 0
+                ? rlmConfig.getScanParallelism()
+                : Runtime.getRuntime().availableProcessors()), true);
+    }
+
+    /**
+     * Scanner running on a caller-supplied pool (e.g. the common pool).
+     */
+    public ContextScanner(ForkJoinPool pool) {
+        this(pool, false);
+    }
+
+    private ContextScanner(ForkJoinPool pool, boolean ownsPool) {
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+    }
+
+    /**
+     * @throws java.util.regex.PatternSyntaxException if the pattern is not a valid regex
+     */
+    public ScanResult scan(Path file, ScanRequest request) throws IOException {
+        Compiled compiled = compile(request);
+        long deadline = deadlineNanos(request.getTimeout());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] bounds = boundaries(channel, size);
+            int segments = bounds.length - 1;
+            Progress progress = new Progress(segments, Math.max(1, request.getLimit()), request.isCountAll(), deadline);
+            Segment[] results = new Segment[segments];
+            if (segments == 1) {
+                results[0] = scanSegment(channel, 0, bounds[0], bounds[1], compiled, request, progress);
+            } else {
+                List<ForkJoinTask<Segment>> tasks = new ArrayList<>(segments);
+                for (int i = 0; i < segments; i++) {
+                    int index = i;
+                    tasks.add(pool.submit(() -> scanSegment(channel, index, bounds[index], bounds[index + 1],
+                            compiled, request, progress)));
+                }
+                try {
+                    for (int i = 0; i < segments; i++) {
+                        results[i] = tasks.get(i).join();
+                    }
+                } catch (UncheckedIOException e) {
+                    tasks.forEach(t -> t.cancel(true));
+                    throw e.getCause();
+                }
+            }
+            return merge(results, request, size, progress);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (ownsPool) {
+            pool.shutdownNow();
+        }
+    }
+
+    // --- planning --------------------------------------------------------------------------------
+
+    private long[] boundaries(FileChannel channel, long size) throws IOException {
+        long segmentBytes = Math.max(MIN_SEGMENT_BYTES,
+                Math.min(MAX_SEGMENT_BYTES, size / Math.max(1, pool.getParallelism() * 4L)));
+        int segments = (int) Math.max(1, (size + segmentBytes - 1) / segmentBytes);
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        for (int i = 1; i < segments; i++) {
+            long nominal = size * i / segments;
+            long last = bounds.get(bounds.size() - 1);
+            if (nominal <= last) {
+                continue;
+            }
+            long next = nextLineStart(channel, nominal, size);
+            if (next > last && next < size) {
+                bounds.add(next);
+            }
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(BOUNDARY_PROBE_BYTES);
+        long position = from;
+        while (position < size) {
+            probe.clear();
+            int n = channel.read(probe, position);
+            if (n <= 0) {
+                break;
+            }
+            for (int k = 0; k < n; k++) {
+                if (probe.get(k) == '\n') {
+                    return position + k + 1;
+                }
+            }
+            position += n;
+        }
+        return size;
+    }
+
+    private static Compiled compile(ScanRequest request) {
+        String pattern = request.getPattern();
+        if (pattern == null || pattern.isEmpty()) {
+            return new Compiled(null, null);
+        }
+        List<String> literals = literals(request);
+        if (literals != null) {
+            List<byte[]> bytes = new ArrayList<>(literals.size());
+            literals.forEach(l -> bytes.add(l.getBytes(StandardCharsets.UTF_8)));
+            return new Compiled(AhoCorasick.compile(bytes, request.isIgnoreCase()), null);
+        }
+        String regex = request.isLiteral() ? Pattern.quote(pattern) : pattern;
+        int flags = request.isIgnoreCase() ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0;
+        return new Compiled(null, Pattern.compile(regex, flags));
+    }
+
+    // The literals a pattern stands for, or null if it needs the regex engine. Non-ASCII
+    // literals searched case-insensitively also go to the regex engine (Unicode case folding).
+    private static List<String> literals(ScanRequest request) {
+        String pattern = request.getPattern();
+        List<String> parts;
+        if (request.isLiteral()) {
+            parts = List.of(pattern);
+        } else {
+            for (int i = 0; i < pattern.length(); i++) {
+                if (REGEX_META.indexOf(pattern.charAt(i)) >= 0) {
+                    return null;
+                }
+            }
+            parts = List.of(pattern.split("\\|", -1));
+        }
+        for (String part : parts) {
+            if (part.isEmpty() || part.indexOf('\n') >= 0) {
+                return null;
+            }
+            if (request.isIgnoreCase() && !part.chars().allMatch(c -> c < 0x80)) {
+                return null;
+            }
+        }
+        return parts;
+    }
+
+    // --- scanning --------------------------------------------------------------------------------
+
+    private Segment scanSegment(FileChannel channel, int index, long start, long end, Compiled compiled,
+                                ScanRequest request, Progress progress) {
+        try {
+            long length = end - start;
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("A single line of " + length + " bytes is too long to scan");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            Segment segment = new Segment(start);
+            if (compiled.literals != null) {
+                scanLiterals(buffer, (int) length, index, compiled.literals, request, progress, segment);
+            } else if (compiled.regex != null) {
+                scanRegex(buffer, (int) length, index, compiled.regex, request, progress, segment);
+            } else {
+                countLines(buffer, (int) length, index, progress, segment);
+            }
+            if (length > 0) {
+                segment.lastByte = buffer.get((int) length - 1);
+            }
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void countLines(MappedByteBuffer buffer, int length, int index, Progress progress,
+                                   Segment segment) {
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(i) == '\n') {
+                segment.newlines++;
+            }
+            if ((i & 0xFFFFF) == 0 && progress.shouldStop(index)) {
+                segment.complete = false;
+                return;
+            }
+        }
+    }
+
+    private static void scanLiterals(MappedByteBuffer buffer, int length, int index, AhoCorasick ac,
+                                     ScanRequest request, Progress progress, Segment segment) {
+        boolean countOccurrences = request.isCountOccurrences();
+        int state = 0;
+        int lineStart = 0;
+        boolean lineMatched = false;
+        for (int i = 0; i < length; i++) {
+            byte b = buffer.get(i);
+            if ((i & 0xFFFF) == 0 && progress.shouldStop(index)) {
+                segment.complete = false;
+                return;
+            }
+            if (b == '\n') {
+                segment.newlines++;
+                lineStart = i + 1;
+                lineMatched = false;
+                state = 0;
+                continue;
+            }
+            if (lineMatched && !countOccurrences) {
+                continue;
+            }
+            state = ac.step(state, b);
+            int matchLength = ac.matchLength(state);
+            if (matchLength > 0) {
+                segment.occurrences++;
+                if (countOccurrences) {
+                    state = 0;
+                }
+                if (!lineMatched) {
+                    lineMatched = true;
+                    int matchLineStart = lineStart;
+                    int matchStart = i - matchLength + 1;
+                    if (segment.addMatch(index, progress, () ->
+                            excerpt(buffer, length, segment, matchLineStart, matchStart))) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private static void scanRegex(MappedByteBuffer buffer, int length, int index, Pattern pattern,
+                                  ScanRequest request, Progress progress, Segment segment) {
+        Matcher matcher = pattern.matcher("");
+        byte[] scratch = new byte[8192];
+        int position = 0;
+        while (position < length) {
+            int newline = position;
+            while (newline < length && buffer.get(newline) != '\n') {
+                newline++;
+            }
+            int lineLength = newline - position;
+            if (scratch.length < lineLength) {
+                scratch = new byte[Math.max(lineLength, scratch.length * 2)];
+            }
+            buffer.get(position, scratch, 0, lineLength);
+            String line = new String(scratch, 0, lineLength, StandardCharsets.UTF_8);
+            if (matcher.reset(line).find()) {
+                segment.occurrences++;
+                if (request.isCountOccurrences()) {
+                    while (matcher.find()) {
+                        segment.occurrences++;
+                    }
+                    matcher.reset().find();
+                }
+                int lineStart = position;
+                int column = matcher.start();
+                if (segment.addMatch(index, progress, () -> excerpt(line, segment, lineStart, column))) {
+                    return;
+                }
+            }
+            if (newline < length) {
+                segment.newlines++;
+            }
+            position = newline + 1;
+            if ((segment.newlines & 1023) == 0 && progress.shouldStop(index)) {
+                segment.complete = false;
+                return;
+            }
+        }
+    }
+
+    // Excerpt of a matching line straight from the mapped bytes, cut on UTF-8 character boundaries.
+    private static ScanMatch excerpt(MappedByteBuffer buffer, int length, Segment segment,
+                                     int lineStart, int matchStart) {
+        int from = Math.max(lineStart, matchStart - EXCERPT_BEFORE);
+        while (from < matchStart && (buffer.get(from) & 0xC0) == 0x80) {
+            from++;
+        }
+        int to = matchStart;
+        int limit = Math.min(length, matchStart + EXCERPT_AFTER);
+        while (to < limit && buffer.get(to) != '\n') {
+            to++;
+        }
+        while (to > matchStart && to < length && (buffer.get(to) & 0xC0) == 0x80) {
+            to--;
+        }
+        byte[] bytes = new byte[to - from];
+        buffer.get(from, bytes);
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        int column = new String(bytes, 0, matchStart - from, StandardCharsets.UTF_8).length();
+        return new ScanMatch(segment.newlines + 1, segment.start + lineStart, segment.start + matchStart,
+                text, column);
+    }
+
+    private static ScanMatch excerpt(String line, Segment segment, int lineStart, int column) {
+        long matchOffset = segment.start + lineStart
+                + line.substring(0, column).getBytes(StandardCharsets.UTF_8).length;
+        int from = Math.max(0, column - EXCERPT_BEFORE);
+        int to = Math.min(line.length(), column + EXCERPT_AFTER);
+        return new ScanMatch(segment.newlines + 1, segment.start + lineStart, matchOffset,
+                line.substring(from, to), column - from);
+    }
+
+    // --- merging ---------------------------------------------------------------------------------
+
+    private static ScanResult merge(Segment[] segments, ScanRequest request, long size, Progress progress) {
+        int limit = Math.max(1, request.getLimit());
+        List<ScanMatch> matches = new ArrayList<>();
+        long lineBase = 0;
+        long matchingLines = 0;
+        long occurrences = 0;
+        boolean complete = true;
+        for (Segment segment : segments) {
+            for (ScanMatch m : segment.matches) {
+                if (matches.size() < limit) {
+                    matches.add(new ScanMatch(lineBase + m.getLineNumber(), m.getLineOffset(),
+                            m.getMatchOffset(), m.getText(), m.getColumn()));
+                }
+            }
+            matchingLines += segment.matchingLines;
+            occurrences += segment.occurrences;
+            lineBase += segment.newlines;
+            if (!segment.complete) {
+                complete = false;
+                break;
+            }
+        }
+        Segment last = segments[segments.length - 1];
+        long lines = lineBase + (complete && size > 0 && last.lastByte != '\n' ? 1 : 0);
+        return new ScanResult(matches, matchingLines, occurrences, lines, size, complete, progress.timedOut);
+    }
+
+    private static long deadlineNanos(Duration timeout) {
+        if (timeout == null) {
+            return Long.MAX_VALUE;
+        }
+        long now = System.nanoTime();
+        long deadline = now + Math.max(0, timeout.toNanos());
+        return deadline < now ? Long.MAX_VALUE : deadline;
+    }
+
+    private static final class Compiled {
+        final AhoCorasick literals;
+        final Pattern regex;
+
+        Compiled(AhoCorasick literals, Pattern regex) {
+            this.literals = literals;
+            this.regex = regex;
+        }
+    }
+
+    /**
+     * Shared between segment tasks: how many matches each has found, to stop segments whose
+     * matches can no longer make the first {@code limit}.
+     */
+    private static final class Progress {
+        final AtomicIntegerArray found;
+        final int limit;
+        final boolean countAll;
+        final long deadline;
+        volatile boolean timedOut;
+
+        Progress(int segments, int limit, boolean countAll, long deadline) {
+            this.found = new AtomicIntegerArray(segments);
+            this.limit = limit;
+            this.countAll = countAll;
+            this.deadline = deadline;
+        }
+
+        boolean shouldStop(int segment) {
+            if (System.nanoTime() > deadline) {
+                timedOut = true;
+                return true;
+            }
+            if (timedOut) {
+                return true;
+            }
+            if (countAll) {
+                return false;
+            }
+            long before = 0;
+            for (int j = 0; j < segment; j++) {
+                before += found.get(j);
+                if (before >= limit) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Segment {
+        final long start;
+        final List<ScanMatch> matches = new ArrayList<>();
+        long newlines;
+        long matchingLines;
+        long occurrences;
+        boolean complete = true;
+        byte lastByte = '\n';
+
+        Segment(long start) {
+            this.start = start;
+        }
+
+        /**
+         * Count a matching line, keep it if still among the first {@code limit}, and return true
+         * when the scan of this segment can stop.
+         */
+        boolean addMatch(int index, Progress progress, Supplier<ScanMatch> match) {
+            matchingLines++;
+            if (matches.size() < progress.limit) {
+                matches.add(match.get());
+                progress.found.set(index, matches.size());
+            }
+            if (!progress.countAll && matches.size() >= progress.limit) {
+                complete = false;
+                return true;
+            }
+            return false;
+        }
+    }
+}
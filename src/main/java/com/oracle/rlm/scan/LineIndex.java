@@ -0,0 +1,120 @@
+package com.oracle.rlm.scan;
+
+import lombok.Value;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Sparse line-number to byte-offset index of a context file: the offset of every
+ * {@value #STRIDE}th line, so reading line N seeks close to it instead of streaming from the
+ * start. Small enough (8 bytes per {@value #STRIDE} lines) to store next to the context blob.
+ */
+public final class LineIndex {
+
+    /**
+     * Name of the index among a context's derived artifacts.
+     */
+    public static final String ARTIFACT = "lines.idx";
+
+    public static final int STRIDE = 4096;
+    private static final int FORMAT = 1;
+
+    private final long[] offsets;
+    private final long lines;
+
+    private LineIndex(long[] offsets, long lines) {
+        this.offsets = offsets;
+        this.lines = lines;
+    }
+
+    @Value
+    public static class Position {
+        /**
+         * 1-based number of the line starting at {@code offset}
+         */
+        long line;
+        long offset;
+    }
+
+    public static LineIndex build(Path file) throws IOException {
+        long[] offsets = new long[16];
+        int count = 1;
+        long lines = 0;
+        long position = 0;
+        byte last = '\n';
+        byte[] buffer = new byte[1 << 20];
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                for (int i = 0; i < n; i++) {
+                    if (buffer[i] == '\n') {
+                        lines++;
+                        if (lines % STRIDE == 0) {
+                            if (count == offsets.length) {
+                                offsets = Arrays.copyOf(offsets, count * 2);
+                            }
+                            offsets[count++] = position + i + 1;
+                        }
+                    }
+                }
+                position += n;
+                last = buffer[n - 1];
+            }
+        }
+        if (last != '\n') {
+            lines++;
+        }
+        return new LineIndex(Arrays.copyOf(offsets, count), lines);
+    }
+
+    public static LineIndex read(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != FORMAT) {
+                throw new IOException("Unknown line index format");
+            }
+            long lines = in.readLong();
+            long[] offsets = new long[in.readInt()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = in.readLong();
+            }
+            return new LineIndex(offsets, lines);
+        }
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + offsets.length * 8);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT);
+            out.writeLong(lines);
+            out.writeInt(offsets.length);
+            for (long offset : offsets) {
+                out.writeLong(offset);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Number of lines in the file (a last line without a newline counts).
+     */
+    public long lines() {
+        return lines;
+    }
+
+    /**
+     * The closest indexed line at or before {@code line} (1-based).
+     */
+    public Position seek(long line) {
+        int k = (int) Math.min(offsets.length - 1, Math.max(0, (line - 1) / STRIDE));
+        return new Position((long) k * STRIDE + 1, offsets[k]);
+    }
+}
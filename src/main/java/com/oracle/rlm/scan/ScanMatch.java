@@ -0,0 +1,16 @@
+package com.oracle.rlm.scan;
+
+import lombok.Value;
+
+/**
+ * A matching line. {@code text} is the line, or for very long lines an excerpt around the match;
+ * {@code column} is the match position within {@code text}.
+ */
+@Value
+public class ScanMatch {
+    long lineNumber;
+    long lineOffset;
+    long matchOffset;
+    String text;
+    int column;
+}
@@ -0,0 +1,46 @@
+package com.oracle.rlm.scan;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * What to look for in a context scan. A null or empty pattern only counts lines.
+ */
+@Value
+@Builder
+public class ScanRequest {
+
+    String pattern;
+
+    /**
+     * Treat the pattern as a literal string rather than a regular expression.
+     */
+    boolean literal;
+
+    boolean ignoreCase;
+
+    /**
+     * Matching lines to return (the first ones by offset).
+     */
+    @Builder.Default
+    int limit = 100;
+
+    /**
+     * Keep scanning after {@code limit} matches to get exact totals; when false the scan stops as
+     * soon as the first {@code limit} matches are known.
+     */
+    @Builder.Default
+    boolean countAll = true;
+
+    /**
+     * Also count every occurrence, not just matching lines.
+     */
+    boolean countOccurrences;
+
+    /**
+     * Stop (with a partial result) after this long; null for no limit.
+     */
+    Duration timeout;
+}
@@ -0,0 +1,20 @@
+package com.oracle.rlm.scan;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Matches in offset order plus counts. When {@code complete} is false the scan stopped early
+ * (enough matches, or the time limit) and the counts are lower bounds.
+ */
+@Value
+public class ScanResult {
+    List<ScanMatch> matches;
+    long matchingLines;
+    long occurrences;
+    long lines;
+    long bytes;
+    boolean complete;
+    boolean timedOut;
+}
@@ -2,44 +2,75 @@ package com.oracle.rlm.service;
 
 import com.oracle.rlm.config.RlmConfig;
 import com.oracle.rlm.model.RecursionStep;
+import com.oracle.rlm.routing.CallType;
+import com.oracle.rlm.routing.ModelRoute;
+import com.oracle.rlm.routing.ModelRouter;
+import com.oracle.rlm.util.Hashes;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.openai.OpenAiChatOptions;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class RecursiveThinkingService {
 
-    private final ChatClient.Builder chatClientBuilder;
-    private volatile ChatClient chatClient;
+    private final ModelRouter modelRouter;
     private final PromptTemplateService promptTemplateService;
     private final RlmConfig rlmConfig;
+    private final CacheManager cacheManager;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    static final String DECOMPOSITIONS_CACHE = "decompositions";
+    static final String SOLUTIONS_CACHE = "solutions";
+    static final String AGGREGATIONS_CACHE = "aggregations";
+
     public RecursionStep solveRecursively(String problem, String context, int currentDepth,
             int maxDepth, int maxBranching, String parentStepId) {
-        long startTime = System.currentTimeMillis();
-        String stepId = UUID.randomUUID().toString();
+        return solveRecursively(problem, context, Hashes.sha256(context), currentDepth, maxDepth,
+                maxBranching, parentStepId, new HashMap<>());
+    }
 
-        if (this.chatClient == null) {
-            synchronized (this) {
-                if (this.chatClient == null) {
-                    this.chatClient = chatClientBuilder
-                            .defaultSystem("")
-                            .build();
-                }
-            }
+    /**
+     * Recursive worker. {@code treeMemo} is scoped to one root call: a sub-problem that appears
+     * again in the same tree reuses the already solved step (turning the tree into a DAG) as long
+     * as its subtree fits in the remaining depth, and was not cut short by a smaller depth budget.
+     */
+    private RecursionStep solveRecursively(String problem, String context, String contextHash,
+            int currentDepth, int maxDepth, int maxBranching, String parentStepId,
+            Map<String, SharedStep> treeMemo) {
+        String memoKey = normalize(problem);
+        int remainingDepth = maxDepth - currentDepth;
+        SharedStep shared = treeMemo.get(memoKey);
+        if (shared != null && shared.fits(remainingDepth)) {
+            log.debug("Reusing solved sub-problem at depth {}: {}", currentDepth,
+                    problem.substring(0, Math.min(50, problem.length())));
+            return placed(shared.step, parentStepId, currentDepth);
+        }
+
+        RecursionStep solved = solveStep(problem, context, contextHash, currentDepth, maxDepth,
+                maxBranching, parentStepId, treeMemo);
+        if (!"error".equals(solved.getAction())) {
+            treeMemo.put(memoKey, new SharedStep(solved, remainingDepth));
         }
+        return solved;
+    }
+
+    private RecursionStep solveStep(String problem, String context, String contextHash, int currentDepth,
+            int maxDepth, int maxBranching, String parentStepId, Map<String, SharedStep> treeMemo) {
+        long startTime = System.currentTimeMillis();
+        String stepId = UUID.randomUUID().toString();
 
         log.info("Processing at depth {}: {}", currentDepth, problem.substring(0, Math.min(50, problem.length())));
 
@@ -54,15 +85,15 @@ public class RecursiveThinkingService {
             // Check if we've reached maximum depth or if problem is simple enough
             if (currentDepth >= maxDepth || isBaseProblem(problem)) {
                 // Base case: solve directly
-                return solveDirectly(step, problem, context, startTime);
+                return solveDirectly(step, problem, context, contextHash, currentDepth, startTime);
             }
 
             // Recursive case: decompose the problem
-            DecompositionResult decomposition = decomposeProblem(problem, context, maxBranching);
+            DecompositionResult decomposition = decomposeProblem(problem, context, contextHash, currentDepth, maxBranching);
 
-            if (!decomposition.needsDecomposition) {
+            if (!decomposition.needsDecomposition || decomposition.subProblems == null) {
                 // Model determined this is a base case
-                return solveDirectly(step, problem, context, startTime);
+                return solveDirectly(step, problem, context, contextHash, currentDepth, startTime);
             }
 
             step.setAction("decompose");
@@ -76,10 +107,12 @@ public class RecursiveThinkingService {
                 RecursionStep subStep = solveRecursively(
                         subProblem,
                         context,
+                        contextHash,
                         currentDepth + 1,
                         maxDepth,
                         maxBranching,
-                        stepId);
+                        stepId,
+                        treeMemo);
                 subSteps.add(subStep);
                 solutions.add(subStep.getResult());
             }
@@ -91,7 +124,9 @@ public class RecursiveThinkingService {
                     problem,
                     decomposition.subProblems,
                     solutions,
-                    context);
+                    context,
+                    contextHash,
+                    currentDepth);
 
             step.setResult(aggregatedSolution);
             step.setDurationMs(System.currentTimeMillis() - startTime);
@@ -107,51 +142,54 @@ public class RecursiveThinkingService {
         }
     }
 
-    private RecursionStep solveDirectly(RecursionStep step, String problem, String context, long startTime) {
+    private RecursionStep solveDirectly(RecursionStep step, String problem, String context,
+            String contextHash, int depth, long startTime) {
         log.info("Solving directly: {}", problem.substring(0, Math.min(50, problem.length())));
 
         step.setAction("solve");
 
-        String prompt = promptTemplateService.createSolvePrompt(problem, context);
+        double temperature = rlmConfig.getSolvingTemperature();
+        ModelRoute route = modelRouter.select(CallType.SOLVE, depth, null);
+        SolveResult solved = memoize(SOLUTIONS_CACHE,
+                Hashes.sha256Of(normalize(problem), contextHash, temperature, route.getName()),
+                () -> solveProblem(route, depth, problem, context, temperature));
 
-        OpenAiChatOptions options = OpenAiChatOptions.builder()
-                .temperature(rlmConfig.getSolvingTemperature())
-                .build();
+        step.setReasoning(solved.reasoning);
+        step.setResult(solved.solution);
+        step.setDurationMs(System.currentTimeMillis() - startTime);
+        return step;
+    }
+
+    private SolveResult solveProblem(ModelRoute route, int depth, String problem, String context, double temperature) {
+        String prompt = promptTemplateService.createSolvePrompt(problem, context);
 
-        String response = chatClient.prompt()
-                .user(prompt)
-                .options(options)
-                .call()
-                .content();
+        String response = route.call(null, prompt, temperature, depth);
 
         try {
             JsonNode jsonNode = objectMapper.readTree(response);
             String solution = jsonNode.get("solution").asText();
             String reasoning = jsonNode.has("reasoning") ? jsonNode.get("reasoning").asText() : "";
-
-            step.setReasoning(reasoning);
-            step.setResult(solution);
+            return new SolveResult(solution, reasoning);
         } catch (Exception e) {
             log.warn("Failed to parse JSON response, using raw response");
-            step.setResult(response);
+            throw new UncachedResult(new SolveResult(response, null));
         }
+    }
 
-        step.setDurationMs(System.currentTimeMillis() - startTime);
-        return step;
+    private DecompositionResult decomposeProblem(String problem, String context, String contextHash,
+            int depth, int maxBranching) {
+        double temperature = rlmConfig.getDecompositionTemperature();
+        ModelRoute route = modelRouter.select(CallType.DECOMPOSE, depth, null);
+        return memoize(DECOMPOSITIONS_CACHE,
+                Hashes.sha256Of(normalize(problem), contextHash, maxBranching, temperature, route.getName()),
+                () -> requestDecomposition(route, depth, problem, context, maxBranching, temperature));
     }
 
-    private DecompositionResult decomposeProblem(String problem, String context, int maxBranching) {
+    private DecompositionResult requestDecomposition(ModelRoute route, int depth, String problem,
+            String context, int maxBranching, double temperature) {
         String prompt = promptTemplateService.createDecomposePrompt(problem, context, maxBranching);
 
-        OpenAiChatOptions options = OpenAiChatOptions.builder()
-                .temperature(rlmConfig.getDecompositionTemperature())
-                .build();
-
-        String response = chatClient.prompt()
-                .user(prompt)
-                .options(options)
-                .call()
-                .content();
+        String response = route.call(null, prompt, temperature, depth);
 
         try {
             JsonNode jsonNode = objectMapper.readTree(response);
@@ -172,34 +210,36 @@ public class RecursiveThinkingService {
             DecompositionResult result = new DecompositionResult();
             result.needsDecomposition = false;
             result.reasoning = "Failed to decompose, solving directly";
-            return result;
+            throw new UncachedResult(result);
         }
     }
 
     private String aggregateSolutions(String originalProblem, List<String> subProblems,
-            List<String> solutions, String context) {
+            List<String> solutions, String context, String contextHash, int depth) {
+        double temperature = rlmConfig.getAggregationTemperature();
+        ModelRoute route = modelRouter.select(CallType.AGGREGATE, depth, null);
+        String key = Hashes.sha256Of(normalize(originalProblem), contextHash, temperature, route.getName(),
+                subProblems.size(), Hashes.sha256Of(subProblems.toArray()), Hashes.sha256Of(solutions.toArray()));
+        return memoize(AGGREGATIONS_CACHE, key,
+                () -> requestAggregation(route, depth, originalProblem, subProblems, solutions, context, temperature));
+    }
+
+    private String requestAggregation(ModelRoute route, int depth, String originalProblem, List<String> subProblems,
+            List<String> solutions, String context, double temperature) {
         String prompt = promptTemplateService.createAggregatePrompt(
                 originalProblem,
                 subProblems,
                 solutions,
                 context);
 
-        OpenAiChatOptions options = OpenAiChatOptions.builder()
-                .temperature(rlmConfig.getAggregationTemperature())
-                .build();
-
-        String response = chatClient.prompt()
-                .user(prompt)
-                .options(options)
-                .call()
-                .content();
+        String response = route.call(null, prompt, temperature, depth);
 
         try {
             JsonNode jsonNode = objectMapper.readTree(response);
             return jsonNode.get("finalAnswer").asText();
         } catch (Exception e) {
             log.warn("Failed to parse aggregation JSON, using raw response");
-            return response;
+            throw new UncachedResult(response);
         }
     }
 
@@ -208,9 +248,59 @@ public class RecursiveThinkingService {
         return problem.length() < 100;
     }
 
-    @Cacheable(value = "decompositions", key = "#problem")
-    public DecompositionResult decomposeProblemCached(String problem, String context, int maxBranching) {
-        return decomposeProblem(problem, context, maxBranching);
+    /**
+     * Look up {@code key} in the named cache, computing it with {@code loader} on a miss.
+     * Goes through the CacheManager directly (not {@code @Cacheable}) so that calls from inside
+     * this bean are memoized too. Disabled entirely when {@code rlm.enable-caching=false}.
+     * A loader that could only produce a fallback throws {@link UncachedResult}: the fallback is
+     * returned but not cached, so one malformed reply does not answer every later request.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T memoize(String cacheName, String key, Supplier<T> loader) {
+        try {
+            Cache cache = rlmConfig.isEnableCaching() ? cacheManager.getCache(cacheName) : null;
+            return cache == null ? loader.get() : cache.get(key, loader::get);
+        } catch (UncachedResult fallback) {
+            return (T) fallback.value;
+        } catch (Cache.ValueRetrievalException e) {
+            if (e.getCause() instanceof UncachedResult fallback) {
+                return (T) fallback.value;
+            }
+            throw e;
+        }
+    }
+
+    // A reused step under its new parent; its subtree shifts to the new depth, and every copy gets
+    // its own step ids so that ids stay unique within the tree.
+    static RecursionStep placed(RecursionStep step, String parentStepId, int depth) {
+        String stepId = UUID.randomUUID().toString();
+        List<RecursionStep> subSteps = new ArrayList<>();
+        if (step.getSubSteps() != null) {
+            for (RecursionStep subStep : step.getSubSteps()) {
+                subSteps.add(placed(subStep, stepId, depth + 1));
+            }
+        }
+        return step.toBuilder()
+                .stepId(stepId)
+                .parentStepId(parentStepId)
+                .depth(depth)
+                .subSteps(subSteps)
+                .build();
+    }
+
+    // Levels below the step: 0 for a step solved directly.
+    static int height(RecursionStep step) {
+        int height = 0;
+        if (step.getSubSteps() != null) {
+            for (RecursionStep subStep : step.getSubSteps()) {
+                height = Math.max(height, 1 + height(subStep));
+            }
+        }
+        return height;
+    }
+
+    private static String normalize(String problem) {
+        return problem == null ? "" : problem.trim().replaceAll("\\s+", " ");
     }
 
     private static class DecompositionResult {
@@ -218,4 +308,45 @@ public class RecursiveThinkingService {
         String reasoning;
         List<String> subProblems;
     }
+
+    private static class SolveResult {
+        final String solution;
+        final String reasoning;
+
+        SolveResult(String solution, String reasoning) {
+            this.solution = solution;
+            this.reasoning = reasoning;
+        }
+    }
+
+    private static class UncachedResult extends RuntimeException {
+        final Object value;
+
+        UncachedResult(Object value) {
+            super(null, null, false, false);
+            this.value = value;
+        }
+    }
+
+    static class SharedStep {
+        final RecursionStep step;
+        final int remainingDepth;
+        final int height;
+
+        SharedStep(RecursionStep step, int remainingDepth) {
+            this.step = step;
+            this.remainingDepth = remainingDepth;
+            this.height = height(step);
+        }
+
+        /**
+         * Whether the step can be placed where {@code remainingDepth} levels are left: its subtree
+         * must not go past the depth limit, and a subtree that reached its own limit (so it may have
+         * been solved directly only for lack of depth) is not reused where more depth is available.
+         */
+        boolean fits(int remainingDepth) {
+            boolean reachedLimit = height >= this.remainingDepth;
+            return height <= remainingDepth && (!reachedLimit || remainingDepth <= this.remainingDepth);
+        }
+    }
 }
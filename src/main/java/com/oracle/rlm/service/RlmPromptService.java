@@ -1,27 +1,46 @@
 package com.oracle.rlm.service;
 
 import com.oracle.rlm.core.ActionObservation;
+import com.oracle.rlm.core.RlmTool;
+import com.oracle.rlm.tools.ToolRegistry;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@RequiredArgsConstructor
 public class RlmPromptService {
+
+    // Fixed section headers and the closing request, rounded up
+    private static final int PROMPT_OVERHEAD_CHARS = 512;
+
+    private final ToolRegistry toolRegistry;
     
     /**
      * Creates the system prompt that defines the RLM paradigm.
-     * Based on the RLM paper's approach.
+     * Based on the RLM paper's approach. The tool list and input formats come from the
+     * registered {@link RlmTool}s; rlm_call and finish are handled by the client itself.
      */
     public String createSystemPrompt() {
+        List<RlmTool> tools = toolRegistry.tools();
+        String toolList = tools.stream()
+                .map(t -> "- " + t.getName() + ": " + t.getDescription())
+                .collect(Collectors.joining("\n"));
+        String toolNames = tools.stream()
+                .map(t -> "\"" + t.getName() + "\"")
+                .collect(Collectors.joining(", "));
+        String inputFormats = tools.stream()
+                .filter(t -> t.getInputFormat() != null)
+                .map(t -> "- " + t.getName() + ":\n" + t.getInputFormat().indent(2).stripTrailing())
+                .collect(Collectors.joining("\n"));
         return """
             You are an AI assistant that solves problems by writing and executing code in a persistent environment.
             
             You have access to the following tools:
-            - python: Execute Python code
-            - bash: Execute bash commands
-            - write_file: Write content to a file
-            - read_file: Read content from a file
-            - search: Search through available context
+            %s
             - rlm_call: Make a recursive RLM call with a sub-query
             - finish: Return the final answer
             
@@ -34,7 +53,7 @@ public class RlmPromptService {
             Continue this process until you have solved the problem, then use the 'finish' tool with your answer.
 
             The full context is stored in the environment, available as:
-            - a file named "context.txt" in the working directory
+            - a file named "context.txt" in the working directory (read-only; write derived data to new files)
             - a Python variable CONTEXT (auto-loaded for python tool calls)
 
             When you need to solve a sub-problem, use the rlm_call tool with the
@@ -48,29 +67,14 @@ public class RlmPromptService {
               { "thought": "...", "tool": "tool_name", "code": "code or command", "finished": false }
             - When you are done, respond with:
               { "thought": "summary", "tool": "finish", "answer": "final answer", "finished": true }
-            - Valid tool_name values: "python", "bash", "write_file", "read_file", "search", "rlm_call", "finish".
+            - Valid tool_name values: %s, "rlm_call", "finish".
             - Place any code/command to execute in the "code" field.
+            - Several actions in one step: replace "tool"/"code" with "actions": [{ "tool": "...", "code": "..." }, ...].
+              They run in order until one fails; a last { "tool": "finish", "code": "answer" } finishes if all succeed.
+              Batch only actions that do not need an earlier one's output.
             
             Tool input formats (STRICT):
-            - write_file:
-              The "code" MUST be ONE of the following:
-              1) "FILENAME\nCONTENT"  (filename on first line, then a newline, then the full file content)
-              2) write_file("FILENAME", "CONTENT")
-              Notes:
-              - Do NOT use code fences.
-              - CONTENT may be long and include newlines; include the full content.
-              - If writing context.txt, use exactly "context.txt" as the filename.
-              Example:
-              {
-                "thought": "persist architecture draft",
-                "tool": "write_file",
-                "code": "architecture_vision_draft.txt\nLine 1\nLine 2\nLine 3",
-                "finished": false
-              }
-            - read_file:
-              The "code" MUST be either:
-              1) "FILENAME"
-              2) read_file("FILENAME")
+            %s
 
             Example (continue):
             {
@@ -87,17 +91,68 @@ public class RlmPromptService {
               "answer": "final answer",
               "finished": true
             }
-            """;
+            """.formatted(toolList, toolNames, inputFormats);
     }
     
     /**
-     * Creates the user prompt with task and history.
+     * JSON schema of a step response, for providers with native structured output. Every field is
+     * required (strict schemas allow no optional ones), so the schema uses the batch form: one or
+     * more actions, with an empty answer unless the last action is finish.
      */
-    public String createUserPrompt(String task, List<ActionObservation> history, 
-                                    String environmentInfo, int currentDepth,
-                                    int maxDepth, int maxBranching, int branchCallsSoFar) {
-        StringBuilder prompt = new StringBuilder();
-        
+    public String createStepSchema() {
+        String toolNames = Stream.concat(toolRegistry.tools().stream().map(RlmTool::getName),
+                        Stream.of("rlm_call", "finish"))
+                .map(name -> "\"" + name + "\"")
+                .collect(Collectors.joining(", "));
+        return """
+            {
+              "type": "object",
+              "properties": {
+                "thought": { "type": "string" },
+                "actions": {
+                  "type": "array",
+                  "items": {
+                    "type": "object",
+                    "properties": {
+                      "tool": { "type": "string", "enum": [%s] },
+                      "code": { "type": "string" }
+                    },
+                    "required": ["tool", "code"],
+                    "additionalProperties": false
+                  }
+                },
+                "finished": { "type": "boolean" },
+                "answer": { "type": "string" }
+              },
+              "required": ["thought", "actions", "finished", "answer"],
+              "additionalProperties": false
+            }
+            """.formatted(toolNames);
+    }
+
+    /**
+     * Assembles the user prompt from already rendered history entries (see
+     * {@link #renderObservation}) into {@code prompt}, which is cleared first. A loop keeps one
+     * buffer for all its steps, so building a prompt only copies the segments instead of
+     * formatting the whole history again. Each segment's {@code toString()} is taken once.
+     * {@code contextOutline} and {@code intervention} may be null; the intervention is a
+     * corrective note placed right before the request for the next action.
+     */
+    public String assembleUserPrompt(StringBuilder prompt, String task, List<? extends CharSequence> renderedHistory,
+                                     String environmentInfo, String contextOutline, int currentDepth,
+                                     int maxDepth, int maxBranching, int branchCallsSoFar,
+                                     boolean answerNow, String intervention) {
+        boolean hasOutline = contextOutline != null && !contextOutline.isBlank();
+        boolean hasIntervention = intervention != null && !intervention.isBlank();
+
+        int size = PROMPT_OVERHEAD_CHARS + length(task) + length(environmentInfo)
+                + (hasOutline ? contextOutline.length() : 0) + (hasIntervention ? intervention.length() : 0);
+        for (CharSequence segment : renderedHistory) {
+            size += segment.length();
+        }
+        prompt.setLength(0);
+        prompt.ensureCapacity(size);
+
         prompt.append("TASK:\n").append(task).append("\n\n");
         prompt.append("RECURSION:\n")
               .append("currentDepth=").append(currentDepth)
@@ -107,31 +162,62 @@ public class RlmPromptService {
               .append("\n\n");
         
         prompt.append("ENVIRONMENT:\n").append(environmentInfo).append("\n\n");
+
+        if (hasOutline) {
+            prompt.append("CONTEXT OUTLINE (context.txt; use context_lines/context_slice to read a region):\n")
+                  .append(contextOutline).append("\n\n");
+        }
         
-        if (!history.isEmpty()) {
+        if (!renderedHistory.isEmpty()) {
             prompt.append("PREVIOUS ACTIONS:\n");
-            for (ActionObservation obs : history) {
-                prompt.append(String.format("""
-                    Step %d:
-                    Thought: %s
-                    Action: %s
-                    Code: %s
-                    Observation: %s
-                    
-                    """,
-                    obs.getStep(),
-                    obs.getThought(),
-                    obs.getAction().getToolName(),
-                    obs.getAction().getCode(),
-                    obs.getObservation().isSuccess() 
-                        ? obs.getObservation().getOutput()
-                        : "ERROR: " + obs.getObservation().getError()
-                ));
+            for (CharSequence segment : renderedHistory) {
+                prompt.append(segment.toString());
             }
         }
         
-        prompt.append("What is your next action?");
+        if (hasIntervention) {
+            prompt.append("NOTE:\n").append(intervention).append("\n\n");
+        }
+
+        if (answerNow) {
+            prompt.append("TIME IS NEARLY UP: do not call any more tools. Respond now with the ")
+                  .append("'finish' tool and your best answer based on the observations so far.");
+        } else {
+            prompt.append("What is your next action?");
+        }
         
         return prompt.toString();
     }
+
+    /**
+     * Renders one history entry as it appears under PREVIOUS ACTIONS. The text depends only on
+     * the observation, so environments can keep it once rendered.
+     */
+    public String renderObservation(ActionObservation obs) {
+        String code = obs.getAction().getCode();
+        String observation = observationText(obs);
+        StringBuilder text = new StringBuilder(64 + length(obs.getThought()) + length(code) + length(observation));
+        if (obs.getActionIndex() == 0) {
+            text.append("Step ").append(obs.getStep()).append(":\n")
+                .append("Thought: ").append(obs.getThought()).append('\n')
+                .append("Action: ").append(obs.getAction().getToolName()).append('\n');
+        } else {
+            // a further action of the same step's batch
+            text.append("Action ").append(obs.getActionIndex() + 1).append(": ")
+                .append(obs.getAction().getToolName()).append('\n');
+        }
+        text.append("Code: ").append(code).append('\n')
+            .append("Observation: ").append(observation).append("\n\n");
+        return text.toString();
+    }
+
+    private static int length(String text) {
+        return text == null ? 4 : text.length();
+    }
+
+    private static String observationText(ActionObservation obs) {
+        return obs.getObservation().isSuccess()
+                ? obs.getObservation().getOutput()
+                : "ERROR: " + obs.getObservation().getError();
+    }
 }
@@ -6,20 +6,45 @@ import com.oracle.rlm.core.RlmCompletionRequest;
 import com.oracle.rlm.core.RlmCompletionResult;
 import com.oracle.rlm.model.RlmRequest;
 import com.oracle.rlm.model.RlmResponse;
-import lombok.RequiredArgsConstructor;
+import com.oracle.rlm.util.Hashes;
+import com.oracle.rlm.util.SingleFlight;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Map;
+
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class RlmService {
     
     private final RlmClient rlmClient;
     private final RlmConfig rlmConfig;
+    private final SingleFlight<RlmResponse> inFlightRequests;
+
+    public RlmService(RlmClient rlmClient, RlmConfig rlmConfig) {
+        this.rlmClient = rlmClient;
+        this.rlmConfig = rlmConfig;
+        // A resumable (partial) response is shared with concurrent callers only: a retry starts
+        // a new run instead of getting the same partial answer
+        this.inFlightRequests = new SingleFlight<>(
+                Duration.ofSeconds(Math.max(0, rlmConfig.getCoalescingTtlSeconds())), 1_000,
+                response -> !Boolean.TRUE.equals(response.getResumable()));
+    }
     
     public RlmResponse processRequest(RlmRequest request) {
-        long startTime = System.currentTimeMillis();
+        if (!rlmConfig.isCoalesceRequests()) {
+            return runRequest(request);
+        }
+        SingleFlight.Flight<RlmResponse> flight = inFlightRequests.execute(requestKey(request),
+                () -> runRequest(request));
+        if (flight.isShared()) {
+            log.info("Served RLM request from an identical in-flight or recent run");
+        }
+        return flight.getValue();
+    }
+
+    private RlmResponse runRequest(RlmRequest request) {
         log.info("Processing RLM request: {}", request.getProblem());
 
         try {
@@ -34,21 +59,49 @@ public class RlmService {
                     .verbose(Boolean.TRUE.equals(request.getVerbose()))
                     .build();
 
-            RlmCompletionResult result = rlmClient.completion(coreRequest);
-
-            return RlmResponse.builder()
-                    .problem(request.getProblem())
-                    .finalAnswer(result.getFinalAnswer())
-                    .thoughtProcesses(result.getThoughtProcesses())
-                    .totalSteps(result.getTotalSteps())
-                    .maxDepthReached(result.getMaxDepthReached())
-                    .processingTimeMs(result.getProcessingTime().toMillis())
-                    .strategy(result.getStrategy())
-                    .build();
+            return toResponse(request.getProblem(), rlmClient.completion(coreRequest));
 
         } catch (Exception e) {
             log.error("Error processing RLM request: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to process RLM request: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * Continue an interrupted run from its checkpoint; a completed run returns its stored answer.
+     */
+    public RlmResponse resume(String runId) {
+        log.info("Resuming RLM run {}", runId);
+        RlmCompletionResult result = rlmClient.resume(runId);
+        return toResponse(null, result);
+    }
+
+    private RlmResponse toResponse(String problem, RlmCompletionResult result) {
+        Map<String, Object> metadata = result.getMetadata() != null ? result.getMetadata() : Map.of();
+        return RlmResponse.builder()
+                .problem(problem)
+                .finalAnswer(result.getFinalAnswer())
+                .thoughtProcesses(result.getThoughtProcesses())
+                .totalSteps(result.getTotalSteps())
+                .maxDepthReached(result.getMaxDepthReached())
+                .processingTimeMs(result.getProcessingTime().toMillis())
+                .strategy(result.getStrategy())
+                .runId((String) metadata.get("runId"))
+                .resumable(Boolean.TRUE.equals(metadata.get("deadlineReached"))
+                        || Boolean.TRUE.equals(metadata.get("interrupted")))
+                .build();
+    }
+
+    // Two requests are identical when they resolve to the same run: defaults applied, problem
+    // whitespace-normalized, context compared by content hash.
+    private String requestKey(RlmRequest request) {
+        String problem = request.getProblem() == null ? "" : request.getProblem().trim().replaceAll("\\s+", " ");
+        return Hashes.sha256Of(
+                problem,
+                request.getMaxDepth() != null ? request.getMaxDepth() : rlmConfig.getMaxDepth(),
+                request.getMaxBranching() != null ? request.getMaxBranching() : rlmConfig.getMaxBranching(),
+                request.getStrategy(),
+                Boolean.TRUE.equals(request.getVerbose()),
+                Hashes.sha256(request.getContext()));
+    }
 }
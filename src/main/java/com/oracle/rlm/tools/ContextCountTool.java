@@ -0,0 +1,98 @@
+package com.oracle.rlm.tools;
+
+import com.oracle.rlm.core.RlmEnvironment;
+import com.oracle.rlm.core.RlmTool;
+import com.oracle.rlm.core.ToolResult;
+import com.oracle.rlm.scan.ContextScanner;
+import com.oracle.rlm.scan.ScanRequest;
+import com.oracle.rlm.scan.ScanResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Counts over the context file: lines and bytes, or occurrences of a pattern. The scan runs on all
+ * cores via {@link ContextScanner}.
+ */
+@Component
+@Order(90)
+@RequiredArgsConstructor
+public class ContextCountTool implements RlmTool {
+
+    private final ContextScanner scanner;
+
+    @Override
+    public String getName() {
+        return "context_count";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Count lines/bytes of context.txt, or occurrences and matching lines of a regex";
+    }
+
+    @Override
+    public String getInputFormat() {
+        return """
+                The "code" is empty (size counts), a regular expression, or JSON:
+                {"pattern": "REGEX", "ignore_case": true}""";
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
+    @Override
+    public ToolResult execute(RlmEnvironment env, String input, Duration timeout) {
+        long start = System.currentTimeMillis();
+        Path file = ContextTools.contextFile(env);
+        if (file == null) {
+            return ContextTools.noContext();
+        }
+        ToolArguments args = ToolArguments.parse(input);
+        String regex = args.text("pattern");
+        boolean counting = regex != null && !regex.isEmpty();
+        ScanResult result;
+        try {
+            result = scanner.scan(file, ScanRequest.builder()
+                    .pattern(counting ? regex : null)
+                    .ignoreCase(args.flag("ignore_case"))
+                    .limit(1)
+                    .countOccurrences(true)
+                    .timeout(timeout)
+                    .build());
+        } catch (PatternSyntaxException e) {
+            return ContextTools.failure("Invalid pattern: " + e.getDescription());
+        } catch (IOException e) {
+            return ContextTools.failure("Failed to read context: " + e.getMessage());
+        }
+
+        StringBuilder out = new StringBuilder();
+        if (counting) {
+            out.append("occurrences=").append(result.getOccurrences())
+               .append(", matching_lines=").append(result.getMatchingLines())
+               .append(", lines=").append(result.getLines());
+        } else {
+            out.append("lines=").append(result.getLines()).append(", bytes=").append(result.getBytes());
+        }
+        if (result.isTimedOut()) {
+            out.append("\n[partial: stopped at line ").append(result.getLines()).append(", " + ContextTools.TIME_LIMIT_NOTE + "]");
+        }
+        return ToolResult.builder()
+                .success(true)
+                .output(out.toString())
+                .executionTimeMs(System.currentTimeMillis() - start)
+                .build();
+    }
+}
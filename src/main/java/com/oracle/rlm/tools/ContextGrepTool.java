@@ -0,0 +1,114 @@
+package com.oracle.rlm.tools;
+
+import com.oracle.rlm.core.RlmEnvironment;
+import com.oracle.rlm.core.RlmTool;
+import com.oracle.rlm.core.ToolResult;
+import com.oracle.rlm.scan.ContextScanner;
+import com.oracle.rlm.scan.ScanMatch;
+import com.oracle.rlm.scan.ScanRequest;
+import com.oracle.rlm.scan.ScanResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Regex search over the context file, returning matching lines with their line numbers. The scan
+ * runs on all cores via {@link ContextScanner}.
+ */
+@Component
+@Order(60)
+@RequiredArgsConstructor
+public class ContextGrepTool implements RlmTool {
+
+    private static final int DEFAULT_MAX_MATCHES = 100;
+    private static final int MAX_MATCHES_LIMIT = 1000;
+
+    private final ContextScanner scanner;
+
+    @Override
+    public String getName() {
+        return "context_grep";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Regex search over context.txt; returns matching lines with line numbers (in-process, much faster than python/bash)";
+    }
+
+    @Override
+    public String getInputFormat() {
+        return """
+                The "code" is a regular expression (Java syntax), or JSON:
+                {"pattern": "REGEX", "ignore_case": true, "max_matches": 100}""";
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
+    @Override
+    public ToolResult execute(RlmEnvironment env, String input, Duration timeout) {
+        long start = System.currentTimeMillis();
+        Path file = ContextTools.contextFile(env);
+        if (file == null) {
+            return ContextTools.noContext();
+        }
+        ToolArguments args = ToolArguments.parse(input);
+        String regex = args.text("pattern");
+        if (regex == null || regex.isEmpty()) {
+            return ContextTools.failure("context_grep requires a pattern");
+        }
+        Long requested = args.number("max_matches");
+        int maxMatches = requested == null ? DEFAULT_MAX_MATCHES
+                : (int) Math.max(1, Math.min(MAX_MATCHES_LIMIT, requested));
+
+        ScanResult result;
+        try {
+            result = scanner.scan(file, ScanRequest.builder()
+                    .pattern(regex)
+                    .ignoreCase(args.flag("ignore_case"))
+                    .limit(maxMatches)
+                    .timeout(timeout)
+                    .build());
+        } catch (PatternSyntaxException e) {
+            return ContextTools.failure("Invalid pattern: " + e.getDescription());
+        } catch (IOException e) {
+            return ContextTools.failure("Failed to read context: " + e.getMessage());
+        }
+
+        StringBuilder out = new StringBuilder();
+        for (ScanMatch match : result.getMatches()) {
+            out.append(match.getLineNumber()).append(": ")
+               .append(ContextTools.excerpt(match.getText(), match.getColumn())).append('\n');
+        }
+        long matches = result.getMatchingLines();
+        if (matches == 0) {
+            out.append("No matches");
+        } else {
+            out.append('[').append(matches).append(" matching line").append(matches == 1 ? "" : "s");
+            if (matches > maxMatches) {
+                out.append(", first ").append(maxMatches).append(" shown");
+            }
+            out.append(']');
+        }
+        if (result.isTimedOut()) {
+            out.append("\n[stopped at line ").append(result.getLines()).append(": " + ContextTools.TIME_LIMIT_NOTE + "]");
+        }
+        return ToolResult.builder()
+                .success(true)
+                .output(out.toString())
+                .executionTimeMs(System.currentTimeMillis() - start)
+                .build();
+    }
+}
@@ -0,0 +1,145 @@
+package com.oracle.rlm.tools;
+
+import com.oracle.rlm.core.RlmEnvironment;
+import com.oracle.rlm.core.RlmTool;
+import com.oracle.rlm.core.ToolResult;
+import com.oracle.rlm.core.impl.ContextBlobStore;
+import com.oracle.rlm.scan.LineIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * A range of lines of the context file, prefixed with their line numbers. Ranges deep into a
+ * stored context seek via its {@link LineIndex}, built on first use and kept with the blob.
+ */
+@Slf4j
+@Component
+@Order(70)
+@RequiredArgsConstructor
+public class ContextLinesTool implements RlmTool {
+
+    private static final int MAX_LINES = 500;
+
+    private final ContextBlobStore blobStore;
+
+    @Override
+    public String getName() {
+        return "context_lines";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Lines FROM..TO of context.txt (1-based, inclusive) with line numbers; at most " + MAX_LINES + " lines per call";
+    }
+
+    @Override
+    public String getInputFormat() {
+        return """
+                The "code" is "FROM-TO" (e.g. "120-180"), a single line number, or JSON:
+                {"from": 120, "to": 180}""";
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
+    @Override
+    public ToolResult execute(RlmEnvironment env, String input, Duration timeout) {
+        long start = System.currentTimeMillis();
+        Path file = ContextTools.contextFile(env);
+        if (file == null) {
+            return ContextTools.noContext();
+        }
+        ToolArguments args = ToolArguments.parse(input);
+        Long from;
+        Long to;
+        if (args.isJson()) {
+            from = args.number("from");
+            to = args.number("to");
+        } else {
+            List<Long> numbers = args.numbers();
+            from = numbers.isEmpty() ? null : numbers.get(0);
+            to = numbers.size() > 1 ? numbers.get(1) : from;
+        }
+        if (from == null) {
+            return ContextTools.failure("context_lines requires a line range such as \"120-180\"");
+        }
+        long first = Math.max(1, from);
+        long last = to == null ? first : Math.max(first, to);
+        boolean clipped = last - first + 1 > MAX_LINES;
+        if (clipped) {
+            last = first + MAX_LINES - 1;
+        }
+
+        long deadline = ContextTools.deadlineNanos(timeout);
+        StringBuilder out = new StringBuilder();
+        LineIndex.Position position = new LineIndex.Position(1, 0);
+        LineIndex index = first > LineIndex.STRIDE ? lineIndex(env, file) : null;
+        if (index != null) {
+            if (first > index.lines()) {
+                return ContextTools.failure("context.txt has only " + index.lines() + " lines");
+            }
+            position = index.seek(first);
+        }
+        long lineNumber = position.getLine() - 1;
+        try (BufferedReader reader = ContextTools.open(file, position.getOffset())) {
+            for (String line; (line = reader.readLine()) != null && lineNumber < last; ) {
+                lineNumber++;
+                if (lineNumber >= first) {
+                    out.append(lineNumber).append(": ").append(ContextTools.clip(line)).append('\n');
+                }
+                if ((lineNumber & 1023) == 0 && System.nanoTime() > deadline) {
+                    return ContextTools.failure("Time limit reached while skipping to line " + first);
+                }
+            }
+        } catch (IOException e) {
+            return ContextTools.failure("Failed to read context: " + e.getMessage());
+        }
+        if (lineNumber < first) {
+            return ContextTools.failure("context.txt has only " + lineNumber + " lines");
+        }
+        if (clipped) {
+            out.append("[limited to ").append(MAX_LINES).append(" lines; request the next range to continue]");
+        }
+        return ToolResult.builder()
+                .success(true)
+                .output(out.toString())
+                .executionTimeMs(System.currentTimeMillis() - start)
+                .build();
+    }
+
+    // The stored index for this context, or a new one (stored when the context is in the blob store).
+    private LineIndex lineIndex(RlmEnvironment env, Path file) {
+        if (!blobStore.isEnabled()) {
+            return null;
+        }
+        String hash = env.getContextHash();
+        try {
+            Path stored = blobStore.artifact(hash, LineIndex.ARTIFACT).orElse(null);
+            if (stored != null) {
+                return LineIndex.read(Files.readAllBytes(stored));
+            }
+            LineIndex index = LineIndex.build(file);
+            blobStore.putArtifact(hash, LineIndex.ARTIFACT, index.toBytes());
+            return index;
+        } catch (IOException e) {
+            log.warn("Line index for context {} unavailable: {}", hash, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.oracle.rlm.tools;
+
+import com.oracle.rlm.core.RlmEnvironment;
+import com.oracle.rlm.core.RlmTool;
+import com.oracle.rlm.core.ToolResult;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * A character range of the context file, like CONTEXT[start:end] in python.
+ */
+@Component
+@Order(80)
+public class ContextSliceTool implements RlmTool {
+
+    private static final int MAX_CHARS = 20_000;
+
+    @Override
+    public String getName() {
+        return "context_slice";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Characters START..END of context.txt (0-based, END exclusive, like CONTEXT[START:END]); at most "
+                + MAX_CHARS + " characters per call";
+    }
+
+    @Override
+    public String getInputFormat() {
+        return """
+                The "code" is "START-END" (e.g. "0-5000"), or JSON:
+                {"start": 0, "end": 5000} or {"start": 0, "length": 5000}""";
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
+    @Override
+    public ToolResult execute(RlmEnvironment env, String input, Duration timeout) {
+        long start = System.currentTimeMillis();
+        Path file = ContextTools.contextFile(env);
+        if (file == null) {
+            return ContextTools.noContext();
+        }
+        ToolArguments args = ToolArguments.parse(input);
+        Long from;
+        Long to;
+        if (args.isJson()) {
+            from = args.number("start");
+            Long length = args.number("length");
+            to = length != null && from != null ? from + length : args.number("end");
+        } else {
+            List<Long> numbers = args.numbers();
+            from = numbers.isEmpty() ? null : numbers.get(0);
+            to = numbers.size() > 1 ? numbers.get(1) : null;
+        }
+        if (from == null) {
+            return ContextTools.failure("context_slice requires a range such as \"0-5000\"");
+        }
+        long first = Math.max(0, from);
+        long end = to == null ? first + MAX_CHARS : Math.max(first, to);
+        boolean clipped = end - first > MAX_CHARS;
+        if (clipped) {
+            end = first + MAX_CHARS;
+        }
+
+        char[] buffer = new char[(int) (end - first)];
+        int read = 0;
+        try (BufferedReader reader = ContextTools.open(file)) {
+            long skipped = 0;
+            while (skipped < first) {
+                long n = reader.skip(first - skipped);
+                if (n <= 0) {
+                    break;
+                }
+                skipped += n;
+            }
+            if (skipped < first) {
+                return ContextTools.failure("context.txt has only " + skipped + " characters");
+            }
+            while (read < buffer.length) {
+                int n = reader.read(buffer, read, buffer.length - read);
+                if (n < 0) {
+                    break;
+                }
+                read += n;
+            }
+        } catch (IOException e) {
+            return ContextTools.failure("Failed to read context: " + e.getMessage());
+        }
+        String output = new String(buffer, 0, read);
+        if (clipped) {
+            output += "\n[limited to " + MAX_CHARS + " characters; request the next range to continue]";
+        }
+        return ToolResult.builder()
+                .success(true)
+                .output(output)
+                .executionTimeMs(System.currentTimeMillis() - start)
+                .build();
+    }
+}
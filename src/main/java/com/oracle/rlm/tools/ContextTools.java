@@ -0,0 +1,100 @@
+package com.oracle.rlm.tools;
+
+import com.oracle.rlm.core.RlmEnvironment;
+import com.oracle.rlm.core.ToolResult;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+/**
+ * Shared plumbing of the in-process context_* tools: they read the context file directly (streamed
+ * line by line, or scanned in parallel by the ContextScanner) instead of loading it or starting a
+ * process.
+ */
+final class ContextTools {
+
+    static final int MAX_LINE_CHARS = 300;
+
+    /**
+     * Appended to the output of a scan that stopped at the time limit; such results are not cached.
+     */
+    static final String TIME_LIMIT_NOTE = "time limit reached";
+
+    private ContextTools() {
+    }
+
+    /**
+     * Reader over the context file; malformed UTF-8 is replaced rather than failing the read.
+     */
+    static BufferedReader open(Path contextFile) throws IOException {
+        return new BufferedReader(new InputStreamReader(Files.newInputStream(contextFile), StandardCharsets.UTF_8),
+                64 * 1024);
+    }
+
+    /**
+     * Reader over the context file starting at byte {@code offset} (the start of a line).
+     */
+    static BufferedReader open(Path contextFile, long offset) throws IOException {
+        if (offset == 0) {
+            return open(contextFile);
+        }
+        FileChannel channel = FileChannel.open(contextFile, StandardOpenOption.READ).position(offset);
+        return new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8),
+                64 * 1024);
+    }
+
+    static Path contextFile(RlmEnvironment env) {
+        Path file = env.getContextFile();
+        return file != null && Files.isRegularFile(file) ? file : null;
+    }
+
+    static ToolResult noContext() {
+        return ToolResult.builder()
+                .success(false)
+                .error("No context is loaded (context.txt does not exist)")
+                .build();
+    }
+
+    static ToolResult failure(String message) {
+        return ToolResult.builder()
+                .success(false)
+                .error(message)
+                .build();
+    }
+
+    static String clip(String line) {
+        return line.length() <= MAX_LINE_CHARS ? line : line.substring(0, MAX_LINE_CHARS) + "…";
+    }
+
+    /**
+     * A long line cut down to a window around {@code position}, so the match stays visible.
+     */
+    static String excerpt(String line, int position) {
+        if (line.length() <= MAX_LINE_CHARS) {
+            return line;
+        }
+        int from = Math.max(0, Math.min(position - MAX_LINE_CHARS / 3, line.length() - MAX_LINE_CHARS));
+        int to = Math.min(line.length(), from + MAX_LINE_CHARS);
+        return (from > 0 ? "…" : "") + line.substring(from, to) + (to < line.length() ? "…" : "");
+    }
+
+    /**
+     * System.nanoTime() after which a scan should stop; Long.MAX_VALUE when there is no limit.
+     */
+    static long deadlineNanos(Duration timeout) {
+        if (timeout == null) {
+            return Long.MAX_VALUE;
+        }
+        long now = System.nanoTime();
+        long nanos = Math.max(0, timeout.toNanos());
+        return now + nanos < now ? Long.MAX_VALUE : now + nanos;
+    }
+}
@@ -0,0 +1,29 @@
+package com.oracle.rlm.tools;
+
+import com.oracle.rlm.core.RlmEnvironment;
+import com.oracle.rlm.core.RlmTool;
+import com.oracle.rlm.core.ToolResult;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@Order(10)
+public class PythonTool implements RlmTool {
+
+    @Override
+    public String getName() {
+        return "python";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Execute Python code";
+    }
+
+    @Override
+    public ToolResult execute(RlmEnvironment env, String input, Duration timeout) {
+        return env.executePython(input, timeout);
+    }
+}
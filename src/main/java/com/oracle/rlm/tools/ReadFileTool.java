@@ -0,0 +1,118 @@
+package com.oracle.rlm.tools;
+
+import com.oracle.rlm.core.RlmEnvironment;
+import com.oracle.rlm.core.RlmTool;
+import com.oracle.rlm.core.ToolResult;
+import com.oracle.rlm.util.WorkspacePaths;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Component
+@Order(40)
+public class ReadFileTool implements RlmTool {
+
+    private static final Pattern CALL_FORM = Pattern.compile(
+            "^\\s*read_file\\s*\\(\\s*['\\\"](.+?)['\\\"]\\s*(?:,\\s*(\\d+)\\s*,\\s*(\\d+)\\s*)?\\)\\s*;?\\s*$");
+
+    @Override
+    public String getName() {
+        return "read_file";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Read content from a file";
+    }
+
+    @Override
+    public String getInputFormat() {
+        return """
+                The "code" MUST be either:
+                1) "FILENAME"
+                2) read_file("FILENAME")
+                3) read_file("FILENAME", FIRST_LINE, LAST_LINE) for lines of a large file (1-based, inclusive)""";
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public ToolResult execute(RlmEnvironment env, String input, Duration timeout) {
+        Matcher m = CALL_FORM.matcher(input == null ? "" : input.trim());
+        if (!m.matches() || m.group(2) == null) {
+            return env.readFile(normalizeReadFileCode(input));
+        }
+        Path file;
+        try {
+            file = WorkspacePaths.resolve(Path.of(env.getCurrentWorkingDirectory()), m.group(1));
+        } catch (IOException | InvalidPathException e) {
+            return ContextTools.failure(e.getMessage());
+        }
+        if (file == null) {
+            return ContextTools.failure("read_file path must be a file inside the workspace: " + m.group(1));
+        }
+        return lines(file, Long.parseLong(m.group(2)), Long.parseLong(m.group(3)), timeout);
+    }
+
+    /**
+     * Whether a read_file call asks for a line range rather than the whole file.
+     */
+    public static boolean hasLineRange(String code) {
+        Matcher m = CALL_FORM.matcher(code == null ? "" : code.trim());
+        return m.matches() && m.group(2) != null;
+    }
+
+    /**
+     * The filename of a read_file call: read_file("...") with or without a line range, a quoted
+     * name, or a plain filename.
+     */
+    public static String normalizeReadFileCode(String code) {
+        if (code == null) return "";
+        String s = code.trim();
+        Matcher m = CALL_FORM.matcher(s);
+        if (m.matches()) {
+            return m.group(1);
+        }
+        if ((s.startsWith("\"") && s.endsWith("\"")) || (s.startsWith("'") && s.endsWith("'"))) {
+            return s.substring(1, s.length() - 1);
+        }
+        return s;
+    }
+
+    // Lines first..last (1-based, inclusive) of the file, streamed so a large file is never loaded whole
+    private static ToolResult lines(Path file, long first, long last, Duration timeout) {
+        if (first < 1 || last < first) {
+            return ContextTools.failure("read_file line range must satisfy 1 <= FIRST_LINE <= LAST_LINE");
+        }
+        long deadline = ContextTools.deadlineNanos(timeout);
+        StringBuilder out = new StringBuilder();
+        long lineNumber = 0;
+        try (BufferedReader reader = ContextTools.open(file)) {
+            for (String line; lineNumber < last && (line = reader.readLine()) != null; ) {
+                lineNumber++;
+                if (lineNumber >= first) {
+                    out.append(line).append('\n');
+                }
+                if ((lineNumber & 1023) == 0 && System.nanoTime() > deadline) {
+                    return ContextTools.failure("Time limit reached while skipping to line " + first);
+                }
+            }
+        } catch (IOException e) {
+            return ContextTools.failure(e.getMessage());
+        }
+        return ToolResult.builder()
+                .success(true)
+                .output(out.toString())
+                .build();
+    }
+}
@@ -0,0 +1,87 @@
+package com.oracle.rlm.tools;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The "code" field of a tool call, read either as a JSON object of named arguments or as plain
+ * text (a pattern, or numbers such as "10-20").
+ */
+final class ToolArguments {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Pattern NUMBER = Pattern.compile("-?\\d+");
+
+    private final String raw;
+    private final JsonNode json;
+
+    private ToolArguments(String raw, JsonNode json) {
+        this.raw = raw;
+        this.json = json;
+    }
+
+    static ToolArguments parse(String input) {
+        String raw = input == null ? "" : input.trim();
+        if (raw.startsWith("{")) {
+            try {
+                JsonNode node = MAPPER.readTree(raw);
+                if (node != null && node.isObject()) {
+                    return new ToolArguments(raw, node);
+                }
+            } catch (Exception e) {
+                // not JSON after all: treat as plain text
+            }
+        }
+        return new ToolArguments(raw, null);
+    }
+
+    boolean isJson() {
+        return json != null;
+    }
+
+    String raw() {
+        return raw;
+    }
+
+    /**
+     * The named argument, or the whole plain-text input when the input is not JSON.
+     */
+    String text(String name) {
+        if (json == null) {
+            return raw;
+        }
+        JsonNode node = json.get(name);
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    Long number(String name) {
+        if (json == null) {
+            return null;
+        }
+        JsonNode node = json.get(name);
+        return node != null && node.canConvertToLong() ? node.asLong() : null;
+    }
+
+    boolean flag(String name) {
+        return json != null && json.path(name).asBoolean(false);
+    }
+
+    /**
+     * Integers appearing in plain-text input, e.g. [10, 20] for "10-20" or "10, 20".
+     */
+    List<Long> numbers() {
+        List<Long> numbers = new ArrayList<>();
+        if (json == null) {
+            Matcher m = NUMBER.matcher(raw.replaceAll("(\\d)\\s*-\\s*(\\d)", "$1 $2"));
+            while (m.find()) {
+                numbers.add(Long.parseLong(m.group()));
+            }
+        }
+        return numbers;
+    }
+}
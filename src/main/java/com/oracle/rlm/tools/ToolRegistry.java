@@ -0,0 +1,126 @@
+package com.oracle.rlm.tools;
+
+import com.oracle.rlm.config.RlmConfig;
+import com.oracle.rlm.core.RlmEnvironment;
+import com.oracle.rlm.core.RlmTool;
+import com.oracle.rlm.core.ToolCall;
+import com.oracle.rlm.core.ToolResult;
+import com.oracle.rlm.util.Hashes;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * All {@link RlmTool} beans by name, in {@code @Order}. Dispatches tool calls and caches the
+ * results of cacheable tools under the environment's context hash. Read-only tools of one step
+ * may run concurrently.
+ */
+@Component
+@Slf4j
+public class ToolRegistry {
+
+    static final String CACHE_NAME = "tool-results";
+
+    private final Map<String, RlmTool> tools = new LinkedHashMap<>();
+    private final RlmConfig rlmConfig;
+    private final CacheManager cacheManager;
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "rlm-tool");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public ToolRegistry(List<RlmTool> tools, RlmConfig rlmConfig, CacheManager cacheManager) {
+        this.rlmConfig = rlmConfig;
+        this.cacheManager = cacheManager;
+        for (RlmTool tool : tools) {
+            String name = tool.getName().toLowerCase(Locale.ROOT);
+            RlmTool previous = this.tools.putIfAbsent(name, tool);
+            if (previous != null) {
+                throw new IllegalStateException("Duplicate RLM tool '" + name + "': "
+                        + previous.getClass().getName() + " and " + tool.getClass().getName());
+            }
+        }
+        log.info("Registered RLM tools: {}", this.tools.keySet());
+    }
+
+    public List<RlmTool> tools() {
+        return List.copyOf(tools.values());
+    }
+
+    public Optional<RlmTool> find(String name) {
+        return name == null ? Optional.empty() : Optional.ofNullable(tools.get(name.toLowerCase(Locale.ROOT)));
+    }
+
+    public ToolResult execute(RlmEnvironment env, String name, String input, Duration timeout) {
+        RlmTool tool = find(name).orElse(null);
+        if (tool == null) {
+            return ToolResult.builder()
+                    .success(false)
+                    .error("Unknown tool: " + name + ". Valid tools: " + tools.keySet())
+                    .build();
+        }
+        Cache cache = tool.isCacheable() && rlmConfig.isEnableCaching() ? cacheManager.getCache(CACHE_NAME) : null;
+        if (cache == null) {
+            return tool.execute(env, input, timeout);
+        }
+        String key = Hashes.sha256Of(tool.getName(), input, env.getContextHash());
+        ToolResult cached = cache.get(key, ToolResult.class);
+        if (cached != null) {
+            return cached;
+        }
+        ToolResult result = tool.execute(env, input, timeout);
+        // a scan cut short by the time limit is not the tool's real answer for this input
+        if (result.isSuccess() && (result.getOutput() == null || !result.getOutput().contains(ContextTools.TIME_LIMIT_NOTE))) {
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * True for registered tools that only read the environment
+     */
+    public boolean isReadOnly(String name) {
+        return find(name).map(RlmTool::isReadOnly).orElse(false);
+    }
+
+    /**
+     * Run several read-only tool calls at once; results in call order. Each call gets the full
+     * timeout, since they run side by side.
+     */
+    public List<ToolResult> executeConcurrently(RlmEnvironment env, List<ToolCall> calls, Duration timeout) {
+        List<CompletableFuture<ToolResult>> futures = calls.stream()
+                .map(call -> CompletableFuture.supplyAsync(
+                        () -> execute(env, call.getToolName(), call.getCode(), timeout), executor))
+                .toList();
+        List<ToolResult> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<ToolResult> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                results.add(ToolResult.builder().success(false).error(cause.getMessage()).build());
+            }
+        }
+        return results;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,110 @@
+package com.oracle.rlm.tools;
+
+import com.oracle.rlm.core.RlmEnvironment;
+import com.oracle.rlm.core.RlmTool;
+import com.oracle.rlm.core.ToolResult;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+
+@Component
+@Order(30)
+public class WriteFileTool implements RlmTool {
+
+    @Override
+    public String getName() {
+        return "write_file";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Write content to a file";
+    }
+
+    @Override
+    public String getInputFormat() {
+        return """
+                The "code" MUST be ONE of the following:
+                1) "FILENAME\nCONTENT"  (filename on first line, then a newline, then the full file content)
+                2) write_file("FILENAME", "CONTENT")
+                Notes:
+                - Do NOT use code fences.
+                - CONTENT may be long and include newlines; include the full content.
+                - If writing context.txt, use exactly "context.txt" as the filename.
+                Example:
+                {
+                  "thought": "persist architecture draft",
+                  "tool": "write_file",
+                  "code": "architecture_vision_draft.txt\nLine 1\nLine 2\nLine 3",
+                  "finished": false
+                }""";
+    }
+
+    @Override
+    public ToolResult execute(RlmEnvironment env, String input, Duration timeout) {
+        Map.Entry<String, String> args = parseWriteFileCode(input);
+        return env.writeFile(args.getKey(), args.getValue());
+    }
+
+    // Parse write_file(...) robustly; prefer "filename\ncontent" format, but also support write_file('filename', <content>)
+    static Map.Entry<String, String> parseWriteFileCode(String code) {
+        String s = code == null ? "" : code;
+        String t = s.trim();
+
+        // 1) Prefer explicit write_file(...) if present to avoid splitting on newlines inside content
+        if (t.toLowerCase(Locale.ROOT).startsWith("write_file")) {
+            int open = t.indexOf('(');
+            int close = t.lastIndexOf(')');
+            if (open != -1 && close > open) {
+                String args = t.substring(open + 1, close);
+                // Extract first quoted argument as filename, honoring escapes
+                int i = 0;
+                while (i < args.length() && Character.isWhitespace(args.charAt(i))) i++;
+                if (i < args.length() && (args.charAt(i) == '\'' || args.charAt(i) == '"')) {
+                    char q = args.charAt(i++);
+                    StringBuilder fname = new StringBuilder();
+                    boolean escaped = false;
+                    while (i < args.length()) {
+                        char c = args.charAt(i++);
+                        if (escaped) { fname.append(c); escaped = false; continue; }
+                        if (c == '\\') { escaped = true; continue; }
+                        if (c == q) break;
+                        fname.append(c);
+                    }
+                    // advance to first comma separating args
+                    while (i < args.length() && args.charAt(i) != ',') i++;
+                    if (i < args.length() && args.charAt(i) == ',') i++;
+                    while (i < args.length() && Character.isWhitespace(args.charAt(i))) i++;
+                    String contentArg = args.substring(i).trim();
+                    // If surrounded by matching quotes, strip outermost quotes
+                    if (contentArg.length() >= 2) {
+                        char c0 = contentArg.charAt(0);
+                        char c1 = contentArg.charAt(contentArg.length() - 1);
+                        if ((c0 == '\'' && c1 == '\'') || (c0 == '"' && c1 == '"')) {
+                            contentArg = contentArg.substring(1, contentArg.length() - 1);
+                        }
+                    }
+                    // Unescape common sequences that may appear inside the explicit string literal
+                    contentArg = contentArg.replace("\\n", "\n")
+                                           .replace("\\t", "\t")
+                                           .replace("\\r", "\r");
+                    return Map.entry(fname.toString(), contentArg);
+                }
+            }
+        }
+
+        // 2) Fallback format: "filename\ncontent"
+        int nl = s.indexOf('\n');
+        if (nl >= 0) {
+            String filename = s.substring(0, nl).trim();
+            String content = s.substring(nl + 1);
+            return Map.entry(filename, content);
+        }
+
+        // 3) Fallback: treat the whole string as filename, empty content
+        return Map.entry(t, "");
+    }
+}
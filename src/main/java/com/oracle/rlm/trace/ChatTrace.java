@@ -0,0 +1,93 @@
+package com.oracle.rlm.trace;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * On-disk trace of model calls: one JSON object per line, gzip-compressed when the file name
+ * ends in ".gz". Written by {@link ChatTraceRecorder}, served by {@link ReplayChatModel}.
+ */
+public final class ChatTrace {
+
+    static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private ChatTrace() {
+    }
+
+    /**
+     * One recorded call. Prompts are only kept when rlm.trace.record-prompts is set; replay needs
+     * just the fingerprint.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Entry {
+        private String fingerprint;
+        private String provider;
+        private String model;
+        private String system;
+        private String user;
+        private String response;
+        private long latencyMs;
+        private Integer promptTokens;
+        private Integer completionTokens;
+        private long timestamp;
+    }
+
+    static boolean isCompressed(Path file) {
+        return file.getFileName().toString().endsWith(".gz");
+    }
+
+    /**
+     * All entries of a trace in recording order. The tail of a trace whose recorder did not shut
+     * down cleanly (an unterminated gzip stream, a truncated last line) is ignored.
+     */
+    public static List<Entry> read(Path file) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        String text = new String(readAll(file), StandardCharsets.UTF_8);
+        for (String line : text.split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                entries.add(MAPPER.readValue(line, Entry.class));
+            } catch (IOException e) {
+                break;
+            }
+        }
+        return entries;
+    }
+
+    private static byte[] readAll(Path file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = isCompressed(file)
+                ? new GZIPInputStream(Files.newInputStream(file), 1 << 16) : Files.newInputStream(file)) {
+            byte[] buffer = new byte[1 << 16];
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                bytes.write(buffer, 0, n);
+            }
+        } catch (EOFException e) {
+            // gzip stream without its trailer: keep what was flushed
+        }
+        return bytes.toByteArray();
+    }
+}
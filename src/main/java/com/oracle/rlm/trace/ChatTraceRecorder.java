@@ -0,0 +1,68 @@
+package com.oracle.rlm.trace;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Appends {@link ChatTrace.Entry entries} to a trace file. Each entry is flushed as it is
+ * written, so a trace stays readable up to the last call if the service stops abruptly.
+ */
+@Slf4j
+public class ChatTraceRecorder implements AutoCloseable {
+
+    private final Path file;
+    private final boolean recordPrompts;
+    private final Writer writer;
+    private final AtomicLong recorded = new AtomicLong();
+
+    public ChatTraceRecorder(Path file, boolean recordPrompts) throws IOException {
+        this.file = file;
+        this.recordPrompts = recordPrompts;
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        // A gzip trace is started afresh; appending a second gzip member would also be valid,
+        // but one member per recording keeps the file easy to inspect with zcat.
+        OutputStream out = ChatTrace.isCompressed(file)
+                ? new GZIPOutputStream(Files.newOutputStream(file), 1 << 16, true)
+                : Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        this.writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        log.info("Recording model calls to {}", file.toAbsolutePath());
+    }
+
+    public boolean isRecordingPrompts() {
+        return recordPrompts;
+    }
+
+    public synchronized void record(ChatTrace.Entry entry) {
+        try {
+            writer.write(ChatTrace.MAPPER.writeValueAsString(entry));
+            writer.write('\n');
+            writer.flush();
+            recorded.incrementAndGet();
+        } catch (IOException e) {
+            log.warn("Failed to record model call to {}: {}", file, e.getMessage());
+        }
+    }
+
+    public long getRecorded() {
+        return recorded.get();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+        log.info("Recorded {} model calls to {}", recorded.get(), file.toAbsolutePath());
+    }
+}
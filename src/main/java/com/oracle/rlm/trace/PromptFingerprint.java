@@ -0,0 +1,42 @@
+package com.oracle.rlm.trace;
+
+import com.oracle.rlm.util.Hashes;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.util.regex.Pattern;
+
+/**
+ * Hash identifying a prompt across runs. Values that differ between otherwise identical runs
+ * (environment ids, timestamps, durations) are masked first, so a replayed run finds the
+ * responses recorded for the same trajectory.
+ */
+public final class PromptFingerprint {
+
+    private static final Pattern UUID = Pattern.compile(
+            "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final Pattern TIMESTAMP = Pattern.compile(
+            "\\d{4}-\\d{2}-\\d{2}[T ]\\d{2}:\\d{2}:\\d{2}(?:[.,]\\d+)?(?:Z|[+-]\\d{2}:?\\d{2})?");
+    private static final Pattern DURATION = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\s?ms\\b");
+
+    private PromptFingerprint() {
+    }
+
+    public static String of(Prompt prompt) {
+        StringBuilder text = new StringBuilder();
+        for (Message message : prompt.getInstructions()) {
+            text.append(message.getMessageType().getValue()).append(':')
+                .append(normalize(message.getText())).append('\n');
+        }
+        return Hashes.sha256(text.toString());
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String masked = UUID.matcher(text).replaceAll("<id>");
+        masked = TIMESTAMP.matcher(masked).replaceAll("<time>");
+        return DURATION.matcher(masked).replaceAll("<n>ms");
+    }
+}
@@ -0,0 +1,78 @@
+package com.oracle.rlm.trace;
+
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.stream.Collectors;
+
+/**
+ * Passes calls through to a provider model and records each prompt/response pair, with latency
+ * and token usage, to a {@link ChatTraceRecorder}. Streaming calls are passed through unrecorded.
+ */
+public class RecordingChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final String provider;
+    private final ChatTraceRecorder recorder;
+
+    public RecordingChatModel(ChatModel delegate, String provider, ChatTraceRecorder recorder) {
+        this.delegate = delegate;
+        this.provider = provider;
+        this.recorder = recorder;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        long start = System.nanoTime();
+        ChatResponse response = delegate.call(prompt);
+        long latencyMs = (System.nanoTime() - start) / 1_000_000;
+
+        Usage usage = response.getMetadata() == null ? null : response.getMetadata().getUsage();
+        String text = response.getResult() == null || response.getResult().getOutput() == null
+                ? null : response.getResult().getOutput().getText();
+        ChatOptions options = prompt.getOptions();
+        ChatTrace.Entry.EntryBuilder entry = ChatTrace.Entry.builder()
+                .fingerprint(PromptFingerprint.of(prompt))
+                .provider(provider)
+                .model(options != null && options.getModel() != null ? options.getModel()
+                        : response.getMetadata() == null ? null : blankToNull(response.getMetadata().getModel()))
+                .response(text)
+                .latencyMs(latencyMs)
+                .promptTokens(usage == null ? null : usage.getPromptTokens())
+                .completionTokens(usage == null ? null : usage.getCompletionTokens())
+                .timestamp(System.currentTimeMillis());
+        if (recorder.isRecordingPrompts()) {
+            entry.system(text(prompt, MessageType.SYSTEM)).user(text(prompt, MessageType.USER));
+        }
+        recorder.record(entry.build());
+        return response;
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return delegate.stream(prompt);
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private static String text(Prompt prompt, MessageType type) {
+        String joined = prompt.getInstructions().stream()
+                .filter(m -> m.getMessageType() == type)
+                .map(Message::getText)
+                .collect(Collectors.joining("\n"));
+        return joined.isEmpty() ? null : joined;
+    }
+}
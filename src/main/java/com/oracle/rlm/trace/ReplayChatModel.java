@@ -0,0 +1,110 @@
+package com.oracle.rlm.trace;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves recorded responses by prompt fingerprint, without network access.
+ *
+ * <p>A prompt recorded several times gets its responses in recording order, the last one
+ * repeating. Responses are returned after the recorded latency, or at once with
+ * {@link Latency#ZERO}. A prompt that was never recorded fails the call, or with
+ * {@link Miss#SEQUENTIAL} gets the next response of the trace in order, which keeps a run going
+ * after a prompt change at the cost of exactness.
+ */
+@Slf4j
+public class ReplayChatModel implements ChatModel {
+
+    public enum Latency { ORIGINAL, ZERO }
+
+    public enum Miss { FAIL, SEQUENTIAL }
+
+    private final List<ChatTrace.Entry> entries;
+    private final Map<String, Deque<ChatTrace.Entry>> byFingerprint = new HashMap<>();
+    private final Latency latency;
+    private final Miss miss;
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong missed = new AtomicLong();
+
+    public ReplayChatModel(List<ChatTrace.Entry> entries, Latency latency, Miss miss) {
+        this.entries = List.copyOf(entries);
+        this.latency = latency;
+        this.miss = miss;
+        for (ChatTrace.Entry entry : entries) {
+            byFingerprint.computeIfAbsent(entry.getFingerprint(), f -> new ArrayDeque<>()).add(entry);
+        }
+    }
+
+    public static ReplayChatModel load(Path trace, Latency latency, Miss miss) throws IOException {
+        List<ChatTrace.Entry> entries = ChatTrace.read(trace);
+        log.info("Replaying {} recorded model calls from {} (latency {}, on miss {})",
+                entries.size(), trace.toAbsolutePath(), latency, miss);
+        return new ReplayChatModel(entries, latency, miss);
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        String fingerprint = PromptFingerprint.of(prompt);
+        ChatTrace.Entry entry = next(fingerprint);
+        if (entry == null) {
+            missed.incrementAndGet();
+            if (miss == Miss.FAIL || entries.isEmpty()) {
+                throw new IllegalStateException("No recorded response for prompt " + fingerprint.substring(0, 12)
+                        + " in a trace of " + entries.size() + " calls");
+            }
+            entry = entries.get(Math.floorMod(sequence.getAndIncrement(), entries.size()));
+        }
+        served.incrementAndGet();
+        if (latency == Latency.ORIGINAL && entry.getLatencyMs() > 0) {
+            try {
+                Thread.sleep(entry.getLatencyMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while replaying a model call", e);
+            }
+        }
+        ChatResponseMetadata metadata = ChatResponseMetadata.builder()
+                .model(entry.getModel() == null ? "replay" : entry.getModel())
+                .usage(new DefaultUsage(entry.getPromptTokens(), entry.getCompletionTokens()))
+                .build();
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(
+                entry.getResponse() == null ? "" : entry.getResponse()))), metadata);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("recordedCalls", entries.size());
+        stats.put("distinctPrompts", byFingerprint.size());
+        stats.put("served", served.get());
+        stats.put("missed", missed.get());
+        return stats;
+    }
+
+    private ChatTrace.Entry next(String fingerprint) {
+        Deque<ChatTrace.Entry> recorded = byFingerprint.get(fingerprint);
+        if (recorded == null) {
+            return null;
+        }
+        synchronized (recorded) {
+            return recorded.size() > 1 ? recorded.poll() : recorded.peek();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.oracle.rlm.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Small helpers for building stable content hashes used as cache / dedup keys.
+ */
+public final class Hashes {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private Hashes() {
+    }
+
+    /**
+     * SHA-256 of the UTF-8 bytes of the given text, hex encoded. Null hashes like the empty string.
+     */
+    public static String sha256(String text) {
+        return sha256(text == null ? new byte[0] : text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String sha256(byte[] bytes) {
+        return HEX.formatHex(digest().digest(bytes));
+    }
+
+    /**
+     * Hash several parts as one key. Parts are length-prefixed so ("ab","c") and ("a","bc") differ.
+     */
+    public static String sha256Of(Object... parts) {
+        MessageDigest md = digest();
+        for (Object part : parts) {
+            byte[] bytes = String.valueOf(part).getBytes(StandardCharsets.UTF_8);
+            md.update(Integer.toString(bytes.length).getBytes(StandardCharsets.UTF_8));
+            md.update((byte) ':');
+            md.update(bytes);
+        }
+        return HEX.formatHex(md.digest());
+    }
+
+    public static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.oracle.rlm.util;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size sliding window of recent latencies with percentile lookup.
+ */
+public final class LatencyWindow {
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    public LatencyWindow(int size) {
+        this.samples = new long[Math.max(1, size)];
+    }
+
+    public synchronized void record(long latencyMs) {
+        samples[next] = latencyMs;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    /**
+     * The given percentile (0-100) of the recorded samples, or -1 when empty.
+     */
+    public long percentile(double percentile) {
+        long[] copy;
+        synchronized (this) {
+            if (count == 0) {
+                return -1;
+            }
+            copy = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(copy);
+        int index = (int) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100.0 * copy.length) - 1;
+        return copy[Math.max(0, index)];
+    }
+}
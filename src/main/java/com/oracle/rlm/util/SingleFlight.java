@@ -0,0 +1,191 @@
+package com.oracle.rlm.util;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent executions of the same keyed work: the first caller (the leader) runs it,
+ * callers arriving while it is in flight wait for the leader's result, and callers arriving after
+ * it completed get the stored result until it expires. Failures are never stored, nor are results
+ * the {@code retainIf} predicate rejects.
+ *
+ * @param <V> result type
+ */
+public final class SingleFlight<V> {
+
+    private final ConcurrentHashMap<String, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int purgeThreshold;
+    private final Predicate<? super V> retainIf;
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder joinedInFlight = new LongAdder();
+    private final LongAdder servedCompleted = new LongAdder();
+
+    /**
+     * Completed results are kept forever (for the lifetime of this instance).
+     */
+    public SingleFlight() {
+        this(null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param ttl            how long a completed result stays servable; null keeps it forever,
+     *                       zero only coalesces in-flight calls
+     * @param purgeThreshold number of entries above which expired entries are swept on insert
+     */
+    public SingleFlight(Duration ttl, int purgeThreshold) {
+        this(ttl, purgeThreshold, value -> true);
+    }
+
+    /**
+     * @param retainIf whether a completed result may be served to later callers; rejected results
+     *                 only go to the callers that waited for them
+     * @see #SingleFlight(Duration, int)
+     */
+    public SingleFlight(Duration ttl, int purgeThreshold, Predicate<? super V> retainIf) {
+        this.ttlNanos = ttl == null ? Long.MAX_VALUE : ttl.toNanos();
+        this.purgeThreshold = purgeThreshold;
+        this.retainIf = retainIf;
+    }
+
+    /**
+     * Run {@code work} for {@code key} unless an identical call is in flight or recently completed.
+     * Exceptions thrown by the work propagate to the leader and to every waiter.
+     */
+    public Flight<V> execute(String key, Supplier<V> work) {
+        return execute(key, work, null);
+    }
+
+    /**
+     * Like {@link #execute(String, Supplier)}, but waits at most {@code maxWait} for an in-flight
+     * leader before giving up with {@link WaitTimeoutException}. Null waits indefinitely.
+     */
+    public Flight<V> execute(String key, Supplier<V> work, Duration maxWait) {
+        while (true) {
+            Entry<V> existing = entries.get(key);
+            if (existing != null) {
+                if (!existing.future.isDone()) {
+                    joinedInFlight.increment();
+                    return new Flight<>(await(existing.future, maxWait), true);
+                }
+                if (!existing.isExpired(ttlNanos)) {
+                    servedCompleted.increment();
+                    return new Flight<>(await(existing.future, null), true);
+                }
+                entries.remove(key, existing);
+                continue;
+            }
+
+            Entry<V> mine = new Entry<>();
+            if (entries.putIfAbsent(key, mine) != null) {
+                continue;
+            }
+            if (entries.size() > purgeThreshold) {
+                purgeExpired();
+            }
+
+            executed.increment();
+            try {
+                V value = work.get();
+                mine.completedAtNanos = System.nanoTime();
+                mine.future.complete(value);
+                if (ttlNanos == 0 || !retainIf.test(value)) {
+                    entries.remove(key, mine);
+                }
+                return new Flight<>(value, false);
+            } catch (RuntimeException | Error e) {
+                entries.remove(key, mine);
+                mine.future.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    public long getExecuted() {
+        return executed.sum();
+    }
+
+    public long getJoinedInFlight() {
+        return joinedInFlight.sum();
+    }
+
+    public long getServedCompleted() {
+        return servedCompleted.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void purgeExpired() {
+        entries.values().removeIf(e -> e.future.isDone() && e.isExpired(ttlNanos));
+    }
+
+    private static <V> V await(CompletableFuture<V> future, Duration maxWait) {
+        try {
+            return maxWait == null ? future.get() : future.get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new WaitTimeoutException("Timed out after " + maxWait + " waiting for in-flight call");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for in-flight call", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            if (cause instanceof Error err) {
+                throw err;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+
+    private static final class Entry<V> {
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        volatile long completedAtNanos;
+
+        boolean isExpired(long ttlNanos) {
+            return ttlNanos != Long.MAX_VALUE && System.nanoTime() - completedAtNanos >= ttlNanos;
+        }
+    }
+
+    /**
+     * Thrown to a waiter whose {@code maxWait} elapsed before the leader finished.
+     */
+    public static class WaitTimeoutException extends RuntimeException {
+        public WaitTimeoutException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Result of {@link #execute}: the value, and whether it came from another caller's execution.
+     */
+    public static final class Flight<V> {
+        private final V value;
+        private final boolean shared;
+
+        Flight(V value, boolean shared) {
+            this.value = value;
+            this.shared = shared;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        public boolean isShared() {
+            return shared;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.oracle.rlm.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+
+/**
+ * Resolves file names given by the model against an environment's work directory, keeping them
+ * inside it.
+ */
+public final class WorkspacePaths {
+
+    private WorkspacePaths() {
+    }
+
+    /**
+     * The normalized path of {@code name} under {@code workDir}, or null if it is the work directory
+     * itself or lies outside it, lexically ({@code ../}, absolute paths) or through a symlink.
+     *
+     * @throws java.nio.file.InvalidPathException if {@code name} is not a valid path
+     * @throws IOException if a symlink on the way cannot be resolved (e.g. it dangles)
+     */
+    public static Path resolve(Path workDir, String name) throws IOException {
+        Path root = workDir.toAbsolutePath().normalize();
+        Path target = root.resolve(name).normalize();
+        if (!target.startsWith(root) || target.equals(root)) {
+            return null;
+        }
+        Path existing = target;
+        while (existing != null && !Files.exists(existing, LinkOption.NOFOLLOW_LINKS)) {
+            existing = existing.getParent();
+        }
+        return existing != null && existing.toRealPath().startsWith(root.toRealPath()) ? target : null;
+    }
+}
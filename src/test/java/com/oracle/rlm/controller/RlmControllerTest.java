@@ -0,0 +1,73 @@
+package com.oracle.rlm.controller;
+
+import com.oracle.rlm.core.RlmEnvironmentStore;
+import com.oracle.rlm.core.RunNotResumableException;
+import com.oracle.rlm.core.impl.CheckpointStore;
+import com.oracle.rlm.core.impl.ContextBlobStore;
+import com.oracle.rlm.core.impl.ExecutionScheduler;
+import com.oracle.rlm.core.impl.RunCheckpoint;
+import com.oracle.rlm.core.impl.SandboxLauncher;
+import com.oracle.rlm.model.RlmResponse;
+import com.oracle.rlm.routing.ModelRouter;
+import com.oracle.rlm.service.RlmService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RlmControllerTest {
+
+    private static final String RUN_ID = "run-1";
+
+    private final RlmService rlmService = mock(RlmService.class);
+    private final CheckpointStore checkpointStore = mock(CheckpointStore.class);
+    private final RlmController controller = new RlmController(rlmService, mock(ModelRouter.class),
+            mock(SandboxLauncher.class), mock(ExecutionScheduler.class), mock(ContextBlobStore.class),
+            mock(RlmEnvironmentStore.class), checkpointStore);
+
+    @Test
+    void resumeOfARunWhoseEnvironmentWasDeletedReturnsGone() {
+        when(rlmService.resume(RUN_ID)).thenThrow(new RunNotResumableException("Environment e no longer exists"));
+
+        ResponseEntity<RlmResponse> response = controller.resumeRun(RUN_ID);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.GONE);
+        assertThat(response.getBody().getResumable()).isFalse();
+    }
+
+    @Test
+    void resumeOfARunStillInProgressConflicts() {
+        when(rlmService.resume(RUN_ID)).thenThrow(new IllegalStateException("Run run-1 is still in progress"));
+
+        assertThat(controller.resumeRun(RUN_ID).getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void failedResumeIsResumableOnlyWhileItsCheckpointIsInterrupted() {
+        when(rlmService.resume(RUN_ID)).thenThrow(new RuntimeException("RLM execution failed"));
+
+        when(checkpointStore.load(RUN_ID)).thenReturn(Optional.of(checkpoint(RunCheckpoint.Status.INTERRUPTED)));
+        ResponseEntity<RlmResponse> interrupted = controller.resumeRun(RUN_ID);
+        when(checkpointStore.load(RUN_ID)).thenReturn(Optional.of(checkpoint(RunCheckpoint.Status.COMPLETED)));
+        ResponseEntity<RlmResponse> completed = controller.resumeRun(RUN_ID);
+        when(checkpointStore.load(RUN_ID)).thenReturn(Optional.empty());
+        ResponseEntity<RlmResponse> missing = controller.resumeRun(RUN_ID);
+
+        assertThat(interrupted.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(interrupted.getBody().getResumable()).isTrue();
+        assertThat(completed.getBody().getResumable()).isFalse();
+        assertThat(missing.getBody().getResumable()).isFalse();
+    }
+
+    private static RunCheckpoint checkpoint(RunCheckpoint.Status status) {
+        RunCheckpoint run = new RunCheckpoint();
+        run.setRunId(RUN_ID);
+        run.setStatus(status);
+        return run;
+    }
+}
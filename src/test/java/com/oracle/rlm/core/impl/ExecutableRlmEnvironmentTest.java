@@ -0,0 +1,187 @@
+package com.oracle.rlm.core.impl;
+
+import com.oracle.rlm.core.ActionObservation;
+import com.oracle.rlm.core.ToolCall;
+import com.oracle.rlm.core.ToolResult;
+import com.oracle.rlm.scan.ContextScanner;
+import com.oracle.rlm.util.Hashes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExecutableRlmEnvironmentTest {
+
+    private static final String CONTEXT = "shared context\nline two\n";
+
+    @TempDir
+    Path blobDir;
+
+    private ContextBlobStore blobStore;
+    private final List<ExecutableRlmEnvironment> environments = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        blobStore = new ContextBlobStore(blobDir, true, Long.MAX_VALUE);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (ExecutableRlmEnvironment env : environments) {
+            env.release();
+            FileSystemUtils.deleteRecursively(ExecutableRlmEnvironment.workDirectory(env.getId()));
+        }
+    }
+
+    // Steps would run with the blob links read-only, so the store hands out hard links.
+    private ExecutableRlmEnvironment newEnvironment() {
+        SandboxLauncher launcher = new SandboxLauncher(new ProcessRunner(4096), null) {
+            @Override
+            public boolean protectsReadOnlyPaths() {
+                return true;
+            }
+        };
+        ExecutableRlmEnvironment env = new ExecutableRlmEnvironment(UUID.randomUUID().toString(), "test",
+                launcher, new ExecutionScheduler(1), new ContextScanner(ForkJoinPool.commonPool()), blobStore,
+                EnvironmentSettings.builder().build());
+        environments.add(env);
+        return env;
+    }
+
+    @Test
+    void writingTheContextThroughAnEquivalentPathBreaksTheLink() throws IOException {
+        for (String name : List.of("context.txt", "./context.txt", "sub/../context.txt")) {
+            ExecutableRlmEnvironment env = newEnvironment();
+            env.setFullContext(CONTEXT);
+            Path blob = blobOf(env);
+
+            ToolResult result = env.writeFile(name, "rewritten");
+
+            assertThat(result.isSuccess()).as(name).isTrue();
+            assertThat(Files.readString(blob)).as(name).isEqualTo(CONTEXT);
+            assertThat(env.getFullContext()).as(name).isEqualTo("rewritten");
+            assertThat(env.getContextHash()).as(name).isEqualTo(Hashes.sha256("rewritten"));
+        }
+    }
+
+    @Test
+    void writesOutsideTheWorkspaceAreRejected() throws IOException {
+        ExecutableRlmEnvironment victim = newEnvironment();
+        victim.setFullContext(CONTEXT);
+        ExecutableRlmEnvironment env = newEnvironment();
+
+        for (String name : List.of("../rlm_env_" + victim.getId() + "/context.txt", "/tmp/escape.txt", "..", ".")) {
+            assertThat(env.writeFile(name, "rewritten").isSuccess()).as(name).isFalse();
+        }
+        assertThat(victim.getFullContext()).isEqualTo(CONTEXT);
+        assertThat(Files.readString(blobOf(victim))).isEqualTo(CONTEXT);
+    }
+
+    @Test
+    void writingAnotherHardLinkToTheBlobLeavesTheBlobIntact() throws IOException {
+        ExecutableRlmEnvironment env = newEnvironment();
+        env.setFullContext(CONTEXT);
+        Path blob = blobOf(env);
+        Path alias = ExecutableRlmEnvironment.workDirectory(env.getId()).resolve("alias.txt");
+        Files.createLink(alias, blob);
+
+        assertThat(env.writeFile("alias.txt", "rewritten").isSuccess()).isTrue();
+
+        assertThat(Files.readString(blob)).isEqualTo(CONTEXT);
+        assertThat(Files.readString(alias)).isEqualTo("rewritten");
+        assertThat(env.getFullContext()).isEqualTo(CONTEXT);
+    }
+
+    @Test
+    void childStillSharesTheBlobAfterParentWritesOtherFiles() throws IOException {
+        ExecutableRlmEnvironment parent = newEnvironment();
+        parent.setFullContext(CONTEXT);
+        parent.writeFile("notes.txt", "unrelated");
+
+        ExecutableRlmEnvironment child = newEnvironment();
+        child.shareContextFrom(parent);
+
+        assertThat(child.getFullContext()).isEqualTo(CONTEXT);
+        assertThat(blobStore.isLinked(Hashes.sha256(CONTEXT), child.getContextFile())).isTrue();
+    }
+
+    @Test
+    void largeRangedReadIsSpilledNotPointedAtTheWholeFile() throws IOException {
+        ExecutableRlmEnvironment env = newEnvironment();
+        String slice = "x".repeat(EnvironmentSettings.builder().build().getSpillThresholdChars() + 10);
+
+        env.addObservation(readFileObservation("read_file(\"context.txt\", 1, 900)", slice));
+        env.addObservation(readFileObservation("context.txt", slice));
+
+        ToolResult ranged = env.getHistory().get(0).getObservation();
+        ToolResult whole = env.getHistory().get(1).getObservation();
+        assertThat(ranged.getSpillFile()).isEqualTo("obs_1.txt");
+        assertThat(Files.readString(ExecutableRlmEnvironment.workDirectory(env.getId()).resolve("obs_1.txt")))
+                .isEqualTo(slice);
+        assertThat(whole.getSpillFile()).isEqualTo("context.txt");
+    }
+
+    @Test
+    void readOutsideTheWorkspaceIsNeverUsedAsSpillFile() {
+        ExecutableRlmEnvironment env = newEnvironment();
+        String output = "x".repeat(EnvironmentSettings.builder().build().getSpillThresholdChars() + 10);
+
+        assertThat(env.readFile("../pom.xml").isSuccess()).isFalse();
+        env.addObservation(readFileObservation("../pom.xml", output));
+
+        assertThat(env.getHistory().get(0).getObservation().getSpillFile()).isEqualTo("obs_1.txt");
+    }
+
+    @Test
+    void changesFromEveryActionOfABatchedStepAreListed() {
+        ExecutableRlmEnvironment env = newEnvironment();
+        env.writeFile("old.txt", "from step 1");
+        env.addObservation(writeObservation(1, 0, "old.txt"));
+
+        env.writeFile("a.py", "print('a')");
+        env.addObservation(writeObservation(2, 0, "a.py"));
+        env.writeFile("b.txt", "b");
+        env.addObservation(writeObservation(2, 1, "b.txt"));
+
+        String info = env.getEnvironmentInfo();
+
+        assertThat(info).contains("History Steps: 2");
+        String changed = info.lines().filter(l -> l.startsWith("Files Changed Since Last Step:"))
+                .findFirst().orElseThrow();
+        assertThat(changed).contains("a.py", "b.txt").doesNotContain("old.txt");
+    }
+
+    private static ActionObservation writeObservation(int step, int actionIndex, String file) {
+        return ActionObservation.builder()
+                .step(step)
+                .actionIndex(actionIndex)
+                .action(ToolCall.builder().toolName("write_file").code(file).build())
+                .observation(ToolResult.builder().success(true).output("written").build())
+                .build();
+    }
+
+    private static ActionObservation readFileObservation(String code, String output) {
+        return ActionObservation.builder()
+                .step(1)
+                .action(ToolCall.builder().toolName("read_file").code(code).build())
+                .observation(ToolResult.builder().success(true).output(output).build())
+                .build();
+    }
+
+    private Path blobOf(ExecutableRlmEnvironment env) {
+        String hash = Hashes.sha256(CONTEXT);
+        assertThat(blobStore.isLinked(hash, env.getContextFile())).isTrue();
+        return blobDir.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+}
@@ -0,0 +1,152 @@
+package com.oracle.rlm.core.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExecutionSchedulerTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(10);
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Instant deadline = Instant.now().plusSeconds(60);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void grantsFreeSlotsAndTimesOutWhenFull() throws Exception {
+        ExecutionScheduler scheduler = new ExecutionScheduler(2);
+        ExecutionScheduler.Slot first = scheduler.acquire("a", 0, deadline, WAIT);
+        ExecutionScheduler.Slot second = scheduler.acquire("b", 0, deadline, WAIT);
+
+        assertThat(scheduler.acquire("c", 0, deadline, Duration.ofMillis(20))).isNull();
+        assertThat(scheduler.stats()).containsEntry("running", 2).containsEntry("waiting", 0)
+                .containsEntry("timedOut", 1L).containsEntry("activeRequests", 2);
+
+        first.close();
+        first.close();
+        second.close();
+        assertThat(scheduler.stats()).containsEntry("running", 0).containsEntry("activeRequests", 0);
+    }
+
+    @Test
+    void freedSlotGoesToTheGroupHoldingFewest() throws Exception {
+        ExecutionScheduler scheduler = new ExecutionScheduler(2);
+        ExecutionScheduler.Slot a1 = scheduler.acquire("a", 0, deadline, WAIT);
+        ExecutionScheduler.Slot a2 = scheduler.acquire("a", 0, deadline, WAIT);
+        Future<ExecutionScheduler.Slot> a3 = queue(scheduler, "a", 0, deadline, 1);
+        Future<ExecutionScheduler.Slot> b1 = queue(scheduler, "b", 0, deadline, 2);
+
+        // "a" still holds one slot after the release, "b" holds none
+        a1.close();
+        assertThat(b1.get(5, TimeUnit.SECONDS)).isNotNull();
+        assertThat(a3.isDone()).isFalse();
+
+        a2.close();
+        assertThat(a3.get(5, TimeUnit.SECONDS)).isNotNull();
+    }
+
+    @Test
+    void tiedGroupsAreServedLeastRecentlyFirst() throws Exception {
+        ExecutionScheduler scheduler = new ExecutionScheduler(1);
+        ExecutionScheduler.Slot held = scheduler.acquire("a", 0, deadline, WAIT);
+        Future<ExecutionScheduler.Slot> a2 = queue(scheduler, "a", 0, deadline, 1);
+        Future<ExecutionScheduler.Slot> b1 = queue(scheduler, "b", 0, deadline, 2);
+
+        held.close();
+        ExecutionScheduler.Slot granted = b1.get(5, TimeUnit.SECONDS);
+        assertThat(a2.isDone()).isFalse();
+
+        granted.close();
+        assertThat(a2.get(5, TimeUnit.SECONDS)).isNotNull();
+    }
+
+    @Test
+    void withinGroupEarliestDeadlineThenDeepestGoesFirst() throws Exception {
+        ExecutionScheduler scheduler = new ExecutionScheduler(1);
+        ExecutionScheduler.Slot held = scheduler.acquire("a", 0, deadline, WAIT);
+        Future<ExecutionScheduler.Slot> late = queue(scheduler, "a", 0, deadline, 1);
+        Future<ExecutionScheduler.Slot> early = queue(scheduler, "a", 0, deadline.minusSeconds(30), 2);
+        Future<ExecutionScheduler.Slot> lateDeep = queue(scheduler, "a", 3, deadline, 3);
+
+        held.close();
+        ExecutionScheduler.Slot next = early.get(5, TimeUnit.SECONDS);
+        assertThat(late.isDone()).isFalse();
+        assertThat(lateDeep.isDone()).isFalse();
+
+        next.close();
+        next = lateDeep.get(5, TimeUnit.SECONDS);
+        assertThat(late.isDone()).isFalse();
+
+        next.close();
+        assertThat(late.get(5, TimeUnit.SECONDS)).isNotNull();
+    }
+
+    @Test
+    void slotGrantedToAnInterruptedWaiterIsPassedOn() throws Exception {
+        ExecutionScheduler scheduler = new ExecutionScheduler(1);
+        ReentrantLock lock = (ReentrantLock) ReflectionTestUtils.getField(scheduler, "lock");
+        ExecutionScheduler.Slot held = scheduler.acquire("a", 0, deadline, WAIT);
+
+        AtomicReference<Object> abandoned = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                abandoned.set(scheduler.acquire("b", 0, deadline, WAIT));
+            } catch (InterruptedException e) {
+                abandoned.set(e);
+            }
+        });
+        waiter.start();
+        waitUntil(() -> (int) scheduler.stats().get("waiting") == 1);
+        Future<ExecutionScheduler.Slot> next = queue(scheduler, "c", 0, deadline, 2);
+
+        // Interrupt the waiter while the lock is held so it cannot leave the queue, then hand it
+        // the slot: once it gets the lock back it has been granted and interrupted at once.
+        lock.lock();
+        try {
+            waiter.interrupt();
+            waitUntil(() -> lock.hasQueuedThread(waiter));
+            held.close();
+        } finally {
+            lock.unlock();
+        }
+        waiter.join(5000);
+
+        assertThat(abandoned.get()).isInstanceOf(InterruptedException.class);
+        assertThat(next.get(5, TimeUnit.SECONDS)).isNotNull();
+        assertThat(scheduler.stats()).containsEntry("running", 1).containsEntry("waiting", 0)
+                .containsEntry("activeRequests", 1);
+    }
+
+    // Start a waiter and return once the scheduler counts it as queued.
+    private Future<ExecutionScheduler.Slot> queue(ExecutionScheduler scheduler, String group, int depth,
+                                                  Instant stepDeadline, int expectedWaiting) throws InterruptedException {
+        Future<ExecutionScheduler.Slot> future =
+                executor.submit(() -> scheduler.acquire(group, depth, stepDeadline, WAIT));
+        waitUntil(() -> (int) scheduler.stats().get("waiting") == expectedWaiting);
+        return future;
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not reached in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
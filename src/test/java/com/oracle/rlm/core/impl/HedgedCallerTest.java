@@ -0,0 +1,78 @@
+package com.oracle.rlm.core.impl;
+
+import com.oracle.rlm.config.RlmConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HedgedCallerTest {
+
+    private static final Predicate<String> JSON = response -> response.startsWith("{");
+
+    private final HedgedCaller caller = new HedgedCaller(config());
+    private final HedgeBudget budget = new HedgeBudget(100, 1);
+
+    private static RlmConfig config() {
+        RlmConfig config = new RlmConfig();
+        config.getHedging().setEnabled(true);
+        config.getHedging().setInitialDelayMs(50);
+        config.getHedging().setMinDelayMs(50);
+        return config;
+    }
+
+    @AfterEach
+    void tearDown() {
+        caller.shutdown();
+    }
+
+    private String call(Supplier<String> primary, Supplier<String> hedge) {
+        return caller.call(primary, hedge, JSON, budget, Deadline.after(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void invalidEarlyResponseDoesNotBeatValidHedge() {
+        String response = call(after(150, "not json"), after(300, "{\"tool\":\"bash\"}"));
+
+        assertThat(response).isEqualTo("{\"tool\":\"bash\"}");
+        assertThat(budget.getHedgesWon()).isEqualTo(1);
+    }
+
+    @Test
+    void lastResponseIsPassedThroughWhenNoneIsValid() {
+        String response = call(after(150, "primary"), after(250, "hedge"));
+
+        assertThat(response).isEqualTo("hedge");
+        assertThat(budget.getHedgesWon()).isZero();
+    }
+
+    @Test
+    void fastValidResponseIsNotHedged() {
+        AtomicInteger hedges = new AtomicInteger();
+
+        String response = call(() -> "{}", () -> {
+            hedges.incrementAndGet();
+            return "{\"late\":true}";
+        });
+
+        assertThat(response).isEqualTo("{}");
+        assertThat(hedges).hasValue(0);
+        assertThat(budget.getHedges()).isZero();
+    }
+
+    private static Supplier<String> after(long millis, String response) {
+        return () -> {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return response;
+        };
+    }
+}
@@ -0,0 +1,152 @@
+package com.oracle.rlm.core.impl;
+
+import com.oracle.rlm.core.ActionObservation;
+import com.oracle.rlm.core.ToolResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ObservationLogTest {
+
+    private static ActionObservation observation(int step, String output) {
+        return ActionObservation.builder()
+                .step(step)
+                .observation(ToolResult.builder().success(true).output(output).build())
+                .build();
+    }
+
+    @Test
+    void appendsAcrossChunkBoundariesInOrder() {
+        ObservationLog log = new ObservationLog(0, 0);
+
+        // chunks hold 16, 32, 64, ... entries, so 200 appends span four of them
+        for (int i = 0; i < 200; i++) {
+            assertThat(log.append(observation(i, "out" + i))).isEqualTo(i);
+        }
+
+        assertThat(log.size()).isEqualTo(200);
+        for (int index : new int[]{0, 15, 16, 47, 48, 111, 112, 199}) {
+            assertThat(log.get(index).getStep()).isEqualTo(index);
+        }
+    }
+
+    @Test
+    void snapshotDoesNotSeeLaterAppends() {
+        ObservationLog log = new ObservationLog(0, 0);
+        log.append(observation(0, "a"));
+        log.append(observation(1, "b"));
+
+        List<ActionObservation> snapshot = log.snapshot();
+        log.append(observation(2, "c"));
+
+        assertThat(snapshot).extracting(ActionObservation::getStep).containsExactly(0, 1);
+        assertThat(log.snapshot()).hasSize(3);
+        assertThatThrownBy(() -> snapshot.get(2)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> snapshot.add(observation(3, "d"))).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void sinceAndSubListAreOffsetViews() {
+        ObservationLog log = new ObservationLog(0, 0);
+        for (int i = 0; i < 40; i++) {
+            log.append(observation(i, "out" + i));
+        }
+
+        List<ActionObservation> since = log.since(30);
+
+        assertThat(since).extracting(ActionObservation::getStep).containsExactly(30, 31, 32, 33, 34, 35, 36, 37, 38, 39);
+        assertThat(since.subList(2, 4)).extracting(ActionObservation::getStep).containsExactly(32, 33);
+        assertThat(log.since(100)).isEmpty();
+        assertThat(log.since(-5)).hasSize(40);
+        assertThatThrownBy(() -> since.subList(5, 11)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    void concurrentAppendsPublishEveryEntryOnce() throws Exception {
+        ObservationLog log = new ObservationLog(0, 0);
+        int writers = 8;
+        int perWriter = 2_000;
+        ExecutorService pool = Executors.newFixedThreadPool(writers + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perWriter; i++) {
+                        log.append(observation(writer * perWriter + i, null));
+                    }
+                    return null;
+                }));
+            }
+            // a concurrent reader must only ever see a fully written prefix
+            Future<?> reader = pool.submit(() -> {
+                start.await();
+                while (log.size() < writers * perWriter) {
+                    for (ActionObservation entry : log.snapshot()) {
+                        assertThat(entry).isNotNull();
+                    }
+                }
+                return null;
+            });
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            reader.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Set<Integer> steps = new HashSet<>();
+        for (ActionObservation entry : log.snapshot()) {
+            steps.add(entry.getStep());
+        }
+        assertThat(log.size()).isEqualTo(writers * perWriter);
+        assertThat(steps).hasSize(writers * perWriter);
+    }
+
+    @Test
+    void oldPayloadsAreCompressedAndReadBackUnchanged() {
+        ObservationLog log = new ObservationLog(2, 100);
+        String large = "row,value\n".repeat(500);
+        ActionObservation big = observation(0, large).toBuilder().thought("scan").build();
+        big.getObservation().setError("warning\n".repeat(20));
+        ActionObservation small = observation(1, "short");
+
+        log.append(big);
+        log.append(small);
+        assertThat(log.get(0)).isSameAs(big);
+
+        log.append(observation(2, "x"));
+        log.append(observation(3, "y"));
+
+        // index 0 is now two appends old and large enough, so reads inflate a copy
+        assertThat(log.get(0)).isNotSameAs(big).isEqualTo(big);
+        // index 1 is below the size threshold and is kept as it was
+        assertThat(log.get(1)).isSameAs(small);
+        assertThat(log.snapshot().get(0).getObservation().getOutput()).isEqualTo(large);
+    }
+
+    @Test
+    void deflateRoundTripsTextAndNull() {
+        String text = "naïve café € ".repeat(100);
+
+        assertThat(ObservationLog.inflate(ObservationLog.deflate(text))).isEqualTo(text);
+        assertThat(ObservationLog.inflate(ObservationLog.deflate(""))).isEmpty();
+        assertThat(ObservationLog.deflate(null)).isNull();
+        assertThat(ObservationLog.inflate(null)).isNull();
+    }
+}
@@ -0,0 +1,102 @@
+package com.oracle.rlm.core.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProcessRunnerTest {
+
+    private static ProcessRunner.BoundedCapture capture(int limit, String... chunks) {
+        ProcessRunner.BoundedCapture capture = new ProcessRunner.BoundedCapture(limit);
+        for (String chunk : chunks) {
+            byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+            capture.append(bytes, bytes.length);
+        }
+        return capture;
+    }
+
+    @Test
+    void outputWithinTheLimitIsKeptWhole() {
+        ProcessRunner.BoundedCapture capture = capture(10, "abcd", "efghij");
+
+        assertThat(capture.text()).isEqualTo("abcdefghij");
+        assertThat(capture.dropped()).isZero();
+    }
+
+    @Test
+    void largeChunkKeepsHeadAndTail() {
+        ProcessRunner.BoundedCapture capture = capture(10, "0123456789abcdefghij");
+
+        assertThat(capture.dropped()).isEqualTo(10);
+        assertThat(capture.text()).isEqualTo("01234\n... [10 bytes omitted of 20] ...\nfghij");
+    }
+
+    @Test
+    void ringWrapsAcrossManySmallAppends() {
+        String[] chunks = new String[50];
+        StringBuilder all = new StringBuilder();
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = String.format("%03d;", i);
+            all.append(chunks[i]);
+        }
+
+        ProcessRunner.BoundedCapture capture = capture(20, chunks);
+
+        assertThat(capture.dropped()).isEqualTo(all.length() - 20);
+        assertThat(capture.text()).startsWith(all.substring(0, 10) + "\n... [")
+                .endsWith("] ...\n" + all.substring(all.length() - 10));
+    }
+
+    @Test
+    void tailReachingItsFullSizeWithoutLossStaysContiguous() {
+        ProcessRunner.BoundedCapture capture = capture(8, "ab", "cdef", "gh");
+
+        assertThat(capture.dropped()).isZero();
+        assertThat(capture.text()).isEqualTo("abcdefgh");
+    }
+
+    @Test
+    void multiByteCharactersCutAtEitherEdgeAreTrimmed() {
+        // "é" and "€" are 2 and 3 bytes: the 5-byte head ends inside "é", the 5-byte tail starts inside "€"
+        ProcessRunner.BoundedCapture capture = capture(10, "abcdé", "xxxxxxxx", "€xyz");
+
+        String text = capture.text();
+
+        assertThat(text).doesNotContain("�");
+        assertThat(text).startsWith("abcd\n...").endsWith("...\nxyz");
+    }
+
+    @Test
+    void drainReadsTheWholeStream() {
+        ProcessRunner.BoundedCapture capture = new ProcessRunner.BoundedCapture(1 << 20);
+        byte[] data = "line\n".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+
+        capture.drain(new ByteArrayInputStream(data));
+
+        assertThat(capture.text()).hasSize(data.length);
+    }
+
+    @Test
+    void captureLimitBelowTwoIsRejected() {
+        assertThatThrownBy(() -> new ProcessRunner(1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void runCapturesBothStreamsOfAProcess() throws Exception {
+        ProcessRunner.Outcome outcome = new ProcessRunner(64).run(
+                List.of("bash", "-c", "printf 'out'; printf 'err' >&2; head -c 1000 /dev/zero | tr '\\\\0' x"),
+                Path.of("."), Duration.ofSeconds(10));
+
+        assertThat(outcome.getExitCode()).isZero();
+        assertThat(outcome.getStderr()).isEqualTo("err");
+        assertThat(outcome.getStdout()).startsWith("out").contains("bytes omitted of 1003");
+        assertThat(outcome.getDroppedBytes()).isEqualTo(1003 - 64);
+    }
+}
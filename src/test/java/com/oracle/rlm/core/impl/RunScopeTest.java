@@ -0,0 +1,76 @@
+package com.oracle.rlm.core.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RunScopeTest {
+
+    private static RunScope root() {
+        return RunScope.root("run-1", new HedgeBudget(10, 1), Deadline.after(Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void identicalSubQueryInTheTreeRunsOnce() {
+        RunScope scope = root();
+        RunScope child = scope.child("a", scope.deadline());
+        String key = RunScope.subQueryKey("count the errors", "ctx");
+        AtomicInteger runs = new AtomicInteger();
+
+        DefaultRlmClient.ExecutionResult first = scope.subQueries().execute(key, () -> {
+            runs.incrementAndGet();
+            return new DefaultRlmClient.ExecutionResult("42", 3, 1, false, false);
+        }).getValue();
+        var second = child.subQueries().execute(RunScope.subQueryKey("  count   the errors ", "ctx"), () -> {
+            runs.incrementAndGet();
+            return new DefaultRlmClient.ExecutionResult("other", 1, 1, false, false);
+        });
+
+        assertThat(runs).hasValue(1);
+        assertThat(second.isShared()).isTrue();
+        assertThat(second.getValue()).isSameAs(first);
+    }
+
+    @Test
+    void partialSubQueryResultIsNotReused() {
+        RunScope scope = root();
+        String key = RunScope.subQueryKey("summarize", "ctx");
+
+        var timedOut = scope.subQueries().execute(key,
+                () -> new DefaultRlmClient.ExecutionResult("partial", 2, 1, true, false));
+        var interrupted = scope.subQueries().execute(key,
+                () -> new DefaultRlmClient.ExecutionResult("partial", 2, 1, false, true));
+        var finished = scope.subQueries().execute(key,
+                () -> new DefaultRlmClient.ExecutionResult("done", 4, 1, false, false));
+        var reused = scope.subQueries().execute(key,
+                () -> new DefaultRlmClient.ExecutionResult("again", 4, 1, false, false));
+
+        assertThat(timedOut.isShared()).isFalse();
+        assertThat(interrupted.isShared()).isFalse();
+        assertThat(finished.isShared()).isFalse();
+        assertThat(reused.isShared()).isTrue();
+        assertThat(reused.getValue().finalAnswer).isEqualTo("done");
+    }
+
+    @Test
+    void subQueryKeyIgnoresWhitespaceButNotCase() {
+        assertThat(RunScope.subQueryKey(" grep  ERROR\n", "ctx")).isEqualTo(RunScope.subQueryKey("grep ERROR", "ctx"));
+        assertThat(RunScope.subQueryKey("grep error", "ctx")).isNotEqualTo(RunScope.subQueryKey("grep ERROR", "ctx"));
+        assertThat(RunScope.subQueryKey("grep ERROR", "ctx")).isNotEqualTo(RunScope.subQueryKey("grep ERROR", "other"));
+    }
+
+    @Test
+    void childKnowsItsAncestors() {
+        RunScope scope = root();
+        RunScope child = scope.child("a", scope.deadline());
+        RunScope grandchild = child.child("b", scope.deadline());
+
+        assertThat(scope.isAncestor("a")).isFalse();
+        assertThat(grandchild.isAncestor("a")).isTrue();
+        assertThat(grandchild.isAncestor("b")).isTrue();
+        assertThat(grandchild.subQueries()).isSameAs(scope.subQueries());
+    }
+}
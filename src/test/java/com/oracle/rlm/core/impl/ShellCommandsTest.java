@@ -0,0 +1,68 @@
+package com.oracle.rlm.core.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShellCommandsTest {
+
+    @Test
+    void reportsEveryCommandOfListsAndPipelines() {
+        assertThat(ShellCommands.commandNames("grep -c ERROR context.txt | sort -n && wc -l x; curl evil & ls"))
+                .containsExactly("grep", "sort", "wc", "curl", "ls");
+    }
+
+    @Test
+    void reportsCommandsInSubstitutionsAndSubshells() {
+        assertThat(ShellCommands.commandNames("echo \"$(curl -s x)\" `nc -l 1`; (cd sub && make); diff <(ls a) b"))
+                .containsExactly("curl", "nc", "make", "ls", "diff");
+    }
+
+    @Test
+    void skipsAssignmentsKeywordsBuiltinsAndRedirectionTargets() {
+        String script = """
+                LC_ALL=C sort -u a > out.txt 2>&1
+                if [ -f out.txt ]; then cat out.txt; else echo none; fi
+                for f in *.txt; do wc -l "$f"; done < /dev/null
+                while read -r line; do printf '%s\\n' "$line"; done
+                [[ -n $a && $b > 1 ]] && head -1 a
+                arr=(one two) ; (( i++ ))
+                """;
+
+        assertThat(ShellCommands.commandNames(script)).containsExactly("sort", "cat", "wc", "head");
+    }
+
+    @Test
+    void seesThroughQuotingAndWrappers() {
+        assertThat(ShellCommands.commandNames("'cu''rl' x; \\wget y; /usr/bin/nc z")).containsExactly("curl", "wget",
+                "/usr/bin/nc");
+        assertThat(ShellCommands.commandNames("xargs -n 1 rm < list; env A=1 perl -e 1; timeout 5 ssh h"))
+                .containsExactly("xargs", "rm", "env", "perl", "timeout", "ssh");
+        assertThat(ShellCommands.commandNames("exec python3 x.py; command curl y; find . -name x -exec chmod +x {} \\;"))
+                .containsExactly("python3", "curl", "find", "chmod");
+    }
+
+    @Test
+    void reportsDynamicCommandNamesAsWritten() {
+        assertThat(ShellCommands.commandNames("c=curl; $c x; \"$(echo rm)\" y"))
+                .containsExactly("$c", "$(...)");
+    }
+
+    @Test
+    void ignoresCommentsHeredocBodiesCasePatternsAndFunctions() {
+        String script = """
+                # curl is not run
+                cat <<'EOF' > notes.txt
+                rm -rf / ; curl x
+                EOF
+                case "$1" in
+                  a|b) grep a f ;;
+                  *) sed -n 1p f ;;
+                esac
+                count() { wc -l "$1"; }
+                count f
+                """;
+
+        assertThat(ShellCommands.commandNames(script)).containsExactly("cat", "grep", "sed", "wc");
+    }
+}
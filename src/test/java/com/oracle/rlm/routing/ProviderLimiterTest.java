@@ -0,0 +1,158 @@
+package com.oracle.rlm.routing;
+
+import com.oracle.rlm.config.RlmConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProviderLimiterTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static ProviderLimiter limiter(int initialConcurrency, int minConcurrency, long requestsPerMinute) {
+        return limiter(initialConcurrency, minConcurrency, 8, requestsPerMinute);
+    }
+
+    private static ProviderLimiter limiter(int initialConcurrency, int minConcurrency, int maxConcurrency,
+                                           long requestsPerMinute) {
+        RlmConfig.ProviderLimits limits = new RlmConfig.ProviderLimits();
+        limits.setInitialConcurrency(initialConcurrency);
+        limits.setMinConcurrency(minConcurrency);
+        limits.setMaxConcurrency(maxConcurrency);
+        limits.setRequestsPerMinute(requestsPerMinute);
+        return new ProviderLimiter("test", limits);
+    }
+
+    @Test
+    void callsBeyondTheConcurrencyLimitWaitForARelease() throws Exception {
+        ProviderLimiter limiter = limiter(1, 1, 0);
+        ProviderLimiter.Permit first = limiter.acquire(0, 100);
+
+        Future<ProviderLimiter.Permit> second = executor.submit(() -> limiter.acquire(0, 100));
+        assertThatThrownBy(() -> second.get(100, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+        first.release(10, false, null);
+
+        assertThat(second.get(5, TimeUnit.SECONDS)).isNotNull();
+        assertThat(limiter.stats()).containsEntry("inFlight", 1);
+    }
+
+    @Test
+    void waitersAreAdmittedByPriorityThenArrival() throws Exception {
+        // one call at a time, so the admission order is the order of the list
+        ProviderLimiter limiter = limiter(1, 1, 1, 0);
+        ProviderLimiter.Permit held = limiter.acquire(0, 100);
+        List<String> admitted = new CopyOnWriteArrayList<>();
+
+        enqueue(limiter, 2, "depth2-first", admitted);
+        enqueue(limiter, 2, "depth2-second", admitted);
+        enqueue(limiter, 1, "depth1", admitted);
+        held.release(10, false, null);
+
+        waitUntil(() -> admitted.size() == 3);
+        assertThat(admitted).containsExactly("depth1", "depth2-first", "depth2-second");
+    }
+
+    @Test
+    void rateLimitedResponseHalvesTheLimitDownToTheMinimum() throws Exception {
+        ProviderLimiter limiter = limiter(8, 3, 0);
+
+        limiter.acquire(0, 100).release(10, true, null);
+        assertThat(limiter.stats()).containsEntry("concurrencyLimit", 4).containsEntry("rateLimitedResponses", 1L);
+        limiter.acquire(0, 100).release(10, true, null);
+        assertThat(limiter.stats()).containsEntry("concurrencyLimit", 3);
+    }
+
+    @Test
+    void limitGrowsOnlyWhileItHoldsCallersBack() throws Exception {
+        ProviderLimiter limiter = limiter(2, 1, 0);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire(0, 100).release(10, false, null);
+        }
+        assertThat(limiter.stats()).containsEntry("concurrencyLimit", 2);
+
+        // additive increase of 1/limit per saturated release
+        for (int i = 0; i < 3; i++) {
+            ProviderLimiter.Permit a = limiter.acquire(0, 100);
+            ProviderLimiter.Permit b = limiter.acquire(0, 100);
+            a.release(10, false, null);
+            b.release(10, false, null);
+        }
+        assertThat(limiter.stats()).containsEntry("concurrencyLimit", 3);
+    }
+
+    @Test
+    void slowResponsesShrinkTheLimit() throws Exception {
+        ProviderLimiter limiter = limiter(8, 1, 0);
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire(0, 100).release(100, false, null);
+        }
+
+        limiter.acquire(0, 100).release(1_000, false, null);
+
+        assertThat(limiter.stats()).containsEntry("concurrencyLimit", 7);
+    }
+
+    @Test
+    void releasingAPermitTwiceCountsOnce() throws Exception {
+        ProviderLimiter limiter = limiter(2, 1, 0);
+        ProviderLimiter.Permit held = limiter.acquire(0, 100);
+        ProviderLimiter.Permit permit = limiter.acquire(0, 100);
+
+        permit.release(10, false, null);
+        permit.release(10, false, null);
+
+        assertThat(limiter.stats()).containsEntry("inFlight", 1);
+        held.release(10, false, null);
+    }
+
+    @Test
+    void exhaustedRequestBudgetHoldsCallsAndInterruptedWaiterLeavesTheQueue() throws Exception {
+        ProviderLimiter limiter = limiter(8, 1, 2);
+        limiter.acquire(0, 100).release(10, false, null);
+        limiter.acquire(0, 100).release(10, false, null);
+
+        Future<ProviderLimiter.Permit> third = executor.submit(() -> limiter.acquire(0, 100));
+        assertThatThrownBy(() -> third.get(100, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+        assertThat(limiter.stats()).containsEntry("queued", 1);
+        third.cancel(true);
+
+        waitUntil(() -> Integer.valueOf(0).equals(limiter.stats().get("queued")));
+        assertThat(limiter.stats()).containsEntry("inFlight", 0);
+    }
+
+    private void enqueue(ProviderLimiter limiter, int priority, String name, List<String> admitted) throws Exception {
+        int queued = (int) limiter.stats().get("queued");
+        executor.submit(() -> {
+            ProviderLimiter.Permit permit = limiter.acquire(priority, 100);
+            admitted.add(name);
+            permit.release(10, false, null);
+            return null;
+        });
+        waitUntil(() -> (int) limiter.stats().get("queued") == queued + 1);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not reached in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.oracle.rlm.scan;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AhoCorasickTest {
+
+    private static AhoCorasick compile(boolean foldCase, String... patterns) {
+        List<byte[]> bytes = new ArrayList<>();
+        for (String pattern : patterns) {
+            bytes.add(pattern.getBytes(StandardCharsets.UTF_8));
+        }
+        return AhoCorasick.compile(bytes, foldCase);
+    }
+
+    // End position and length of every accepting state reached, as "end:length".
+    private static List<String> matches(AhoCorasick ac, String text) {
+        List<String> found = new ArrayList<>();
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int state = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            state = ac.step(state, bytes[i]);
+            if (ac.matchLength(state) > 0) {
+                found.add(i + ":" + ac.matchLength(state));
+            }
+        }
+        return found;
+    }
+
+    @Test
+    void findsOverlappingPatternsThroughFailureLinks() {
+        AhoCorasick ac = compile(false, "he", "she", "his", "hers");
+
+        // "she" ends at 3 (and contains "he"), "hers" ends at 5
+        assertThat(matches(ac, "ushers")).containsExactly("3:3", "5:4");
+    }
+
+    @Test
+    void suffixPatternIsReportedInsideALongerPartialMatch() {
+        AhoCorasick ac = compile(false, "abcd", "bc");
+
+        assertThat(matches(ac, "xabcx")).containsExactly("3:2");
+        assertThat(matches(ac, "abcd")).containsExactly("2:2", "3:4");
+    }
+
+    @Test
+    void foldsAsciiCaseOnlyWhenAsked() {
+        AhoCorasick folded = compile(true, "Error");
+        AhoCorasick exact = compile(false, "Error");
+
+        assertThat(matches(folded, "ERROR error eRrOr")).containsExactly("4:5", "10:5", "16:5");
+        assertThat(matches(exact, "ERROR error Error")).containsExactly("16:5");
+    }
+
+    @Test
+    void leavesNonAsciiBytesUnfolded() {
+        AhoCorasick ac = compile(true, "café");
+
+        assertThat(matches(ac, "CAFÉ")).isEmpty();
+        assertThat(matches(ac, "CAFé")).containsExactly("4:5");
+    }
+}
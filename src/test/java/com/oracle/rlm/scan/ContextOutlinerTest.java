@@ -0,0 +1,78 @@
+package com.oracle.rlm.scan;
+
+import com.oracle.rlm.config.RlmConfig;
+import com.oracle.rlm.core.impl.ContextBlobStore;
+import com.oracle.rlm.core.impl.EnvironmentSettings;
+import com.oracle.rlm.core.impl.ExecutableRlmEnvironment;
+import com.oracle.rlm.core.impl.ExecutionScheduler;
+import com.oracle.rlm.core.impl.ProcessRunner;
+import com.oracle.rlm.core.impl.SandboxLauncher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContextOutlinerTest {
+
+    @TempDir
+    Path blobDir;
+
+    private ContextBlobStore blobStore;
+    private ExecutableRlmEnvironment env;
+
+    @BeforeEach
+    void setUp() {
+        blobStore = new ContextBlobStore(blobDir, true, Long.MAX_VALUE);
+        env = new ExecutableRlmEnvironment(UUID.randomUUID().toString(), "test",
+                SandboxLauncher.unsandboxed(new ProcessRunner(4096)), new ExecutionScheduler(1),
+                new ContextScanner(ForkJoinPool.commonPool()), blobStore, EnvironmentSettings.builder().build());
+        StringBuilder context = new StringBuilder();
+        for (int i = 1; i <= 2000; i++) {
+            context.append("# Heading ").append(i).append("\nbody of section ").append(i).append('\n');
+        }
+        env.setFullContext(context.toString());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        env.release();
+        FileSystemUtils.deleteRecursively(Path.of(env.getCurrentWorkingDirectory()));
+    }
+
+    private static RlmConfig config(int maxScanSeconds) {
+        RlmConfig config = new RlmConfig();
+        config.getOutline().setMinContextBytes(0);
+        config.getOutline().setMaxScanSeconds(maxScanSeconds);
+        return config;
+    }
+
+    @Test
+    void completeOutlineIsStoredWithTheBlob() {
+        String outline = new ContextOutliner(config(10), blobStore).outline(env);
+
+        assertThat(outline).contains("format: markdown").doesNotContain("only the start");
+        assertThat(blobStore.artifact(env.getContextHash(), ContextOutliner.ARTIFACT)).isPresent();
+    }
+
+    @Test
+    void partialOutlineIsNeitherStoredNorMemoized() {
+        RlmConfig config = config(0);
+        ContextOutliner outliner = new ContextOutliner(config, blobStore);
+
+        assertThat(outliner.outline(env)).contains("[outline covers only the start of the file]");
+        assertThat(blobStore.artifact(env.getContextHash(), ContextOutliner.ARTIFACT)).isEmpty();
+
+        // with time to finish, the next request builds again instead of serving the partial text
+        config.getOutline().setMaxScanSeconds(10);
+        assertThat(outliner.outline(env)).contains("format: markdown").doesNotContain("only the start");
+        assertThat(blobStore.artifact(env.getContextHash(), ContextOutliner.ARTIFACT)).isPresent();
+    }
+}
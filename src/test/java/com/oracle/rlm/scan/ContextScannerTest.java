@@ -0,0 +1,174 @@
+package com.oracle.rlm.scan;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContextScannerTest {
+
+    private static final int LINES = 60_000;
+
+    private static ForkJoinPool pool;
+    private static ContextScanner scanner;
+
+    @TempDir
+    static Path dir;
+
+    private static Path large;
+    private static String largeText;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        pool = new ForkJoinPool(4);
+        scanner = new ContextScanner(pool);
+        // ~5 MB, so the scan runs over several line-aligned segments; no trailing newline
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            if (i > 0) {
+                text.append('\n');
+            }
+            text.append(String.format("%06d ", i));
+            if (i % 3 == 0) {
+                text.append("été ");
+            }
+            if (i % 7 == 0) {
+                text.append("needle ");
+            }
+            if (i % 11 == 0) {
+                text.append("NeEdLe needle ");
+            }
+            text.append("filler text to pad the line out to a realistic width ").append(i % 97);
+        }
+        largeText = text.toString();
+        large = dir.resolve("large.txt");
+        Files.writeString(large, largeText);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void literalMatchesAcrossSegmentsCarryGlobalLinesAndOffsets() throws IOException {
+        ScanResult result = scanner.scan(large, ScanRequest.builder()
+                .pattern("needle").literal(true).limit(Integer.MAX_VALUE).build());
+
+        List<ScanMatch> expected = reference(largeText, line -> line.indexOf("needle"));
+        assertThat(result.getMatches()).hasSize(expected.size()).isEqualTo(expected);
+        assertThat(result.getMatchingLines()).isEqualTo(expected.size());
+        assertThat(result.getLines()).isEqualTo(LINES);
+        assertThat(result.getBytes()).isEqualTo(Files.size(large));
+        assertThat(result.isComplete()).isTrue();
+    }
+
+    @Test
+    void asciiCaseFoldingUsesTheDfaAndNonAsciiFallsBackToRegex() throws IOException {
+        ScanResult folded = scanner.scan(large, ScanRequest.builder()
+                .pattern("NEEDLE").literal(true).ignoreCase(true).limit(Integer.MAX_VALUE).build());
+        ScanResult accented = scanner.scan(large, ScanRequest.builder()
+                .pattern("ÉTÉ").literal(true).ignoreCase(true).limit(Integer.MAX_VALUE).build());
+
+        assertThat(folded.getMatches())
+                .isEqualTo(reference(largeText, line -> line.toLowerCase().indexOf("needle")));
+        assertThat(accented.getMatches()).isEqualTo(reference(largeText, line -> line.indexOf("été")));
+    }
+
+    @Test
+    void regexAndLiteralAlternationAgree() throws IOException {
+        ScanResult alternation = scanner.scan(large, ScanRequest.builder()
+                .pattern("needle|NeEdLe").limit(Integer.MAX_VALUE).build());
+        ScanResult regex = scanner.scan(large, ScanRequest.builder()
+                .pattern("ne+dle|N[e]EdLe").limit(Integer.MAX_VALUE).build());
+
+        Pattern pattern = Pattern.compile("needle|NeEdLe");
+        List<ScanMatch> expected = reference(largeText, line -> {
+            Matcher m = pattern.matcher(line);
+            return m.find() ? m.start() : -1;
+        });
+        assertThat(alternation.getMatches()).isEqualTo(expected);
+        assertThat(regex.getMatches()).isEqualTo(expected);
+    }
+
+    @Test
+    void countsEveryOccurrenceWhenAsked() throws IOException {
+        ScanResult result = scanner.scan(large, ScanRequest.builder()
+                .pattern("needle").literal(true).countOccurrences(true).limit(1).build());
+
+        long expected = 0;
+        for (int i = 0; i < LINES; i++) {
+            expected += (i % 7 == 0 ? 1 : 0) + (i % 11 == 0 ? 1 : 0);
+        }
+        assertThat(result.getOccurrences()).isEqualTo(expected);
+        assertThat(result.getMatches()).hasSize(1);
+        assertThat(result.isComplete()).isTrue();
+    }
+
+    @Test
+    void topKStopsEarlyWithTheFirstMatchesByOffset() throws IOException {
+        ScanResult result = scanner.scan(large, ScanRequest.builder()
+                .pattern("needle").literal(true).limit(5).countAll(false).build());
+
+        assertThat(result.getMatches()).extracting(ScanMatch::getLineNumber).containsExactly(1L, 8L, 12L, 15L, 22L);
+        assertThat(result.isComplete()).isFalse();
+        assertThat(result.isTimedOut()).isFalse();
+        assertThat(result.getMatchingLines()).isLessThan(reference(largeText, line -> line.indexOf("needle")).size());
+    }
+
+    @Test
+    void topKStillFindsMatchesThatOnlyOccurInTheLastSegment() throws IOException {
+        Path file = dir.resolve("tail.txt");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            text.append(String.format("%06d filler text to pad the line out to a realistic width\n", i));
+        }
+        text.append("the only rare match\nand another rare one\n");
+        Files.writeString(file, text);
+
+        ScanResult result = scanner.scan(file, ScanRequest.builder()
+                .pattern("rare").literal(true).limit(1).countAll(false).build());
+
+        assertThat(result.getMatches()).extracting(ScanMatch::getLineNumber).containsExactly(LINES + 1L);
+        assertThat(result.isComplete()).isFalse();
+    }
+
+    @Test
+    void emptyPatternCountsLinesWithAndWithoutTrailingNewline() throws IOException {
+        Path terminated = dir.resolve("terminated.txt");
+        Files.writeString(terminated, largeText + "\n");
+
+        assertThat(scanner.scan(large, ScanRequest.builder().build()).getLines()).isEqualTo(LINES);
+        assertThat(scanner.scan(terminated, ScanRequest.builder().build()).getLines()).isEqualTo(LINES);
+    }
+
+    // Naive single-threaded scan: the first match per line, as ContextScanner reports it.
+    private static List<ScanMatch> reference(String text, Function<String, Integer> firstMatch) {
+        List<ScanMatch> matches = new ArrayList<>();
+        long offset = 0;
+        long lineNumber = 0;
+        for (String line : text.split("\n", -1)) {
+            lineNumber++;
+            int column = firstMatch.apply(line);
+            if (column >= 0) {
+                long matchOffset = offset + line.substring(0, column).getBytes(StandardCharsets.UTF_8).length;
+                matches.add(new ScanMatch(lineNumber, offset, matchOffset, line, column));
+            }
+            offset += line.getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+        return matches;
+    }
+}
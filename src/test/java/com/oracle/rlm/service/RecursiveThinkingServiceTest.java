@@ -0,0 +1,80 @@
+package com.oracle.rlm.service;
+
+import com.oracle.rlm.model.RecursionStep;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecursiveThinkingServiceTest {
+
+    private static RecursionStep step(String id, int depth, RecursionStep... subSteps) {
+        List<RecursionStep> children = new ArrayList<>(List.of(subSteps));
+        children.forEach(child -> child.setParentStepId(id));
+        return RecursionStep.builder().stepId(id).depth(depth).subSteps(children).build();
+    }
+
+    // decompose -> (decompose -> solve), solve
+    private static RecursionStep twoLevels() {
+        return step("a", 1, step("b", 2, step("c", 3)), step("d", 2));
+    }
+
+    @Test
+    void heightCountsLevelsBelowTheStep() {
+        assertThat(RecursiveThinkingService.height(step("x", 0))).isZero();
+        assertThat(RecursiveThinkingService.height(twoLevels())).isEqualTo(2);
+    }
+
+    @Test
+    void placedCopyShiftsDepthAndTakesFreshIds() {
+        RecursionStep original = twoLevels();
+
+        RecursionStep copy = RecursiveThinkingService.placed(original, "parent", 4);
+
+        assertThat(copy.getParentStepId()).isEqualTo("parent");
+        assertThat(copy.getDepth()).isEqualTo(4);
+        assertThat(copy.getSubSteps().get(0).getDepth()).isEqualTo(5);
+        assertThat(copy.getSubSteps().get(0).getSubSteps().get(0).getDepth()).isEqualTo(6);
+        assertThat(copy.getSubSteps().get(0).getParentStepId()).isEqualTo(copy.getStepId());
+        assertThat(copy.getSubSteps().get(0).getSubSteps().get(0).getParentStepId())
+                .isEqualTo(copy.getSubSteps().get(0).getStepId());
+
+        Set<String> ids = new HashSet<>();
+        collectIds(original, ids);
+        collectIds(copy, ids);
+        assertThat(ids).hasSize(8);
+        assertThat(original.getDepth()).isEqualTo(1);
+        assertThat(original.getStepId()).isEqualTo("a");
+    }
+
+    @Test
+    void subtreeIsReusedOnlyWhereItFitsTheDepthLimit() {
+        // solved with 3 levels left, used 2
+        RecursiveThinkingService.SharedStep shared = new RecursiveThinkingService.SharedStep(twoLevels(), 3);
+
+        assertThat(shared.fits(3)).isTrue();
+        assertThat(shared.fits(2)).isTrue();
+        assertThat(shared.fits(1)).isFalse();
+        assertThat(shared.fits(5)).isTrue();
+    }
+
+    @Test
+    void subtreeCutShortByItsDepthLimitIsNotReusedWithMoreDepth() {
+        // solved with 2 levels left and used both: it may have stopped only for lack of depth
+        RecursiveThinkingService.SharedStep shared = new RecursiveThinkingService.SharedStep(twoLevels(), 2);
+
+        assertThat(shared.fits(2)).isTrue();
+        assertThat(shared.fits(3)).isFalse();
+        assertThat(new RecursiveThinkingService.SharedStep(step("leaf", 3), 0).fits(1)).isFalse();
+        assertThat(new RecursiveThinkingService.SharedStep(step("leaf", 3), 2).fits(0)).isTrue();
+    }
+
+    private static void collectIds(RecursionStep step, Set<String> ids) {
+        ids.add(step.getStepId());
+        step.getSubSteps().forEach(child -> collectIds(child, ids));
+    }
+}
@@ -0,0 +1,86 @@
+package com.oracle.rlm.tools;
+
+import com.oracle.rlm.core.ToolResult;
+import com.oracle.rlm.core.impl.ExecutableRlmEnvironment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadFileToolTest {
+
+    private final ReadFileTool tool = new ReadFileTool();
+    private ExecutableRlmEnvironment env;
+
+    @BeforeEach
+    void setUp() {
+        env = new ExecutableRlmEnvironment(UUID.randomUUID().toString(), "test");
+        StringBuilder content = new StringBuilder();
+        for (int i = 1; i <= 5000; i++) {
+            content.append("line ").append(i).append('\n');
+        }
+        env.writeFile("data.txt", content.toString());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(Path.of(env.getCurrentWorkingDirectory()));
+    }
+
+    @Test
+    void readsWholeFileWithoutRange() {
+        ToolResult result = tool.execute(env, "read_file(\"data.txt\")", Duration.ofSeconds(5));
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getOutput()).startsWith("line 1\n").endsWith("line 5000\n");
+    }
+
+    @Test
+    void readsOnlyTheRequestedLines() {
+        ToolResult result = tool.execute(env, "read_file('data.txt', 4998, 5003)", Duration.ofSeconds(5));
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getOutput()).isEqualTo("line 4998\nline 4999\nline 5000\n");
+    }
+
+    @Test
+    void rejectsInvertedRangeAndMissingFile() {
+        assertThat(tool.execute(env, "read_file(\"data.txt\", 5, 2)", null).isSuccess()).isFalse();
+        assertThat(tool.execute(env, "read_file(\"missing.txt\", 1, 2)", null).isSuccess()).isFalse();
+    }
+
+    @Test
+    void rejectsPathsOutsideTheWorkspace() throws IOException {
+        Path workDir = Path.of(env.getCurrentWorkingDirectory());
+        Files.createSymbolicLink(workDir.resolve("escape"), Path.of("/etc"));
+
+        for (String name : List.of("/etc/passwd", "../pom.xml", "sub/../../pom.xml", "escape/hostname")) {
+            ToolResult ranged = tool.execute(env, "read_file(\"" + name + "\", 1, 100)", Duration.ofSeconds(5));
+            ToolResult whole = tool.execute(env, "read_file(\"" + name + "\")", Duration.ofSeconds(5));
+
+            assertThat(ranged.isSuccess()).as(name).isFalse();
+            assertThat(ranged.getOutput()).as(name).isNull();
+            assertThat(whole.isSuccess()).as(name).isFalse();
+            assertThat(whole.getOutput()).as(name).isNull();
+        }
+        assertThat(tool.execute(env, "read_file(\"./sub/../data.txt\", 1, 1)", null).getOutput())
+                .isEqualTo("line 1\n");
+    }
+
+    @Test
+    void recognizesLineRanges() {
+        assertThat(ReadFileTool.hasLineRange("read_file(\"context.txt\", 1, 20)")).isTrue();
+        assertThat(ReadFileTool.hasLineRange("read_file(\"context.txt\")")).isFalse();
+        assertThat(ReadFileTool.hasLineRange("context.txt")).isFalse();
+        assertThat(ReadFileTool.normalizeReadFileCode("read_file('a.txt', 1, 2)")).isEqualTo("a.txt");
+    }
+}
@@ -0,0 +1,192 @@
+package com.oracle.rlm.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneExecution() throws Exception {
+        SingleFlight<String> flights = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        Future<SingleFlight.Flight<String>> leader = executor.submit(() -> flights.execute("k", () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "value";
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        List<Future<SingleFlight.Flight<String>>> waiters = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            waiters.add(executor.submit(() -> flights.execute("k", () -> {
+                runs.incrementAndGet();
+                return "other";
+            })));
+        }
+        waitUntil(() -> flights.getJoinedInFlight() == 4);
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS).isShared()).isFalse();
+        for (Future<SingleFlight.Flight<String>> waiter : waiters) {
+            SingleFlight.Flight<String> flight = waiter.get(5, TimeUnit.SECONDS);
+            assertThat(flight.getValue()).isEqualTo("value");
+            assertThat(flight.isShared()).isTrue();
+        }
+        assertThat(runs).hasValue(1);
+        assertThat(flights.getExecuted()).isEqualTo(1);
+    }
+
+    @Test
+    void completedResultIsServedToLaterCallers() {
+        SingleFlight<String> flights = new SingleFlight<>();
+        flights.execute("k", () -> "first");
+
+        SingleFlight.Flight<String> later = flights.execute("k", () -> "second");
+
+        assertThat(later.getValue()).isEqualTo("first");
+        assertThat(later.isShared()).isTrue();
+        assertThat(flights.getServedCompleted()).isEqualTo(1);
+        assertThat(flights.execute("other", () -> "third").isShared()).isFalse();
+    }
+
+    @Test
+    void failureReachesWaitersAndIsNotStored() throws Exception {
+        SingleFlight<String> flights = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<?> leader = executor.submit(() -> flights.execute("k", () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("boom");
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<SingleFlight.Flight<String>> waiter = executor.submit(() -> flights.execute("k", () -> "other"));
+        waitUntil(() -> flights.getJoinedInFlight() == 1);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS)).hasRootCauseMessage("boom");
+        assertThat(flights.size()).isZero();
+        assertThat(flights.execute("k", () -> "retried").getValue()).isEqualTo("retried");
+    }
+
+    @Test
+    void zeroTtlOnlyCoalescesInFlightCalls() {
+        SingleFlight<String> flights = new SingleFlight<>(Duration.ZERO, 100);
+        flights.execute("k", () -> "first");
+
+        SingleFlight.Flight<String> later = flights.execute("k", () -> "second");
+
+        assertThat(later.getValue()).isEqualTo("second");
+        assertThat(later.isShared()).isFalse();
+        assertThat(flights.size()).isZero();
+    }
+
+    @Test
+    void completedResultExpiresAfterTtl() throws Exception {
+        SingleFlight<String> flights = new SingleFlight<>(Duration.ofMillis(50), 100);
+        flights.execute("k", () -> "first");
+        assertThat(flights.execute("k", () -> "second").getValue()).isEqualTo("first");
+
+        Thread.sleep(80);
+
+        assertThat(flights.execute("k", () -> "third").getValue()).isEqualTo("third");
+    }
+
+    @Test
+    void expiredEntriesArePurgedPastTheThreshold() throws Exception {
+        SingleFlight<String> flights = new SingleFlight<>(Duration.ofMillis(20), 2);
+        flights.execute("a", () -> "a");
+        flights.execute("b", () -> "b");
+        Thread.sleep(40);
+
+        flights.execute("c", () -> "c");
+
+        assertThat(flights.size()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectedResultGoesOnlyToItsWaiters() throws Exception {
+        SingleFlight<String> flights = new SingleFlight<>(Duration.ofMinutes(1), 100,
+                value -> !value.startsWith("partial"));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<SingleFlight.Flight<String>> leader = executor.submit(() -> flights.execute("k", () -> {
+            started.countDown();
+            await(release);
+            return "partial answer";
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<SingleFlight.Flight<String>> waiter = executor.submit(() -> flights.execute("k", () -> "other"));
+        waitUntil(() -> flights.getJoinedInFlight() == 1);
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS).getValue()).isEqualTo("partial answer");
+        assertThat(waiter.get(5, TimeUnit.SECONDS).getValue()).isEqualTo("partial answer");
+        SingleFlight.Flight<String> later = flights.execute("k", () -> "complete answer");
+        assertThat(later.getValue()).isEqualTo("complete answer");
+        assertThat(later.isShared()).isFalse();
+        assertThat(flights.execute("k", () -> "again").getValue()).isEqualTo("complete answer");
+    }
+
+    @Test
+    void waiterGivesUpAfterMaxWait() throws Exception {
+        SingleFlight<String> flights = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> leader = executor.submit(() -> flights.execute("k", () -> {
+            started.countDown();
+            await(release);
+            return "late";
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> flights.execute("k", () -> "other", Duration.ofMillis(30)))
+                .isInstanceOf(SingleFlight.WaitTimeoutException.class);
+        release.countDown();
+        leader.get(5, TimeUnit.SECONDS);
+        assertThat(flights.execute("k", () -> "other", Duration.ofMillis(30)).getValue()).isEqualTo("late");
+    }
+
+    static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not reached in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}